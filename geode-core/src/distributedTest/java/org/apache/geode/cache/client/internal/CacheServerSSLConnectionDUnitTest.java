@@ -153,8 +153,13 @@ public class CacheServerSSLConnectionDUnitTest extends JUnit4DistributedTestCase
   }
 
   private int createServer() throws IOException {
+    return createServer(0);
+  }
+
+  private int createServer(int maxThreads) throws IOException {
     cacheServer = cache.addCacheServer();
     cacheServer.setPort(0);
+    cacheServer.setMaxThreads(maxThreads);
     cacheServer.start();
     hostName = cacheServer.getHostnameForClients();
     cacheServerPort = cacheServer.getPort();
@@ -302,6 +307,14 @@ public class CacheServerSSLConnectionDUnitTest extends JUnit4DistributedTestCase
     assertEquals("clientvalue", region.get("clientkey"));
   }
 
+  public void doManyClientOperations() {
+    Region<String, String> region = clientCache.getRegion("serverRegion");
+    for (int i = 0; i < 200; i++) {
+      region.put("clientkey" + i, "clientvalue" + i);
+      assertEquals("clientvalue" + i, region.get("clientkey" + i));
+    }
+  }
+
   public void doServerRegionTest() {
     Region<String, String> region = cache.getRegion("serverRegion");
     assertEquals("servervalue", region.get("serverkey"));
@@ -317,6 +330,14 @@ public class CacheServerSSLConnectionDUnitTest extends JUnit4DistributedTestCase
     return instance.createServer();
   }
 
+  public static int createServerWithSelectorTask() throws Exception {
+    return instance.createServer(2);
+  }
+
+  public static void doManyClientOperationsTask() {
+    instance.doManyClientOperations();
+  }
+
   public static void setUpClientVMTask(String host, int port, boolean cacheServerSslenabled,
       boolean cacheServerSslRequireAuth, String keyStore, String trustStore,
       boolean clientHasTrustedKeystore) throws Exception {
@@ -388,6 +409,24 @@ public class CacheServerSSLConnectionDUnitTest extends JUnit4DistributedTestCase
     serverVM.invoke(() -> doServerRegionTestTask());
   }
 
+  @Test
+  public void testCacheServerSSLWithSelector() throws Exception {
+    final Host host = Host.getHost(0);
+    VM serverVM = host.getVM(1);
+    VM clientVM = host.getVM(2);
+
+    serverVM.invoke(() -> setUpServerVMTask(true));
+    int port = serverVM.invoke(() -> createServerWithSelectorTask());
+
+    String hostName = host.getHostName();
+
+    clientVM.invoke(() -> setUpClientVMTask(hostName, port, true, true, CLIENT_KEY_STORE,
+        CLIENT_TRUST_STORE, true));
+    clientVM.invoke(() -> doClientRegionTestTask());
+    clientVM.invoke(() -> doManyClientOperationsTask());
+    serverVM.invoke(() -> doServerRegionTestTask());
+  }
+
   /**
    * GEODE-2898: A non-responsive SSL client can block a server's "acceptor" thread
    * <p>
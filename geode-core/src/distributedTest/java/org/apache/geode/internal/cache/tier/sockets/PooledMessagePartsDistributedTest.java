@@ -0,0 +1,154 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.internal.cache.tier.sockets;
+
+import static org.apache.geode.test.dunit.Disconnect.disconnectAllFromDS;
+import static org.apache.geode.test.dunit.Invoke.invokeInEveryVM;
+import static org.apache.geode.test.dunit.VM.getHostName;
+import static org.apache.geode.test.dunit.VM.getVM;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.Arrays;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import org.apache.geode.cache.CacheFactory;
+import org.apache.geode.cache.Region;
+import org.apache.geode.cache.RegionShortcut;
+import org.apache.geode.cache.client.ClientCacheFactory;
+import org.apache.geode.cache.client.ClientRegionShortcut;
+import org.apache.geode.cache.client.internal.InternalClientCache;
+import org.apache.geode.cache.server.CacheServer;
+import org.apache.geode.internal.HeapBufferPool;
+import org.apache.geode.internal.HeapDataOutputStream;
+import org.apache.geode.internal.Version;
+import org.apache.geode.internal.cache.InternalCache;
+import org.apache.geode.test.dunit.VM;
+import org.apache.geode.test.dunit.rules.DistributedRule;
+import org.apache.geode.test.junit.categories.ClientServerTest;
+
+/**
+ * Verifies that client operations release every pooled buffer used to serialize their messages,
+ * on the client and on the server, by running them with {@link HeapBufferPool#DETECT_LEAKS} on.
+ */
+@Category(ClientServerTest.class)
+@SuppressWarnings("serial")
+public class PooledMessagePartsDistributedTest implements Serializable {
+
+  private static final String REGION_NAME = "region";
+
+  private static InternalCache cache;
+  private static InternalClientCache clientCache;
+
+  private VM server;
+  private VM client;
+
+  @Rule
+  public DistributedRule distributedRule = new DistributedRule();
+
+  @Before
+  public void setUp() throws Exception {
+    server = getVM(0);
+    client = getVM(1);
+
+    invokeInEveryVM(() -> HeapBufferPool.DETECT_LEAKS = true);
+
+    String hostName = getHostName();
+    int serverPort = server.invoke(() -> createServerCache());
+    client.invoke(() -> createClientCache(hostName, serverPort));
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    disconnectAllFromDS();
+
+    invokeInEveryVM(() -> {
+      HeapBufferPool.DETECT_LEAKS = false;
+      cache = null;
+      clientCache = null;
+    });
+  }
+
+  @Test
+  public void clientOperationsDoNotLeakPooledBuffers() {
+    long serverLeaks = server.invoke(() -> HeapBufferPool.getLeaksDetected());
+    long clientLeaks = client.invoke(() -> HeapBufferPool.getLeaksDetected());
+    long serverBuffersUsed = server.invoke(() -> getBuffersUsed());
+
+    client.invoke(() -> {
+      Region<Integer, String[]> region = clientCache.getRegion(REGION_NAME);
+      for (int i = 0; i < 100; i++) {
+        region.put(i, createValue(i));
+      }
+      for (int i = 0; i < 100; i++) {
+        assertThat(region.get(i)).isEqualTo(createValue(i));
+      }
+      assertThat(region.getAll(region.keySetOnServer())).hasSize(100);
+    });
+
+    assertThat(server.invoke(() -> getBuffersUsed())).isGreaterThan(serverBuffersUsed);
+
+    assertThat(server.invoke(() -> reportLeaks())).isEqualTo(serverLeaks);
+    assertThat(client.invoke(() -> reportLeaks())).isEqualTo(clientLeaks);
+  }
+
+  private int createServerCache() throws IOException {
+    cache = (InternalCache) new CacheFactory().create();
+
+    cache.createRegionFactory(RegionShortcut.REPLICATE).create(REGION_NAME);
+
+    CacheServer cacheServer = cache.addCacheServer();
+    cacheServer.setPort(0);
+    cacheServer.start();
+    return cacheServer.getPort();
+  }
+
+  private void createClientCache(final String hostName, final int port) {
+    clientCache =
+        (InternalClientCache) new ClientCacheFactory().addPoolServer(hostName, port).create();
+
+    clientCache.createClientRegionFactory(ClientRegionShortcut.PROXY).create(REGION_NAME);
+  }
+
+  private static String[] createValue(int i) {
+    String[] value = new String[100];
+    Arrays.fill(value, "value-" + i);
+    return value;
+  }
+
+  private static long getBuffersUsed() {
+    return HeapBufferPool.getBuffersAllocated() + HeapBufferPool.getBuffersReused();
+  }
+
+  /**
+   * Collects the garbage so that the pooled streams that were dropped without being released are
+   * reported, and returns the number of leaks detected.
+   */
+  private static long reportLeaks() throws InterruptedException {
+    for (int i = 0; i < 5; i++) {
+      System.gc();
+      Thread.sleep(100);
+      // creating a tracked stream reports the leaks found so far
+      HeapDataOutputStream.pooled(1024, Version.CURRENT).release();
+    }
+    return HeapBufferPool.getLeaksDetected();
+  }
+}
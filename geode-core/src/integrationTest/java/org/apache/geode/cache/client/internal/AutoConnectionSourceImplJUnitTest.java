@@ -37,6 +37,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
@@ -653,6 +654,10 @@ public class AutoConnectionSourceImplJUnitTest {
       return null;
     }
 
+    public CompletableFuture<Object> executeAsync(Op op) {
+      return null;
+    }
+
     public QueryService getQueryService() {
       return null;
     }
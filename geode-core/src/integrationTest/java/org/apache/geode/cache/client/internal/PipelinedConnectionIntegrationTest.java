@@ -0,0 +1,271 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.cache.client.internal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import org.apache.geode.cache.client.internal.pooling.ConnectionDestroyedException;
+import org.apache.geode.distributed.internal.ServerLocation;
+import org.apache.geode.internal.Version;
+import org.apache.geode.internal.cache.tier.MessageType;
+import org.apache.geode.internal.cache.tier.sockets.Message;
+import org.apache.geode.internal.cache.tier.sockets.MessageStats;
+import org.apache.geode.test.junit.categories.ClientServerTest;
+import org.apache.geode.test.junit.rules.ExecutorServiceRule;
+
+/**
+ * Runs concurrent callers on one {@link PipelinedConnection} against a stub server that reads the
+ * requests of a connection as they arrive and answers them one at a time, in order, like a cache
+ * server does.
+ */
+@Category({ClientServerTest.class})
+public class PipelinedConnectionIntegrationTest {
+
+  private static final int THREADS = 8;
+
+  @Rule
+  public ExecutorServiceRule executorServiceRule = new ExecutorServiceRule();
+
+  private ServerSocket serverSocket;
+  private Socket clientSocket;
+  private StubServer server;
+  private PipelinedConnection pipelinedConnection;
+
+  @Before
+  public void setUp() throws Exception {
+    serverSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+    Future<Socket> accepted = executorServiceRule.submit(() -> serverSocket.accept());
+    clientSocket = new Socket(InetAddress.getLoopbackAddress(), serverSocket.getLocalPort());
+    server = new StubServer(accepted.get(10, TimeUnit.SECONDS));
+    executorServiceRule.execute(server::readRequests);
+    executorServiceRule.execute(server::writeResponses);
+
+    Connection connection = mock(Connection.class);
+    when(connection.getSocket()).thenReturn(clientSocket);
+    when(connection.getInputStream()).thenReturn(clientSocket.getInputStream());
+    when(connection.getOutputStream()).thenReturn(clientSocket.getOutputStream());
+    when(connection.getCommBuffer()).thenReturn(ByteBuffer.allocate(8192));
+    when(connection.getStats()).thenReturn(mock(ConnectionStats.class));
+    when(connection.getEndpoint()).thenReturn(mock(Endpoint.class));
+    when(connection.getServer())
+        .thenReturn(new ServerLocation("localhost", serverSocket.getLocalPort()));
+    pipelinedConnection = new PipelinedConnection(mock(Connection.class), connection);
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    server.holdLatch.countDown();
+    clientSocket.close();
+    server.socket.close();
+    serverSocket.close();
+  }
+
+  @Test
+  public void concurrentCallersEachGetTheResponseToTheirOwnRequest() throws Exception {
+    final int opsPerThread = 200;
+    List<Future<List<String>>> futures = new ArrayList<>();
+    for (int t = 0; t < THREADS; t++) {
+      final int thread = t;
+      futures.add(executorServiceRule.submit(() -> {
+        List<String> mismatches = new ArrayList<>();
+        for (int i = 0; i < opsPerThread; i++) {
+          String key = "key-" + thread + "-" + i;
+          Object result = pipelinedConnection.execute(new EchoOp(key));
+          if (!key.equals(result)) {
+            mismatches.add(key + "=" + result);
+          }
+        }
+        return mismatches;
+      }));
+    }
+
+    for (Future<List<String>> future : futures) {
+      assertThat(future.get(60, TimeUnit.SECONDS)).isEmpty();
+    }
+    assertThat(server.requestsRead.get()).isEqualTo(THREADS * opsPerThread);
+    assertThat(pipelinedConnection.isBroken()).isFalse();
+  }
+
+  @Test
+  public void failureInTheMiddleOfThePipelineFailsTheOpsSentAfterIt() throws Exception {
+    Future<Object> before = executorServiceRule.submit(() -> execute("hold"));
+    await().atMost(30, TimeUnit.SECONDS).until(() -> server.requestsRead.get() == 1);
+    Future<Object> failing = executorServiceRule.submit(() -> execute("fail"));
+    await().atMost(30, TimeUnit.SECONDS).until(() -> server.requestsRead.get() == 2);
+    List<Future<Object>> after = new ArrayList<>();
+    for (int i = 0; i < THREADS; i++) {
+      final String key = "after-" + i;
+      after.add(executorServiceRule.submit(() -> execute(key)));
+    }
+    await().atMost(30, TimeUnit.SECONDS)
+        .until(() -> server.requestsRead.get() == 2 + THREADS);
+
+    server.holdLatch.countDown();
+
+    assertThat(before.get(30, TimeUnit.SECONDS)).isEqualTo("hold");
+    assertThatThrownBy(() -> failing.get(30, TimeUnit.SECONDS))
+        .hasCauseInstanceOf(IOException.class);
+    for (Future<Object> future : after) {
+      assertThatThrownBy(() -> future.get(30, TimeUnit.SECONDS))
+          .isInstanceOf(ExecutionException.class);
+    }
+    assertThat(pipelinedConnection.isBroken()).isTrue();
+    assertThatThrownBy(() -> execute("next")).isInstanceOf(ConnectionDestroyedException.class);
+  }
+
+  @Test
+  public void closeHandsBackTheConnectionOnlyOnceNoOpIsInFlight() throws Exception {
+    EchoOp op = new EchoOp("hold");
+    Future<Object> inFlight = executorServiceRule.submit(() -> pipelinedConnection.execute(op));
+    assertThat(op.reading.await(30, TimeUnit.SECONDS)).isTrue();
+    AtomicBoolean handedBack = new AtomicBoolean();
+
+    pipelinedConnection.close(() -> handedBack.set(true));
+
+    assertThat(handedBack.get()).isFalse();
+    assertThatThrownBy(() -> execute("rejected"))
+        .isInstanceOf(ConnectionDestroyedException.class);
+
+    server.holdLatch.countDown();
+
+    assertThat(inFlight.get(30, TimeUnit.SECONDS)).isEqualTo("hold");
+    assertThat(handedBack.get()).isTrue();
+  }
+
+  private Object execute(String key) throws Exception {
+    return pipelinedConnection.execute(new EchoOp(key));
+  }
+
+  /**
+   * Sends its key and returns the key in the response.
+   */
+  private static class EchoOp extends AbstractOp {
+    private final CountDownLatch reading = new CountDownLatch(1);
+
+    EchoOp(String key) {
+      super(MessageType.PING, 1);
+      getMessage().addStringPart(key);
+    }
+
+    @Override
+    protected Message createResponseMessage() {
+      reading.countDown();
+      return super.createResponseMessage();
+    }
+
+    @Override
+    protected Object processResponse(Message msg) throws Exception {
+      return msg.getPart(0).getString();
+    }
+
+    @Override
+    protected boolean isErrorResponse(int msgType) {
+      return false;
+    }
+
+    @Override
+    protected long startAttempt(ConnectionStats stats) {
+      return 0;
+    }
+
+    @Override
+    protected void endSendAttempt(ConnectionStats stats, long start) {}
+
+    @Override
+    protected void endAttempt(ConnectionStats stats, long start) {}
+  }
+
+  /**
+   * Reads requests as they arrive and answers them in order. The response to a "hold" request waits
+   * for holdLatch and a "fail" request closes the connection without an answer.
+   */
+  private static class StubServer {
+    private final Socket socket;
+    private final BlockingQueue<String> requests = new LinkedBlockingQueue<>();
+    private final AtomicInteger requestsRead = new AtomicInteger();
+    private final CountDownLatch holdLatch = new CountDownLatch(1);
+    private final MessageStats stats = mock(MessageStats.class);
+
+    StubServer(Socket socket) {
+      this.socket = socket;
+    }
+
+    void readRequests() {
+      try {
+        ByteBuffer buffer = ByteBuffer.allocate(8192);
+        while (!socket.isClosed()) {
+          Message request = new Message(1, Version.CURRENT);
+          request.setComms(socket, socket.getInputStream(), socket.getOutputStream(), buffer,
+              stats);
+          request.receive();
+          requests.put(request.getPart(0).getString());
+          requestsRead.incrementAndGet();
+        }
+      } catch (IOException | InterruptedException ignored) {
+        // the connection was closed
+      }
+    }
+
+    void writeResponses() {
+      try {
+        ByteBuffer buffer = ByteBuffer.allocate(8192);
+        while (!socket.isClosed()) {
+          String key = requests.take();
+          if (key.equals("fail")) {
+            socket.close();
+            return;
+          }
+          if (key.equals("hold")) {
+            holdLatch.await();
+          }
+          Message response = new Message(1, Version.CURRENT);
+          response.setMessageType(MessageType.RESPONSE);
+          response.addStringPart(key);
+          response.setComms(socket, socket.getInputStream(), socket.getOutputStream(), buffer,
+              stats);
+          response.send();
+        }
+      } catch (IOException | InterruptedException ignored) {
+        // the connection was closed
+      }
+    }
+  }
+}
@@ -34,6 +34,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 
@@ -317,6 +318,10 @@ public class QueueManagerJUnitTest {
       return null;
     }
 
+    public CompletableFuture<Object> executeAsync(Op op) {
+      return null;
+    }
+
     public Object execute(Op op) {
       return null;
     }
@@ -665,6 +670,11 @@ public class QueueManagerJUnitTest {
       return 0;
     }
 
+    @Override
+    public int getWireCompressionThreshold() {
+      return 0;
+    }
+
     @Override
     public ByteBuffer getCommBuffer() {
       return null;
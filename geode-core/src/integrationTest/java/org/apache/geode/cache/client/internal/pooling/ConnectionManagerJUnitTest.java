@@ -159,6 +159,48 @@ public class ConnectionManagerJUnitTest {
     }
   }
 
+  @Test
+  public void borrowConnectionReturnsMostRecentlyUsedConnectionByDefault() throws Exception {
+    assertThat(ConnectionManagerImpl.LEAST_LOADED_CANDIDATES).isEqualTo(1);
+
+    assertThat(borrowFromBusyAndIdleServer()).isEqualTo(new ServerLocation("localhost", 1));
+  }
+
+  @Test
+  public void borrowConnectionReturnsConnectionToLeastLoadedServerWhenConfigured()
+      throws Exception {
+    int candidates = ConnectionManagerImpl.LEAST_LOADED_CANDIDATES;
+    ConnectionManagerImpl.LEAST_LOADED_CANDIDATES = 2;
+    try {
+      assertThat(borrowFromBusyAndIdleServer()).isEqualTo(new ServerLocation("localhost", 2));
+    } finally {
+      ConnectionManagerImpl.LEAST_LOADED_CANDIDATES = candidates;
+    }
+  }
+
+  /**
+   * Makes the most recently used available connection one to a server with an outstanding request
+   * and the other one to an idle server, and returns the server of the connection borrowed next.
+   */
+  private ServerLocation borrowFromBusyAndIdleServer() throws Exception {
+    manager = new ConnectionManagerImpl("pool", factory, endpointManager, 2, 0, -1, -1, logger,
+        60 * 1000, cancelCriterion, poolStats);
+    manager.start(background);
+    factory.nextServer = new ServerLocation("localhost", 1);
+    Connection busy = manager.borrowConnection(0);
+    factory.nextServer = new ServerLocation("localhost", 2);
+    Connection idle = manager.borrowConnection(0);
+    manager.returnConnection(idle);
+    manager.returnConnection(busy);
+
+    busy.getEndpoint().requestStarted();
+    try {
+      return manager.borrowConnection(0).getServer();
+    } finally {
+      busy.getEndpoint().requestEnded(0);
+    }
+  }
+
   @Test
   public void testPrefill() throws InterruptedException {
     manager = new ConnectionManagerImpl("pool", factory, endpointManager, 10, 2, -1, -1, logger,
@@ -952,6 +994,10 @@ public class ConnectionManagerJUnitTest {
           return -1;
         }
 
+        public int getWireCompressionThreshold() {
+          return 0;
+        }
+
         public void setWanSiteVersion(short wanSiteVersion) {}
 
         public InputStream getInputStream() {
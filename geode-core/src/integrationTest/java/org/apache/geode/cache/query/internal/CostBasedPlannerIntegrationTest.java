@@ -0,0 +1,140 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.cache.query.internal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import org.apache.geode.cache.Region;
+import org.apache.geode.cache.query.CacheUtils;
+import org.apache.geode.cache.query.Index;
+import org.apache.geode.cache.query.IndexType;
+import org.apache.geode.cache.query.QueryService;
+import org.apache.geode.cache.query.SelectResults;
+import org.apache.geode.cache.query.data.Portfolio;
+import org.apache.geode.cache.query.internal.index.CompactRangeIndex;
+import org.apache.geode.cache.query.internal.index.IndexKeyStatistics;
+import org.apache.geode.cache.query.internal.index.IndexProtocol;
+import org.apache.geode.cache.query.internal.parse.OQLLexerTokenTypes;
+import org.apache.geode.test.junit.categories.OQLQueryTest;
+
+@Category({OQLQueryTest.class})
+public class CostBasedPlannerIntegrationTest {
+
+  private QueryService queryService;
+
+  @Before
+  public void setUp() throws Exception {
+    CacheUtils.startCache();
+    queryService = CacheUtils.getQueryService();
+    CostBasedPlanner.ENABLED = true;
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    CostBasedPlanner.ENABLED = false;
+    QueryObserverHolder.reset();
+    CacheUtils.closeCache();
+  }
+
+  @Test
+  public void rangeEstimateFollowsSkewedKeys() throws Exception {
+    Region region = CacheUtils.createRegion("portfolios", Portfolio.class);
+    // 900 entries with IDs below 10 and 100 entries with IDs up to 10000
+    for (int i = 0; i < 1000; i++) {
+      Portfolio portfolio = new Portfolio(i);
+      portfolio.ID = i < 900 ? i % 10 : (i - 900) * 100;
+      region.put(i, portfolio);
+    }
+    IndexProtocol index = (IndexProtocol) queryService.createIndex("idIndex",
+        IndexType.FUNCTIONAL, "p.ID", "/portfolios p");
+    assertThat(index).isInstanceOf(CompactRangeIndex.class);
+
+    int estimate = index.getSizeEstimate(10, OQLLexerTokenTypes.TOK_GE, 0);
+    SelectResults results = (SelectResults) queryService
+        .newQuery("select * from /portfolios p where p.ID >= 10").execute();
+
+    assertThat(results.size()).isEqualTo(99);
+    assertThat(estimate).isBetween(99 - 20, 99 + 20);
+  }
+
+  @Test
+  public void staleKeyStatisticsAreRebuiltInTheBackground() throws Exception {
+    Region region = CacheUtils.createRegion("portfolios", Portfolio.class);
+    for (int i = 0; i < 100; i++) {
+      region.put(i, new Portfolio(i));
+    }
+    CompactRangeIndex index = (CompactRangeIndex) queryService.createIndex("idIndex",
+        IndexType.FUNCTIONAL, "p.ID", "/portfolios p");
+    IndexKeyStatistics built = index.getKeyStatistics();
+    assertThat(built.getEntryCount()).isEqualTo(100);
+
+    for (int i = 100; i < 1000; i++) {
+      region.put(i, new Portfolio(i));
+    }
+
+    // the stale statistics are used until the rebuilt ones are available
+    assertThat(index.getKeyStatistics()).isSameAs(built);
+    assertThat(index.getSizeEstimate(500, OQLLexerTokenTypes.TOK_LT, 0)).isNotNegative();
+    await().atMost(30, TimeUnit.SECONDS)
+        .until(() -> index.getKeyStatistics().getEntryCount() == 1000);
+  }
+
+  @Test
+  public void mostSelectiveJoinIsEvaluatedFirst() throws Exception {
+    Region portfolios1 = CacheUtils.createRegion("portfolios1", Portfolio.class);
+    Region portfolios2 = CacheUtils.createRegion("portfolios2", Portfolio.class);
+    for (int i = 0; i < 100; i++) {
+      portfolios1.put(i, new Portfolio(i));
+      portfolios2.put(i, new Portfolio(i));
+    }
+    queryService.createIndex("id1", IndexType.FUNCTIONAL, "p.ID", "/portfolios1 p");
+    queryService.createIndex("id2", IndexType.FUNCTIONAL, "q.ID", "/portfolios2 q");
+    queryService.createIndex("status1", IndexType.FUNCTIONAL, "p.status", "/portfolios1 p");
+    queryService.createIndex("status2", IndexType.FUNCTIONAL, "q.status", "/portfolios2 q");
+
+    List<Index[]> joinOrder = new ArrayList<>();
+    List<Long> estimates = new ArrayList<>();
+    QueryObserverHolder.setInstance(new QueryObserverAdapter() {
+      @Override
+      public void afterJoinOrdering(List<Index[]> joinIndexes, List<Long> sizeEstimates) {
+        joinOrder.addAll(joinIndexes);
+        estimates.addAll(sizeEstimates);
+      }
+    });
+
+    SelectResults results = (SelectResults) queryService
+        .newQuery("select * from /portfolios1 p, /portfolios2 q "
+            + "where p.status = q.status and p.ID = q.ID")
+        .execute();
+
+    assertThat(results.size()).isEqualTo(100);
+    assertThat(joinOrder).hasSize(2);
+    assertThat(joinOrder.get(0)[0].getName()).isEqualTo("id1");
+    assertThat(joinOrder.get(1)[0].getName()).isEqualTo("status1");
+    // the distinct IDs are estimated
+    assertThat(estimates.get(0)).isBetween(95L, 105L);
+    assertThat(estimates.get(1)).isEqualTo(5000L);
+  }
+}
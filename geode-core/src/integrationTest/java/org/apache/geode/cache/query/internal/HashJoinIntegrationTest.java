@@ -0,0 +1,128 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.cache.query.internal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import org.apache.geode.cache.Region;
+import org.apache.geode.cache.query.CacheUtils;
+import org.apache.geode.cache.query.QueryService;
+import org.apache.geode.cache.query.SelectResults;
+import org.apache.geode.cache.query.Struct;
+import org.apache.geode.cache.query.data.Portfolio;
+import org.apache.geode.test.junit.categories.OQLQueryTest;
+
+@Category({OQLQueryTest.class})
+public class HashJoinIntegrationTest {
+
+  private QueryService queryService;
+
+  private WhereClauseCounter counter;
+
+  @Before
+  public void setUp() throws Exception {
+    CacheUtils.startCache();
+    queryService = CacheUtils.getQueryService();
+    counter = new WhereClauseCounter();
+    QueryObserverHolder.setInstance(counter);
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    HashJoin.ENABLED = true;
+    QueryObserverHolder.reset();
+    CacheUtils.closeCache();
+  }
+
+  @Test
+  public void equiJoinOnlyEvaluatesMatchingPairs() throws Exception {
+    Region portfolios1 = CacheUtils.createRegion("portfolios1", Portfolio.class);
+    Region portfolios2 = CacheUtils.createRegion("portfolios2", Portfolio.class);
+    for (int i = 0; i < 100; i++) {
+      portfolios1.put(i, new Portfolio(i));
+      portfolios2.put(i, new Portfolio(i + 50));
+    }
+    String query = "select p.ID as pid, q.ID as qid from /portfolios1 p, /portfolios2 q "
+        + "where p.ID = q.ID";
+
+    SelectResults results = (SelectResults) queryService.newQuery(query).execute();
+
+    assertThat(results.size()).isEqualTo(50);
+    assertThat(counter.count).isEqualTo(50);
+    for (Object result : results) {
+      Object[] values = ((Struct) result).getFieldValues();
+      assertThat(values[0]).isEqualTo(values[1]);
+    }
+
+    HashJoin.ENABLED = false;
+    counter.count = 0;
+    SelectResults nestedResults = (SelectResults) queryService.newQuery(query).execute();
+
+    assertThat(counter.count).isEqualTo(100 * 100);
+    assertThat(nestedResults.asList()).containsExactlyInAnyOrderElementsOf(results.asList());
+  }
+
+  @Test
+  public void numbersOfDifferentTypesAreJoinedOnTheirValues() throws Exception {
+    Region integers = CacheUtils.createRegion("integers", Integer.class);
+    Region longs = CacheUtils.createRegion("longs", Long.class);
+    for (int i = 0; i < 20; i++) {
+      integers.put(i, i);
+      longs.put(i, (long) i * 2);
+    }
+
+    SelectResults results = (SelectResults) queryService
+        .newQuery("select i from /integers i, /longs l where i = l").execute();
+
+    assertThat(new ArrayList<Object>(results)).containsExactlyInAnyOrder(0, 2, 4, 6, 8, 10, 12,
+        14, 16, 18);
+  }
+
+  @Test
+  public void otherConditionsAreEvaluatedOnMatchingPairs() throws Exception {
+    Region portfolios1 = CacheUtils.createRegion("portfolios1", Portfolio.class);
+    Region portfolios2 = CacheUtils.createRegion("portfolios2", Portfolio.class);
+    for (int i = 0; i < 100; i++) {
+      portfolios1.put(i, new Portfolio(i));
+      portfolios2.put(i, new Portfolio(i));
+    }
+
+    SelectResults results = (SelectResults) queryService
+        .newQuery("select p.ID from /portfolios1 p, /portfolios2 q "
+            + "where p.status = 'active' and q.ID = p.ID and q.ID < 10")
+        .execute();
+
+    List<Object> ids = new ArrayList<Object>(results);
+    assertThat(ids).containsExactlyInAnyOrder(0, 2, 4, 6, 8);
+    assertThat(counter.count).isEqualTo(100);
+  }
+
+  private static class WhereClauseCounter extends QueryObserverAdapter {
+    private int count;
+
+    @Override
+    public void afterIterationEvaluation(Object result) {
+      count++;
+    }
+  }
+}
@@ -0,0 +1,108 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.cache.query.internal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import org.apache.geode.cache.Region;
+import org.apache.geode.cache.query.CacheUtils;
+import org.apache.geode.cache.query.QueryService;
+import org.apache.geode.cache.query.SelectResults;
+import org.apache.geode.cache.query.data.Portfolio;
+import org.apache.geode.test.junit.categories.OQLQueryTest;
+
+@Category({OQLQueryTest.class})
+public class PartialResultsHandlerIntegrationTest {
+
+  private QueryService queryService;
+
+  private final List<List<Object>> parts = new ArrayList<>();
+
+  private final PartialResultsHandler handler = results -> parts.add(results.asList());
+
+  @Before
+  public void setUp() throws Exception {
+    CacheUtils.startCache();
+    queryService = CacheUtils.getQueryService();
+    Region region = CacheUtils.createRegion("portfolios", Portfolio.class);
+    for (int i = 0; i < 25; i++) {
+      region.put(i, new Portfolio(i));
+    }
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    CacheUtils.closeCache();
+  }
+
+  @Test
+  public void unorderedQueryHandsOutResultsWhileEvaluated() throws Exception {
+    DefaultQuery query =
+        (DefaultQuery) queryService.newQuery("select p.ID from /portfolios p where p.ID >= 0");
+
+    SelectResults rest = (SelectResults) query.execute(new Object[0], handler, 10);
+
+    assertThat(parts).hasSize(2);
+    assertThat(parts).allSatisfy(part -> assertThat(part).hasSize(10));
+    assertThat(rest).hasSize(5);
+    List<Object> all = new ArrayList<>(rest.asList());
+    parts.forEach(all::addAll);
+    assertThat(all).containsExactlyInAnyOrderElementsOf(
+        IntStream.range(0, 25).boxed().collect(Collectors.toList()));
+  }
+
+  @Test
+  public void limitAppliesToAllParts() throws Exception {
+    DefaultQuery query =
+        (DefaultQuery) queryService.newQuery("select p.ID from /portfolios p limit 15");
+
+    SelectResults rest = (SelectResults) query.execute(new Object[0], handler, 10);
+
+    assertThat(parts).hasSize(1);
+    assertThat(rest).hasSize(5);
+  }
+
+  @Test
+  public void orderedQueryReturnsAllResults() throws Exception {
+    DefaultQuery query = (DefaultQuery) queryService
+        .newQuery("select p.ID from /portfolios p where p.ID >= 0 order by p.ID");
+
+    SelectResults results = (SelectResults) query.execute(new Object[0], handler, 10);
+
+    assertThat(parts).isEmpty();
+    assertThat(results).hasSize(25);
+  }
+
+  @Test
+  public void groupedQueryReturnsAllResults() throws Exception {
+    DefaultQuery query = (DefaultQuery) queryService
+        .newQuery("select p.status, count(*) from /portfolios p group by p.status");
+
+    SelectResults results = (SelectResults) query.execute(new Object[0], handler, 1);
+
+    assertThat(parts).isEmpty();
+    assertThat(results).hasSize(2);
+  }
+}
@@ -18,6 +18,7 @@ import static org.junit.Assert.assertTrue;
 
 import java.util.Collection;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
 import org.junit.After;
@@ -382,5 +383,15 @@ public class QueryObserverCallbackJUnitTest {
     public void orderByColumnsEqual() {
       // nothing
     }
+
+    @Override
+    public void afterIndexSizeEstimate(Index index, Object key, int sizeEstimate) {
+      // nothing
+    }
+
+    @Override
+    public void afterJoinOrdering(List<Index[]> joinIndexes, List<Long> sizeEstimates) {
+      // nothing
+    }
   }
 }
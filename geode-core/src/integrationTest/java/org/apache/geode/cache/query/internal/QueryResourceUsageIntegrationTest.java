@@ -0,0 +1,192 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.cache.query.internal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import org.apache.geode.cache.AttributesFactory;
+import org.apache.geode.cache.PartitionAttributesFactory;
+import org.apache.geode.cache.Region;
+import org.apache.geode.cache.query.CacheUtils;
+import org.apache.geode.cache.query.QueryExecutionLowMemoryException;
+import org.apache.geode.cache.query.QueryService;
+import org.apache.geode.cache.query.SelectResults;
+import org.apache.geode.cache.query.data.Portfolio;
+import org.apache.geode.internal.cache.CachePerfStats;
+import org.apache.geode.internal.cache.PRQueryProcessor;
+import org.apache.geode.test.junit.categories.OQLQueryTest;
+
+@Category({OQLQueryTest.class})
+public class QueryResourceUsageIntegrationTest {
+
+  private static final int ENTRIES = 4000;
+
+  private QueryService queryService;
+
+  private CachePerfStats stats;
+
+  @Before
+  public void setUp() throws Exception {
+    CacheUtils.startCache();
+    queryService = CacheUtils.getQueryService();
+    stats = CacheUtils.getCache().getCachePerfStats();
+    Region region = CacheUtils.createRegion("portfolios", Portfolio.class);
+    for (int i = 0; i < ENTRIES; i++) {
+      region.put(i, new Portfolio(i));
+    }
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    DefaultQuery.MAX_TOTAL_QUERY_MEMORY = 0;
+    PRQueryProcessor.TEST_NUM_THREADS = 0;
+    QueryObserverHolder.reset();
+    CacheUtils.closeCache();
+  }
+
+  @Test
+  public void rowsScannedAreRecordedInStatistics() throws Exception {
+    SelectResults results = (SelectResults) queryService
+        .newQuery("select * from /portfolios p where p.status = 'active'").execute();
+
+    assertThat(results.size()).isEqualTo(ENTRIES / 2);
+    assertThat(stats.getQueryRowsScanned()).isGreaterThanOrEqualTo(ENTRIES);
+    assertThat(stats.getQueryCpuTime()).isGreaterThanOrEqualTo(0);
+    assertThat(stats.getQueryMemory()).isEqualTo(0);
+    assertThat(stats.getQueriesCanceledForMemory()).isEqualTo(0);
+  }
+
+  @Test
+  public void runningQueriesAreListed() throws Exception {
+    List<String> running = new ArrayList<>();
+    QueryObserverHolder.setInstance(new QueryObserverAdapter() {
+      @Override
+      public void beforeIterationEvaluation(CompiledValue executer, Object currentObject) {
+        if (running.isEmpty()) {
+          running.addAll(Arrays.asList(QueryResourceUsage.listRunning()));
+        }
+      }
+    });
+
+    queryService.newQuery("select * from /portfolios p where p.ID > 10").execute();
+
+    assertThat(running).hasSize(1);
+    assertThat(running.get(0)).contains("select * from /portfolios p where p.ID > 10");
+    assertThat(QueryResourceUsage.listRunning()).isEmpty();
+  }
+
+  @Test
+  public void queryExceedingItsMemoryLimitIsCanceled() throws Exception {
+    DefaultQuery query =
+        (DefaultQuery) queryService.newQuery("select * from /portfolios p where p.ID >= 0");
+    query.setMemoryLimit(100 * QueryResourceUsage.ROW_BYTES);
+
+    assertThatThrownBy(query::execute).isInstanceOf(QueryExecutionLowMemoryException.class)
+        .hasMessageContaining("max query memory");
+    assertThat(stats.getQueriesCanceledForMemory()).isEqualTo(1);
+    assertThat(stats.getQueryMemory()).isEqualTo(0);
+  }
+
+  @Test
+  public void queryUsingIndexExceedingItsMemoryLimitIsCanceled() throws Exception {
+    queryService.createIndex("statusIndex", "p.status", "/portfolios p");
+    DefaultQuery query = (DefaultQuery) queryService
+        .newQuery("select p.ID, p.status from /portfolios p where p.status = 'active'");
+    query.setMemoryLimit(100 * QueryResourceUsage.ROW_BYTES);
+
+    assertThatThrownBy(query::execute).isInstanceOf(QueryExecutionLowMemoryException.class);
+  }
+
+  @Test
+  public void queryWithinItsMemoryLimitIsNotCanceled() throws Exception {
+    DefaultQuery query =
+        (DefaultQuery) queryService.newQuery("select * from /portfolios p where p.ID < 10");
+    query.setMemoryLimit(100 * QueryResourceUsage.ROW_BYTES);
+
+    assertThat(((SelectResults) query.execute()).size()).isEqualTo(10);
+  }
+
+  @Test
+  public void queryExceedingTotalMemoryLimitIsCanceled() throws Exception {
+    DefaultQuery.MAX_TOTAL_QUERY_MEMORY = 1;
+
+    assertThatThrownBy(() -> queryService.newQuery("select * from /portfolios p").execute())
+        .isInstanceOf(QueryExecutionLowMemoryException.class)
+        .hasMessageContaining("max total query memory");
+    assertThat(QueryResourceUsage.getTotalMemory()).isEqualTo(0);
+    assertThat(stats.getQueryMemory()).isEqualTo(0);
+  }
+
+  @Test
+  public void projectedValuesAreEstimatedAtTheirSize() throws Exception {
+    long limit = 2L * ENTRIES * QueryResourceUsage.ROW_BYTES;
+    DefaultQuery query =
+        (DefaultQuery) queryService.newQuery("select p.names from /portfolios p");
+    query.setMemoryLimit(limit);
+
+    assertThatThrownBy(query::execute).isInstanceOf(QueryExecutionLowMemoryException.class)
+        .hasMessageContaining("max query memory");
+
+    query = (DefaultQuery) queryService.newQuery("select p.ID from /portfolios p");
+    query.setMemoryLimit(limit);
+
+    assertThat(((SelectResults) query.execute()).size()).isEqualTo(ENTRIES);
+  }
+
+  @Test
+  public void rowsHandedOutAreReleased() throws Exception {
+    DefaultQuery query =
+        (DefaultQuery) queryService.newQuery("select * from /portfolios p where p.ID >= 0");
+    query.setMemoryLimit(100 * QueryResourceUsage.ROW_BYTES);
+    AtomicInteger handedOut = new AtomicInteger();
+
+    SelectResults results =
+        (SelectResults) query.execute(new Object[0], rows -> handedOut.addAndGet(rows.size()), 10);
+
+    assertThat(handedOut.get() + results.size()).isEqualTo(ENTRIES);
+    assertThat(stats.getQueriesCanceledForMemory()).isEqualTo(0);
+  }
+
+  @Test
+  public void partitionedRegionQueryIsLimitedOverAllItsBuckets() throws Exception {
+    AttributesFactory factory = new AttributesFactory();
+    factory.setPartitionAttributes(new PartitionAttributesFactory().create());
+    Region region = CacheUtils.createRegion("partitionedPortfolios", factory.create(), false);
+    for (int i = 0; i < ENTRIES; i++) {
+      region.put(i, new Portfolio(i));
+    }
+    PRQueryProcessor.TEST_NUM_THREADS = 4;
+    DefaultQuery query = (DefaultQuery) queryService
+        .newQuery("select * from /partitionedPortfolios p where p.ID >= 0");
+    // more than the rows of any bucket, less than the rows of the region
+    query.setMemoryLimit(100 * QueryResourceUsage.ROW_BYTES);
+
+    assertThatThrownBy(query::execute).isInstanceOf(QueryExecutionLowMemoryException.class)
+        .hasMessageContaining("max query memory");
+    assertThat(QueryResourceUsage.listRunning()).isEmpty();
+    assertThat(stats.getQueryMemory()).isEqualTo(0);
+  }
+}
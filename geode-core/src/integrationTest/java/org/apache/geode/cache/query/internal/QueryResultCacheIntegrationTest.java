@@ -0,0 +1,118 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.cache.query.internal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import org.apache.geode.cache.Region;
+import org.apache.geode.cache.query.CacheUtils;
+import org.apache.geode.cache.query.QueryService;
+import org.apache.geode.cache.query.SelectResults;
+import org.apache.geode.cache.query.data.Portfolio;
+import org.apache.geode.internal.cache.CachePerfStats;
+import org.apache.geode.test.junit.categories.OQLQueryTest;
+
+@Category({OQLQueryTest.class})
+public class QueryResultCacheIntegrationTest {
+
+  private QueryService queryService;
+
+  private CachePerfStats stats;
+
+  private Region region;
+
+  @Before
+  public void setUp() throws Exception {
+    QueryResultCache.MAX_ENTRIES = 2;
+    CacheUtils.startCache();
+    queryService = CacheUtils.getQueryService();
+    stats = CacheUtils.getCache().getCachePerfStats();
+    region = CacheUtils.createRegion("portfolios", Portfolio.class);
+    for (int i = 0; i < 10; i++) {
+      region.put(i, new Portfolio(i));
+    }
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    QueryResultCache.MAX_ENTRIES = 0;
+    CacheUtils.closeCache();
+  }
+
+  @Test
+  public void repeatedQueryIsServedFromCache() throws Exception {
+    String query = "select * from /portfolios p where p.ID > $1";
+
+    SelectResults first = (SelectResults) queryService.newQuery(query).execute(4);
+    SelectResults second = (SelectResults) queryService.newQuery(query).execute(4);
+    SelectResults other = (SelectResults) queryService.newQuery(query).execute(6);
+
+    assertThat(first.size()).isEqualTo(5);
+    assertThat(second.asList()).containsExactlyInAnyOrderElementsOf(first.asList());
+    assertThat(other.size()).isEqualTo(3);
+    assertThat(stats.getQueryResultCacheHits()).isEqualTo(1);
+    assertThat(stats.getQueryResultCacheMisses()).isEqualTo(2);
+    assertThat(stats.getQueryResultCacheEntries()).isEqualTo(2);
+  }
+
+  @Test
+  public void changesToRegionInvalidateCachedResults() throws Exception {
+    String query = "select * from /portfolios p where p.ID > 4";
+    queryService.newQuery(query).execute();
+
+    region.put(10, new Portfolio(10));
+    SelectResults afterPut = (SelectResults) queryService.newQuery(query).execute();
+    region.destroy(5);
+    SelectResults afterDestroy = (SelectResults) queryService.newQuery(query).execute();
+    region.invalidate(6);
+    SelectResults afterInvalidate = (SelectResults) queryService.newQuery(query).execute();
+
+    assertThat(afterPut.size()).isEqualTo(6);
+    assertThat(afterDestroy.size()).isEqualTo(5);
+    assertThat(afterInvalidate.size()).isEqualTo(4);
+    assertThat(stats.getQueryResultCacheHits()).isEqualTo(0);
+    assertThat(stats.getQueryResultCacheMisses()).isEqualTo(4);
+  }
+
+  @Test
+  public void leastRecentlyUsedResultsAreEvicted() throws Exception {
+    for (int i = 0; i < 3; i++) {
+      queryService.newQuery("select * from /portfolios p where p.ID > " + i).execute();
+    }
+
+    queryService.newQuery("select * from /portfolios p where p.ID > 0").execute();
+
+    assertThat(CacheUtils.getCache().getQueryResultCache().size()).isEqualTo(2);
+    assertThat(stats.getQueryResultCacheEntries()).isEqualTo(2);
+    assertThat(stats.getQueryResultCacheHits()).isEqualTo(0);
+  }
+
+  @Test
+  public void cachedResultsCannotBeModified() throws Exception {
+    String query = "select * from /portfolios";
+    queryService.newQuery(query).execute();
+
+    SelectResults cached = (SelectResults) queryService.newQuery(query).execute();
+
+    assertThat(cached.isModifiable()).isFalse();
+    assertThatThrownBy(() -> cached.clear()).isInstanceOf(UnsupportedOperationException.class);
+  }
+}
@@ -0,0 +1,116 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.cache.query.internal.index;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import org.apache.geode.cache.Region;
+import org.apache.geode.cache.query.CacheUtils;
+import org.apache.geode.cache.query.IndexType;
+import org.apache.geode.cache.query.QueryService;
+import org.apache.geode.cache.query.SelectResults;
+import org.apache.geode.cache.query.data.Portfolio;
+import org.apache.geode.cache.query.internal.DefaultQuery;
+import org.apache.geode.internal.cache.LocalRegion;
+import org.apache.geode.test.junit.categories.OQLIndexTest;
+
+@Category({OQLIndexTest.class})
+public class AsyncIndexMaintenanceWaitIntegrationTest {
+
+  private QueryService queryService;
+
+  @Before
+  public void setUp() throws Exception {
+    CacheUtils.startCache();
+    queryService = CacheUtils.getCache().getQueryService();
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    CacheUtils.closeCache();
+  }
+
+  @Test
+  public void queryWaitingForIndexMaintenanceSeesAllUpdates() throws Exception {
+    Region region = CacheUtils.createRegion("portfolios", Portfolio.class, false);
+    queryService.createIndex("idIndex", IndexType.FUNCTIONAL, "p.ID", "/portfolios p");
+    for (int i = 0; i < 1000; i++) {
+      region.put(i, new Portfolio(i));
+    }
+
+    DefaultQuery query =
+        (DefaultQuery) queryService.newQuery("select * from /portfolios p where p.ID >= 0");
+    query.setIndexMaintenanceWaitTime(30000);
+
+    assertThat(((SelectResults) query.execute()).size()).isEqualTo(1000);
+  }
+
+  @Test
+  public void waitForPendingUpdatesReturnsOnceUpdatesAreApplied() throws Exception {
+    Region region = CacheUtils.createRegion("portfolios", Portfolio.class, false);
+    CompactRangeIndex index = (CompactRangeIndex) queryService.createIndex("idIndex",
+        IndexType.FUNCTIONAL, "p.ID", "/portfolios p");
+    for (int i = 0; i < 1000; i++) {
+      region.put(i, new Portfolio(i));
+    }
+
+    IndexManager indexManager = ((LocalRegion) region).getIndexManager();
+
+    assertThat(indexManager.waitForPendingUpdates(30000)).isTrue();
+    assertThat(index.getIndexStorage().size()).isEqualTo(1000);
+    assertThat(indexManager.getUpdaterThread().isDone()).isTrue();
+  }
+
+  @Test
+  public void waitForPendingUpdatesReturnsOnceUpdaterThreadIsShutdown() throws Exception {
+    Region region = CacheUtils.createRegion("portfolios", Portfolio.class, false);
+    queryService.createIndex("idIndex", IndexType.FUNCTIONAL, "p.ID", "/portfolios p");
+    for (int i = 0; i < 1000; i++) {
+      region.put(i, new Portfolio(i));
+    }
+
+    IndexManager indexManager = ((LocalRegion) region).getIndexManager();
+    CompletableFuture<Boolean> waiter = CompletableFuture.supplyAsync(() -> {
+      try {
+        return indexManager.waitForPendingUpdates(300000);
+      } catch (InterruptedException e) {
+        throw new RuntimeException(e);
+      }
+    });
+    indexManager.getUpdaterThread().shutdown();
+
+    assertThat(waiter.get(60, SECONDS)).isTrue();
+    assertThat(indexManager.waitForPendingUpdates(0)).isTrue();
+  }
+
+  @Test
+  public void waitForPendingUpdatesDoesNotWaitForSynchronousMaintenance() throws Exception {
+    Region region = CacheUtils.createRegion("portfolios", Portfolio.class, true);
+    queryService.createIndex("idIndex", IndexType.FUNCTIONAL, "p.ID", "/portfolios p");
+    region.put(1, new Portfolio(1));
+
+    IndexManager indexManager = ((LocalRegion) region).getIndexManager();
+
+    assertThat(indexManager.waitForPendingUpdates(0)).isTrue();
+  }
+}
@@ -0,0 +1,231 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.cache.query.internal.index;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Predicate;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import org.apache.geode.cache.Region;
+import org.apache.geode.cache.query.CacheUtils;
+import org.apache.geode.cache.query.Index;
+import org.apache.geode.cache.query.QueryService;
+import org.apache.geode.cache.query.SelectResults;
+import org.apache.geode.cache.query.data.Portfolio;
+import org.apache.geode.cache.query.internal.QueryObserverAdapter;
+import org.apache.geode.cache.query.internal.QueryObserverHolder;
+import org.apache.geode.internal.cache.InternalRegion;
+import org.apache.geode.test.junit.categories.OQLIndexTest;
+
+@Category({OQLIndexTest.class})
+public class BitmapIndexIntegrationTest {
+
+  private static final int ENTRIES = 3000;
+
+  private QueryService queryService;
+
+  private Region<Integer, Portfolio> region;
+
+  private Index statusIndex;
+
+  private Index typeIndex;
+
+  private IndexLookupObserver observer;
+
+  @Before
+  public void setUp() throws Exception {
+    IndexManager.BITMAP_INDEX_STORE = true;
+    CacheUtils.startCache();
+    queryService = CacheUtils.getQueryService();
+    region = CacheUtils.createRegion("portfolios", Portfolio.class);
+    for (int i = 0; i < ENTRIES; i++) {
+      region.put(i, new Portfolio(i));
+    }
+    statusIndex = queryService.createIndex("statusIndex", "p.status", "/portfolios p");
+    typeIndex = queryService.createIndex("typeIndex", "p.type", "/portfolios p");
+    observer = new IndexLookupObserver();
+    QueryObserverHolder.setInstance(observer);
+  }
+
+  @After
+  public void tearDown() {
+    IndexManager.BITMAP_INDEX_STORE = false;
+    QueryObserverHolder.reset();
+    CacheUtils.closeCache();
+  }
+
+  private Set<Integer> query(String predicate) throws Exception {
+    return query("/portfolios", predicate);
+  }
+
+  private Set<Integer> query(String regionPath, String predicate) throws Exception {
+    observer.lookupResults.clear();
+    SelectResults<Portfolio> results = (SelectResults<Portfolio>) queryService
+        .newQuery("select * from " + regionPath + " p where " + predicate).execute();
+    Set<Integer> ids = new HashSet<>();
+    for (Portfolio portfolio : results) {
+      ids.add(portfolio.ID);
+    }
+    assertThat(ids).hasSize(results.size());
+    return ids;
+  }
+
+  private Set<Integer> expected(Predicate<Portfolio> predicate) {
+    return expected(region, predicate);
+  }
+
+  private Set<Integer> expected(Region<Integer, Portfolio> region,
+      Predicate<Portfolio> predicate) {
+    Set<Integer> ids = new HashSet<>();
+    for (Portfolio portfolio : region.values()) {
+      if (predicate.test(portfolio)) {
+        ids.add(portfolio.ID);
+      }
+    }
+    return ids;
+  }
+
+  @Test
+  public void andOfEqualityConditionsUsesBothIndexes() throws Exception {
+    long statusUses = statusIndex.getStatistics().getTotalUses();
+    long typeUses = typeIndex.getStatistics().getTotalUses();
+
+    assertThat(query("p.status = 'active' and p.type = 'type1'")).isEqualTo(expected(
+        p -> p.status.equals("active") && p.getType().equals("type1"))).isNotEmpty();
+    assertThat(statusIndex.getStatistics().getTotalUses()).isGreaterThan(statusUses);
+    assertThat(typeIndex.getStatistics().getTotalUses()).isGreaterThan(typeUses);
+    assertConditionsWereEvaluatedTogether(2);
+  }
+
+  @Test
+  public void keysWithManyEntriesAreKeptInBitmaps() {
+    MemoryIndexStore store =
+        (MemoryIndexStore) ((CompactRangeIndex) statusIndex).getIndexStorage();
+
+    assertThat(store.valueToEntriesMap.values())
+        .allMatch(entries -> entries instanceof EntryBitmapSet);
+  }
+
+  @Test
+  public void orOfEqualityConditions() throws Exception {
+    assertThat(query("p.status = 'inactive' or p.type = 'type2'")).isEqualTo(
+        expected(p -> p.status.equals("inactive") || p.getType().equals("type2")));
+    assertConditionsWereEvaluatedTogether(2);
+  }
+
+  @Test
+  public void notEqualConditions() throws Exception {
+    assertThat(query("p.status != 'active' and p.type <> 'type0'")).isEqualTo(
+        expected(p -> !p.status.equals("active") && !p.getType().equals("type0")))
+        .isNotEmpty();
+    assertConditionsWereEvaluatedTogether(2);
+    assertThat(query("p.status = 'active' or p.type != 'type0'")).isEqualTo(
+        expected(p -> p.status.equals("active") || !p.getType().equals("type0")));
+    assertConditionsWereEvaluatedTogether(2);
+  }
+
+  @Test
+  public void conditionsOnKeysWithFewEntriesDoNotNumberEntries() throws Exception {
+    Region<Integer, Portfolio> ids = CacheUtils.createRegion("ids", Portfolio.class);
+    for (int i = 0; i < ENTRIES; i++) {
+      ids.put(i, new Portfolio(i));
+    }
+    queryService.createIndex("idIndex", "p.ID", "/ids p");
+    queryService.createIndex("pkidIndex", "p.pkid", "/ids p");
+
+    assertThat(query("/ids", "p.ID != 5 and p.pkid != '7'"))
+        .isEqualTo(expected(ids, p -> p.ID != 5 && !p.pkid.equals("7")));
+    assertConditionsWereEvaluatedTogether(2);
+    assertThat(query("/ids", "p.ID = 5 or p.pkid = '7' or p.ID != 9"))
+        .isEqualTo(expected(ids, p -> p.ID != 9 || p.pkid.equals("7")));
+    assertConditionsWereEvaluatedTogether(3);
+    assertThat(query("/ids", "p.ID = 5 and p.pkid != '7'")).containsExactly(5);
+    assertConditionsWereEvaluatedTogether(2);
+    assertThat(((InternalRegion) ids).getIndexManager().getEntryOrdinals().size()).isZero();
+  }
+
+  @Test
+  public void resultsFollowUpdatesAndDestroys() throws Exception {
+    for (int i = 0; i < ENTRIES; i += 4) {
+      region.destroy(i);
+    }
+    for (int i = 1; i < ENTRIES; i += 4) {
+      Portfolio portfolio = new Portfolio(i);
+      portfolio.status = "active";
+      region.put(i, portfolio);
+    }
+    for (int i = ENTRIES; i < ENTRIES + 500; i++) {
+      region.put(i, new Portfolio(i));
+    }
+
+    assertThat(query("p.status = 'active' and p.type = 'type1'")).isEqualTo(
+        expected(p -> p.status.equals("active") && p.getType().equals("type1")));
+    assertThat(query("p.status = 'inactive' or p.type = 'type2'")).isEqualTo(
+        expected(p -> p.status.equals("inactive") || p.getType().equals("type2")));
+  }
+
+  @Test
+  public void resultsFollowRegionClear() throws Exception {
+    region.clear();
+    for (int i = 0; i < 300; i++) {
+      region.put(i, new Portfolio(i));
+    }
+
+    assertThat(query("p.status = 'active' and p.type = 'type1'")).isEqualTo(
+        expected(p -> p.status.equals("active") && p.getType().equals("type1"))).isNotEmpty();
+  }
+
+  @Test
+  public void resultsMatchResultsWithoutBitmaps() throws Exception {
+    Set<Integer> withBitmaps = query("p.status = 'active' and p.type != 'type2' and p.ID > 100");
+    IndexManager.BITMAP_INDEX_STORE = false;
+    queryService.removeIndexes();
+    queryService.createIndex("statusIndex", "p.status", "/portfolios p");
+    queryService.createIndex("typeIndex", "p.type", "/portfolios p");
+
+    assertThat(query("p.status = 'active' and p.type != 'type2' and p.ID > 100"))
+        .isEqualTo(withBitmaps).isNotEmpty();
+  }
+
+  /**
+   * Asserts that the conditions were looked up by a BitmapIndexEvaluator, which reports the lookups
+   * of all its conditions with the same results.
+   */
+  private void assertConditionsWereEvaluatedTogether(int conditions) {
+    assertThat(observer.lookupResults).hasSize(conditions);
+    assertThat(observer.lookupResults)
+        .allMatch(results -> results == observer.lookupResults.get(0));
+  }
+
+  private static class IndexLookupObserver extends QueryObserverAdapter {
+
+    private final List<Collection> lookupResults = new ArrayList<>();
+
+    @Override
+    public void afterIndexLookup(Collection results) {
+      lookupResults.add(results);
+    }
+  }
+}
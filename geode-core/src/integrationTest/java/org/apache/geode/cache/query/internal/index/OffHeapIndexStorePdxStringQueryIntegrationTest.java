@@ -0,0 +1,157 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.cache.query.internal.index;
+
+import static org.apache.geode.distributed.ConfigurationProperties.MCAST_PORT;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.function.Predicate;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import org.apache.geode.cache.CacheFactory;
+import org.apache.geode.cache.Region;
+import org.apache.geode.cache.query.Index;
+import org.apache.geode.cache.query.QueryService;
+import org.apache.geode.cache.query.SelectResults;
+import org.apache.geode.internal.cache.InternalCache;
+import org.apache.geode.pdx.PdxInstanceFactory;
+import org.apache.geode.pdx.internal.PdxInstanceFactoryImpl;
+import org.apache.geode.test.junit.categories.OQLIndexTest;
+
+/**
+ * Runs queries on a PDX string field through a compact range index whose entries are kept off
+ * heap. The index keys of such a field are PdxStrings, which the off heap store reads back as
+ * Strings.
+ */
+@Category({OQLIndexTest.class})
+public class OffHeapIndexStorePdxStringQueryIntegrationTest {
+
+  private static final String[] SEC_IDS =
+      {"IBM", "SUN", "AOL", "YHOO", "GOOG", "Nestl\u00e9", "MSFT"};
+
+  private static final int ENTRIES = 70;
+
+  private InternalCache cache;
+
+  private Region<Integer, Object> region;
+
+  private QueryService queryService;
+
+  private final String[] secIds = new String[ENTRIES];
+
+  private Index index;
+
+  @Before
+  public void setUp() throws Exception {
+    IndexManager.OFF_HEAP_INDEX_STORE = true;
+    cache = (InternalCache) new CacheFactory().set(MCAST_PORT, "0").create();
+    region = cache.<Integer, Object>createRegionFactory().create("exampleRegion");
+    queryService = cache.getQueryService();
+    for (int i = 0; i < ENTRIES / 2; i++) {
+      put(i, SEC_IDS[i % SEC_IDS.length]);
+    }
+    index = queryService.createIndex("secIdIndex", "p.secId", "/exampleRegion p");
+    for (int i = ENTRIES / 2; i < ENTRIES; i++) {
+      put(i, SEC_IDS[i % SEC_IDS.length]);
+    }
+  }
+
+  @After
+  public void tearDown() {
+    IndexManager.OFF_HEAP_INDEX_STORE = false;
+    cache.close();
+  }
+
+  private void put(int id, String secId) {
+    PdxInstanceFactory factory = PdxInstanceFactoryImpl.newCreator("Portfolio", false, cache);
+    factory.writeInt("ID", id);
+    factory.writeString("secId", secId);
+    region.put(id, factory.create());
+    secIds[id] = secId;
+  }
+
+  private Set<Integer> query(String predicate, Object... params) throws Exception {
+    long uses = index.getStatistics().getTotalUses();
+    SelectResults<Integer> results = (SelectResults<Integer>) queryService
+        .newQuery("select p.ID from /exampleRegion p where " + predicate).execute(params);
+    assertThat(index.getStatistics().getTotalUses()).isGreaterThan(uses);
+    Set<Integer> ids = new HashSet<>(results.asList());
+    assertThat(ids).hasSize(results.size());
+    return ids;
+  }
+
+  private Set<Integer> expected(Predicate<String> predicate) {
+    Set<Integer> ids = new HashSet<>();
+    for (int i = 0; i < ENTRIES; i++) {
+      if (predicate.test(secIds[i])) {
+        ids.add(i);
+      }
+    }
+    return ids;
+  }
+
+  @Test
+  public void indexIsKeptOffHeap() {
+    assertThat(((CompactRangeIndex) index).getIndexStorage()).isInstanceOf(MapIndexStore.class);
+  }
+
+  @Test
+  public void equalityConditions() throws Exception {
+    assertThat(query("p.secId = 'IBM'")).isEqualTo(expected(s -> s.equals("IBM")))
+        .isNotEmpty();
+    assertThat(query("p.secId = $1", "SUN")).isEqualTo(expected(s -> s.equals("SUN")))
+        .isNotEmpty();
+    assertThat(query("p.secId = 'Nestl\u00e9'")).isEqualTo(expected(s -> s.equals("Nestl\u00e9")))
+        .isNotEmpty();
+    assertThat(query("p.secId = 'ORCL'")).isEmpty();
+  }
+
+  @Test
+  public void rangeConditions() throws Exception {
+    assertThat(query("p.secId > 'GOOG'")).isEqualTo(expected(s -> s.compareTo("GOOG") > 0))
+        .isNotEmpty();
+    assertThat(query("p.secId >= 'AOL' and p.secId < 'MSFT'"))
+        .isEqualTo(expected(s -> s.compareTo("AOL") >= 0 && s.compareTo("MSFT") < 0))
+        .isNotEmpty();
+    assertThat(query("p.secId <= $1", "IBM")).isEqualTo(expected(s -> s.compareTo("IBM") <= 0))
+        .isNotEmpty();
+  }
+
+  @Test
+  public void notEqualAndInConditions() throws Exception {
+    assertThat(query("p.secId != 'IBM'")).isEqualTo(expected(s -> !s.equals("IBM")))
+        .isNotEmpty();
+    assertThat(query("p.secId in set('AOL', 'YHOO')"))
+        .isEqualTo(expected(s -> s.equals("AOL") || s.equals("YHOO"))).isNotEmpty();
+  }
+
+  @Test
+  public void resultsFollowUpdatesAndDestroys() throws Exception {
+    put(0, "ORCL");
+    put(1, "ORCL");
+    region.destroy(2);
+    secIds[2] = "";
+
+    assertThat(query("p.secId = 'ORCL'")).containsExactlyInAnyOrder(0, 1);
+    assertThat(query("p.secId = $1", SEC_IDS[2]))
+        .isEqualTo(expected(s -> s.equals(SEC_IDS[2]))).doesNotContain(2);
+  }
+}
@@ -0,0 +1,46 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.cache.query.internal.index;
+
+import org.junit.experimental.categories.Category;
+
+import org.apache.geode.cache.AttributesFactory;
+import org.apache.geode.cache.Cache;
+import org.apache.geode.cache.DataPolicy;
+import org.apache.geode.cache.RegionAttributes;
+import org.apache.geode.cache.query.CacheUtils;
+import org.apache.geode.internal.cache.LocalRegion;
+import org.apache.geode.internal.cache.persistence.query.OffHeapIndexMap;
+import org.apache.geode.test.junit.categories.OQLIndexTest;
+
+/**
+ * Runs the tests of the map index store against an index map of off heap blocks.
+ */
+@Category({OQLIndexTest.class})
+public class OffHeapMapIndexStoreJUnitTest extends MapIndexStoreJUnitTest {
+
+  @Override
+  protected IndexStore getIndexStorage() {
+    CacheUtils.startCache();
+    Cache cache = CacheUtils.getCache();
+    AttributesFactory attributesFactory = new AttributesFactory();
+    attributesFactory.setDataPolicy(DataPolicy.NORMAL);
+    attributesFactory.setIndexMaintenanceSynchronous(true);
+    RegionAttributes regionAttributes = attributesFactory.create();
+    region = (LocalRegion) cache.createRegion("portfolios", regionAttributes);
+
+    return new MapIndexStore(new OffHeapIndexMap(), region);
+  }
+}
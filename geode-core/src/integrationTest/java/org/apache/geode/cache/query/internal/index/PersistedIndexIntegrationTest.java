@@ -0,0 +1,158 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.cache.query.internal.index;
+
+import static org.apache.geode.distributed.ConfigurationProperties.MCAST_PORT;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Collections;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.contrib.java.lang.system.RestoreSystemProperties;
+import org.junit.experimental.categories.Category;
+import org.junit.rules.TemporaryFolder;
+
+import org.apache.geode.cache.AttributesFactory;
+import org.apache.geode.cache.CacheFactory;
+import org.apache.geode.cache.DataPolicy;
+import org.apache.geode.cache.Region;
+import org.apache.geode.cache.RegionAttributes;
+import org.apache.geode.cache.Scope;
+import org.apache.geode.cache.query.Index;
+import org.apache.geode.cache.query.IndexType;
+import org.apache.geode.cache.query.SelectResults;
+import org.apache.geode.cache.query.data.Portfolio;
+import org.apache.geode.internal.cache.InternalCache;
+import org.apache.geode.internal.cache.InternalRegionArguments;
+import org.apache.geode.test.junit.categories.OQLIndexTest;
+
+@Category({OQLIndexTest.class})
+public class PersistedIndexIntegrationTest {
+
+  private static final String REGION_NAME = "portfolios";
+
+  @Rule
+  public RestoreSystemProperties restoreSystemProperties = new RestoreSystemProperties();
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private InternalCache cache;
+
+  private File diskDir;
+
+  @Before
+  public void setUp() throws Exception {
+    System.setProperty(IndexSnapshot.PERSIST_INDEXES_PROPERTY, "true");
+    diskDir = temporaryFolder.newFolder();
+  }
+
+  @After
+  public void tearDown() {
+    if (cache != null) {
+      cache.close();
+    }
+  }
+
+  @Test
+  public void indexesAreSavedOnCloseAndLoadedOnRecovery() throws Exception {
+    Region<String, Portfolio> region = createRegion();
+    for (int i = 0; i < 100; i++) {
+      region.put(String.valueOf(i), new Portfolio(i));
+    }
+    cache.close();
+    assertThat(getSnapshotFile()).exists();
+
+    region = createRegion();
+    assertThat(getSnapshotFile()).doesNotExist();
+    assertThat(getIndex().getStatistics().getNumberOfValues()).isEqualTo(100);
+    assertThat(query("select * from /portfolios p where p.ID < 10")).hasSize(10);
+
+    region.put("100", new Portfolio(100));
+    assertThat(query("select * from /portfolios p where p.ID >= 99")).hasSize(2);
+  }
+
+  @Test
+  public void entriesModifiedSinceTheIndexesWereSavedAreEvaluated() throws Exception {
+    Region<String, Portfolio> region = createRegion();
+    for (int i = 0; i < 10; i++) {
+      region.put(String.valueOf(i), new Portfolio(i));
+    }
+    cache.close();
+    File staleSnapshot = new File(temporaryFolder.getRoot(), "stale.idx");
+    Files.copy(getSnapshotFile().toPath(), staleSnapshot.toPath());
+
+    region = createRegion();
+    region.put("5", new Portfolio(500));
+    region.remove("6");
+    cache.close();
+    Files.copy(staleSnapshot.toPath(), getSnapshotFile().toPath(),
+        StandardCopyOption.REPLACE_EXISTING);
+
+    createRegion();
+    assertThat(query("select * from /portfolios p where p.ID = 5")).isEmpty();
+    assertThat(query("select * from /portfolios p where p.ID = 6")).isEmpty();
+    assertThat(query("select * from /portfolios p where p.ID = 500")).hasSize(1);
+    assertThat(query("select * from /portfolios p where p.ID < 10")).hasSize(8);
+  }
+
+  @Test
+  public void indexesAreEvaluatedWhenNotSaved() throws Exception {
+    Region<String, Portfolio> region = createRegion();
+    for (int i = 0; i < 10; i++) {
+      region.put(String.valueOf(i), new Portfolio(i));
+    }
+    System.clearProperty(IndexSnapshot.PERSIST_INDEXES_PROPERTY);
+    cache.close();
+    assertThat(getSnapshotFile()).doesNotExist();
+
+    createRegion();
+    assertThat(query("select * from /portfolios p where p.ID < 10")).hasSize(10);
+  }
+
+  private Region<String, Portfolio> createRegion() throws Exception {
+    cache = (InternalCache) new CacheFactory().set(MCAST_PORT, "0").create();
+    cache.createDiskStoreFactory().setDiskDirs(new File[] {diskDir}).create("store");
+
+    AttributesFactory<String, Portfolio> attributesFactory = new AttributesFactory<>();
+    attributesFactory.setDataPolicy(DataPolicy.PERSISTENT_REPLICATE);
+    attributesFactory.setScope(Scope.DISTRIBUTED_ACK);
+    attributesFactory.setDiskStoreName("store");
+    RegionAttributes<String, Portfolio> attributes = attributesFactory.create();
+
+    IndexCreationData indexData = new IndexCreationData("idIndex");
+    indexData.setIndexData(IndexType.FUNCTIONAL, "/portfolios p", "p.ID", null);
+    return cache.createVMRegion(REGION_NAME, attributes,
+        new InternalRegionArguments().setIndexes(Collections.singletonList(indexData)));
+  }
+
+  private Index getIndex() {
+    return cache.getQueryService().getIndex(cache.getRegion(REGION_NAME), "idIndex");
+  }
+
+  private SelectResults query(String query) throws Exception {
+    return (SelectResults) cache.getQueryService().newQuery(query).execute();
+  }
+
+  private File getSnapshotFile() {
+    return new File(diskDir, "INDEX_" + REGION_NAME + ".idx");
+  }
+}
@@ -16,6 +16,7 @@ package org.apache.geode.cache.query.partitioned;
 
 import static org.junit.Assert.fail;
 
+import java.util.Arrays;
 import java.util.HashMap;
 
 import org.junit.Before;
@@ -136,6 +137,36 @@ public class PRQueryNumThreadsJUnitTest {
     }
   }
 
+  @Test
+  public void testQueriesWithForkJoinExecution() throws Exception {
+    Region region = PartitionedRegionTestHelper.createPartitionedRegion(regionName, "100", 0);
+    PortfolioData[] portfolios = new PortfolioData[100];
+    for (int j = 0; j < 100; j++) {
+      portfolios[j] = new PortfolioData(j);
+    }
+    PRQueryProcessor.TEST_FORK_JOIN_PARALLELISM = 4;
+    try {
+      populateData(region, portfolios);
+
+      SelectResults resSet = region.query("ID > 5 and ID <=15");
+      Assert.assertTrue(resSet.size() == 10);
+
+      String queryString =
+          "Select distinct p.ID from /" + region.getName() + " p order by p.ID desc limit 3";
+      Query query = region.getCache().getQueryService().newQuery(queryString);
+      SelectResults sr = (SelectResults) query.execute();
+      Assert.assertTrue(sr.asList().equals(Arrays.asList(99, 98, 97)));
+
+      queryString = "Select * from /" + region.getName() + " p where p.ID >= 50 limit 7";
+      query = region.getCache().getQueryService().newQuery(queryString);
+      sr = (SelectResults) query.execute();
+      Assert.assertTrue(sr.size() == 7);
+    } finally {
+      PRQueryProcessor.TEST_FORK_JOIN_PARALLELISM = 0;
+      region.close();
+    }
+  }
+
   /**
    * Populates the region with the Objects stores in the data Object array.
    *
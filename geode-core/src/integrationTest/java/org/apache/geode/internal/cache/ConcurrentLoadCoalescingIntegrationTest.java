@@ -0,0 +1,122 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.internal.cache;
+
+import static org.apache.geode.distributed.ConfigurationProperties.LOCATORS;
+import static org.apache.geode.distributed.ConfigurationProperties.MCAST_PORT;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import org.apache.geode.cache.CacheFactory;
+import org.apache.geode.cache.CacheLoader;
+import org.apache.geode.cache.LoaderHelper;
+import org.apache.geode.cache.Region;
+import org.apache.geode.cache.RegionShortcut;
+
+public class ConcurrentLoadCoalescingIntegrationTest {
+
+  private static final int THREADS = 8;
+
+  private InternalCache cache;
+  private ExecutorService executor;
+  private final AtomicInteger loads = new AtomicInteger();
+  private final CountDownLatch releaseLoad = new CountDownLatch(1);
+
+  @Before
+  public void setUp() {
+    cache = (InternalCache) new CacheFactory().set(LOCATORS, "").set(MCAST_PORT, "0").create();
+    executor = Executors.newFixedThreadPool(THREADS);
+  }
+
+  @After
+  public void tearDown() {
+    releaseLoad.countDown();
+    executor.shutdownNow();
+    cache.close();
+  }
+
+  @Test
+  public void concurrentMissesShareOneLoad() throws Exception {
+    Region<String, String> region = createRegion("value");
+
+    for (Object value : getConcurrently(region)) {
+      assertThat(value).isEqualTo("value");
+    }
+    assertThat(loads.get()).isEqualTo(1);
+    assertThat(cache.getCachePerfStats().getGetsCoalesced()).isEqualTo(THREADS - 1);
+  }
+
+  @Test
+  public void concurrentMissesShareLoadThatFoundNoValue() throws Exception {
+    Region<String, String> region = createRegion(null);
+
+    for (Object value : getConcurrently(region)) {
+      assertThat(value).isNull();
+    }
+    assertThat(loads.get()).isEqualTo(1);
+    assertThat(cache.getCachePerfStats().getGetsCoalesced()).isEqualTo(THREADS - 1);
+  }
+
+  private Region<String, String> createRegion(String loadedValue) {
+    return cache.<String, String>createRegionFactory(RegionShortcut.LOCAL)
+        .setCacheLoader(new CacheLoader<String, String>() {
+          @Override
+          public String load(LoaderHelper<String, String> helper) {
+            loads.incrementAndGet();
+            try {
+              releaseLoad.await(30, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+              Thread.currentThread().interrupt();
+            }
+            return loadedValue;
+          }
+
+          @Override
+          public void close() {}
+        }).create("region");
+  }
+
+  private List<Object> getConcurrently(Region<String, String> region) throws Exception {
+    List<Future<String>> futures = new ArrayList<>();
+    for (int i = 0; i < THREADS; i++) {
+      futures.add(executor.submit(() -> region.get("key")));
+    }
+    // wait until every get but the loading one waits for the load
+    long deadline = System.currentTimeMillis() + 30000;
+    while (((LocalRegion) region).getCachePerfStats().getLoadsInProgress() == 0
+        && System.currentTimeMillis() < deadline) {
+      Thread.sleep(10);
+    }
+    Thread.sleep(500);
+    releaseLoad.countDown();
+    List<Object> values = new ArrayList<>();
+    for (Future<String> future : futures) {
+      values.add(future.get(30, TimeUnit.SECONDS));
+    }
+    return values;
+  }
+}
@@ -38,6 +38,7 @@ import java.net.ServerSocket;
 import java.net.Socket;
 import java.net.SocketTimeoutException;
 import java.net.URL;
+import java.nio.channels.ServerSocketChannel;
 import java.util.Properties;
 import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
@@ -176,6 +177,27 @@ public class SSLSocketIntegrationTest {
     assertThat(this.messageFromClient.get()).isEqualTo(MESSAGE);
   }
 
+  @Test
+  public void securedSocketLayeredOverChannelSocketShouldWork() throws Exception {
+    ServerSocketChannel serverChannel = ServerSocketChannel.open();
+    this.serverSocket = serverChannel.socket();
+    this.serverSocket.bind(new InetSocketAddress(this.localHost, 0));
+    this.serverThread = startLayeredServer(this.serverSocket, 15000);
+
+    int serverPort = this.serverSocket.getLocalPort();
+    this.clientSocket = this.socketCreator.connectForServer(this.localHost, serverPort);
+
+    ObjectOutputStream output = new ObjectOutputStream(this.clientSocket.getOutputStream());
+    output.writeObject(MESSAGE);
+    output.flush();
+
+    await().atMost(30, TimeUnit.SECONDS).until(() -> {
+      return !serverThread.isAlive();
+    });
+    assertNull(serverException);
+    assertThat(this.messageFromClient.get()).isEqualTo(MESSAGE);
+  }
+
   @Test(expected = SocketTimeoutException.class)
   public void handshakeCanTimeoutOnServer() throws Throwable {
     this.serverSocket = this.socketCreator.createServerSocket(0, 0, this.localHost);
@@ -290,6 +312,25 @@ public class SSLSocketIntegrationTest {
     return serverThread;
   }
 
+  private Thread startLayeredServer(final ServerSocket serverSocket, int timeoutMillis)
+      throws Exception {
+    Thread serverThread = new Thread(new MyThreadGroup(this.testName.getMethodName()), () -> {
+      try {
+        Socket acceptedSocket = serverSocket.accept();
+        assertNotNull(acceptedSocket.getChannel());
+        Socket socket = socketCreator.layerServerSSLSocket(acceptedSocket);
+        socketCreator.handshakeIfSocketIsSSL(socket, timeoutMillis);
+        ObjectInputStream ois = new ObjectInputStream(socket.getInputStream());
+        messageFromClient.set((String) ois.readObject());
+      } catch (Throwable throwable) {
+        serverException = throwable;
+      }
+    }, this.testName.getMethodName() + "-server");
+
+    serverThread.start();
+    return serverThread;
+  }
+
   private class MyThreadGroup extends ThreadGroup {
 
     public MyThreadGroup(final String name) {
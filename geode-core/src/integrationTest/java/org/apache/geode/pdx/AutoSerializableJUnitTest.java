@@ -38,6 +38,8 @@ import java.net.URL;
 import java.net.URLClassLoader;
 import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
@@ -171,6 +173,71 @@ public class AutoSerializableJUnitTest {
     }
   }
 
+  /*
+   * Test that every field type survives a round trip once the PdxType of the class is known, which
+   * is when the fields are written with the serializer compiled for the class.
+   */
+  @Test
+  public void testRoundTripWithClassSerializer() throws Exception {
+    setupSerializer(false, false, "org.apache.geode.pdx.DomainObjectPdxAuto");
+    assertRoundTripOfAllFieldTypes();
+  }
+
+  @Test
+  public void testRoundTripWithoutClassSerializer() throws Exception {
+    boolean oldValue = AutoSerializableManager.USE_CLASS_SERIALIZERS;
+    AutoSerializableManager.USE_CLASS_SERIALIZERS = false;
+    try {
+      setupSerializer(false, false, "org.apache.geode.pdx.DomainObjectPdxAuto");
+      assertRoundTripOfAllFieldTypes();
+    } finally {
+      AutoSerializableManager.USE_CLASS_SERIALIZERS = oldValue;
+    }
+  }
+
+  private void assertRoundTripOfAllFieldTypes() throws Exception {
+    DomainObjectPdxAuto objOut = new DomainObjectPdxAuto(4);
+    objOut.set("string_0", "test string value");
+    objOut.set("long_0", 99L);
+    objOut.anInteger = 7;
+    objOut.aChar = 'c';
+    objOut.aBoolean = true;
+    objOut.aByte = 1;
+    objOut.aShort = 2;
+    objOut.anInt = 3;
+    objOut.aLong = 4L;
+    objOut.aFloat = 5.0f;
+    objOut.aDouble = 6.0;
+    objOut.aDate = new Date(1000L);
+    objOut.anEnum = DomainObjectPdxAuto.Day.MONDAY;
+    objOut.aString = "a string";
+    objOut.anObject = "an object";
+    objOut.aMap = new HashMap();
+    objOut.aMap.put("key", "value");
+    objOut.aCollection = new ArrayList();
+    objOut.aCollection.add("element");
+    objOut.aBooleanArray = new boolean[] {true, false};
+    objOut.aCharArray = new char[] {'a', 'b'};
+    objOut.aByteArray = new byte[] {1, 2};
+    objOut.aShortArray = new short[] {3, 4};
+    objOut.anIntArray = new int[] {5, 6};
+    objOut.aLongArray = new long[] {7L, 8L};
+    objOut.aFloatArray = new float[] {9.0f, 10.0f};
+    objOut.aDoubleArray = new double[] {11.0, 12.0};
+    objOut.aStringArray = new String[] {"one", null};
+    objOut.anObjectArray = new Object[] {"two", 3};
+    objOut.anArrayOfByteArray = new byte[][] {{1}, {2, 3}};
+
+    // the first write defines the PdxType, the later ones use the known type
+    for (int i = 0; i < 3; i++) {
+      HeapDataOutputStream out = new HeapDataOutputStream(Version.CURRENT);
+      DataSerializer.writeObject(objOut, out);
+      DomainObjectPdxAuto objIn = DataSerializer
+          .readObject(new DataInputStream(new ByteArrayInputStream(out.toByteArray())));
+      assertEquals(objOut, objIn);
+    }
+  }
+
   @Test
   public void testConcurrentHashMap() throws Exception {
     setupSerializer("java.util.concurrent..*");
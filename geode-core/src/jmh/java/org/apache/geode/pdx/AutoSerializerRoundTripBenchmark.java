@@ -0,0 +1,146 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.pdx;
+
+import static org.apache.geode.distributed.ConfigurationProperties.LOG_LEVEL;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.apache.geode.DataSerializer;
+import org.apache.geode.cache.Cache;
+import org.apache.geode.cache.CacheFactory;
+import org.apache.geode.internal.HeapDataOutputStream;
+import org.apache.geode.internal.Version;
+import org.apache.geode.pdx.internal.AutoSerializableManager;
+
+/**
+ * This benchmark measures the throughput of PDX serialization and deserialization of a class
+ * serialized by the ReflectionBasedAutoSerializer, with and without the class serializers that
+ * access the fields of each auto serialized class at their Unsafe offsets, in the order of its
+ * PdxType, instead of through the wrapper of each field.
+ */
+@State(Scope.Thread)
+@Fork(1)
+public class AutoSerializerRoundTripBenchmark {
+
+  @Param({"true", "false"})
+  public boolean useClassSerializers;
+
+  private boolean oldUseClassSerializers;
+
+  private Cache cache;
+
+  private Order order;
+
+  private byte[] serializedOrder;
+
+  @Setup(Level.Trial)
+  public void setup() throws IOException {
+    oldUseClassSerializers = AutoSerializableManager.USE_CLASS_SERIALIZERS;
+    AutoSerializableManager.USE_CLASS_SERIALIZERS = useClassSerializers;
+    cache = new CacheFactory().set(LOG_LEVEL, "warn")
+        .setPdxSerializer(new ReflectionBasedAutoSerializer(Order.class.getName())).create();
+    order = new Order(1);
+    serializedOrder = serialize();
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    cache.close();
+    AutoSerializableManager.USE_CLASS_SERIALIZERS = oldUseClassSerializers;
+  }
+
+  @Benchmark
+  @Measurement(iterations = 10)
+  @Warmup(iterations = 5)
+  @BenchmarkMode(Mode.Throughput)
+  @OutputTimeUnit(TimeUnit.MILLISECONDS)
+  public byte[] serialize() throws IOException {
+    HeapDataOutputStream out = new HeapDataOutputStream(Version.CURRENT);
+    DataSerializer.writeObject(order, out);
+    return out.toByteArray();
+  }
+
+  @Benchmark
+  @Measurement(iterations = 10)
+  @Warmup(iterations = 5)
+  @BenchmarkMode(Mode.Throughput)
+  @OutputTimeUnit(TimeUnit.MILLISECONDS)
+  public Object deserialize() throws IOException, ClassNotFoundException {
+    return DataSerializer
+        .readObject(new DataInputStream(new ByteArrayInputStream(serializedOrder)));
+  }
+
+  @Benchmark
+  @Measurement(iterations = 10)
+  @Warmup(iterations = 5)
+  @BenchmarkMode(Mode.Throughput)
+  @OutputTimeUnit(TimeUnit.MILLISECONDS)
+  public Object roundTrip() throws IOException, ClassNotFoundException {
+    return DataSerializer.readObject(new DataInputStream(new ByteArrayInputStream(serialize())));
+  }
+
+  public static class Order {
+    private long id;
+    private int quantity;
+    private double price;
+    private float discount;
+    private short priority;
+    private byte status;
+    private char currency;
+    private boolean shipped;
+    private String customer;
+    private String product;
+    private Date created;
+    private int[] lineQuantities;
+    private String[] tags;
+
+    public Order() {}
+
+    Order(long id) {
+      this.id = id;
+      this.quantity = 10;
+      this.price = 99.5;
+      this.discount = 0.1f;
+      this.priority = 2;
+      this.status = 1;
+      this.currency = '$';
+      this.shipped = true;
+      this.customer = "customer-" + id;
+      this.product = "product-" + id;
+      this.created = new Date(0L);
+      this.lineQuantities = new int[] {1, 2, 3, 4};
+      this.tags = new String[] {"priority", "gift"};
+    }
+  }
+}
@@ -1311,12 +1311,16 @@ public abstract class DataSerializer {
       HeapDataOutputStream hdos;
       if (object instanceof HeapDataOutputStream) {
         hdos = (HeapDataOutputStream) object;
-      } else {
-        Version v = InternalDataSerializer.getVersionForDataStreamOrNull(out);
-        if (v == null) {
-          v = Version.CURRENT;
-        }
-        hdos = new HeapDataOutputStream(v);
+        InternalDataSerializer.writeArrayLength(hdos.size(), out);
+        hdos.sendTo(out);
+        return;
+      }
+      Version v = InternalDataSerializer.getVersionForDataStreamOrNull(out);
+      if (v == null) {
+        v = Version.CURRENT;
+      }
+      hdos = HeapDataOutputStream.pooled(1024, v);
+      try {
         try {
           DataSerializer.writeObject(object, hdos);
         } catch (IOException e) {
@@ -1325,9 +1329,11 @@ public abstract class DataSerializer {
           e2.initCause(e);
           throw e2;
         }
+        InternalDataSerializer.writeArrayLength(hdos.size(), out);
+        hdos.sendTo(out);
+      } finally {
+        hdos.release();
       }
-      InternalDataSerializer.writeArrayLength(hdos.size(), out);
-      hdos.sendTo(out);
     }
   }
 
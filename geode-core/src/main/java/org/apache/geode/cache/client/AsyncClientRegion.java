@@ -0,0 +1,157 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.cache.client;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import org.apache.geode.annotations.Experimental;
+import org.apache.geode.cache.DataPolicy;
+import org.apache.geode.cache.Operation;
+import org.apache.geode.cache.Region;
+import org.apache.geode.cache.client.internal.ServerRegionProxy;
+import org.apache.geode.internal.cache.EntryEventImpl;
+import org.apache.geode.internal.cache.InternalRegion;
+import org.apache.geode.internal.cache.Token;
+import org.apache.geode.internal.cache.tier.sockets.VersionedObjectList;
+
+/**
+ * Sends gets and puts on a client region to its servers without blocking the calling thread. Each
+ * operation returns a {@link CompletableFuture} that is completed with its result, or with the
+ * exception the blocking operation on the region would have thrown.
+ * <p>
+ * Gets are sent on the pipelined connections of the pool when they are enabled, and their futures
+ * are completed by the thread reading the responses of the connection. Other operations run the
+ * blocking operation on a small pool of threads owned by the region's pool, so they do use a
+ * thread for as long as the operation takes.
+ * <p>
+ * Only {@link ClientRegionShortcut#PROXY} regions are supported since operations go straight to
+ * the servers: no local copy is updated and no local cache listener or writer is invoked.
+ *
+ * @param <K> the type of the keys of the region
+ * @param <V> the type of the values of the region
+ */
+@Experimental
+public class AsyncClientRegion<K, V> {
+
+  private final ServerRegionProxy serverProxy;
+
+  private final InternalRegion region;
+
+  private AsyncClientRegion(InternalRegion region, ServerRegionProxy serverProxy) {
+    this.region = region;
+    this.serverProxy = serverProxy;
+  }
+
+  /**
+   * Returns an object sending the operations on the given region to its servers asynchronously.
+   *
+   * @throws IllegalArgumentException if the region is not a client
+   *         {@link ClientRegionShortcut#PROXY} region
+   */
+  public static <K, V> AsyncClientRegion<K, V> of(Region<K, V> region) {
+    if (!(region instanceof InternalRegion)
+        || ((InternalRegion) region).getServerProxy() == null) {
+      throw new IllegalArgumentException(
+          "Region " + region.getFullPath() + " is not a client region with a pool");
+    }
+    if (region.getAttributes().getDataPolicy() != DataPolicy.EMPTY) {
+      throw new IllegalArgumentException(
+          "Region " + region.getFullPath() + " must be a PROXY region");
+    }
+    InternalRegion internalRegion = (InternalRegion) region;
+    return new AsyncClientRegion<>(internalRegion, internalRegion.getServerProxy());
+  }
+
+  /**
+   * Gets the value of the given key from the servers.
+   *
+   * @return a future completed with the value, or with null if the key has no value
+   */
+  @SuppressWarnings("unchecked")
+  public CompletableFuture<V> get(K key) {
+    checkKey(key);
+    return this.serverProxy.getAsync(key, null, null).thenApply(value -> (V) toValue(value));
+  }
+
+  /**
+   * Puts the given value for the given key on the servers.
+   *
+   * @return a future completed once the servers have applied the put
+   */
+  public CompletableFuture<Void> put(K key, V value) {
+    checkKey(key);
+    if (value == null) {
+      throw new NullPointerException("value must not be null");
+    }
+    EntryEventImpl event = EntryEventImpl.create(this.region, Operation.UPDATE, key, value, null,
+        false, this.region.getMyId());
+    CompletableFuture<Object> result;
+    try {
+      event.setNewEventId(this.region.getCache().getDistributedSystem());
+      result = this.serverProxy.putAsync(key, value, event, Operation.UPDATE, false, null, null);
+    } catch (RuntimeException e) {
+      event.release();
+      throw e;
+    }
+    return result.handle((oldValue, ex) -> {
+      event.release();
+      if (ex != null) {
+        throw ex instanceof RuntimeException ? (RuntimeException) ex
+            : new ServerOperationException(ex);
+      }
+      return null;
+    });
+  }
+
+  /**
+   * Gets the values of the given keys from the servers. All the keys are sent to one server.
+   *
+   * @return a future completed with a map of each key to its value, or to null if it has none
+   */
+  @SuppressWarnings("unchecked")
+  public CompletableFuture<Map<K, V>> getAll(Collection<? extends K> keys) {
+    for (K key : keys) {
+      checkKey(key);
+    }
+    List keyList = new ArrayList<>(keys);
+    return this.serverProxy.getAllAsync(keyList, null).thenApply(results -> {
+      Map<K, V> values = new HashMap<>();
+      for (VersionedObjectList.Iterator it = results.iterator(); it.hasNext();) {
+        VersionedObjectList.Entry entry = it.next();
+        Object value = entry.isKeyNotOnServer() ? null : entry.getObject();
+        if (value instanceof Throwable) {
+          throw new ServerOperationException((Throwable) value);
+        }
+        values.put((K) entry.getKey(), (V) toValue(value));
+      }
+      return values;
+    });
+  }
+
+  private void checkKey(K key) {
+    if (key == null) {
+      throw new NullPointerException("key must not be null");
+    }
+  }
+
+  private static Object toValue(Object value) {
+    return Token.isInvalidOrRemoved(value) ? null : value;
+  }
+}
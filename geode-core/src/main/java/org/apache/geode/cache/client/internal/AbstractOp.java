@@ -87,6 +87,7 @@ public abstract class AbstractOp implements Op {
     }
     getMessage().setComms(cnx.getSocket(), cnx.getInputStream(), cnx.getOutputStream(),
         cnx.getCommBuffer(), cnx.getStats());
+    getMessage().setCompressionThreshold(cnx.getWireCompressionThreshold());
     try {
       sendMessage(cnx);
     } finally {
@@ -428,4 +429,16 @@ public abstract class AbstractOp implements Op {
   public boolean isGatewaySenderOp() {
     return false;
   }
+
+  /**
+   * Subclasses should override this method to return true if this op may be sent on a
+   * {@link PipelinedConnection} that is shared with other in flight ops. Such an op must read
+   * exactly one non-chunked response and must not send anything else on the connection while
+   * processing that response.
+   *
+   * @return true if this op can be pipelined
+   */
+  protected boolean isPipelineable() {
+    return false;
+  }
 }
@@ -75,6 +75,12 @@ public interface Connection {
 
   int getDistributedSystemId();
 
+  /**
+   * Returns the payload length from which the messages sent on this connection are compressed, 0 if
+   * they are never compressed.
+   */
+  int getWireCompressionThreshold();
+
   OutputStream getOutputStream();
 
   InputStream getInputStream();
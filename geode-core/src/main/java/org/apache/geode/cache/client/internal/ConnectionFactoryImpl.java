@@ -104,7 +104,11 @@ public class ConnectionFactoryImpl implements ConnectionFactory {
     boolean initialized = false;
     Connection connection = null;
     try {
-      connection = connectionConnector.connectClientToServer(location, forQueue);
+      ConnectionImpl connectionImpl = connectionConnector.connectClientToServer(location, forQueue);
+      if (this.pool != null) {
+        connectionImpl.setWireCompressionThreshold(this.pool.getWireCompressionThreshold());
+      }
+      connection = connectionImpl;
       initialized = true;
       failureTracker.reset();
       authenticateIfRequired(connection);
@@ -36,6 +36,7 @@ import org.apache.geode.cache.wan.GatewaySender;
 import org.apache.geode.distributed.internal.DistributionConfig;
 import org.apache.geode.distributed.internal.InternalDistributedSystem;
 import org.apache.geode.distributed.internal.ServerLocation;
+import org.apache.geode.internal.Version;
 import org.apache.geode.internal.cache.tier.ClientSideHandshake;
 import org.apache.geode.internal.cache.tier.CommunicationMode;
 import org.apache.geode.internal.cache.tier.sockets.ServerConnection;
@@ -78,6 +79,8 @@ public class ConnectionImpl implements Connection {
   // handshake
   private short wanSiteVersion = -1;
 
+  private int wireCompressionThreshold;
+
   private final InternalDistributedSystem ds;
 
   private OutputStream out;
@@ -271,7 +274,14 @@ public class ConnectionImpl implements Connection {
           this.getSocket().setSoTimeout(earliertimeout);
         }
       } else {
-        result = op.attempt(this);
+        // function execution times depend on the function so only other ops are timed
+        long start = System.nanoTime();
+        endpoint.requestStarted();
+        try {
+          result = op.attempt(this);
+        } finally {
+          endpoint.requestEnded(System.nanoTime() - start);
+        }
       }
     }
     endpoint.updateLastExecute();
@@ -292,6 +302,21 @@ public class ConnectionImpl implements Connection {
     this.wanSiteVersion = wanSiteVersion;
   }
 
+  /**
+   * Gateway receivers older than 1.8 can not read compressed messages. Cache servers are always at
+   * least as recent as their clients.
+   */
+  public int getWireCompressionThreshold() {
+    if (this.wanSiteVersion != -1 && this.wanSiteVersion < Version.GEODE_180.ordinal()) {
+      return 0;
+    }
+    return this.wireCompressionThreshold;
+  }
+
+  void setWireCompressionThreshold(int wireCompressionThreshold) {
+    this.wireCompressionThreshold = wireCompressionThreshold;
+  }
+
   public int getDistributedSystemId() {
     return ((InternalDistributedSystem) this.ds).getDistributionManager().getDistributedSystemId();
   }
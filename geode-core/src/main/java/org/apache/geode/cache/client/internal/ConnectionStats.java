@@ -3210,6 +3210,10 @@ public class ConnectionStats implements MessageStats {
     this.stats.incLong(sentBytesId, v);
   }
 
+  public void incCompressedMessages(int uncompressedBytes, int compressedBytes) {
+    this.poolStats.incCompressedMessages(uncompressedBytes, compressedBytes);
+  }
+
   public void incMessagesBeingReceived(int bytes) {
     stats.incInt(messagesBeingReceivedId, 1);
     if (bytes > 0) {
@@ -86,6 +86,11 @@ public class ContainsKeyOp {
       stats.endContainsKey(start, hasTimedOut(), hasFailed());
     }
 
+    @Override
+    protected boolean isPipelineable() {
+      return true;
+    }
+
     @Override
     public String toString() {
       return "ContainsKeyOp(region=" + region + ";key=" + key + ";mode=" + mode;
@@ -31,6 +31,8 @@ public class Endpoint {
 
   private AtomicLong lastExecute = new AtomicLong();
   private AtomicInteger references = new AtomicInteger();
+  private final AtomicInteger outstandingRequests = new AtomicInteger();
+  private final AtomicLong averageResponseTime = new AtomicLong();
   private final ServerLocation location;
   private final ConnectionStats stats;
   private final EndpointManagerImpl manager;
@@ -59,6 +61,39 @@ public class Endpoint {
     return getLastExecute() <= (now - pingIntervalNanos);
   }
 
+  /**
+   * Called before a request is sent to this server.
+   */
+  public void requestStarted() {
+    outstandingRequests.incrementAndGet();
+  }
+
+  /**
+   * Called once the response to a request sent to this server was read or the request failed.
+   *
+   * @param nanos the time the request took, in nanoseconds
+   */
+  public void requestEnded(long nanos) {
+    outstandingRequests.decrementAndGet();
+    // exponentially weighted moving average giving 1/8 of the weight to the last request
+    averageResponseTime.accumulateAndGet(nanos,
+        (average, sample) -> average == 0 ? sample : average + (sample - average) / 8);
+  }
+
+  /**
+   * @return the number of requests sent to this server whose response has not been read yet
+   */
+  public int getOutstandingRequests() {
+    return outstandingRequests.get();
+  }
+
+  /**
+   * @return the moving average of the time the requests to this server took, in nanoseconds
+   */
+  public long getAverageResponseTime() {
+    return averageResponseTime.get();
+  }
+
   public void close() {
     if (!closed) {
       closed = true;
@@ -14,6 +14,8 @@
  */
 package org.apache.geode.cache.client.internal;
 
+import java.util.concurrent.CompletableFuture;
+
 import org.apache.geode.cache.NoSubscriptionServersAvailableException;
 import org.apache.geode.cache.client.SubscriptionNotEnabledException;
 import org.apache.geode.distributed.internal.ServerLocation;
@@ -44,6 +46,16 @@ public interface ExecutablePool {
    */
   Object execute(Op op, int retryAttempts);
 
+  /**
+   * Execute the given op on the servers that this pool connects to without blocking the calling
+   * thread. The op is retried the same way as {@link #execute(Op)} would.
+   *
+   * @param op the operation to execute
+   * @return a future completed with the result of execution if any, or with the exception that
+   *         execute would have thrown
+   */
+  CompletableFuture<Object> executeAsync(Op op);
+
   /**
    * Execute the given op on all the servers that have server-to-client queues for this pool The
    * last exception from any server will be thrown if the op fails. The op is executed with the
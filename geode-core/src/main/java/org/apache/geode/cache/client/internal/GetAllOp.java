@@ -19,6 +19,7 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 
 import org.apache.logging.log4j.Logger;
 
@@ -60,6 +61,19 @@ public class GetAllOp {
     return ((VersionedObjectList) pool.execute(op)).setKeys(keys);
   }
 
+  /**
+   * Does a region getAll on a server without blocking the calling thread. All the keys are sent to
+   * a single server.
+   *
+   * @return a future completed with the values of the keys
+   */
+  public static CompletableFuture<VersionedObjectList> executeAsync(ExecutablePool pool,
+      String region, List keys, Object callback) {
+    AbstractOp op = new GetAllOpImpl(region, keys, callback);
+    op.initMessagePart();
+    return pool.executeAsync(op).thenApply(result -> ((VersionedObjectList) result).setKeys(keys));
+  }
+
   public static VersionedObjectList execute(ExecutablePool pool, Region region, List keys,
       int retryAttempts, Object callback) {
     AbstractOp op = new GetAllOpImpl(region.getFullPath(), keys, callback);
@@ -110,6 +124,26 @@ public class GetAllOp {
     }
   }
 
+  /**
+   * Does a region getAll on the servers and returns the results as they arrive instead of
+   * collecting them all first. With single hop the keys are sent to the servers hosting their
+   * buckets, in batches.
+   *
+   * @param retry whether a batch that could not be sent to the server hosting its buckets is sent
+   *        again to any server
+   * @return an iterator over the entries read, which should be closed if it is not read to the end
+   */
+  public static GetAllStream executeStreaming(ExecutablePool pool, Region region, List keys,
+      Object callback, boolean singleHop, boolean retry) {
+    Map<ServerLocation, HashSet> serverToFilterMap = null;
+    if (singleHop) {
+      ClientMetadataService cms = ((LocalRegion) region).getCache().getClientMetadataService();
+      serverToFilterMap = cms.getServerToFilterMap(keys, region, true);
+    }
+    return new GetAllStream((PoolImpl) pool, (LocalRegion) region, keys, callback,
+        serverToFilterMap, retry, GetAllStream.BATCH_SIZE, GetAllStream.MAX_IN_FLIGHT);
+  }
+
   private GetAllOp() {
     // no instances allowed
   }
@@ -0,0 +1,270 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.cache.client.internal;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.apache.logging.log4j.Logger;
+
+import org.apache.geode.InternalGemFireException;
+import org.apache.geode.SystemFailure;
+import org.apache.geode.cache.client.ServerConnectivityException;
+import org.apache.geode.cache.client.ServerOperationException;
+import org.apache.geode.cache.client.internal.GetAllOp.GetAllOpImpl;
+import org.apache.geode.distributed.internal.DistributionConfig;
+import org.apache.geode.distributed.internal.ServerLocation;
+import org.apache.geode.internal.cache.LocalRegion;
+import org.apache.geode.internal.cache.TXManagerImpl;
+import org.apache.geode.internal.cache.tier.sockets.VersionedObjectList;
+import org.apache.geode.internal.logging.LogService;
+
+/**
+ * Iterates over the results of a getAll as they arrive from the servers. The keys are grouped by
+ * the server hosting their primary bucket and each group is split into batches of at most
+ * {@link #BATCH_SIZE} keys. At most {@link #MAX_IN_FLIGHT} batches are requested or waiting to be
+ * consumed at any time so the memory used does not depend on the number of keys.
+ * <p>
+ * A batch that fails because its server could not be reached is sent again to any server of the
+ * pool, which routes the keys to their buckets. The batches that succeeded are not requested again.
+ * <p>
+ * Results are returned in the order the batches complete, not in the order of the keys. The values
+ * are not stored in the client's region.
+ *
+ * @since Geode 1.8
+ */
+public class GetAllStream implements Iterator<VersionedObjectList.Entry>, AutoCloseable {
+  private static final Logger logger = LogService.getLogger();
+
+  /** The maximum number of keys requested from a server in one message. */
+  static final int BATCH_SIZE =
+      Integer.getInteger(DistributionConfig.GEMFIRE_PREFIX + "PoolImpl.GET_ALL_BATCH_SIZE", 1000);
+
+  /** The maximum number of batches requested and not consumed yet. */
+  static final int MAX_IN_FLIGHT =
+      Integer.getInteger(DistributionConfig.GEMFIRE_PREFIX + "PoolImpl.GET_ALL_MAX_IN_FLIGHT", 4);
+
+  private final PoolImpl pool;
+
+  private final LocalRegion region;
+
+  private final Object callback;
+
+  private final boolean retry;
+
+  private final int maxInFlight;
+
+  /** The user of the thread that started the getAll, for multiuser authentication. */
+  private final UserAttributes securityAttributes;
+
+  /**
+   * True if the batches must be sent by the iterating thread because it is in a transaction, which
+   * has to be hosted by a single server.
+   */
+  private final boolean onCallingThread;
+
+  /** Batches not requested yet. Only used by the iterating thread. */
+  private final Deque<Batch> unsent = new ArrayDeque<>();
+
+  /** Batches whose request has completed, successfully or not. */
+  private final BlockingQueue<Batch> completed = new LinkedBlockingQueue<>();
+
+  /** The number of batches requested and not taken from {@link #completed} yet. */
+  private int inFlight;
+
+  private Iterator current = Collections.emptyIterator();
+
+  private boolean closed;
+
+  GetAllStream(PoolImpl pool, LocalRegion region, List keys, Object callback,
+      Map<ServerLocation, HashSet> serverToKeys, boolean retry, int batchSize, int maxInFlight) {
+    this.pool = pool;
+    this.region = region;
+    this.callback = callback;
+    this.retry = retry;
+    this.maxInFlight = Math.max(1, maxInFlight);
+    this.securityAttributes = UserAttributes.userAttributes.get();
+    this.onCallingThread = TXManagerImpl.getCurrentTXUniqueId() != TXManagerImpl.NOTX;
+    if (serverToKeys == null || serverToKeys.isEmpty()) {
+      addBatches(null, keys, batchSize);
+    } else {
+      for (Map.Entry<ServerLocation, HashSet> entry : serverToKeys.entrySet()) {
+        addBatches(entry.getKey(), entry.getValue(), batchSize);
+      }
+    }
+  }
+
+  private void addBatches(ServerLocation server, Collection keys, int batchSize) {
+    List batch = new ArrayList(Math.min(batchSize, keys.size()));
+    for (Object key : keys) {
+      batch.add(key);
+      if (batch.size() == batchSize) {
+        this.unsent.add(new Batch(server, batch));
+        batch = new ArrayList(batchSize);
+      }
+    }
+    if (!batch.isEmpty()) {
+      this.unsent.add(new Batch(server, batch));
+    }
+  }
+
+  /**
+   * @throws ServerOperationException if a server failed to get the values
+   * @throws ServerConnectivityException if a batch could not be sent to any server
+   */
+  @Override
+  public boolean hasNext() {
+    while (!this.current.hasNext()) {
+      if (this.closed || (this.unsent.isEmpty() && this.inFlight == 0)) {
+        return false;
+      }
+      sendBatches();
+      Batch batch = takeCompleted();
+      if (batch.failure == null) {
+        this.current = batch.result.iterator();
+      } else {
+        handleFailure(batch);
+      }
+    }
+    return true;
+  }
+
+  @Override
+  public VersionedObjectList.Entry next() {
+    if (!hasNext()) {
+      throw new NoSuchElementException();
+    }
+    return (VersionedObjectList.Entry) this.current.next();
+  }
+
+  /**
+   * Stops requesting batches. The results of batches already requested are discarded.
+   */
+  @Override
+  public void close() {
+    this.closed = true;
+    this.unsent.clear();
+    this.completed.clear();
+    this.current = Collections.emptyIterator();
+  }
+
+  private void sendBatches() {
+    while (this.inFlight < this.maxInFlight && !this.unsent.isEmpty()) {
+      Batch batch = this.unsent.poll();
+      this.inFlight++;
+      if (this.onCallingThread) {
+        execute(batch);
+        continue;
+      }
+      try {
+        SingleHopClientExecutor.submitTask(() -> execute(batch));
+      } catch (RejectedExecutionException e) {
+        this.pool.getCancelCriterion().checkCancelInProgress(e);
+        // run it here rather than fail the whole getAll
+        execute(batch);
+      }
+    }
+  }
+
+  private Batch takeCompleted() {
+    try {
+      Batch batch = this.completed.take();
+      this.inFlight--;
+      return batch;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      close();
+      throw new InternalGemFireException(e.getMessage());
+    }
+  }
+
+  private void execute(Batch batch) {
+    // the batch may be run by the iterating thread if the executor is shut down
+    UserAttributes previousAttributes = UserAttributes.userAttributes.get();
+    try {
+      AbstractOp op = new GetAllOpImpl(this.region.getFullPath(), batch.keys, this.callback);
+      if (batch.server == null) {
+        op.initMessagePart();
+        UserAttributes.userAttributes.set(this.securityAttributes);
+        batch.result = (VersionedObjectList) this.pool.execute(op);
+      } else {
+        batch.result = (VersionedObjectList) new SingleHopOperationCallable(batch.server,
+            this.pool, op, this.securityAttributes).call();
+      }
+      batch.result.setKeys(batch.keys);
+    } catch (VirtualMachineError err) {
+      SystemFailure.initiateFailure(err);
+      batch.failure = err;
+      throw err;
+    } catch (Throwable t) {
+      SystemFailure.checkFailure();
+      batch.failure = t;
+    } finally {
+      UserAttributes.userAttributes.set(previousAttributes);
+      this.completed.add(batch);
+    }
+  }
+
+  private void handleFailure(Batch batch) {
+    Throwable failure = batch.failure;
+    if (failure instanceof ServerConnectivityException
+        && !(failure instanceof ServerOperationException) && batch.server != null && this.retry) {
+      if (logger.isDebugEnabled()) {
+        logger.debug("GetAllStream: {} keys could not be read from {}, retrying on any server",
+            batch.keys.size(), batch.server, failure);
+      }
+      ClientMetadataService cms = this.region.getCache().getClientMetadataService();
+      cms.removeBucketServerLocation(batch.server);
+      cms.scheduleGetPRMetaData(this.region, false);
+      this.unsent.addFirst(new Batch(null, batch.keys));
+      return;
+    }
+    close();
+    if (failure instanceof RuntimeException) {
+      throw (RuntimeException) failure;
+    }
+    if (failure instanceof Error) {
+      throw (Error) failure;
+    }
+    throw new ServerOperationException("While performing a remote getAll", failure);
+  }
+
+  private static class Batch {
+    /** The server to send the batch to, or null for any server. */
+    final ServerLocation server;
+
+    final List keys;
+
+    volatile VersionedObjectList result;
+
+    volatile Throwable failure;
+
+    Batch(ServerLocation server, List keys) {
+      this.server = server;
+      this.keys = keys;
+    }
+  }
+}
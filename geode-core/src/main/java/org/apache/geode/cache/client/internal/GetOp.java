@@ -14,6 +14,8 @@
  */
 package org.apache.geode.cache.client.internal;
 
+import java.util.concurrent.CompletableFuture;
+
 import org.apache.logging.log4j.Logger;
 
 import org.apache.geode.cache.CacheClosedException;
@@ -91,6 +93,25 @@ public class GetOp {
     return pool.execute(op);
   }
 
+  /**
+   * Does a region get on a server without blocking the calling thread. The get is not routed to
+   * the server hosting the key's bucket; the server it is sent to will forward it if needed.
+   *
+   * @param pool the pool to use to communicate with the server.
+   * @param region the region to do the get on
+   * @param key the entry key to do the get on
+   * @param callbackArg an optional callback arg to pass to any cache callbacks
+   * @param clientEvent holder for returning version information
+   * @return a future completed with the entry value found by the get if any
+   */
+  public static CompletableFuture<Object> executeAsync(ExecutablePool pool, LocalRegion region,
+      Object key, Object callbackArg, EntryEventImpl clientEvent) {
+    if (logger.isDebugEnabled()) {
+      logger.debug("GetOp invoked asynchronously for key {}", key);
+    }
+    return pool.executeAsync(new GetOpImpl(region, key, callbackArg, false, clientEvent));
+  }
+
 
   private GetOp() {
     // no instances allowed
@@ -230,5 +251,10 @@ public class GetOp {
     protected void endAttempt(ConnectionStats stats, long start) {
       stats.endGet(start, hasTimedOut(), hasFailed());
     }
+
+    @Override
+    protected boolean isPipelineable() {
+      return true;
+    }
   }
 }
@@ -0,0 +1,368 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.cache.client.internal;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.logging.log4j.Logger;
+
+import org.apache.geode.CancelException;
+import org.apache.geode.cache.InterestResultPolicy;
+import org.apache.geode.cache.client.ServerConnectivityException;
+import org.apache.geode.distributed.internal.DistributionConfig;
+import org.apache.geode.internal.cache.PoolStats;
+import org.apache.geode.internal.cache.Token;
+import org.apache.geode.internal.logging.LogService;
+
+/**
+ * Caches the values a PROXY client region reads from the servers. Only the keys that have been
+ * read are tracked: the first read of a key registers interest in it, in a batch with the other
+ * keys read at about the same time, so that the server sends this client an invalidate when the
+ * key changes. Reads of that key after the registration completed are served from here until it is
+ * invalidated, its time to live expires or it is evicted.
+ * <p>
+ * The number of tracked keys is bounded. The least recently read key is evicted when the bound is
+ * reached and the interest in evicted keys is unregistered in batches.
+ * <p>
+ * Interest the application registered in a key is left alone: the near cache does not register
+ * interest in such a key, relying on the application's, and never unregisters it. If the
+ * application unregisters a key, the near cache drops it and registers it again the next time it
+ * is read.
+ * <p>
+ * Interest is registered with {@link InterestResultPolicy#NONE} and updates delivered as
+ * invalidates, so the server only keeps the key in its interest list and never pushes values to
+ * this client.
+ *
+ * @since Geode 1.8
+ */
+class NearCache {
+  private static final Logger logger = LogService.getLogger();
+
+  /**
+   * The maximum number of keys tracked by the near cache of a region. Zero, the default, disables
+   * near caching.
+   */
+  static final int MAX_ENTRIES =
+      Integer.getInteger(DistributionConfig.GEMFIRE_PREFIX + "PoolImpl.NEAR_CACHE_MAX_ENTRIES", 0);
+
+  /**
+   * How long, in milliseconds, a value may be served from the near cache. Zero, the default, means
+   * until it is invalidated.
+   */
+  static final long TIME_TO_LIVE =
+      Long.getLong(DistributionConfig.GEMFIRE_PREFIX + "PoolImpl.NEAR_CACHE_TIME_TO_LIVE", 0);
+
+  /**
+   * How long, in milliseconds, newly read keys are collected before interest in them is
+   * registered.
+   */
+  static final long BATCH_INTERVAL =
+      Long.getLong(DistributionConfig.GEMFIRE_PREFIX + "PoolImpl.NEAR_CACHE_BATCH_INTERVAL", 10);
+
+  private final ServerRegionProxy proxy;
+
+  private final byte regionDataPolicy;
+
+  private final PoolStats stats;
+
+  private final ScheduledExecutorService executor;
+
+  private final int maxEntries;
+
+  private final long timeToLive;
+
+  /** The tracked keys in least recently read order. Guarded by this. */
+  private final LinkedHashMap<Object, Entry> entries;
+
+  /** Keys read for the first time whose interest is not registered yet. Guarded by this. */
+  private List<Object> keysToRegister = new ArrayList<>();
+
+  /** Evicted keys whose interest this near cache registered itself. Guarded by this. */
+  private List<Object> keysToUnregister = new ArrayList<>();
+
+  /** Keys the application registered interest in through the region. Guarded by this. */
+  private final Set<Object> applicationKeys = new HashSet<>();
+
+  /**
+   * Incremented by every invalidation so that a value read from a server is not cached if the key
+   * may have changed while it was being read. Guarded by this.
+   */
+  private long invalidationCount;
+
+  /** Guarded by this. */
+  private boolean flushScheduled;
+
+  /** Guarded by this. */
+  private boolean closed;
+
+  NearCache(ServerRegionProxy proxy, byte regionDataPolicy, PoolStats stats,
+      ScheduledExecutorService executor, int maxEntries, long timeToLive) {
+    this.proxy = proxy;
+    this.regionDataPolicy = regionDataPolicy;
+    this.stats = stats;
+    this.executor = executor;
+    this.maxEntries = maxEntries;
+    this.timeToLive = timeToLive;
+    this.entries = new LinkedHashMap<Object, Entry>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<Object, Entry> eldest) {
+        if (size() <= NearCache.this.maxEntries) {
+          return false;
+        }
+        evicted(eldest.getKey(), eldest.getValue());
+        return true;
+      }
+    };
+  }
+
+  /**
+   * Returns the cached value of the key or null if it has to be read from a server. In that case
+   * the value read should be given to {@link #put} along with the result of {@link #getToken()}
+   * taken before the read.
+   */
+  Object get(Object key) {
+    synchronized (this) {
+      if (this.closed) {
+        return null;
+      }
+      Entry entry = this.entries.get(key);
+      if (entry == null) {
+        this.entries.put(key, new Entry());
+        this.stats.incNearCacheEntries(1);
+        this.keysToRegister.add(key);
+        scheduleFlush();
+      } else if (entry.value != null) {
+        if (this.timeToLive <= 0 || System.currentTimeMillis() < entry.expirationTime) {
+          this.stats.incNearCacheHits();
+          return entry.value;
+        }
+        entry.value = null;
+      }
+    }
+    this.stats.incNearCacheMisses();
+    return null;
+  }
+
+  /**
+   * Returns a token that {@link #put} uses to find out whether anything was invalidated since.
+   */
+  synchronized long getToken() {
+    return this.invalidationCount;
+  }
+
+  /**
+   * Caches a value read from a server. The value is only cached if interest in its key is
+   * registered and nothing was invalidated since the token was taken.
+   */
+  synchronized void put(Object key, Object value, long token) {
+    if (value == null || Token.isToken(value) || token != this.invalidationCount) {
+      return;
+    }
+    Entry entry = this.entries.get(key);
+    if (entry != null && entry.registered) {
+      entry.value = value;
+      if (this.timeToLive > 0) {
+        entry.expirationTime = System.currentTimeMillis() + this.timeToLive;
+      }
+    }
+  }
+
+  /**
+   * Drops the cached value of the key. Its interest stays registered.
+   */
+  synchronized void invalidate(Object key) {
+    this.invalidationCount++;
+    Entry entry = this.entries.get(key);
+    if (entry != null && entry.value != null) {
+      entry.value = null;
+      this.stats.incNearCacheInvalidations();
+    }
+  }
+
+  /**
+   * Drops all the cached values. Used when the region was cleared or when events may have been
+   * missed.
+   */
+  synchronized void invalidateAll() {
+    this.invalidationCount++;
+    for (Entry entry : this.entries.values()) {
+      if (entry.value != null) {
+        entry.value = null;
+        this.stats.incNearCacheInvalidations();
+      }
+    }
+  }
+
+  /**
+   * Stops caching. The interest registered by this near cache is removed along with the rest of
+   * the region's interest when the region is detached from its pool.
+   */
+  synchronized void close() {
+    this.closed = true;
+    this.invalidationCount++;
+    this.stats.incNearCacheEntries(-this.entries.size());
+    this.entries.clear();
+    this.keysToRegister.clear();
+    this.keysToUnregister.clear();
+    this.applicationKeys.clear();
+  }
+
+  /**
+   * Called once the application registered interest in the keys. This near cache will not
+   * unregister the interest in these keys anymore.
+   */
+  synchronized void applicationRegistered(Collection<?> keys) {
+    this.applicationKeys.addAll(keys);
+  }
+
+  /**
+   * Called once the application unregistered its interest in the keys. That also removed any
+   * interest this near cache registered in them, so they are dropped.
+   */
+  synchronized void applicationUnregistered(Collection<?> keys) {
+    this.invalidationCount++;
+    for (Object key : keys) {
+      this.applicationKeys.remove(key);
+      if (this.entries.remove(key) != null) {
+        this.stats.incNearCacheEntries(-1);
+      }
+    }
+    this.keysToUnregister.removeAll(keys);
+  }
+
+  synchronized int size() {
+    return this.entries.size();
+  }
+
+  /** Called with the lock held by the map when an entry is evicted. */
+  private void evicted(Object key, Entry entry) {
+    this.stats.incNearCacheEvictions();
+    this.stats.incNearCacheEntries(-1);
+    if (entry.ownInterest) {
+      this.keysToUnregister.add(key);
+      scheduleFlush();
+    }
+  }
+
+  private void scheduleFlush() {
+    if (this.flushScheduled || this.closed) {
+      return;
+    }
+    this.flushScheduled = true;
+    try {
+      this.executor.schedule(this::flush, BATCH_INTERVAL, TimeUnit.MILLISECONDS);
+    } catch (RejectedExecutionException e) {
+      // the pool is being closed
+      this.flushScheduled = false;
+    }
+  }
+
+  /**
+   * Registers interest in the keys read since the last flush and unregisters interest in the keys
+   * evicted since then.
+   */
+  void flush() {
+    List<Object> register;
+    List<Object> unregister;
+    synchronized (this) {
+      this.flushScheduled = false;
+      if (this.closed) {
+        return;
+      }
+      register = this.keysToRegister;
+      unregister = this.keysToUnregister;
+      this.keysToRegister = new ArrayList<>();
+      this.keysToUnregister = new ArrayList<>();
+      // a key may have been evicted before it was registered
+      register.removeIf(key -> !this.entries.containsKey(key));
+      // the application's interest in a key is enough to cache it
+      register.removeIf(key -> {
+        if (this.applicationKeys.contains(key)) {
+          this.entries.get(key).registered = true;
+          return true;
+        }
+        return false;
+      });
+      // a key may have been read again after it was evicted, or the application may need it
+      unregister.removeIf(key -> this.entries.containsKey(key)
+          || this.applicationKeys.contains(key));
+    }
+    try {
+      if (!register.isEmpty()) {
+        this.proxy.registerNearCacheInterest(register, this.regionDataPolicy);
+        registered(register);
+      }
+      if (!unregister.isEmpty()) {
+        this.proxy.unregisterNearCacheInterest(unregister);
+      }
+    } catch (CancelException e) {
+      // the cache is closing
+    } catch (ServerConnectivityException e) {
+      // the keys stay uncached and are registered again the next time they are read
+      if (logger.isDebugEnabled()) {
+        logger.debug("Near cache could not register interest in {} keys", register.size(), e);
+      }
+      forget(register);
+    }
+  }
+
+  private synchronized void registered(List<Object> keys) {
+    // a value read before the registration completed may have changed without an invalidate
+    this.invalidationCount++;
+    for (Object key : keys) {
+      Entry entry = this.entries.get(key);
+      if (entry != null) {
+        entry.registered = true;
+        entry.ownInterest = true;
+      } else if (!this.applicationKeys.contains(key)) {
+        // evicted while being registered
+        this.keysToUnregister.add(key);
+        scheduleFlush();
+      }
+    }
+  }
+
+  private synchronized void forget(List<Object> keys) {
+    for (Object key : keys) {
+      Entry entry = this.entries.get(key);
+      if (entry != null && !entry.registered) {
+        this.entries.remove(key);
+        this.stats.incNearCacheEntries(-1);
+      }
+    }
+  }
+
+  private static class Entry {
+    /** True once interest in the key is registered, by this near cache or the application. */
+    boolean registered;
+
+    /** True if this near cache registered the interest in the key itself. */
+    boolean ownInterest;
+
+    /** The cached value, or null if the key has to be read from a server. */
+    Object value;
+
+    long expirationTime;
+  }
+}
@@ -26,6 +26,11 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 import org.apache.logging.log4j.Logger;
 
@@ -55,11 +60,13 @@ import org.apache.geode.distributed.internal.DistributionConfig;
 import org.apache.geode.distributed.internal.ServerLocation;
 import org.apache.geode.internal.cache.PoolManagerImpl;
 import org.apache.geode.internal.cache.PutAllPartialResultException;
+import org.apache.geode.internal.cache.TXManagerImpl;
 import org.apache.geode.internal.cache.execute.InternalFunctionInvocationTargetException;
 import org.apache.geode.internal.cache.tier.BatchException;
 import org.apache.geode.internal.cache.tier.sockets.MessageTooLargeException;
 import org.apache.geode.internal.cache.wan.BatchException70;
 import org.apache.geode.internal.logging.LogService;
+import org.apache.geode.internal.logging.LoggingExecutors;
 import org.apache.geode.internal.logging.log4j.LogMarker;
 import org.apache.geode.security.AuthenticationRequiredException;
 import org.apache.geode.security.GemFireSecurityException;
@@ -77,6 +84,19 @@ public class OpExecutorImpl implements ExecutablePool {
       Boolean.getBoolean(DistributionConfig.GEMFIRE_PREFIX + "PoolImpl.TRY_SERVERS_ONCE");
   static final int TX_RETRY_ATTEMPT =
       Integer.getInteger(DistributionConfig.GEMFIRE_PREFIX + "txRetryAttempt", 500);
+  /**
+   * The number of connections that are shared by all threads for ops that can be pipelined. Zero,
+   * the default, disables pipelining.
+   */
+  static final int PIPELINED_CONNECTIONS =
+      Integer.getInteger(DistributionConfig.GEMFIRE_PREFIX + "PoolImpl.PIPELINED_CONNECTIONS", 0);
+  /**
+   * The number of threads used to run asynchronous ops that can not be pipelined, and to retry
+   * pipelined asynchronous ops that failed.
+   */
+  static final int ASYNC_THREADS = Integer.getInteger(
+      DistributionConfig.GEMFIRE_PREFIX + "PoolImpl.ASYNC_THREADS",
+      Math.max(2, Runtime.getRuntime().availableProcessors()));
 
   private final ConnectionManager connectionManager;
   private final int retryAttempts;
@@ -109,6 +129,17 @@ public class OpExecutorImpl implements ExecutablePool {
     };
   };
 
+  /**
+   * Connections shared by many threads when pipelining is enabled, null otherwise. Slots are
+   * filled lazily and emptied when their pipeline breaks.
+   */
+  private final AtomicReferenceArray<PipelinedConnection> pipelinedConnections;
+  private final AtomicInteger nextPipelinedConnection = new AtomicInteger();
+
+  /** Runs asynchronous ops that can not be pipelined. Created on first use. */
+  private ExecutorService asyncExecutor;
+  private boolean closed;
+
   public OpExecutorImpl(ConnectionManager manager, QueueManager queueManager,
       EndpointManager endpointManager, RegisterInterestTracker riTracker, int retryAttempts,
       long serverTimeout, boolean threadLocalConnections, CancelCriterion cancelCriterion,
@@ -122,6 +153,11 @@ public class OpExecutorImpl implements ExecutablePool {
     this.threadLocalConnections = threadLocalConnections;
     this.cancelCriterion = cancelCriterion;
     this.pool = pool;
+    if (PIPELINED_CONNECTIONS > 0 && !threadLocalConnections) {
+      this.pipelinedConnections = new AtomicReferenceArray<>(PIPELINED_CONNECTIONS);
+    } else {
+      this.pipelinedConnections = null;
+    }
   }
 
   public Object execute(Op op) {
@@ -140,6 +176,28 @@ public class OpExecutorImpl implements ExecutablePool {
       }
       return executeWithServerAffinity(loc, op);
     }
+    if (this.pipelinedConnections != null && op instanceof AbstractOp
+        && ((AbstractOp) op).isPipelineable()) {
+      PipelinedConnection pipelinedConnection = getPipelinedConnection();
+      if (pipelinedConnection != null) {
+        try {
+          return pipelinedConnection.execute((AbstractOp) op);
+        } catch (Exception e) {
+          boolean retry = false;
+          try {
+            // This throws if the op must not be retried, otherwise it marks the connection to
+            // be destroyed and we fall through to retry the op on a connection from the pool.
+            handleException(e, pipelinedConnection.getPooledConnection(), 0, false);
+            retry = true;
+          } finally {
+            if (retry || pipelinedConnection.isBroken()) {
+              releasePipelinedConnection(pipelinedConnection);
+            }
+          }
+          ((AbstractOp) op).getMessage().setIsRetry();
+        }
+      }
+    }
     boolean success = false;
 
     Set attemptedServers = new HashSet();
@@ -219,6 +277,166 @@ public class OpExecutorImpl implements ExecutablePool {
     }
   }
 
+  /**
+   * Executes the given op without blocking the calling thread. An op that can be pipelined is sent
+   * on a pipelined connection by the calling thread and its future is completed by the reader
+   * thread of that connection. Other ops are not sent with non-blocking IO: they run the blocking
+   * {@link #execute(Op)} on a fixed pool of {@link #ASYNC_THREADS} threads, so at most that many of
+   * them are in progress at once and the others wait for a thread. Ops executed in a transaction,
+   * with server affinity or as a multiuser are executed before this method returns because that
+   * state is bound to the calling thread.
+   *
+   * @return a future that is completed with the result of the op, or with the exception that
+   *         {@link #execute(Op)} would have thrown
+   */
+  public CompletableFuture<Object> executeAsync(Op op) {
+    if (this.serverAffinity.get() || TXManagerImpl.getCurrentTXUniqueId() != TXManagerImpl.NOTX
+        || (this.pool != null && this.pool.getMultiuserAuthentication())) {
+      CompletableFuture<Object> future = new CompletableFuture<>();
+      try {
+        future.complete(execute(op));
+      } catch (RuntimeException e) {
+        future.completeExceptionally(e);
+      }
+      return future;
+    }
+    if (this.pipelinedConnections != null && op instanceof AbstractOp
+        && ((AbstractOp) op).isPipelineable()) {
+      PipelinedConnection pipelinedConnection = getPipelinedConnection();
+      if (pipelinedConnection != null) {
+        CompletableFuture<Object> future = new CompletableFuture<>();
+        pipelinedConnection.executeAsync((AbstractOp) op).whenComplete((result, ex) -> {
+          if (ex == null) {
+            future.complete(result);
+            return;
+          }
+          boolean retry = false;
+          try {
+            handleException(ex, pipelinedConnection.getPooledConnection(), 0, false);
+            retry = true;
+          } catch (RuntimeException e) {
+            future.completeExceptionally(e);
+          } finally {
+            if (retry || pipelinedConnection.isBroken()) {
+              releasePipelinedConnection(pipelinedConnection);
+            }
+          }
+          if (retry) {
+            ((AbstractOp) op).getMessage().setIsRetry();
+            runAsync(op, future);
+          }
+        });
+        return future;
+      }
+    }
+    CompletableFuture<Object> future = new CompletableFuture<>();
+    runAsync(op, future);
+    return future;
+  }
+
+  private void runAsync(Op op, CompletableFuture<Object> future) {
+    try {
+      getAsyncExecutor().execute(() -> {
+        try {
+          future.complete(execute(op));
+        } catch (RuntimeException e) {
+          future.completeExceptionally(e);
+        }
+      });
+    } catch (RejectedExecutionException e) {
+      RuntimeException cancelled = this.cancelCriterion.generateCancelledException(e);
+      future.completeExceptionally(cancelled != null ? cancelled : e);
+    }
+  }
+
+  private synchronized ExecutorService getAsyncExecutor() {
+    if (this.closed) {
+      throw new RejectedExecutionException("the pool has been closed");
+    }
+    if (this.asyncExecutor == null) {
+      String name = "PoolAsyncOp-" + (this.pool == null ? "" : this.pool.getName()) + "-";
+      this.asyncExecutor = LoggingExecutors.newFixedThreadPool(name, true, ASYNC_THREADS);
+    }
+    return this.asyncExecutor;
+  }
+
+  /**
+   * Returns a shared connection for pipelined ops, creating it if its slot is empty. Returns null
+   * if a connection could not be borrowed from the pool or the server requires credentials, in
+   * which case the op should be executed on a pooled connection.
+   */
+  private PipelinedConnection getPipelinedConnection() {
+    int index = (nextPipelinedConnection.getAndIncrement() & Integer.MAX_VALUE)
+        % pipelinedConnections.length();
+    PipelinedConnection pipelinedConnection = pipelinedConnections.get(index);
+    if (pipelinedConnection != null && !pipelinedConnection.isBroken()) {
+      return pipelinedConnection;
+    }
+    if (pipelinedConnection != null) {
+      releasePipelinedConnection(pipelinedConnection);
+    }
+    Connection conn;
+    try {
+      conn = connectionManager.borrowConnection(serverTimeout);
+    } catch (ServerConnectivityException e) {
+      return null;
+    }
+    if (conn.getServer().getRequiresCredentials()) {
+      // each response carries a new connection id that the next request must use
+      connectionManager.returnConnection(conn);
+      return null;
+    }
+    try {
+      pipelinedConnection =
+          new PipelinedConnection(conn, connectionManager.getConnection(conn));
+    } catch (SocketException e) {
+      connectionManager.returnConnection(conn);
+      return null;
+    }
+    if (pipelinedConnections.compareAndSet(index, null, pipelinedConnection)) {
+      return pipelinedConnection;
+    }
+    // another thread filled the slot first
+    pipelinedConnection.close(() -> connectionManager.returnConnection(conn));
+    return pipelinedConnections.get(index);
+  }
+
+  /**
+   * Removes the given pipelined connection from its slot and gives its pooled connection back to
+   * the connection manager once no op uses it any more. Does nothing if it was already released.
+   */
+  private void releasePipelinedConnection(PipelinedConnection pipelinedConnection) {
+    for (int i = 0; i < pipelinedConnections.length(); i++) {
+      if (pipelinedConnections.compareAndSet(i, pipelinedConnection, null)) {
+        Connection pooledConnection = pipelinedConnection.getPooledConnection();
+        pipelinedConnection.close(() -> connectionManager.returnConnection(pooledConnection));
+        return;
+      }
+    }
+  }
+
+  /**
+   * Gives all the pipelined connections back to the connection manager and stops the threads used
+   * for asynchronous ops. Called when the pool is closed.
+   */
+  void close() {
+    synchronized (this) {
+      this.closed = true;
+      if (this.asyncExecutor != null) {
+        this.asyncExecutor.shutdown();
+      }
+    }
+    if (pipelinedConnections == null) {
+      return;
+    }
+    for (int i = 0; i < pipelinedConnections.length(); i++) {
+      PipelinedConnection pipelinedConnection = pipelinedConnections.get(i);
+      if (pipelinedConnection != null) {
+        releasePipelinedConnection(pipelinedConnection);
+      }
+    }
+  }
+
   /**
    * execute the given op on the given server. If the server cannot be reached, sends a
    * TXFailoverOp, then retries the given op
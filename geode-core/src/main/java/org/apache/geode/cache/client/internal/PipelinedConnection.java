@@ -0,0 +1,403 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.cache.client.internal;
+
+import java.net.SocketException;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.logging.log4j.Logger;
+
+import org.apache.geode.SystemFailure;
+import org.apache.geode.cache.client.internal.pooling.ConnectionDestroyedException;
+import org.apache.geode.internal.cache.tier.sockets.Message;
+import org.apache.geode.internal.cache.tier.sockets.ServerConnection;
+import org.apache.geode.internal.logging.LogService;
+import org.apache.geode.internal.logging.LoggingThread;
+
+/**
+ * A client to server connection that is shared by many threads at the same time. A request is
+ * written to the socket as soon as the calling thread has serialized it, without waiting for the
+ * responses to the requests sent before it. A cache server processes the messages it receives on a
+ * connection one at a time, so the responses are read back in the order the requests were sent.
+ * <p>
+ * Writes use the comm buffer of the underlying connection while reads use a second buffer owned by
+ * this class, so a thread may send while another thread is reading. Any failure to send or read
+ * leaves the stream in an unknown state, so the first failure breaks the pipeline: the thread that
+ * hit it gets the original exception and every other waiting thread gets a
+ * {@link ConnectionDestroyedException} so that it can retry its operation on a pooled connection.
+ * A closed pipeline hands its pooled connection back only once no op is still sending on it or
+ * waiting for its response.
+ * <p>
+ * Ops can also be executed asynchronously. The calling thread then only sends the request and the
+ * responses are read, in order, by a single reader thread that completes the returned futures.
+ * The reader thread is started on demand and exits when no asynchronous op is pending.
+ * <p>
+ * Only ops that return true from {@link AbstractOp#isPipelineable()} may be executed here.
+ *
+ * @since Geode 1.8
+ */
+class PipelinedConnection {
+  private static final Logger logger = LogService.getLogger();
+
+  /** How long the reader thread waits for a new asynchronous op before it exits. */
+  private static final long READER_IDLE_MILLIS = 1000;
+
+  /** The pooled connection this pipeline was created on. */
+  private final Connection pooledConnection;
+
+  /** The connection ops are sent on; this is what {@link Op#attempt} would have been given. */
+  private final Connection connection;
+
+  private final Object sendLock = new Object();
+
+  /**
+   * Guards the order in which responses are read. It is never held while reading from the socket,
+   * so a thread can break or close the pipeline while another one is blocked reading.
+   */
+  private final Object turnLock = new Object();
+
+  /** Sequence number of the next request to be sent. Guarded by sendLock. */
+  private long nextSendSequence;
+
+  /** Sequence number of the request whose response is read next. Guarded by turnLock. */
+  private long nextReceiveSequence;
+
+  /** Ops being sent or waiting for their response. Guarded by turnLock. */
+  private int inFlight;
+
+  /** Run once this pipeline is closed and no op is in flight. Guarded by turnLock. */
+  private Runnable closeAction;
+
+  /** Guarded by turnLock. */
+  private boolean closed;
+
+  /**
+   * Buffer used to read responses. Only used by the thread whose turn it is to read, and released
+   * once the pipeline is closed and no op is in flight.
+   */
+  private ByteBuffer readBuffer;
+
+  private volatile Exception failure;
+
+  /** Asynchronous ops whose responses have not been read yet, in send order. */
+  private final BlockingQueue<PendingResponse> pendingResponses = new LinkedBlockingQueue<>();
+
+  /** True while the reader thread for asynchronous ops is running. Guarded by sendLock. */
+  private boolean readerRunning;
+
+  PipelinedConnection(Connection pooledConnection, Connection connection)
+      throws SocketException {
+    this.pooledConnection = pooledConnection;
+    this.connection = connection;
+    this.readBuffer = ServerConnection.allocateCommBuffer(connection.getCommBuffer().capacity(),
+        connection.getSocket());
+  }
+
+  /**
+   * Returns the pooled connection this pipeline uses
+   */
+  Connection getPooledConnection() {
+    return this.pooledConnection;
+  }
+
+  /**
+   * Returns true if a send or a read on this connection has failed. A broken pipeline can not be
+   * used again.
+   */
+  boolean isBroken() {
+    return this.failure != null || this.connection.isDestroyed();
+  }
+
+  /**
+   * Sends the op's request and waits for its response. Requests from other threads may be sent
+   * while this thread waits for its turn to read.
+   *
+   * @return the result of processing the op's response
+   * @throws Exception if the op failed or the pipeline was broken by another thread
+   */
+  Object execute(AbstractOp op) throws Exception {
+    final ConnectionStats stats = this.connection.getStats();
+    final long start = op.startAttempt(stats);
+    final Endpoint endpoint = this.connection.getEndpoint();
+    final long startNanos = System.nanoTime();
+    endpoint.requestStarted();
+    try {
+      long sequence = send(op, stats, start);
+      return readResponse(op, sequence);
+    } finally {
+      endpoint.requestEnded(System.nanoTime() - startNanos);
+      op.endAttempt(stats, start);
+    }
+  }
+
+  /**
+   * Sends the op's request on the calling thread and returns without waiting for the response. The
+   * response is read and processed by the reader thread of this connection, which completes the
+   * returned future. If the request could not be sent the future is already completed
+   * exceptionally when it is returned.
+   */
+  CompletableFuture<Object> executeAsync(AbstractOp op) {
+    final CompletableFuture<Object> future = new CompletableFuture<>();
+    final ConnectionStats stats = this.connection.getStats();
+    final long start = op.startAttempt(stats);
+    final Endpoint endpoint = this.connection.getEndpoint();
+    final long startNanos = System.nanoTime();
+    endpoint.requestStarted();
+    synchronized (this.sendLock) {
+      long sequence;
+      try {
+        sequence = send(op, stats, start);
+      } catch (Exception e) {
+        endpoint.requestEnded(System.nanoTime() - startNanos);
+        op.endAttempt(stats, start);
+        future.completeExceptionally(e);
+        return future;
+      }
+      // added while holding the send lock so the queue is in send order
+      this.pendingResponses.add(new PendingResponse(op, sequence, start, startNanos, future));
+      if (!this.readerRunning) {
+        this.readerRunning = true;
+        Thread reader = new LoggingThread(
+            "PipelinedConnection Reader for " + this.connection.getServer(), this::readResponses);
+        reader.start();
+      }
+    }
+    return future;
+  }
+
+  private long send(AbstractOp op, ConnectionStats stats, long start) throws Exception {
+    synchronized (this.sendLock) {
+      synchronized (this.turnLock) {
+        checkBroken();
+        this.inFlight++;
+      }
+      long sequence = this.nextSendSequence++;
+      op.failed = true;
+      op.timedOut = false;
+      try {
+        op.attemptSend(this.connection);
+        op.failed = false;
+      } catch (Exception e) {
+        breakPipeline(e);
+        opDone();
+        throw e;
+      } finally {
+        op.endSendAttempt(stats, start);
+      }
+      return sequence;
+    }
+  }
+
+  private Object readResponse(AbstractOp op, long sequence) throws Exception {
+    op.failed = true;
+    Message response;
+    try {
+      response = receive(op, sequence);
+    } catch (SocketTimeoutException ste) {
+      op.failed = false;
+      op.timedOut = true;
+      throw ste;
+    }
+    Object result = op.processResponse(response, this.connection);
+    op.failed = false;
+    this.connection.getEndpoint().updateLastExecute();
+    return result;
+  }
+
+  /**
+   * Body of the reader thread. Completes the futures of asynchronous ops in send order and exits
+   * once no response has been pending for a while.
+   */
+  private void readResponses() {
+    final ConnectionStats stats = this.connection.getStats();
+    while (true) {
+      PendingResponse pending;
+      try {
+        pending = this.pendingResponses.poll(READER_IDLE_MILLIS, TimeUnit.MILLISECONDS);
+      } catch (InterruptedException e) {
+        pending = null;
+      }
+      if (pending == null) {
+        synchronized (this.sendLock) {
+          if (this.pendingResponses.isEmpty()) {
+            this.readerRunning = false;
+            return;
+          }
+        }
+        continue;
+      }
+      try {
+        pending.future.complete(readResponse(pending.op, pending.sequence));
+      } catch (VirtualMachineError err) {
+        SystemFailure.initiateFailure(err);
+        pending.future.completeExceptionally(err);
+        throw err;
+      } catch (Throwable t) {
+        SystemFailure.checkFailure();
+        pending.future.completeExceptionally(t);
+      } finally {
+        this.connection.getEndpoint().requestEnded(System.nanoTime() - pending.startNanos);
+        pending.op.endAttempt(stats, pending.start);
+      }
+    }
+  }
+
+  private Message receive(AbstractOp op, long sequence) throws Exception {
+    try {
+      waitForTurn(sequence);
+      try {
+        Message response = op.createResponseMessage();
+        response.setComms(this.connection.getSocket(), this.connection.getInputStream(),
+            this.connection.getOutputStream(), this.readBuffer, this.connection.getStats());
+        try {
+          response.receive();
+        } finally {
+          response.unsetComms();
+        }
+        op.processSecureBytes(this.connection, response);
+        return response;
+      } catch (Exception e) {
+        breakPipeline(e);
+        throw e;
+      } finally {
+        synchronized (this.turnLock) {
+          this.nextReceiveSequence++;
+          this.turnLock.notifyAll();
+        }
+      }
+    } finally {
+      opDone();
+    }
+  }
+
+  private void waitForTurn(long sequence) {
+    synchronized (this.turnLock) {
+      boolean interrupted = false;
+      try {
+        while (this.nextReceiveSequence != sequence) {
+          checkBroken();
+          try {
+            this.turnLock.wait();
+          } catch (InterruptedException e) {
+            // our request has already been sent so we must still consume its response
+            interrupted = true;
+          }
+        }
+      } finally {
+        if (interrupted) {
+          Thread.currentThread().interrupt();
+        }
+      }
+      checkBroken();
+    }
+  }
+
+  /**
+   * Called when an op no longer uses the connection. Finishes closing the pipeline if it was the
+   * last op in flight.
+   */
+  private void opDone() {
+    Runnable action;
+    synchronized (this.turnLock) {
+      this.inFlight--;
+      action = finishCloseIfIdle();
+    }
+    if (action != null) {
+      action.run();
+    }
+  }
+
+  /**
+   * Releases the read buffer and returns the close action if this pipeline is closed and no op is
+   * in flight. Must be called while holding turnLock.
+   */
+  private Runnable finishCloseIfIdle() {
+    if (!this.closed || this.inFlight > 0 || this.readBuffer == null) {
+      return null;
+    }
+    ServerConnection.releaseCommBuffer(this.readBuffer);
+    this.readBuffer = null;
+    Runnable action = this.closeAction;
+    this.closeAction = null;
+    return action;
+  }
+
+  private void checkBroken() {
+    if (isBroken()) {
+      throw new ConnectionDestroyedException("pipelined connection is broken", this.failure);
+    }
+  }
+
+  private void breakPipeline(Exception cause) {
+    if (this.failure == null) {
+      this.failure = cause;
+      if (logger.isDebugEnabled()) {
+        logger.debug("Pipelined connection {} failed", this.connection, cause);
+      }
+    }
+    synchronized (this.turnLock) {
+      this.turnLock.notifyAll();
+    }
+  }
+
+  /**
+   * Breaks this pipeline. Threads still waiting for their turn to read get a
+   * {@link ConnectionDestroyedException}. Once no op is in flight any more, which may be right
+   * away, the read buffer is released and the given action is run, so that the pooled connection
+   * is not handed back while a thread still reads from it. Does nothing if already closed.
+   */
+  void close(Runnable action) {
+    breakPipeline(new ConnectionDestroyedException("pipelined connection was closed"));
+    Runnable idleAction;
+    synchronized (this.turnLock) {
+      if (this.closed) {
+        return;
+      }
+      this.closed = true;
+      this.closeAction = action;
+      idleAction = finishCloseIfIdle();
+    }
+    if (idleAction != null) {
+      idleAction.run();
+    }
+  }
+
+  private static class PendingResponse {
+    final AbstractOp op;
+    final long sequence;
+    final long start;
+    final long startNanos;
+    final CompletableFuture<Object> future;
+
+    PendingResponse(AbstractOp op, long sequence, long start, long startNanos,
+        CompletableFuture<Object> future) {
+      this.op = op;
+      this.sequence = sequence;
+      this.start = start;
+      this.startNanos = startNanos;
+      this.future = future;
+    }
+  }
+
+  @Override
+  public String toString() {
+    return "PipelinedConnection[" + this.connection + "]";
+  }
+}
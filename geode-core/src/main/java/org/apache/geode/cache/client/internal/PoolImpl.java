@@ -25,6 +25,7 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
@@ -142,6 +143,8 @@ public class PoolImpl implements InternalPool {
 
   private final GatewaySender gatewaySender;
 
+  private final int wireCompressionThreshold;
+
   private boolean keepAlive = false;
   private static Object simpleLock = new Object();
 
@@ -217,6 +220,8 @@ public class PoolImpl implements InternalPool {
         ((PoolFactoryImpl.PoolAttributes) attributes).startDisabled || !pm.isNormal();
     this.usedByGateway = ((PoolFactoryImpl.PoolAttributes) attributes).isGateway();
     this.gatewaySender = ((PoolFactoryImpl.PoolAttributes) attributes).getGatewaySender();
+    this.wireCompressionThreshold =
+        ((PoolFactoryImpl.PoolAttributes) attributes).wireCompressionThreshold;
     this.dsys = distributedSystem;
     if (this.dsys == null) {
       throw new IllegalStateException(
@@ -470,6 +475,14 @@ public class PoolImpl implements InternalPool {
     return gatewaySender;
   }
 
+  /**
+   * Returns the payload length from which the messages sent to the servers are compressed, 0 if
+   * they are never compressed.
+   */
+  public int getWireCompressionThreshold() {
+    return this.wireCompressionThreshold;
+  }
+
   public InternalLogWriter getSecurityInternalLogWriter() {
     return this.securityLogWriter;
   }
@@ -597,6 +610,8 @@ public class PoolImpl implements InternalPool {
             e);
       }
 
+      executor.close();
+
       try {
         if (this.manager != null) {
           manager.close(keepAlive);
@@ -758,6 +773,18 @@ public class PoolImpl implements InternalPool {
     return executor.execute(op);
   }
 
+  /**
+   * Execute the given op on the servers that this pool connects to without blocking the calling
+   * thread. The op is retried the same way as {@link #execute(Op)} would.
+   *
+   * @param op the operation to execute
+   * @return a future completed with the result of execution
+   */
+  public CompletableFuture<Object> executeAsync(Op op) {
+    authenticateIfRequired(op);
+    return executor.executeAsync(op);
+  }
+
   /**
    * Execute the given op on the servers that this pool connects to. This method is responsible for
    * retrying the op if an attempt fails. It will only execute it once and on one server.
@@ -16,6 +16,7 @@ package org.apache.geode.cache.client.internal;
 
 import java.io.ByteArrayInputStream;
 import java.io.DataInputStream;
+import java.util.concurrent.CompletableFuture;
 
 import org.apache.logging.log4j.Logger;
 
@@ -102,6 +103,26 @@ public class PutOp {
   }
 
 
+  /**
+   * Does a region put on a server without blocking the calling thread. The put is not routed to the
+   * server hosting the key's bucket and the full value is always sent.
+   *
+   * @param pool the pool to use to communicate with the server.
+   * @param region the region to do the put on
+   * @param key the entry key to do the put on
+   * @param value the entry value to put
+   * @param event the event for this put
+   * @param callbackArg an optional callback arg to pass to any cache callbacks
+   * @return a future completed with the old value if requireOldValue is true
+   */
+  public static CompletableFuture<Object> executeAsync(ExecutablePool pool, LocalRegion region,
+      Object key, Object value, EntryEventImpl event, Operation operation, boolean requireOldValue,
+      Object expectedOldValue, Object callbackArg) {
+    PutOpImpl op = new PutOpImpl(region, key, value, null, event, operation, requireOldValue,
+        expectedOldValue, callbackArg, true, false);
+    return pool.executeAsync(op);
+  }
+
   /**
    * This is a unit test method. It does a region put on a server using the given connection from
    * the given pool to communicate with the server. Do not call this method if the value is Delta
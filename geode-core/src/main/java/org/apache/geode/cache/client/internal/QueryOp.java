@@ -14,7 +14,10 @@
  */
 package org.apache.geode.cache.client.internal;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 
 import org.apache.geode.SerializationException;
 import org.apache.geode.cache.client.ServerOperationException;
@@ -59,6 +62,20 @@ public class QueryOp {
     return (SelectResults) pool.execute(op);
   }
 
+  /**
+   * Does a region query on a server and returns an iterator over its results as the server sends
+   * them. The query is not retried on another server.
+   *
+   * @param pool the pool to use to communicate with the server.
+   * @param queryPredicate A query language boolean query predicate
+   * @since Geode 1.8
+   */
+  public static QueryResultStream executeStreaming(ExecutablePool pool, String queryPredicate,
+      Object[] queryParams) {
+    return new QueryResultStream(pool, queryPredicate, queryParams,
+        QueryResultStream.MAX_BUFFERED_CHUNKS);
+  }
+
   private QueryOp() {
     // no instances allowed
   }
@@ -101,70 +118,18 @@ public class QueryOp {
       return new ChunkedMessage(2, Version.CURRENT);
     }
 
+    /** The results received so far, null until the first chunk is received. */
+    private SelectResults results;
+
     @Override
     protected Object processResponse(Message msg) throws Exception {
-      final SelectResults[] resultRef = new SelectResults[1];
+      this.results = null;
       final Exception[] exceptionRef = new Exception[1];
       ChunkHandler ch = new ChunkHandler() {
         public void handle(ChunkedMessage cm) throws Exception {
-          Part collectionTypePart = cm.getPart(0);
-          Object o = collectionTypePart.getObject();
-          if (o instanceof Throwable) {
-            String s = "While performing a remote " + getOpName();
-            exceptionRef[0] = new ServerOperationException(s, (Throwable) o);
-            return;
-          }
-          CollectionType collectionType = (CollectionType) o;
-          Part resultPart = cm.getPart(1);
-          Object queryResult = null;
-          try {
-            queryResult = resultPart.getObject();
-          } catch (Exception e) {
-            String s = "While deserializing " + getOpName() + " result";
-            exceptionRef[0] = new SerializationException(s, e);
-            return;
-          }
-          if (queryResult instanceof Throwable) {
-            String s = "While performing a remote " + getOpName();
-            exceptionRef[0] = new ServerOperationException(s, (Throwable) queryResult);
-            return;
-          } else if (queryResult instanceof Integer) {
-            // Create the appropriate SelectResults instance if necessary
-            if (resultRef[0] == null) {
-              resultRef[0] = QueryUtils.getEmptySelectResults(TypeUtils.OBJECT_TYPE, null);
-            }
-            resultRef[0].add(queryResult);
-          } else { // typical query result
-            // Create the appropriate SelectResults instance if necessary
-            if (resultRef[0] == null) {
-              resultRef[0] = QueryUtils.getEmptySelectResults(collectionType, null);
-            }
-            SelectResults selectResults = resultRef[0];
-            ObjectType objectType = collectionType.getElementType();
-            Object[] resultArray;
-            // for select * queries, the serialized object byte arrays are
-            // returned as part of ObjectPartList
-            boolean isObjectPartList = false;
-            if (queryResult instanceof ObjectPartList) {
-              isObjectPartList = true;
-              resultArray = ((ObjectPartList) queryResult).getObjects().toArray();
-            } else {
-              // Add the results to the SelectResults
-              resultArray = (Object[]) queryResult;
-            }
-            if (objectType.isStructType()) {
-              for (int i = 0; i < resultArray.length; i++) {
-                if (isObjectPartList) {
-                  selectResults.add(new StructImpl((StructTypeImpl) objectType,
-                      ((ObjectPartList) resultArray[i]).getObjects().toArray()));
-                } else {
-                  selectResults
-                      .add(new StructImpl((StructTypeImpl) objectType, (Object[]) resultArray[i]));
-                }
-              }
-            } else {
-              selectResults.addAll(Arrays.asList(resultArray));
-            }
+          Exception exception = processChunk(cm);
+          if (exception != null) {
+            exceptionRef[0] = exception;
           }
         }
       };
@@ -172,14 +137,100 @@ public class QueryOp {
       if (exceptionRef[0] != null) {
         throw exceptionRef[0];
       } else {
-        return resultRef[0];
+        return this.results;
+      }
+    }
+
+    /**
+     * Reads the results of a chunk and passes them to {@link #chunkReceived}.
+     *
+     * @return the exception sent by the server or raised while reading the chunk, null if none
+     */
+    private Exception processChunk(ChunkedMessage cm) throws Exception {
+      Part collectionTypePart = cm.getPart(0);
+      Object o = collectionTypePart.getObject();
+      if (o instanceof Throwable) {
+        String s = "While performing a remote " + getOpName();
+        return new ServerOperationException(s, (Throwable) o);
+      }
+      CollectionType collectionType = (CollectionType) o;
+      Part resultPart = cm.getPart(1);
+      Object queryResult = null;
+      try {
+        queryResult = resultPart.getObject();
+      } catch (Exception e) {
+        String s = "While deserializing " + getOpName() + " result";
+        return new SerializationException(s, e);
+      }
+      if (queryResult instanceof Throwable) {
+        String s = "While performing a remote " + getOpName();
+        return new ServerOperationException(s, (Throwable) queryResult);
+      } else if (queryResult instanceof Integer) {
+        chunkReceived(null, Collections.singletonList(queryResult));
+      } else { // typical query result
+        ObjectType objectType = collectionType.getElementType();
+        Object[] resultArray;
+        // for select * queries, the serialized object byte arrays are
+        // returned as part of ObjectPartList
+        boolean isObjectPartList = false;
+        if (queryResult instanceof ObjectPartList) {
+          isObjectPartList = true;
+          resultArray = ((ObjectPartList) queryResult).getObjects().toArray();
+        } else {
+          // Add the results to the SelectResults
+          resultArray = (Object[]) queryResult;
+        }
+        if (objectType.isStructType()) {
+          List<Object> structs = new ArrayList<>(resultArray.length);
+          for (int i = 0; i < resultArray.length; i++) {
+            if (isObjectPartList) {
+              structs.add(new StructImpl((StructTypeImpl) objectType,
+                  ((ObjectPartList) resultArray[i]).getObjects().toArray()));
+            } else {
+              structs.add(new StructImpl((StructTypeImpl) objectType, (Object[]) resultArray[i]));
+            }
+          }
+          chunkReceived(collectionType, structs);
+        } else {
+          chunkReceived(collectionType, Arrays.asList(resultArray));
+        }
+      }
+      return null;
+    }
+
+    /**
+     * Called for each chunk of results received from the server.
+     *
+     * @param collectionType the type of the results, null if the result is the Integer of a count
+     *        query
+     * @param chunkResults the results of the chunk
+     */
+    protected void chunkReceived(CollectionType collectionType, List<Object> chunkResults)
+        throws Exception {
+      // Create the appropriate SelectResults instance if necessary
+      if (this.results == null) {
+        this.results = collectionType == null
+            ? QueryUtils.getEmptySelectResults(TypeUtils.OBJECT_TYPE, null)
+            : QueryUtils.getEmptySelectResults(collectionType, null);
       }
+      this.results.addAll(chunkResults);
     }
 
     protected String getOpName() {
       return "query";
     }
 
+    /**
+     * Creates the op sending this query whose results are passed to the given stream.
+     */
+    static QueryOpImpl createStreaming(String queryPredicate, Object[] queryParams,
+        QueryResultStream stream) {
+      if (queryParams != null && queryParams.length > 0) {
+        return new StreamingQueryOpImpl(queryPredicate, queryParams, stream);
+      }
+      return new StreamingQueryOpImpl(queryPredicate, stream);
+    }
+
     @Override
     protected boolean isErrorResponse(int msgType) {
       return msgType == MessageType.QUERY_DATA_ERROR || msgType == MessageType.CQDATAERROR_MSG_TYPE
@@ -201,4 +252,41 @@ public class QueryOp {
       stats.endQuery(start, hasTimedOut(), hasFailed());
     }
   }
+
+  /**
+   * A query op that passes each chunk of results to a {@link QueryResultStream} instead of
+   * collecting them. Since the stream buffers a bounded number of chunks, reading the response
+   * waits while the stream is full, which in turn makes the server wait before sending more chunks.
+   */
+  private static class StreamingQueryOpImpl extends QueryOpImpl {
+    private final QueryResultStream stream;
+
+    StreamingQueryOpImpl(String queryPredicate, QueryResultStream stream) {
+      super(queryPredicate);
+      this.stream = stream;
+    }
+
+    StreamingQueryOpImpl(String queryPredicate, Object[] queryParams, QueryResultStream stream) {
+      super(queryPredicate, queryParams);
+      this.stream = stream;
+    }
+
+    @Override
+    protected void chunkReceived(CollectionType collectionType, List<Object> chunkResults)
+        throws Exception {
+      this.stream.chunkReceived(collectionType, chunkResults);
+    }
+
+    @Override
+    protected Object processResponse(Message msg, Connection con) throws Exception {
+      try {
+        return processResponse(msg);
+      } catch (QueryResultStream.StreamClosedException e) {
+        // the rest of the response is not read, so the connection can not be used again; the
+        // server stops sending results once the connection is closed
+        con.destroy();
+        return null;
+      }
+    }
+  }
 }
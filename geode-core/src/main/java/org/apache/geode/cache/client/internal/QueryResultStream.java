@@ -0,0 +1,228 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.cache.client.internal;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+
+import org.apache.geode.InternalGemFireException;
+import org.apache.geode.SystemFailure;
+import org.apache.geode.cache.client.ServerOperationException;
+import org.apache.geode.cache.query.types.CollectionType;
+import org.apache.geode.distributed.internal.DistributionConfig;
+import org.apache.geode.internal.logging.LoggingExecutors;
+
+/**
+ * Forward-only iterator over the results of a query executed on a server. The query is executed by
+ * a reader thread that hands each chunk of results sent by the server to the iterating thread. At
+ * most {@link #MAX_BUFFERED_CHUNKS} chunks are buffered: when the buffer is full the reader thread
+ * stops reading the response and the server stops sending chunks once the socket buffers are full.
+ * The memory used on the client therefore does not depend on the number of results.
+ * <p>
+ * The reader threads are pooled, but each stream that is being read uses one of them, together
+ * with a connection, until the stream is iterated to the end or closed. The stream must therefore
+ * be closed if it is not iterated to the end. Closing it discards the buffered chunks and stops
+ * reading the response: its connection is destroyed rather than returned to the pool, which makes
+ * the server stop sending results.
+ * <p>
+ * A query that fails after some results were returned is not retried, since the results already
+ * returned would be returned again.
+ *
+ * @since Geode 1.8
+ */
+public class QueryResultStream implements Iterator<Object>, AutoCloseable {
+
+  /** The maximum number of chunks received and not consumed yet. */
+  static final int MAX_BUFFERED_CHUNKS = Integer.getInteger(
+      DistributionConfig.GEMFIRE_PREFIX + "PoolImpl.QUERY_STREAM_MAX_BUFFERED_CHUNKS", 4);
+
+  private static final ExecutorService READERS =
+      LoggingExecutors.newCachedThreadPool("QueryResultStream Reader ", true);
+
+  /** Added to {@link #chunks} after the last chunk. */
+  private static final Object END_OF_RESULTS = new Object();
+
+  /**
+   * Lists of results, followed by {@link #END_OF_RESULTS} or by the failure of the query. Only the
+   * lists take {@link #bufferSpace}, so the reader thread can always add the element ending them.
+   */
+  private final BlockingQueue<Object> chunks = new LinkedBlockingQueue<>();
+
+  /** One permit for each list of results that can be added to {@link #chunks}. */
+  private final Semaphore bufferSpace;
+
+  /** The task of the reader thread, cancelled to interrupt it when this is closed. */
+  private final Future<?> reading;
+
+  private volatile boolean closed;
+
+  private volatile CollectionType collectionType;
+
+  /** Only used by the iterating thread. */
+  private Iterator current = Collections.emptyIterator();
+
+  /** True once the end of the results or a failure was taken from {@link #chunks}. */
+  private boolean finished;
+
+  QueryResultStream(ExecutablePool pool, String queryPredicate, Object[] queryParams,
+      int maxBufferedChunks) {
+    this.bufferSpace = new Semaphore(Math.max(1, maxBufferedChunks));
+    AbstractOp op = QueryOp.QueryOpImpl.createStreaming(queryPredicate, queryParams, this);
+    UserAttributes securityAttributes = UserAttributes.userAttributes.get();
+    this.reading = READERS.submit(() -> {
+      UserAttributes.userAttributes.set(securityAttributes);
+      try {
+        execute(pool, op);
+      } finally {
+        UserAttributes.userAttributes.set(null);
+      }
+    });
+  }
+
+  private void execute(ExecutablePool pool, AbstractOp op) {
+    Object last = END_OF_RESULTS;
+    try {
+      pool.execute(op, 0);
+    } catch (VirtualMachineError err) {
+      SystemFailure.initiateFailure(err);
+      last = err;
+      throw err;
+    } catch (Throwable t) {
+      SystemFailure.checkFailure();
+      last = t;
+    } finally {
+      // never waits, so the iterating thread sees the end even if this thread was interrupted
+      if (!this.closed) {
+        this.chunks.add(last);
+      }
+    }
+  }
+
+  /**
+   * Called by the reader thread for each chunk of results received from the server. Waits while
+   * {@link #MAX_BUFFERED_CHUNKS} chunks are buffered.
+   *
+   * @throws StreamClosedException if this stream was closed, in which case the rest of the
+   *         response must not be read
+   */
+  void chunkReceived(CollectionType collectionType, List<Object> chunkResults)
+      throws StreamClosedException {
+    if (collectionType != null) {
+      this.collectionType = collectionType;
+    }
+    try {
+      if (!this.closed) {
+        this.bufferSpace.acquire();
+      }
+    } catch (InterruptedException e) {
+      if (!this.closed) {
+        Thread.currentThread().interrupt();
+        throw new InternalGemFireException(e.getMessage());
+      }
+    }
+    if (this.closed) {
+      throw new StreamClosedException();
+    }
+    this.chunks.add(chunkResults);
+  }
+
+  /**
+   * Returns the type of the results, or null if no chunk was received yet or if the query is a
+   * count query.
+   */
+  public CollectionType getCollectionType() {
+    return this.collectionType;
+  }
+
+  /**
+   * @throws ServerOperationException if the query failed on the server
+   */
+  @Override
+  public boolean hasNext() {
+    while (!this.current.hasNext()) {
+      if (this.finished) {
+        return false;
+      }
+      Object chunk = take();
+      if (chunk == END_OF_RESULTS) {
+        this.finished = true;
+        return false;
+      }
+      if (chunk instanceof Throwable) {
+        close();
+        if (chunk instanceof RuntimeException) {
+          throw (RuntimeException) chunk;
+        }
+        if (chunk instanceof Error) {
+          throw (Error) chunk;
+        }
+        throw new ServerOperationException("While performing a remote query",
+            (Throwable) chunk);
+      }
+      this.bufferSpace.release();
+      this.current = ((List) chunk).iterator();
+    }
+    return true;
+  }
+
+  @Override
+  public Object next() {
+    if (!hasNext()) {
+      throw new NoSuchElementException();
+    }
+    return this.current.next();
+  }
+
+  /**
+   * Discards the buffered results and stops reading the response if the query has not completed.
+   */
+  @Override
+  public void close() {
+    this.closed = true;
+    this.finished = true;
+    // wakes up the reader thread if it waits for buffer space
+    this.reading.cancel(true);
+    this.chunks.clear();
+    this.current = Collections.emptyIterator();
+  }
+
+  private Object take() {
+    try {
+      return this.chunks.take();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      close();
+      throw new InternalGemFireException(e.getMessage());
+    }
+  }
+
+  /**
+   * Thrown to the op reading the response once the stream was closed.
+   */
+  static class StreamClosedException extends Exception {
+    private static final long serialVersionUID = 4180773471837519263L;
+
+    StreamClosedException() {
+      super("the query result stream was closed");
+    }
+  }
+}
@@ -206,6 +206,10 @@ public class QueueConnectionImpl implements Connection {
     throw new UnsupportedOperationException();
   }
 
+  public int getWireCompressionThreshold() {
+    return getConnection().getWireCompressionThreshold();
+  }
+
   public int getDistributedSystemId() {
     throw new UnsupportedOperationException();
   }
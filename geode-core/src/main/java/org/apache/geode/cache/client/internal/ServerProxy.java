@@ -69,4 +69,16 @@ public class ServerProxy {
     return QueryOp.execute(this.pool, queryPredicate, queryParams);
   }
 
+  /**
+   * Does a query on a server and streams its results
+   *
+   * @param queryPredicate A query language boolean query predicate
+   * @return A {@link QueryResultStream} over the values that match the <code>queryPredicate</code>,
+   *         which must be closed if it is not iterated to the end.
+   * @since Geode 1.8
+   */
+  public QueryResultStream queryStream(String queryPredicate, Object[] queryParams) {
+    return QueryOp.executeStreaming(this.pool, queryPredicate, queryParams);
+  }
+
 }
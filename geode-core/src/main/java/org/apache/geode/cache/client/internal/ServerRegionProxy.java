@@ -15,11 +15,13 @@
 package org.apache.geode.cache.client.internal;
 
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 
 import org.apache.logging.log4j.Logger;
 
@@ -62,6 +64,9 @@ public class ServerRegionProxy extends ServerProxy implements ServerRegionDataAc
   private final LocalRegion region;
   private final String regionName;
 
+  /** Caches the values this region reads. Null if near caching is not enabled. */
+  private final NearCache nearCache;
+
 
   /**
    * Creates a server region proxy for the given region.
@@ -74,6 +79,13 @@ public class ServerRegionProxy extends ServerProxy implements ServerRegionDataAc
     assert r instanceof LocalRegion;
     this.region = (LocalRegion) r;
     this.regionName = r.getFullPath();
+    if (NearCache.MAX_ENTRIES > 0 && r.getAttributes().getDataPolicy() == DataPolicy.EMPTY
+        && this.pool.getSubscriptionEnabled()) {
+      this.nearCache = new NearCache(this, DataPolicy.EMPTY.ordinal, this.pool.getStats(),
+          this.pool.getBackgroundProcessor(), NearCache.MAX_ENTRIES, NearCache.TIME_TO_LIVE);
+    } else {
+      this.nearCache = null;
+    }
   }
 
   /**
@@ -84,6 +96,7 @@ public class ServerRegionProxy extends ServerProxy implements ServerRegionDataAc
     super(pool);
     this.region = null;
     this.regionName = regionName;
+    this.nearCache = null;
   }
 
   private static InternalPool calcPool(Region r) {
@@ -108,10 +121,33 @@ public class ServerRegionProxy extends ServerProxy implements ServerRegionDataAc
    */
   public Object get(Object key, Object callbackArg, EntryEventImpl clientEvent) {
     recordTXOperation(ServerRegionOperation.GET, key, callbackArg);
+    if (this.nearCache != null && callbackArg == null
+        && TXManagerImpl.getCurrentTXUniqueId() == TXManagerImpl.NOTX) {
+      Object value = this.nearCache.get(key);
+      if (value != null) {
+        return value;
+      }
+      long token = this.nearCache.getToken();
+      value = GetOp.execute(this.pool, this.region, key, callbackArg,
+          this.pool.getPRSingleHopEnabled(), clientEvent);
+      this.nearCache.put(key, value, token);
+      return value;
+    }
     return GetOp.execute(this.pool, this.region, key, callbackArg,
         this.pool.getPRSingleHopEnabled(), clientEvent);
   }
 
+  /**
+   * Does a get on the server without blocking the calling thread.
+   *
+   * @return a future completed with the value found by the get, if any
+   */
+  public CompletableFuture<Object> getAsync(Object key, Object callbackArg,
+      EntryEventImpl clientEvent) {
+    recordTXOperation(ServerRegionOperation.GET, key, callbackArg);
+    return GetOp.executeAsync(this.pool, this.region, key, callbackArg, clientEvent);
+  }
+
 
 
   public int size() {
@@ -149,12 +185,35 @@ public class ServerRegionProxy extends ServerProxy implements ServerRegionDataAc
       return PutOp.execute(this.pool, this.regionName, key, value, deltaBytes, event, operation,
           requireOldValue, expectedOldValue, callbackArg, this.pool.getPRSingleHopEnabled());
     } else {
-      return PutOp.execute(this.pool, this.region, key, value, deltaBytes, event, operation,
-          requireOldValue, expectedOldValue, callbackArg, this.pool.getPRSingleHopEnabled());
+      try {
+        return PutOp.execute(this.pool, this.region, key, value, deltaBytes, event, operation,
+            requireOldValue, expectedOldValue, callbackArg, this.pool.getPRSingleHopEnabled());
+      } finally {
+        invalidateNearCacheEntry(key);
+      }
     }
   }
 
 
+  /**
+   * Does a put on the server without blocking the calling thread. The full value is always sent.
+   *
+   * @return a future completed with the old value if requireOldValue is true
+   */
+  public CompletableFuture<Object> putAsync(Object key, Object value, EntryEventImpl event,
+      Operation op, boolean requireOldValue, Object expectedOldValue, Object callbackArg) {
+    recordTXOperation(ServerRegionOperation.PUT, key, value, null, event.getEventId(), op,
+        Boolean.valueOf(requireOldValue), expectedOldValue, callbackArg, Boolean.FALSE);
+    Operation operation = op;
+    if (this.region.getDataPolicy() == DataPolicy.EMPTY && op.isCreate()
+        && op != Operation.PUT_IF_ABSENT) {
+      operation = Operation.UPDATE;
+    }
+    return PutOp.executeAsync(this.pool, this.region, key, value, event, operation,
+        requireOldValue, expectedOldValue, callbackArg)
+        .whenComplete((result, ex) -> invalidateNearCacheEntry(key));
+  }
+
   /**
    * Does a region put on the server using the given connection.
    *
@@ -186,14 +245,22 @@ public class ServerRegionProxy extends ServerProxy implements ServerRegionDataAc
     }
     recordTXOperation(ServerRegionOperation.DESTROY, key, expectedOldValue, operation,
         event.getEventId(), callbackArg);
-    return DestroyOp.execute(this.pool, this.region, key, expectedOldValue, operation, event,
-        callbackArg, this.pool.getPRSingleHopEnabled());
+    try {
+      return DestroyOp.execute(this.pool, this.region, key, expectedOldValue, operation, event,
+          callbackArg, this.pool.getPRSingleHopEnabled());
+    } finally {
+      invalidateNearCacheEntry(key);
+    }
   }
 
 
   public void invalidate(EntryEventImpl event) {
     recordTXOperation(ServerRegionOperation.INVALIDATE, event.getKey(), event);
-    InvalidateOp.execute(this.pool, this.region.getFullPath(), event);
+    try {
+      InvalidateOp.execute(this.pool, this.region.getFullPath(), event);
+    } finally {
+      invalidateNearCacheEntry(event.getKey());
+    }
   }
 
 
@@ -235,8 +302,13 @@ public class ServerRegionProxy extends ServerProxy implements ServerRegionDataAc
   }
 
   public TXCommitMessage commit(int txId) {
-    TXCommitMessage tx = CommitOp.execute(this.pool, txId);
-    return tx;
+    try {
+      TXCommitMessage tx = CommitOp.execute(this.pool, txId);
+      return tx;
+    } finally {
+      // this client is not sent the changes it made in the transaction
+      invalidateNearCache();
+    }
   }
 
   public void rollback(int txId) {
@@ -251,7 +323,11 @@ public class ServerRegionProxy extends ServerProxy implements ServerRegionDataAc
    * cache.EventID, java.lang.Object)
    */
   public void clear(EventID eventId, Object callbackArg) {
-    ClearOp.execute(this.pool, this.regionName, eventId, callbackArg);
+    try {
+      ClearOp.execute(this.pool, this.regionName, eventId, callbackArg);
+    } finally {
+      invalidateNearCache();
+    }
   }
 
   /**
@@ -359,6 +435,9 @@ public class ServerRegionProxy extends ServerProxy implements ServerRegionDataAc
         }
         /////////////////////////////////////////
         finished = true;
+        if (interestType == InterestType.KEY) {
+          applicationRegistered(Collections.singletonList(key));
+        }
         return result;
       } finally {
         if (!finished) {
@@ -518,6 +597,23 @@ public class ServerRegionProxy extends ServerProxy implements ServerRegionDataAc
    */
   public List registerInterestList(List keys, InterestResultPolicy policy, boolean isDurable,
       boolean receiveUpdatesAsInvalidates, final byte regionDataPolicy) {
+    List result = basicRegisterInterestList(keys, policy, isDurable, receiveUpdatesAsInvalidates,
+        regionDataPolicy);
+    applicationRegistered(keys);
+    return result;
+  }
+
+  /**
+   * Registers interest in keys read through the near cache of this region. Updates of the keys are
+   * sent as invalidates and no value is sent by the registration.
+   */
+  List registerNearCacheInterest(List keys, byte regionDataPolicy) {
+    return basicRegisterInterestList(keys, InterestResultPolicy.NONE, false, true,
+        regionDataPolicy);
+  }
+
+  private List basicRegisterInterestList(List keys, InterestResultPolicy policy,
+      boolean isDurable, boolean receiveUpdatesAsInvalidates, byte regionDataPolicy) {
     final RegisterInterestTracker rit = this.pool.getRITracker();
     List result = null;
     boolean finished = false;
@@ -563,6 +659,9 @@ public class ServerRegionProxy extends ServerProxy implements ServerRegionDataAc
         UnregisterInterestOp.execute(this.pool, this.regionName, key, interestType, isClosing,
             keepAlive);
       }
+      if (interestType == InterestType.KEY) {
+        applicationUnregistered(Collections.singletonList(key));
+      }
     }
   }
 
@@ -582,6 +681,29 @@ public class ServerRegionProxy extends ServerProxy implements ServerRegionDataAc
     if (removed) {
       UnregisterInterestListOp.execute(this.pool, this.regionName, keys, isClosing, keepAlive);
     }
+    applicationUnregistered(keys);
+  }
+
+  /**
+   * Unregisters the interest the near cache of this region registered in the given keys. The near
+   * cache never passes keys the application registered interest in.
+   */
+  void unregisterNearCacheInterest(List keys) {
+    if (this.pool.getRITracker().removeInterestList(this.region, keys, false, true)) {
+      UnregisterInterestListOp.execute(this.pool, this.regionName, keys, false, false);
+    }
+  }
+
+  private void applicationRegistered(List<?> keys) {
+    if (this.nearCache != null) {
+      this.nearCache.applicationRegistered(keys);
+    }
+  }
+
+  private void applicationUnregistered(List<?> keys) {
+    if (this.nearCache != null) {
+      this.nearCache.applicationUnregistered(keys);
+    }
   }
 
   public List getInterestList(int interestType) {
@@ -593,12 +715,16 @@ public class ServerRegionProxy extends ServerProxy implements ServerRegionDataAc
       Object callbackArg) {
     recordTXOperation(ServerRegionOperation.PUT_ALL, null, map, eventId);
     int txID = TXManagerImpl.getCurrentTXUniqueId();
-    if (this.pool.getPRSingleHopEnabled() && (txID == TXManagerImpl.NOTX)) {
-      return PutAllOp.execute(this.pool, this.region, map, eventId, skipCallbacks,
-          this.pool.getRetryAttempts(), callbackArg);
-    } else {
-      return PutAllOp.execute(this.pool, this.region, map, eventId, skipCallbacks, false,
-          callbackArg);
+    try {
+      if (this.pool.getPRSingleHopEnabled() && (txID == TXManagerImpl.NOTX)) {
+        return PutAllOp.execute(this.pool, this.region, map, eventId, skipCallbacks,
+            this.pool.getRetryAttempts(), callbackArg);
+      } else {
+        return PutAllOp.execute(this.pool, this.region, map, eventId, skipCallbacks, false,
+            callbackArg);
+      }
+    } finally {
+      invalidateNearCacheEntries(map.keySet());
     }
   }
 
@@ -607,11 +733,15 @@ public class ServerRegionProxy extends ServerProxy implements ServerRegionDataAc
       Object callbackArg) {
     recordTXOperation(ServerRegionOperation.REMOVE_ALL, null, keys, eventId);
     int txID = TXManagerImpl.getCurrentTXUniqueId();
-    if (this.pool.getPRSingleHopEnabled() && (txID == TXManagerImpl.NOTX)) {
-      return RemoveAllOp.execute(this.pool, this.region, keys, eventId,
-          this.pool.getRetryAttempts(), callbackArg);
-    } else {
-      return RemoveAllOp.execute(this.pool, this.region, keys, eventId, false, callbackArg);
+    try {
+      if (this.pool.getPRSingleHopEnabled() && (txID == TXManagerImpl.NOTX)) {
+        return RemoveAllOp.execute(this.pool, this.region, keys, eventId,
+            this.pool.getRetryAttempts(), callbackArg);
+      } else {
+        return RemoveAllOp.execute(this.pool, this.region, keys, eventId, false, callbackArg);
+      }
+    } finally {
+      invalidateNearCacheEntries(keys);
     }
   }
 
@@ -646,14 +776,71 @@ public class ServerRegionProxy extends ServerProxy implements ServerRegionDataAc
     return result;
   }
 
+  /**
+   * Does a getAll on the server without blocking the calling thread. All the keys are sent to one
+   * server, even if single hop is enabled.
+   *
+   * @return a future completed with the values of the keys
+   */
+  public CompletableFuture<VersionedObjectList> getAllAsync(List keys, Object callback) {
+    recordTXOperation(ServerRegionOperation.GET_ALL, null, keys);
+    return GetAllOp.executeAsync(this.pool, this.regionName, keys, callback);
+  }
+
+  /**
+   * Does a getAll on the servers, returning the values as they arrive. Unlike {@link #getAll} the
+   * keys are requested in bounded batches so the results of a very large getAll never need to be
+   * held in memory at once.
+   *
+   * @return an iterator over the entries read, which should be closed if it is not read to the end
+   */
+  public GetAllStream getAllStream(List keys, Object callback) {
+    recordTXOperation(ServerRegionOperation.GET_ALL, null, keys);
+    boolean singleHop = this.pool.getPRSingleHopEnabled()
+        && TXManagerImpl.getCurrentTXUniqueId() == TXManagerImpl.NOTX;
+    return GetAllOp.executeStreaming(this.pool, this.region, keys, callback, singleHop,
+        this.pool.getRetryAttempts() != 0);
+  }
+
   /**
    * Release use of this pool
    */
   public void detach(boolean keepalive) {
+    if (this.nearCache != null) {
+      this.nearCache.close();
+    }
     this.pool.getRITracker().unregisterRegion(this, keepalive);
     super.detach();
   }
 
+  /**
+   * Drops the value of the key from the near cache of this region, if it has one. Called when the
+   * key was changed by this client or when a server sent an event for it.
+   */
+  public void invalidateNearCacheEntry(Object key) {
+    if (this.nearCache != null) {
+      this.nearCache.invalidate(key);
+    }
+  }
+
+  private void invalidateNearCacheEntries(Collection<?> keys) {
+    if (this.nearCache != null) {
+      for (Object key : keys) {
+        this.nearCache.invalidate(key);
+      }
+    }
+  }
+
+  /**
+   * Drops all the values from the near cache of this region, if it has one. Called when the whole
+   * region was changed or when events may have been missed.
+   */
+  public void invalidateNearCache() {
+    if (this.nearCache != null) {
+      this.nearCache.invalidateAll();
+    }
+  }
+
   public String getRegionName() {
     return this.regionName;
   }
@@ -51,6 +51,7 @@ import org.apache.geode.cache.client.internal.PoolImpl;
 import org.apache.geode.cache.client.internal.PoolImpl.PoolTask;
 import org.apache.geode.cache.client.internal.QueueConnectionImpl;
 import org.apache.geode.distributed.PoolCancelledException;
+import org.apache.geode.distributed.internal.DistributionConfig;
 import org.apache.geode.distributed.internal.ServerLocation;
 import org.apache.geode.i18n.StringId;
 import org.apache.geode.internal.cache.PoolManagerImpl;
@@ -101,6 +102,15 @@ public class ConnectionManagerImpl implements ConnectionManager {
 
   private static final long NANOS_PER_MS = 1000000L;
 
+  /**
+   * The number of most recently used available connections among which
+   * {@link #borrowConnection(long)} picks the one whose server has the fewest outstanding requests.
+   * One or less always picks the most recently used connection, which is the default so that the
+   * order in which connections are borrowed does not change unless this is configured.
+   */
+  static int LEAST_LOADED_CANDIDATES = Integer
+      .getInteger(DistributionConfig.GEMFIRE_PREFIX + "PoolImpl.LEAST_LOADED_CANDIDATES", 1);
+
   /**
    * Adds an arbitrary variance to a positive temporal interval. Where possible, 10% of the interval
    * is added or subtracted from the interval. Otherwise, 1 is added or subtracted from the
@@ -213,7 +223,7 @@ public class ConnectionManagerImpl implements ConnectionManager {
       }
 
       while (!availableConnections.isEmpty()) {
-        PooledConnection connection = (PooledConnection) availableConnections.removeFirst();
+        PooledConnection connection = removeLeastLoadedConnection();
         try {
           connection.activate();
           return connection;
@@ -267,6 +277,37 @@ public class ConnectionManagerImpl implements ConnectionManager {
     return connection;
   }
 
+  /**
+   * Removes an available connection to the server with the fewest outstanding requests among the
+   * {@link #LEAST_LOADED_CANDIDATES} most recently used connections, so that a server that got slow
+   * receives fewer requests. On a tie the most recently used connection is kept, unless its server
+   * answered in more than twice the time of the other's on average. Must be called with the lock
+   * held.
+   */
+  private PooledConnection removeLeastLoadedConnection() {
+    Iterator itr = availableConnections.iterator();
+    PooledConnection best = (PooledConnection) itr.next();
+    int bestIndex = 0;
+    Endpoint bestEndpoint = best.getEndpoint();
+    for (int i = 1; i < LEAST_LOADED_CANDIDATES && itr.hasNext(); i++) {
+      PooledConnection candidate = (PooledConnection) itr.next();
+      Endpoint endpoint = candidate.getEndpoint();
+      if (endpoint == null || bestEndpoint == null || endpoint == bestEndpoint) {
+        continue;
+      }
+      int requests = endpoint.getOutstandingRequests();
+      int bestRequests = bestEndpoint.getOutstandingRequests();
+      if (requests < bestRequests || (requests == bestRequests
+          && endpoint.getAverageResponseTime() * 2 < bestEndpoint.getAverageResponseTime())) {
+        best = candidate;
+        bestIndex = i;
+        bestEndpoint = endpoint;
+      }
+    }
+    availableConnections.remove(bestIndex);
+    return best;
+  }
+
   /**
    * Borrow a connection to a specific server. This task currently allows us to break the connection
    * limit, because it is used by tasks from the background thread that shouldn't be constrained by
@@ -333,6 +333,10 @@ class PooledConnection implements Connection {
     return getConnection().getWanSiteVersion();
   }
 
+  public int getWireCompressionThreshold() {
+    return getConnection().getWireCompressionThreshold();
+  }
+
   public int getDistributedSystemId() {
     return getConnection().getDistributedSystemId();
   }
@@ -31,9 +31,12 @@ import org.apache.geode.cache.query.QueryService;
 import org.apache.geode.cache.query.SelectResults;
 import org.apache.geode.cache.query.Struct;
 import org.apache.geode.cache.query.TypeMismatchException;
+import org.apache.geode.cache.query.internal.index.BitmapIndexEvaluator;
+import org.apache.geode.cache.query.internal.index.IndexManager;
 import org.apache.geode.cache.query.internal.parse.OQLLexerTokenTypes;
 import org.apache.geode.cache.query.internal.types.StructTypeImpl;
 import org.apache.geode.cache.query.types.ObjectType;
+import org.apache.geode.cache.query.types.StructType;
 import org.apache.geode.distributed.internal.DistributionConfig;
 import org.apache.geode.internal.Assert;
 
@@ -262,6 +265,18 @@ public abstract class AbstractGroupOrRangeJunction extends AbstractCompiledValue
     List sortedConditionsList =
         this.getCondtionsSortedOnIncreasingEstimatedIndexResultSize(context);
 
+    if (IndexManager.BITMAP_INDEX_STORE && intermediateResults == null) {
+      intermediateResults = evaluateOnBitmaps(sortedConditionsList, context);
+      if (_operator == LITERAL_and && intermediateResults != null
+          && intermediateResults.size() <= indexThresholdSize) {
+        // the residual filter operands will be transferred for iter evaluation
+        if (!sortedConditionsList.isEmpty()) {
+          this.addUnevaluatedFilterOperands(sortedConditionsList);
+        }
+        return intermediateResults;
+      }
+    }
+
     // Sort the operands in increasing order of resultset size
     Iterator i = sortedConditionsList.iterator();
     // SortedSet intersectionSet = new TreeSet(new SelectResultsComparator());
@@ -343,6 +358,47 @@ public abstract class AbstractGroupOrRangeJunction extends AbstractCompiledValue
     return intermediateResults;
   }
 
+  /**
+   * Evaluates together the equality and not equality conditions on indexes that keep their entries
+   * in bitmaps, when there are at least two of them, and removes them from the conditions.
+   *
+   * @return the results of these conditions, or null if they were not evaluated
+   */
+  private SelectResults evaluateOnBitmaps(List conditions, ExecutionContext context)
+      throws FunctionDomainException, TypeMismatchException, NameResolutionException,
+      QueryInvocationTargetException {
+    if (this.indpndntItr.length != 1 || context.isCqQueryContext()
+        || Boolean.TRUE.equals(context.cacheGet(CompiledValue.CAN_APPLY_ORDER_BY_AT_INDEX))) {
+      return null;
+    }
+    BitmapIndexEvaluator evaluator = new BitmapIndexEvaluator(_operator == LITERAL_and);
+    for (Object condition : conditions) {
+      if (!(condition instanceof CompiledComparison)) {
+        continue;
+      }
+      CompiledComparison comparison = (CompiledComparison) condition;
+      IndexInfo[] indexInfo = comparison.getIndexInfo(context);
+      if (indexInfo == null || indexInfo.length != 1 || comparison
+          .isConditioningNeededForIndex(this.indpndntItr[0], context, this.completeExpansion)) {
+        continue;
+      }
+      Object key = indexInfo[0].evaluateIndexKey(context);
+      if (key != null && key.equals(QueryService.UNDEFINED)) {
+        continue;
+      }
+      evaluator.addCondition(comparison, indexInfo[0]._getIndex(), key,
+          comparison.reflectOnOperator(indexInfo[0]._key()));
+    }
+    if (evaluator.getConditions().size() < 2
+        || evaluator.getResultType() instanceof StructType) {
+      return null;
+    }
+    SelectResults results = QueryUtils.createResultCollection(context, evaluator.getResultType());
+    evaluator.evaluate(results, this.indpndntItr[0], context);
+    conditions.removeAll(evaluator.getConditions());
+    return results;
+  }
+
   /** invariant: the operand is known to be evaluated by iteration */
   private SelectResults auxIterateEvaluate(CompiledValue operand, ExecutionContext context,
       SelectResults intermediateResults) throws FunctionDomainException, TypeMismatchException,
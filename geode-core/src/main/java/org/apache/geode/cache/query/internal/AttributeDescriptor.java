@@ -15,11 +15,14 @@
 
 package org.apache.geode.cache.query.internal;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.AccessibleObject;
 import java.lang.reflect.Field;
-import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Member;
 import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
@@ -37,7 +40,10 @@ import org.apache.geode.pdx.JSONFormatter;
 import org.apache.geode.pdx.PdxInstance;
 import org.apache.geode.pdx.PdxSerializationException;
 import org.apache.geode.pdx.internal.FieldNotFoundInPdxVersion;
+import org.apache.geode.pdx.internal.PdxField;
 import org.apache.geode.pdx.internal.PdxInstanceImpl;
+import org.apache.geode.pdx.internal.PdxType;
+import org.apache.geode.security.NotAuthorizedException;
 
 /**
  * Utility for managing an attribute
@@ -49,9 +55,21 @@ import org.apache.geode.pdx.internal.PdxInstanceImpl;
 public class AttributeDescriptor {
   private final String _name;
   private final MethodInvocationAuthorizer _methodInvocationAuthorizer;
-  /** cache for remembering the correct Member for a class and attribute */
-  private static final ConcurrentMap<List, Member> _localCache = new ConcurrentHashMap();
+  /** cache for remembering the accessor of the correct Member for a class and attribute */
+  private static final ConcurrentMap<List, Accessor> _localCache = new ConcurrentHashMap();
 
+  /** type of the method handles of the accessors: the target object to the attribute value */
+  private static final MethodType ACCESSOR_TYPE =
+      MethodType.methodType(Object.class, Object.class);
+
+  /**
+   * accessor for the class of the last target read. An attribute is usually read from objects of a
+   * single class, so this avoids looking up the accessor in {@link #_localCache} for each target.
+   */
+  private volatile Accessor _lastAccessor;
+
+  /** field of the type of the last PdxInstance read, the same way as {@link #_lastAccessor} */
+  private volatile PdxAccessor _lastPdxAccessor;
 
 
   public AttributeDescriptor(MethodInvocationAuthorizer methodInvocationAuthorizer, String name) {
@@ -93,53 +111,39 @@ public class AttributeDescriptor {
     }
 
     Class resolutionClass = target.getClass();
-    Member m = getReadMember(resolutionClass);
+    Accessor accessor = _lastAccessor;
+    if (accessor == null || accessor.targetClass != resolutionClass) {
+      accessor = getAccessor(resolutionClass);
+      _lastAccessor = accessor;
+    }
+    Member m = accessor.member;
+    if (accessor.handle == null) {
+      throw new NameNotFoundException(
+          String.format("%s ' %s ' in class ' %s ' is not accessible to the query processor",
+              new Object[] {m instanceof Method ? "Method" : "Field", m.getName(),
+                  resolutionClass.getName()}));
+    }
     try {
       if (m instanceof Method) {
-        try {
-          _methodInvocationAuthorizer.authorizeMethodInvocation((Method) m, target);
-          return ((Method) m).invoke(target, (Object[]) null);
-        } catch (EntryDestroyedException e) {
-          // eat the Exception
-          return QueryService.UNDEFINED;
-        } catch (IllegalAccessException e) {
-          throw new NameNotFoundException(
-              String.format(
-                  "Method ' %s ' in class ' %s ' is not accessible to the query processor",
-                  new Object[] {m.getName(), target.getClass().getName()}),
-              e);
-        } catch (InvocationTargetException e) {
-          // if the target exception is Exception, wrap that,
-          // otherwise wrap the InvocationTargetException itself
-          Throwable t = e.getTargetException();
-          if ((t instanceof EntryDestroyedException)) {
-            // eat the exception
-            return QueryService.UNDEFINED;
-          }
-          if (t instanceof Exception)
-            throw new QueryInvocationTargetException(t);
-          throw new QueryInvocationTargetException(e);
-        }
-      } else {
-        try {
-          return ((Field) m).get(target);
-        } catch (IllegalAccessException e) {
-          throw new NameNotFoundException(
-              String.format(
-                  "Field ' %s ' in class ' %s ' is not accessible to the query processor",
-                  new Object[] {m.getName(), target.getClass().getName()}),
-              e);
-        } catch (EntryDestroyedException e) {
-          return QueryService.UNDEFINED;
-        }
+        _methodInvocationAuthorizer.authorizeMethodInvocation((Method) m, target);
       }
+      return accessor.handle.invokeExact(target);
     } catch (EntryDestroyedException e) {
       // eat the exception
       return QueryService.UNDEFINED;
+    } catch (NotAuthorizedException | VirtualMachineError e) {
+      throw e;
+    } catch (Throwable t) {
+      // the accessor throws the exception of the method itself
+      throw new QueryInvocationTargetException(t);
     }
   }
 
   Member getReadMember(Class targetClass) throws NameNotFoundException {
+    return getAccessor(targetClass).member;
+  }
+
+  private Accessor getAccessor(Class targetClass) throws NameNotFoundException {
 
     // mapping: public field (same name), method (getAttribute()),
     // method (attribute())
@@ -147,22 +151,76 @@ public class AttributeDescriptor {
     key.add(targetClass);
     key.add(_name);
 
-    Member m = _localCache.computeIfAbsent(key, k -> {
+    Accessor accessor = _localCache.computeIfAbsent(key, k -> {
       Member member = getReadField(targetClass);
-      return member == null ? getReadMethod(targetClass) : member;
+      if (member == null) {
+        member = getReadMethod(targetClass);
+      }
+      if (member == null) {
+        return null;
+      }
+      // override security for nonpublic derived classes with public members
+      ((AccessibleObject) member).setAccessible(true);
+      return new Accessor(targetClass, member);
     });
 
-    if (m == null) {
+    if (accessor == null) {
       throw new NameNotFoundException(
           String.format("No public attribute named ' %s ' was found in class  %s",
               new Object[] {_name, targetClass.getName()}));
     }
+    return accessor;
+  }
+
+  /**
+   * The member read for an attribute of a class, along with a method handle invoking it. The
+   * handle is resolved once per class and attribute, avoiding the access checks and the boxing of
+   * the arguments done by each reflective call.
+   */
+  private static class Accessor {
+    private final Class targetClass;
+    private final Member member;
+    /** null if the member is not accessible */
+    private final MethodHandle handle;
+
+    private Accessor(Class targetClass, Member member) {
+      this.targetClass = targetClass;
+      this.member = member;
+      this.handle = createHandle(member);
+    }
 
-    // override security for nonpublic derived classes with public members
-    ((AccessibleObject) m).setAccessible(true);
-    return m;
+    private static MethodHandle createHandle(Member member) {
+      MethodHandle handle;
+      try {
+        if (member instanceof Method) {
+          handle = MethodHandles.lookup().unreflect((Method) member);
+        } else {
+          handle = MethodHandles.lookup().unreflectGetter((Field) member);
+        }
+      } catch (IllegalAccessException e) {
+        return null;
+      }
+      if (Modifier.isStatic(member.getModifiers())) {
+        // the target is ignored, like by the reflective call
+        handle = MethodHandles.dropArguments(handle, 0, Object.class);
+      }
+      return handle.asType(ACCESSOR_TYPE);
+    }
   }
 
+  /**
+   * The field of an attribute in a PdxType, null if the type does not have the field. Instances of
+   * the same type then read the field without looking it up by name.
+   */
+  private static class PdxAccessor {
+    private final PdxType pdxType;
+    private final PdxField field;
+
+    private PdxAccessor(PdxType pdxType, PdxField field) {
+      this.pdxType = pdxType;
+      this.field = field;
+    }
+  }
 
   private Field getReadField(Class targetType) {
     try {
@@ -206,10 +264,16 @@ public class AttributeDescriptor {
       throws NameNotFoundException, QueryInvocationTargetException {
     if (target instanceof PdxInstanceImpl) {
       PdxInstanceImpl pdxInstance = (PdxInstanceImpl) target;
+      PdxType pdxType = pdxInstance.getPdxType();
+      PdxAccessor pdxAccessor = _lastPdxAccessor;
+      if (pdxAccessor == null || pdxAccessor.pdxType != pdxType) {
+        pdxAccessor = new PdxAccessor(pdxType, pdxType.getPdxField(_name));
+        _lastPdxAccessor = pdxAccessor;
+      }
       // if the field is present in the pdxinstance
-      if (pdxInstance.hasField(_name)) {
+      if (pdxAccessor.field != null) {
         // return PdxString if field is a String otherwise invoke readField
-        return pdxInstance.getRawField(_name);
+        return pdxInstance.getRawField(pdxAccessor.field);
       } else {
         // field not found in the pdx instance, look for the field in any of the
         // PdxTypes (versions of the pdxinstance) in the type registry
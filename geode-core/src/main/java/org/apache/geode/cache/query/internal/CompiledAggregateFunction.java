@@ -14,6 +14,7 @@
  */
 package org.apache.geode.cache.query.internal;
 
+import org.apache.geode.cache.query.Aggregator;
 import org.apache.geode.cache.query.AmbiguousNameException;
 import org.apache.geode.cache.query.FunctionDomainException;
 import org.apache.geode.cache.query.NameResolutionException;
@@ -23,12 +24,15 @@ import org.apache.geode.cache.query.internal.aggregate.Avg;
 import org.apache.geode.cache.query.internal.aggregate.AvgBucketNode;
 import org.apache.geode.cache.query.internal.aggregate.AvgDistinct;
 import org.apache.geode.cache.query.internal.aggregate.AvgDistinctPRQueryNode;
+import org.apache.geode.cache.query.internal.aggregate.AvgMemberNode;
 import org.apache.geode.cache.query.internal.aggregate.AvgPRQueryNode;
 import org.apache.geode.cache.query.internal.aggregate.Count;
 import org.apache.geode.cache.query.internal.aggregate.CountDistinct;
+import org.apache.geode.cache.query.internal.aggregate.CountDistinctBucketNode;
 import org.apache.geode.cache.query.internal.aggregate.CountDistinctPRQueryNode;
 import org.apache.geode.cache.query.internal.aggregate.CountPRQueryNode;
 import org.apache.geode.cache.query.internal.aggregate.DistinctAggregator;
+import org.apache.geode.cache.query.internal.aggregate.DistinctMemberNode;
 import org.apache.geode.cache.query.internal.aggregate.MaxMin;
 import org.apache.geode.cache.query.internal.aggregate.Sum;
 import org.apache.geode.cache.query.internal.aggregate.SumDistinct;
@@ -36,9 +40,18 @@ import org.apache.geode.cache.query.internal.aggregate.SumDistinctPRQueryNode;
 import org.apache.geode.cache.query.internal.parse.OQLLexerTokenTypes;
 import org.apache.geode.cache.query.internal.types.ObjectTypeImpl;
 import org.apache.geode.cache.query.types.ObjectType;
+import org.apache.geode.distributed.internal.DistributionConfig;
 
 public class CompiledAggregateFunction extends AbstractCompiledValue {
 
+  /**
+   * System property to send an estimator of the distinct values of the buckets to the PR query node
+   * instead of the distinct values themselves. The count of distinct values of a query on a
+   * partitioned region is then approximate.
+   */
+  public static boolean APPROXIMATE_COUNT_DISTINCT =
+      Boolean.getBoolean(DistributionConfig.GEMFIRE_PREFIX + "Query.APPROXIMATE_COUNT_DISTINCT");
+
   private final CompiledValue expr;
   private final int aggFuncType;
   private final boolean distinctOnly;
@@ -64,6 +77,9 @@ public class CompiledAggregateFunction extends AbstractCompiledValue {
       TypeMismatchException, NameResolutionException, QueryInvocationTargetException {
     boolean isPRQueryNode = context.getIsPRQueryNode();
     boolean isBucketNode = context.getBucketList() != null;
+    if (context.getIsMemberNode()) {
+      return getMemberNodeAggregator(context);
+    }
     switch (this.aggFuncType) {
 
       case OQLLexerTokenTypes.SUM:
@@ -92,8 +108,11 @@ public class CompiledAggregateFunction extends AbstractCompiledValue {
         if (isPRQueryNode) {
           return this.distinctOnly ? new CountDistinctPRQueryNode() : new CountPRQueryNode();
         } else {
-          return this.distinctOnly ? (isBucketNode ? new DistinctAggregator() : new CountDistinct())
-              : new Count();
+          if (this.distinctOnly && isBucketNode) {
+            return sendsCountDistinctEstimator(context) ? new CountDistinctBucketNode()
+                : new DistinctAggregator();
+          }
+          return this.distinctOnly ? new CountDistinct() : new Count();
         }
 
       default:
@@ -103,6 +122,47 @@ public class CompiledAggregateFunction extends AbstractCompiledValue {
 
   }
 
+  /**
+   * Returns the aggregator merging the results of the bucket node aggregators into a result of the
+   * same form.
+   */
+  private Aggregator getMemberNodeAggregator(ExecutionContext context) {
+    switch (this.aggFuncType) {
+
+      case OQLLexerTokenTypes.SUM:
+        return this.distinctOnly ? new DistinctMemberNode() : new Sum();
+
+      case OQLLexerTokenTypes.MAX:
+        return new MaxMin(true);
+
+      case OQLLexerTokenTypes.MIN:
+        return new MaxMin(false);
+
+      case OQLLexerTokenTypes.AVG:
+        return this.distinctOnly ? new DistinctMemberNode() : new AvgMemberNode();
+
+      case OQLLexerTokenTypes.COUNT:
+        if (this.distinctOnly) {
+          return sendsCountDistinctEstimator(context) ? new CountDistinctBucketNode()
+              : new DistinctMemberNode();
+        }
+        return new CountPRQueryNode();
+
+      default:
+        throw new UnsupportedOperationException("Aggregate function not implemented");
+
+    }
+  }
+
+  /**
+   * Whether the distinct values counted on the buckets are sent to the PR query node as an
+   * estimator rather than as a set of values, which query nodes older than 1.8 expect.
+   */
+  private static boolean sendsCountDistinctEstimator(ExecutionContext context) {
+    return APPROXIMATE_COUNT_DISTINCT && (context.getQuery() == null
+        || ((DefaultQuery) context.getQuery()).isCountDistinctEstimatorAccepted());
+  }
+
   private String getStringRep() {
     switch (this.aggFuncType) {
 
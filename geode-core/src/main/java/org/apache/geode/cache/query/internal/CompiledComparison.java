@@ -312,7 +312,9 @@ public class CompiledComparison extends AbstractCompiledValue
     // before the index lookup
     int op = reflectOnOperator(idxInfo[0]._key());
 
-    return idxInfo[0]._index.getSizeEstimate(key, op, idxInfo[0]._matchLevel);
+    int size = idxInfo[0]._index.getSizeEstimate(key, op, idxInfo[0]._matchLevel);
+    QueryObserverHolder.getInstance().afterIndexSizeEstimate(idxInfo[0]._index, key, size);
+    return size;
 
   }
 
@@ -151,6 +151,14 @@ public class CompiledGroupBySelect extends CompiledSelect {
 
   }
 
+  /**
+   * The results are aggregated once all of them are known.
+   */
+  @Override
+  protected boolean canHandOutPartialResults(ExecutionContext context) {
+    return false;
+  }
+
   @Override
   public SelectResults evaluate(ExecutionContext context) throws FunctionDomainException,
       TypeMismatchException, NameResolutionException, QueryInvocationTargetException {
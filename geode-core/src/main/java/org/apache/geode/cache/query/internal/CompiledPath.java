@@ -42,6 +42,8 @@ import org.apache.geode.internal.cache.PartitionedRegion;
 public class CompiledPath extends AbstractCompiledValue {
   private CompiledValue _receiver; // the value represented by the expression before the dot
   private String _tailID; // the identifier after the dot.
+  /** reads the tail attribute, created by the first evaluation */
+  private volatile AttributeDescriptor _tailDescriptor;
 
   public CompiledPath(CompiledValue rcvr, String id) {
     _receiver = rcvr;
@@ -144,7 +146,13 @@ public class CompiledPath extends AbstractCompiledValue {
     // getTailID());
     // }
 
-    Object obj = PathUtils.evaluateAttribute(context, evalRcvr, getTailID());
+    AttributeDescriptor tailDescriptor = _tailDescriptor;
+    if (tailDescriptor == null) {
+      tailDescriptor = new AttributeDescriptor(
+          context.getCache().getQueryService().getMethodInvocationAuthorizer(), getTailID());
+      _tailDescriptor = tailDescriptor;
+    }
+    Object obj = PathUtils.evaluateAttribute(evalRcvr, getTailID(), tailDescriptor);
     // check for BucketRegion substitution
     PartitionedRegion pr = context.getPartitionedRegion();
     if (pr != null && (obj instanceof Region)) {
@@ -392,6 +392,10 @@ public class CompiledSelect extends AbstractCompiledValue {
     context.newScope((Integer) context.cacheGet(scopeID));
     context.pushExecCache((Integer) context.cacheGet(scopeID));
     context.setDistinct(this.distinct);
+    PartialResultsHandler partialResultsHandler = context.takePartialResultsHandler();
+    if (!canHandOutPartialResults(context)) {
+      partialResultsHandler = null;
+    }
     if (this.hasUnmappedOrderByCols && context.getBucketList() != null) {
       throw new QueryInvalidException(
           "Query contains atleast one order by field which is not present in projected fields.");
@@ -420,7 +424,7 @@ public class CompiledSelect extends AbstractCompiledValue {
       SelectResults result = null;
       boolean evalAsFilters = false;
       if (this.whereClause == null) {
-        result = doIterationEvaluate(context, false);
+        result = doIterationEvaluate(context, false, partialResultsHandler);
       } else {
         if (!this.whereClause.isDependentOnCurrentScope(context)) { // independent
                                                                     // where
@@ -444,7 +448,7 @@ public class CompiledSelect extends AbstractCompiledValue {
                 String.format("The WHERE clause was type ' %s ' instead of boolean",
                     b.getClass().getName()));
           } else if ((Boolean) b) {
-            result = doIterationEvaluate(context, false);
+            result = doIterationEvaluate(context, false, partialResultsHandler);
           } else {
             result = prepareEmptyResultSet(context, false);
             // ResultsSet.emptyResultsSet(resultSet, 0);
@@ -540,7 +544,7 @@ public class CompiledSelect extends AbstractCompiledValue {
               }
             } else {
               // otherwise iterate over the single from var to evaluate
-              result = doIterationEvaluate(context, true);
+              result = doIterationEvaluate(context, true, partialResultsHandler);
             }
           } finally {
             // The Read lock is acquired in {@link
@@ -670,8 +674,19 @@ public class CompiledSelect extends AbstractCompiledValue {
     return evaluateLimitValue(bindArguments);
   }
 
+  /**
+   * Returns true if the results of this select can be handed out while it is evaluated: they are
+   * not ordered, made distinct or counted once all of them are known, and this is not evaluated on
+   * the buckets of a partitioned region, whose results are merged by the query node.
+   */
+  protected boolean canHandOutPartialResults(ExecutionContext context) {
+    return this.orderByAttrs == null && !this.distinct && !this.count
+        && context.getBucketList() == null;
+  }
+
   // returns null if result is UNDEFINED
-  private SelectResults doIterationEvaluate(ExecutionContext context, boolean evaluateWhereClause)
+  private SelectResults doIterationEvaluate(ExecutionContext context, boolean evaluateWhereClause,
+      PartialResultsHandler partialResultsHandler)
       throws TypeMismatchException, FunctionDomainException, NameResolutionException,
       QueryInvocationTargetException {
 
@@ -695,8 +710,11 @@ public class CompiledSelect extends AbstractCompiledValue {
       }
     }
     int numElementsInResult = 0;
+    HashJoin[] hashJoins =
+        evaluateWhereClause ? HashJoin.getHashJoins(this.whereClause, context) : null;
     try {
-      doNestedIterations(0, results, context, evaluateWhereClause, numElementsInResult);
+      doNestedIterations(0, results, context, evaluateWhereClause, hashJoins,
+          numElementsInResult, partialResultsHandler);
     } catch (CompiledSelect.NullIteratorException ignore) {
       return null;
     }
@@ -761,7 +779,8 @@ public class CompiledSelect extends AbstractCompiledValue {
 
   // returns the number of elements added in the return ResultSet
   private int doNestedIterations(int level, SelectResults results, ExecutionContext context,
-      boolean evaluateWhereClause, int numElementsInResult)
+      boolean evaluateWhereClause, HashJoin[] hashJoins, int numElementsInResult,
+      PartialResultsHandler partialResultsHandler)
       throws TypeMismatchException, FunctionDomainException, NameResolutionException,
       QueryInvocationTargetException, CompiledSelect.NullIteratorException {
     List iterList = context.getCurrentIterators();
@@ -803,6 +822,13 @@ public class CompiledSelect extends AbstractCompiledValue {
           // for non distinct query
           ++numElementsInResult;
         }
+        if (partialResultsHandler != null
+            && results.size() >= context.getPartialResultsSize()) {
+          partialResultsHandler.partialResults(results);
+          // the rows handed out are sent out, so they are no longer held by the query
+          QueryResourceUsage.rowsHandedOut(results.size());
+          results.clear();
+        }
       }
     } else {
       RuntimeIterator rIter = (RuntimeIterator) iterList.get(level);
@@ -828,8 +854,12 @@ public class CompiledSelect extends AbstractCompiledValue {
         ((QRegion) sr).setKeepSerialized(true);
       }
 
-      // Iterate through the data set.
-      for (Object aSr : sr) {
+      // Iterate through the data set, or only through the elements matching the join condition
+      Collection elements = sr;
+      if (hashJoins != null && hashJoins[level] != null) {
+        elements = hashJoins[level].getCandidates(sr, context);
+      }
+      for (Object aSr : elements) {
         // Check if query execution on this thread is canceled.
         QueryMonitor.isQueryExecutionCanceled();
 
@@ -838,7 +868,7 @@ public class CompiledSelect extends AbstractCompiledValue {
         QueryObserver observer = QueryObserverHolder.getInstance();
         observer.beforeIterationEvaluation(rIter, currObj);
         numElementsInResult = doNestedIterations(level + 1, results, context, evaluateWhereClause,
-            numElementsInResult);
+            hashJoins, numElementsInResult, partialResultsHandler);
         Integer limitValue = evaluateLimitValue(context, this.limit);
         if (this.orderByAttrs == null && limitValue > -1 && numElementsInResult == limitValue) {
           break;
@@ -953,7 +983,8 @@ public class CompiledSelect extends AbstractCompiledValue {
   }
 
   private SelectResults prepareEmptyResultSet(ExecutionContext context, boolean ignoreOrderBy)
-      throws TypeMismatchException, AmbiguousNameException {
+      throws TypeMismatchException, FunctionDomainException, NameResolutionException,
+      QueryInvocationTargetException {
     // If no projection attributes or '*' as projection attribute & more than one/RunTimeIterator
     // then create a StructSet.
     // If attribute is null or '*' & only one RuntimeIterator then create a ResultSet.
@@ -997,12 +1028,17 @@ public class CompiledSelect extends AbstractCompiledValue {
         comparator = this.hasUnmappedOrderByCols
             ? new OrderByComparatorMapped(this.orderByAttrs, elementType, context)
             : new OrderByComparator(this.orderByAttrs, elementType, context);
-        return new SortedStructSet(comparator, (StructTypeImpl) elementType);
+        SortedStructSet structSet = new SortedStructSet(comparator, (StructTypeImpl) elementType);
+        structSet.setMaxSize(evaluateLimitValue(context, this.limit));
+        return structSet;
       case ORDERED_INDISTINCT_STRUCT_UNIGNORED:
         comparator = this.hasUnmappedOrderByCols
             ? new OrderByComparatorMapped(this.orderByAttrs, elementType, context)
             : new OrderByComparator(this.orderByAttrs, elementType, context);
-        return new SortedStructBag(comparator, (StructType) elementType, nullValuesAtStart);
+        SortedStructBag structBag =
+            new SortedStructBag(comparator, (StructType) elementType, nullValuesAtStart);
+        structBag.setMaxSize(evaluateLimitValue(context, this.limit));
+        return structBag;
       case ORDERED_DISTINCT_RESULTS_IGNORED:
         results = new LinkedResultSet();
         results.setElementType(elementType);
@@ -1015,16 +1051,18 @@ public class CompiledSelect extends AbstractCompiledValue {
         comparator = this.hasUnmappedOrderByCols
             ? new OrderByComparatorMapped(this.orderByAttrs, elementType, context)
             : new OrderByComparator(this.orderByAttrs, elementType, context);
-        results = new SortedResultSet(comparator);
-        results.setElementType(elementType);
-        return results;
+        SortedResultSet resultSet = new SortedResultSet(comparator);
+        resultSet.setElementType(elementType);
+        resultSet.setMaxSize(evaluateLimitValue(context, this.limit));
+        return resultSet;
       case ORDERED_INDISTINCT_RESULTS_UNIGNORED:
         comparator = this.hasUnmappedOrderByCols
             ? new OrderByComparatorMapped(this.orderByAttrs, elementType, context)
             : new OrderByComparator(this.orderByAttrs, elementType, context);
-        results = new SortedResultsBag(comparator, nullValuesAtStart);
-        results.setElementType(elementType);
-        return results;
+        SortedResultsBag resultsBag = new SortedResultsBag(comparator, nullValuesAtStart);
+        resultsBag.setElementType(elementType);
+        resultsBag.setMaxSize(evaluateLimitValue(context, this.limit));
+        return resultsBag;
     }
     throw new TypeMismatchException("Logical inconsistency in CompiledSelect");
   }
@@ -1367,6 +1405,14 @@ public class CompiledSelect extends AbstractCompiledValue {
           }
         }
       }
+      if (occurrence == 1) {
+        QueryResourceUsage.projectedRowAdded(values);
+      }
+    }
+    // count(*) queries count the rows without adding them to the results
+    if (occurrence == 1 && projAttrs == null && (!isCount() || this.distinct)) {
+      QueryResourceUsage
+          .rowAdded(isStruct ? ((StructType) elementType).getFieldNames().length : 1);
     }
     return occurrence;
   }
@@ -212,8 +212,12 @@ public class CompositeGroupJunction extends AbstractCompiledValue
     // operand can be not null only if there exists single filterable CC & no
     // group junction");
     boolean delayIterOpEval = (this.groupJunctions != null && this.groupJunctions.size() != 0);
-    Iterator itr = this.filterableCC.iterator();
-    int filterableCCSize = this.filterableCC.size();
+    List joinConditions = this.filterableCC;
+    if (CostBasedPlanner.ENABLED && joinConditions.size() > 1) {
+      joinConditions = CostBasedPlanner.orderJoinConditions(joinConditions, context);
+    }
+    Iterator itr = joinConditions.iterator();
+    int filterableCCSize = joinConditions.size();
     if (filterableCCSize > 1) {
       for (int i = 0; i < (filterableCCSize - 1); i++) {
         CompiledValue cc = (CompiledValue) itr.next();
@@ -0,0 +1,119 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.cache.query.internal;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.geode.cache.query.AmbiguousNameException;
+import org.apache.geode.cache.query.Index;
+import org.apache.geode.cache.query.NameResolutionException;
+import org.apache.geode.cache.query.TypeMismatchException;
+import org.apache.geode.cache.query.internal.index.CompactRangeIndex;
+import org.apache.geode.cache.query.internal.index.IndexKeyStatistics;
+import org.apache.geode.cache.query.internal.index.IndexProtocol;
+import org.apache.geode.distributed.internal.DistributionConfig;
+
+/**
+ * Cost based decisions of the query engine. When enabled, range conditions on compact range
+ * indexes are estimated from the histogram of their {@link IndexKeyStatistics} rather than by
+ * interpolating between the smallest and the largest key, so that the conditions of a junction
+ * and the best index of a group junction are chosen on the estimated number of entries they
+ * match, and the equi-join conditions of a {@link CompositeGroupJunction} are evaluated in
+ * increasing order of their estimated result size.
+ *
+ * The estimates are reported to the {@link QueryObserver}, so a query traced with the
+ * &lt;trace&gt; hint logs the plan it was executed with.
+ *
+ * @since Geode 1.8
+ */
+public class CostBasedPlanner {
+
+  public static boolean ENABLED =
+      Boolean.getBoolean(DistributionConfig.GEMFIRE_PREFIX + "Query.COST_BASED_PLANNER");
+
+  /** The estimate of a join condition that is not evaluated with compact range indexes */
+  public static final long UNKNOWN_SIZE = Long.MAX_VALUE;
+
+  private CostBasedPlanner() {}
+
+  /**
+   * Returns the equi-join conditions of a junction in the order they should be evaluated. The first
+   * one joins the results of two indexes and the next ones only cut them down, so evaluating the
+   * condition with the smallest estimated result first keeps the intermediate results small.
+   * Conditions with the same estimate keep their order in the query.
+   */
+  static List<CompiledValue> orderJoinConditions(List<CompiledValue> joinConditions,
+      ExecutionContext context)
+      throws TypeMismatchException, AmbiguousNameException, NameResolutionException {
+    Map<CompiledValue, Long> estimates = new IdentityHashMap<>();
+    for (CompiledValue condition : joinConditions) {
+      estimates.put(condition, estimateJoinSize(condition, context));
+    }
+    List<CompiledValue> ordered = new ArrayList<>(joinConditions);
+    ordered.sort(Comparator.comparing(estimates::get));
+
+    List<Index[]> joinIndexes = new ArrayList<>(ordered.size());
+    List<Long> sizeEstimates = new ArrayList<>(ordered.size());
+    for (CompiledValue condition : ordered) {
+      joinIndexes.add(getJoinIndexes(condition, context));
+      sizeEstimates.add(estimates.get(condition));
+    }
+    QueryObserverHolder.getInstance().afterJoinOrdering(joinIndexes, sizeEstimates);
+    return ordered;
+  }
+
+  /**
+   * Estimates the number of pairs of entries an equi-join condition matches, assuming that the keys
+   * of the index with fewer distinct keys are found in the other one.
+   */
+  static long estimateJoinSize(CompiledValue condition, ExecutionContext context)
+      throws TypeMismatchException, AmbiguousNameException, NameResolutionException {
+    Index[] indexes = getJoinIndexes(condition, context);
+    if (indexes == null || !(indexes[0] instanceof CompactRangeIndex)
+        || !(indexes[1] instanceof CompactRangeIndex)) {
+      return UNKNOWN_SIZE;
+    }
+    IndexKeyStatistics left = ((CompactRangeIndex) indexes[0]).getKeyStatistics();
+    IndexKeyStatistics right = ((CompactRangeIndex) indexes[1]).getKeyStatistics();
+    if (left == null || right == null) {
+      // not built yet
+      return UNKNOWN_SIZE;
+    }
+    long distinctKeys = Math.max(left.getDistinctKeyCount(), right.getDistinctKeyCount());
+    if (distinctKeys == 0) {
+      return 0;
+    }
+    double size = (double) left.getEntryCount() * right.getEntryCount() / distinctKeys;
+    return size >= UNKNOWN_SIZE ? UNKNOWN_SIZE - 1 : (long) size;
+  }
+
+  private static Index[] getJoinIndexes(CompiledValue condition, ExecutionContext context)
+      throws TypeMismatchException, AmbiguousNameException, NameResolutionException {
+    if (!(condition instanceof CompiledComparison)) {
+      return null;
+    }
+    IndexInfo[] indexInfo = ((CompiledComparison) condition).getIndexInfo(context);
+    if (indexInfo == null || indexInfo.length != 2) {
+      return null;
+    }
+    IndexProtocol left = indexInfo[0]._getIndex();
+    IndexProtocol right = indexInfo[1]._getIndex();
+    return new Index[] {left, right};
+  }
+}
@@ -28,6 +28,7 @@ import java.util.concurrent.atomic.LongAdder;
 import org.apache.geode.cache.CacheRuntimeException;
 import org.apache.geode.cache.Region;
 import org.apache.geode.cache.client.internal.ProxyCache;
+import org.apache.geode.cache.client.internal.QueryResultStream;
 import org.apache.geode.cache.client.internal.ServerProxy;
 import org.apache.geode.cache.client.internal.UserAttributes;
 import org.apache.geode.cache.execute.Function;
@@ -46,12 +47,15 @@ import org.apache.geode.cache.query.RegionNotFoundException;
 import org.apache.geode.cache.query.SelectResults;
 import org.apache.geode.cache.query.TypeMismatchException;
 import org.apache.geode.cache.query.internal.cq.InternalCqQuery;
+import org.apache.geode.cache.query.internal.index.IndexManager;
+import org.apache.geode.cache.query.internal.index.IndexUtils;
 import org.apache.geode.distributed.internal.DistributionConfig;
 import org.apache.geode.internal.NanoTimer;
 import org.apache.geode.internal.cache.BucketRegion;
 import org.apache.geode.internal.cache.CachePerfStats;
 import org.apache.geode.internal.cache.InternalCache;
 import org.apache.geode.internal.cache.LocalDataSet;
+import org.apache.geode.internal.cache.LocalRegion;
 import org.apache.geode.internal.cache.PRQueryProcessor;
 import org.apache.geode.internal.cache.PartitionedRegion;
 import org.apache.geode.internal.cache.TXManagerImpl;
@@ -93,6 +97,30 @@ public class DefaultQuery implements Query {
 
   public static int TEST_COMPILED_QUERY_CLEAR_TIME = -1;
 
+  /**
+   * System property to set the time in milliseconds a query waits for the pending updates of the
+   * indexes of the regions it queries to be applied, if these indexes are maintained
+   * asynchronously. By default the query does not wait and may use indexes that lag behind the
+   * regions.
+   */
+  public static final long INDEX_MAINTENANCE_WAIT_TIME = Long.getLong(
+      DistributionConfig.GEMFIRE_PREFIX + "Query.INDEX_MAINTENANCE_WAIT_TIME", 0);
+
+  /**
+   * System property to set the estimated memory in bytes the results of an execution of a query may
+   * take before the execution is canceled. By default the memory of a query is not limited.
+   */
+  public static long MAX_QUERY_MEMORY =
+      Long.getLong(DistributionConfig.GEMFIRE_PREFIX + "Query.MAX_QUERY_MEMORY", 0);
+
+  /**
+   * System property to set the estimated memory in bytes the results of all the queries running on
+   * this member may take. The query whose results cross the limit is canceled. By default the
+   * memory of the running queries is not limited.
+   */
+  public static long MAX_TOTAL_QUERY_MEMORY =
+      Long.getLong(DistributionConfig.GEMFIRE_PREFIX + "Query.MAX_TOTAL_QUERY_MEMORY", 0);
+
   /**
    * Use to represent null result. Used while adding PR results to the results-queue, which is a
    * blocking queue.
@@ -128,9 +156,16 @@ public class DefaultQuery implements Query {
   /** indicates query executed remotely */
   private boolean isRemoteQuery = false;
 
+  /** whether the PR query node of this remote query merges estimators of distinct values */
+  private boolean countDistinctEstimatorAccepted = true;
+
   // to prevent objects from getting deserialized
   private boolean keepSerialized = false;
 
+  private long indexMaintenanceWaitTime = INDEX_MAINTENANCE_WAIT_TIME;
+
+  private long memoryLimit = MAX_QUERY_MEMORY;
+
 
   /**
    * Caches the fields not found in any Pdx version. This threadlocal will be cleaned up after query
@@ -208,6 +243,20 @@ public class DefaultQuery implements Query {
   @Override
   public Object execute(Object[] params) throws FunctionDomainException, TypeMismatchException,
       NameResolutionException, QueryInvocationTargetException {
+    return execute(params, null, 0);
+  }
+
+  /**
+   * Executes this query, handing its results to the given handler in parts of the given size while
+   * it is evaluated if the query allows it. The results evaluated after the last part are returned.
+   * Queries on partitioned regions return all of their results. The parts are not wrapped for copy
+   * on read or PDX deserialization, so this is meant for remote queries.
+   *
+   * @see PartialResultsHandler
+   */
+  public Object execute(Object[] params, PartialResultsHandler partialResultsHandler,
+      int partialResultsSize) throws FunctionDomainException, TypeMismatchException,
+      NameResolutionException, QueryInvocationTargetException {
 
     // Local Query.
     if (params == null) {
@@ -229,6 +278,9 @@ public class DefaultQuery implements Query {
     QueryObserver indexObserver = null;
     QueryMonitor queryMonitor = null;
     QueryExecutor qe = checkQueryOnPR(params);
+    if (this.indexMaintenanceWaitTime > 0) {
+      waitForIndexMaintenance(params);
+    }
 
     Object result = null;
     Boolean initialPdxReadSerialized = this.cache.getPdxReadSerializedOverride();
@@ -236,6 +288,7 @@ public class DefaultQuery implements Query {
       // Setting the readSerialized flag for local queries
       this.cache.setPdxReadSerializedOverride(true);
       ExecutionContext context = new QueryExecutionContext(params, this.cache, this);
+      context.setPartialResultsHandler(partialResultsHandler, partialResultsSize);
       indexObserver = this.startTrace();
       if (qe != null) {
         if (DefaultQuery.testHook != null) {
@@ -266,7 +319,27 @@ public class DefaultQuery implements Query {
       }
 
       context.setCqQueryContext(this.isCqQuery);
-      result = executeUsingContext(context);
+      QueryResultCache resultCache = getResultCache();
+      LocalRegion[] resultCacheRegions = null;
+      if (resultCache != null) {
+        resultCacheRegions = QueryResultCache.getCacheableRegions(this.cache,
+            getRegionsInQuery(params), params);
+      }
+      if (resultCacheRegions != null) {
+        result = resultCache.get(this.queryString, params, resultCacheRegions);
+      }
+      if (result == null) {
+        long[] modificationCounts = null;
+        // the results handed out in parts are not kept, so they can not be cached
+        if (resultCacheRegions != null && partialResultsHandler == null) {
+          modificationCounts = QueryResultCache.getModificationCounts(resultCacheRegions);
+        }
+        result = executeUsingContext(context);
+        if (modificationCounts != null && result instanceof SelectResults) {
+          resultCache.put(this.queryString, params, resultCacheRegions, modificationCounts,
+              (SelectResults) result);
+        }
+      }
       // Only wrap/copy results when copy on read is set and an index is used
       // This is because when an index is used, the results are actual references to values in the
       // cache
@@ -319,6 +392,17 @@ public class DefaultQuery implements Query {
     }
   }
 
+  /**
+   * Returns the cache of query results if this query may use it. CQ queries and caches that copy
+   * on read do not use it, since the cached results would be shared by all their executions.
+   */
+  private QueryResultCache getResultCache() {
+    if (this.isCqQuery || this.cache.getCopyOnRead()) {
+      return null;
+    }
+    return this.cache.getQueryResultCache();
+  }
+
   /**
    * For Order by queries ,since they are already ordered by the comparator && it takes care of
    * conversion, we do not have to wrap it in a wrapper
@@ -327,6 +411,31 @@ public class DefaultQuery implements Query {
     return !isRemoteQuery() && !this.cache.getPdxReadSerialized();
   }
 
+  /**
+   * Executes this query on the server of its pool and returns an iterator over the results as the
+   * server sends them, so that the results do not have to fit in memory.
+   *
+   * @throws UnsupportedOperationException if this query is not executed on a server
+   * @since Geode 1.8
+   */
+  public QueryResultStream executeStreaming(Object... params) {
+    if (this.serverProxy == null) {
+      throw new UnsupportedOperationException(
+          "Streaming results are only available for queries executed on a server");
+    }
+    if (this.proxyCache != null) {
+      if (this.proxyCache.isClosed()) {
+        throw proxyCache.getCacheClosedException("Cache is closed for this user.");
+      }
+      UserAttributes.userAttributes.set(this.proxyCache.getUserAttributes());
+    }
+    try {
+      return this.serverProxy.queryStream(this.queryString, params);
+    } finally {
+      UserAttributes.userAttributes.set(null);
+    }
+  }
+
   private Object executeOnServer(Object[] parameters) {
     long startTime = CachePerfStats.getStatTime();
     Object result = null;
@@ -424,6 +533,8 @@ public class DefaultQuery implements Query {
 
     long startTime = CachePerfStats.getStatTime();
     TXStateProxy tx = ((TXManagerImpl) this.cache.getCacheTransactionManager()).pauseTransaction();
+    QueryResourceUsage resourceUsage =
+        QueryResourceUsage.start(this, this.cache.getCachePerfStats());
     try {
       observer.startQuery(this);
       observer.beforeQueryEvaluation(this.compiledQuery, context);
@@ -456,6 +567,7 @@ public class DefaultQuery implements Query {
       return results;
     } finally {
       observer.endQuery();
+      resourceUsage.stop();
       long endTime = CachePerfStats.getStatTime();
       updateStatistics(endTime - startTime);
       pdxClassToFieldsMap.remove();
@@ -729,6 +841,69 @@ public class DefaultQuery implements Query {
     this.cqQuery = cqQuery;
   }
 
+  /**
+   * Sets the time in milliseconds this query waits for the pending updates of the indexes of the
+   * regions it queries to be applied, if these indexes are maintained asynchronously. Only the
+   * buckets hosted by this member are waited for when a partitioned region is queried.
+   *
+   * @since Geode 1.8
+   */
+  public void setIndexMaintenanceWaitTime(long indexMaintenanceWaitTime) {
+    this.indexMaintenanceWaitTime = indexMaintenanceWaitTime;
+  }
+
+  /**
+   * Sets the estimated memory in bytes the results of an execution of this query may take before
+   * the execution is canceled, or 0 for no limit. A query on a partitioned region sends the limit
+   * to the other members with the query, and each member applies it to all the buckets it queries.
+   * This member also applies it to the results it receives and merges.
+   *
+   * @since Geode 1.8
+   */
+  public void setMemoryLimit(long memoryLimit) {
+    this.memoryLimit = memoryLimit;
+  }
+
+  public long getMemoryLimit() {
+    return this.memoryLimit;
+  }
+
+  /**
+   * Waits for the asynchronous index updates of the regions in this query that were made before
+   * the query was executed. The query is executed anyway if they are not applied in time.
+   */
+  private void waitForIndexMaintenance(Object[] parameters) {
+    long deadline = System.currentTimeMillis() + this.indexMaintenanceWaitTime;
+    List<IndexManager> indexManagers = new ArrayList<>();
+    for (String regionPath : getRegionsInQuery(parameters)) {
+      Region region = this.cache.getRegion(regionPath);
+      if (region instanceof PartitionedRegion) {
+        PartitionedRegion partitionedRegion = (PartitionedRegion) region;
+        if (partitionedRegion.getDataStore() != null) {
+          for (BucketRegion bucket : partitionedRegion.getDataStore()
+              .getAllLocalBucketRegions()) {
+            indexManagers.add(IndexUtils.getIndexManager(this.cache, bucket, false));
+          }
+        }
+      } else {
+        indexManagers.add(IndexUtils.getIndexManager(this.cache, region, false));
+      }
+    }
+    try {
+      for (IndexManager indexManager : indexManagers) {
+        long remaining = deadline - System.currentTimeMillis();
+        if (indexManager == null) {
+          continue;
+        }
+        if (remaining <= 0 || !indexManager.waitForPendingUpdates(remaining)) {
+          return;
+        }
+      }
+    } catch (InterruptedException ignore) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
   public void setLastUsed(boolean lastUsed) {
     this.lastUsed = lastUsed;
   }
@@ -774,6 +949,7 @@ public class DefaultQuery implements Query {
     if (observer instanceof IndexTrackingQueryObserver) {
       IndexTrackingQueryObserver indexObserver = (IndexTrackingQueryObserver) observer;
       Map usedIndexes = indexObserver.getUsedIndexes();
+      String plan = CostBasedPlanner.ENABLED ? indexObserver.getPlan() : "";
       indexObserver.reset();
       StringBuilder sb = new StringBuilder();
       sb.append(" indexesUsed(");
@@ -789,6 +965,7 @@ public class DefaultQuery implements Query {
           }
         }
       }
+      sb.append(plan);
       usedIndexesString = sb.toString();
     } else if (DefaultQuery.QUERY_VERBOSE) {
       usedIndexesString = " indexesUsed(NA due to other observer in the way: "
@@ -955,6 +1132,19 @@ public class DefaultQuery implements Query {
     this.isRemoteQuery = isRemoteQuery;
   }
 
+  public boolean isCountDistinctEstimatorAccepted() {
+    return this.countDistinctEstimatorAccepted;
+  }
+
+  /**
+   * Sets whether the PR query node this query is executed for can merge the estimators of distinct
+   * values sent when {@link CompiledAggregateFunction#APPROXIMATE_COUNT_DISTINCT} is set. Members
+   * older than 1.8 can not.
+   */
+  public void setCountDistinctEstimatorAccepted(boolean accepted) {
+    this.countDistinctEstimatorAccepted = accepted;
+  }
+
   /**
    * set keepSerialized flag for remote queries of type 'select *' having independent operators
    */
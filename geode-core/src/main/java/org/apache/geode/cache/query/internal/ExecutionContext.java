@@ -91,6 +91,9 @@ public class ExecutionContext {
   private boolean distinct = false;
   private Object currentProjectionField = null;
   private boolean isPRQueryNode = false;
+  private boolean isMemberNode = false;
+  private PartialResultsHandler partialResultsHandler = null;
+  private int partialResultsSize = 0;
 
   /**
    * Param specialIteratorVar name of special variable to use to denote the current iteration
@@ -647,4 +650,39 @@ public class ExecutionContext {
     return this.isPRQueryNode;
   }
 
+  /**
+   * Set when the partial aggregates computed on the buckets of a data member are merged before
+   * being sent to the PR query node.
+   */
+  public void setIsMemberNode(boolean isMemberNode) {
+    this.isMemberNode = isMemberNode;
+  }
+
+  public boolean getIsMemberNode() {
+    return this.isMemberNode;
+  }
+
+  /**
+   * Sets the handler the results of the query are handed to in parts of the given size while the
+   * query is evaluated, if the query allows it.
+   */
+  public void setPartialResultsHandler(PartialResultsHandler handler, int size) {
+    this.partialResultsHandler = handler;
+    this.partialResultsSize = size;
+  }
+
+  /**
+   * Returns the handler set for the query and clears it, so that only the outermost select hands
+   * out its results and not the selects nested in it.
+   */
+  public PartialResultsHandler takePartialResultsHandler() {
+    PartialResultsHandler handler = this.partialResultsHandler;
+    this.partialResultsHandler = null;
+    return handler;
+  }
+
+  public int getPartialResultsSize() {
+    return this.partialResultsSize;
+  }
+
 }
@@ -0,0 +1,231 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.cache.query.internal;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.geode.cache.EntryDestroyedException;
+import org.apache.geode.cache.query.QueryException;
+import org.apache.geode.cache.query.QueryService;
+import org.apache.geode.cache.query.internal.parse.OQLLexerTokenTypes;
+import org.apache.geode.distributed.internal.DistributionConfig;
+import org.apache.geode.pdx.internal.PdxString;
+
+/**
+ * Evaluates an equality join condition of a select that does not use indexes by hashing the
+ * collection of one of its iterators. Without indexes the iterators of a select are evaluated as
+ * nested iterations, so a join of two regions evaluates the where clause on every pair of entries.
+ *
+ * When the where clause is an equality between an expression on an iterator over a region and an
+ * expression on the iterators defined before it, or an AND junction containing such a condition,
+ * the collection of the iterator is hashed on its expression the first time it is iterated. Each
+ * iteration then only visits the elements whose key is equal to the value of the other
+ * expression. The where clause is still evaluated on these elements.
+ *
+ * Only the keys whose OQL equality can be hashed are supported: numbers, strings, characters,
+ * booleans, dates, null and UNDEFINED. The nested iteration is used if the collection has a key of
+ * another type or more than {@link #MAX_BUILD_SIZE} elements.
+ *
+ * @since Geode 1.8
+ */
+public class HashJoin {
+
+  static boolean ENABLED =
+      !Boolean.getBoolean(DistributionConfig.GEMFIRE_PREFIX + "Query.DISABLE_HASH_JOIN");
+
+  /** The maximum number of elements of a hashed collection */
+  static final int MAX_BUILD_SIZE =
+      Integer.getInteger(DistributionConfig.GEMFIRE_PREFIX + "Query.HASH_JOIN_MAX_BUILD_SIZE",
+          1000000);
+
+  private static final Object NULL_KEY = new Object();
+
+  private static final Object UNSUPPORTED_KEY = new Object();
+
+  private final RuntimeIterator iterator;
+
+  /** Evaluated on the elements of the collection of the iterator */
+  private final CompiledValue buildKey;
+
+  /** Evaluated on the current elements of the iterators defined before the iterator */
+  private final CompiledValue probeKey;
+
+  /** The elements of the collection by key, built the first time the collection is iterated */
+  private Map<Object, List<Object>> table;
+
+  private boolean nestedIteration;
+
+  private HashJoin(RuntimeIterator iterator, CompiledValue buildKey, CompiledValue probeKey) {
+    this.iterator = iterator;
+    this.buildKey = buildKey;
+    this.probeKey = probeKey;
+  }
+
+  /**
+   * Returns the hash joins of the iterators of the current scope, indexed by the position of their
+   * iterator, or null if no condition of the where clause can be hashed.
+   */
+  static HashJoin[] getHashJoins(CompiledValue whereClause, ExecutionContext context) {
+    if (!ENABLED || whereClause == null) {
+      return null;
+    }
+    List<CompiledValue> conditions;
+    if (whereClause instanceof CompiledJunction
+        && ((CompiledJunction) whereClause).getOperator() == OQLLexerTokenTypes.LITERAL_and) {
+      conditions = ((CompiledJunction) whereClause).getOperands();
+    } else {
+      conditions = Collections.singletonList(whereClause);
+    }
+    List iterators = context.getCurrentIterators();
+    List independentIterators = context.getAllIndependentIteratorsOfCurrentScope();
+    HashJoin[] hashJoins = null;
+    for (CompiledValue condition : conditions) {
+      if (!(condition instanceof CompiledComparison)
+          || ((CompiledComparison) condition).getOperator() != OQLLexerTokenTypes.TOK_EQ) {
+        continue;
+      }
+      CompiledComparison comparison = (CompiledComparison) condition;
+      HashJoin hashJoin = createHashJoin(comparison._left, comparison._right, iterators,
+          independentIterators, context);
+      if (hashJoin == null) {
+        hashJoin = createHashJoin(comparison._right, comparison._left, iterators,
+            independentIterators, context);
+      }
+      if (hashJoin != null) {
+        int level = iterators.indexOf(hashJoin.iterator);
+        if (hashJoins == null) {
+          hashJoins = new HashJoin[iterators.size()];
+        }
+        if (hashJoins[level] == null) {
+          hashJoins[level] = hashJoin;
+        }
+      }
+    }
+    return hashJoins;
+  }
+
+  private static HashJoin createHashJoin(CompiledValue buildKey, CompiledValue probeKey,
+      List iterators, List independentIterators, ExecutionContext context) {
+    int buildLevel = getLastIteratorLevel(buildKey, iterators, context);
+    int probeLevel = getLastIteratorLevel(probeKey, iterators, context);
+    if (probeLevel < 0 || probeLevel >= buildLevel) {
+      return null;
+    }
+    RuntimeIterator iterator = (RuntimeIterator) iterators.get(buildLevel);
+    // the collection must not depend on the iterators defined before
+    if (!independentIterators.contains(iterator)) {
+      return null;
+    }
+    for (Object dependency : context.getDependencySet(buildKey, true)) {
+      if (dependency != iterator && iterators.contains(dependency)) {
+        return null;
+      }
+    }
+    return new HashJoin(iterator, buildKey, probeKey);
+  }
+
+  /**
+   * Returns the position of the last iterator of the current scope the value depends on, or -1 if
+   * it does not depend on the iterators of the current scope.
+   */
+  private static int getLastIteratorLevel(CompiledValue value, List iterators,
+      ExecutionContext context) {
+    int level = -1;
+    for (Object dependency : context.getDependencySet(value, true)) {
+      level = Math.max(level, iterators.indexOf(dependency));
+    }
+    return level;
+  }
+
+  /**
+   * Returns the elements of the collection of the iterator whose key may be equal to the value of
+   * the other side of the condition for the current elements of the iterators defined before. The
+   * whole collection is returned if it can not be hashed.
+   */
+  Collection getCandidates(Collection collection, ExecutionContext context) {
+    if (this.nestedIteration) {
+      return collection;
+    }
+    if (this.table == null && !buildTable(collection, context)) {
+      this.nestedIteration = true;
+      return collection;
+    }
+    Object key;
+    try {
+      key = getKey(this.probeKey.evaluate(context));
+    } catch (QueryException | EntryDestroyedException e) {
+      // the evaluation of the where clause reports the failure, if it is not short-circuited
+      return collection;
+    }
+    if (key == UNSUPPORTED_KEY) {
+      return collection;
+    }
+    List<Object> candidates = this.table.get(key);
+    return candidates == null ? Collections.emptyList() : candidates;
+  }
+
+  private boolean buildTable(Collection collection, ExecutionContext context) {
+    if (collection.size() > MAX_BUILD_SIZE) {
+      return false;
+    }
+    Map<Object, List<Object>> table = new HashMap<>();
+    try {
+      for (Object element : collection) {
+        QueryMonitor.isQueryExecutionCanceled();
+        this.iterator.setCurrent(element);
+        Object key = getKey(this.buildKey.evaluate(context));
+        if (key == UNSUPPORTED_KEY) {
+          return false;
+        }
+        table.computeIfAbsent(key, k -> new ArrayList<>(1)).add(element);
+      }
+    } catch (QueryException | EntryDestroyedException e) {
+      return false;
+    }
+    this.table = table;
+    return true;
+  }
+
+  /**
+   * Returns a key such that values equal in OQL have equal keys, or {@link #UNSUPPORTED_KEY}.
+   * Values that are not equal may have equal keys.
+   */
+  static Object getKey(Object value) {
+    if (value == null) {
+      return NULL_KEY;
+    }
+    if (value == QueryService.UNDEFINED || value instanceof String || value instanceof Character
+        || value instanceof Boolean) {
+      return value;
+    }
+    if (value instanceof PdxString) {
+      return value.toString();
+    }
+    if (value instanceof Number) {
+      // numbers of different types are compared on their values, and -0.0 is equal to 0
+      return ((Number) value).doubleValue() + 0.0d;
+    }
+    if (value instanceof Date) {
+      return ((Date) value).getTime();
+    }
+    return UNSUPPORTED_KEY;
+  }
+}
@@ -21,6 +21,9 @@ package org.apache.geode.cache.query.internal;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
@@ -42,6 +45,8 @@ public class IndexTrackingQueryObserver extends QueryObserverAdapter {
   private static final ThreadLocal indexInfo = new ThreadLocal();
   private static final ThreadLocal lastKeyUsed = new ThreadLocal();
   private static final ThreadLocal lastIndexUsed = new ThreadLocal();
+  private static final ThreadLocal<Map<String, Integer>> indexSizeEstimates = new ThreadLocal<>();
+  private static final ThreadLocal<String> joinOrder = new ThreadLocal<>();
   private volatile TestHook th;
 
   public void beforeIndexLookup(Index index, int oper, Object key) {
@@ -116,6 +121,63 @@ public class IndexTrackingQueryObserver extends QueryObserverAdapter {
     }
   }
 
+  @Override
+  public void afterIndexSizeEstimate(Index index, Object key, int sizeEstimate) {
+    Map<String, Integer> estimates = indexSizeEstimates.get();
+    if (estimates == null) {
+      estimates = new LinkedHashMap<>();
+      indexSizeEstimates.set(estimates);
+    }
+    estimates.put(getIndexName(index, key), sizeEstimate);
+  }
+
+  @Override
+  public void afterJoinOrdering(List<Index[]> joinIndexes, List<Long> sizeEstimates) {
+    StringBuilder sb = new StringBuilder();
+    for (int i = 0; i < joinIndexes.size(); i++) {
+      if (i > 0) {
+        sb.append(',');
+      }
+      Index[] indexes = joinIndexes.get(i);
+      if (indexes == null) {
+        sb.append('?');
+      } else {
+        sb.append(indexes[0].getName()).append('=').append(indexes[1].getName());
+      }
+      long estimate = sizeEstimates.get(i);
+      sb.append("(Estimated: ")
+          .append(estimate == CostBasedPlanner.UNKNOWN_SIZE ? "?" : String.valueOf(estimate))
+          .append(')');
+    }
+    joinOrder.set(sb.toString());
+  }
+
+  /**
+   * Returns the last size estimate of each index and the order of the equi-joins chosen by the
+   * cost based planner during the current query execution.
+   */
+  public String getPlan() {
+    StringBuilder sb = new StringBuilder();
+    Map<String, Integer> estimates = indexSizeEstimates.get();
+    if (estimates != null && !estimates.isEmpty()) {
+      sb.append(" estimates(");
+      for (Iterator<Entry<String, Integer>> itr = estimates.entrySet().iterator(); itr
+          .hasNext();) {
+        Entry<String, Integer> entry = itr.next();
+        sb.append(entry.getKey()).append(": ").append(entry.getValue());
+        if (itr.hasNext()) {
+          sb.append(',');
+        }
+      }
+      sb.append(')');
+    }
+    String order = joinOrder.get();
+    if (order != null) {
+      sb.append(" joinOrder(").append(order).append(')');
+    }
+    return sb.toString();
+  }
+
   private String getIndexName(Index index, Object key) {
     String indexName;
     if ((index instanceof MapRangeIndex || index instanceof CompactMapRangeIndex)
@@ -137,6 +199,8 @@ public class IndexTrackingQueryObserver extends QueryObserverAdapter {
       th.hook(4);
     }
     this.indexInfo.set(null);
+    indexSizeEstimates.set(null);
+    joinOrder.set(null);
   }
 
   public void setIndexInfo(Map indexInfoMap) {
@@ -0,0 +1,37 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.cache.query.internal;
+
+import org.apache.geode.cache.query.SelectResults;
+
+/**
+ * Receives the results of a query while the query is evaluated, so that they do not all have to be
+ * held until it completes. Only the results of a select that is neither ordered, distinct, counted
+ * nor grouped, and that is evaluated by iterating its collections rather than through an index, are
+ * handed out this way. The results of other queries are all returned when the query completes.
+ *
+ * @see ExecutionContext#setPartialResultsHandler(PartialResultsHandler, int)
+ * @since Geode 1.8
+ */
+@FunctionalInterface
+public interface PartialResultsHandler {
+
+  /**
+   * Called with the results evaluated since the previous call, once there are as many as the size
+   * given with this handler. The results are cleared when this returns. The results evaluated after
+   * the last call are returned by the query as usual.
+   */
+  void partialResults(SelectResults results);
+}
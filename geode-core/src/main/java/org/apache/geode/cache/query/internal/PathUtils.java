@@ -64,17 +64,38 @@ public class PathUtils {
   public static Object evaluateAttribute(ExecutionContext context, Object target, String attribute)
       throws NameNotFoundException, QueryInvocationTargetException {
     if (target instanceof Struct) {
-      Struct struct = (Struct) target;
-      try {
-        return struct.get(attribute);
-      } catch (Exception e) {
-        throw new NameNotFoundException(attribute);
-      }
+      return evaluateStructAttribute((Struct) target, attribute);
+    }
+    return evaluateAttribute(target, new AttributeDescriptor(
+        context.getCache().getQueryService().getMethodInvocationAuthorizer(), attribute));
+  }
+
+  /**
+   * Evaluates an attribute using an AttributeDescriptor reused across evaluations, which remembers
+   * how the attribute was read from the previous target.
+   */
+  public static Object evaluateAttribute(Object target, String attribute,
+      AttributeDescriptor attributeDescriptor)
+      throws NameNotFoundException, QueryInvocationTargetException {
+    if (target instanceof Struct) {
+      return evaluateStructAttribute((Struct) target, attribute);
+    }
+    return evaluateAttribute(target, attributeDescriptor);
+  }
+
+  private static Object evaluateStructAttribute(Struct struct, String attribute)
+      throws NameNotFoundException {
+    try {
+      return struct.get(attribute);
+    } catch (Exception e) {
+      throw new NameNotFoundException(attribute);
     }
+  }
+
+  private static Object evaluateAttribute(Object target, AttributeDescriptor attributeDescriptor)
+      throws NameNotFoundException, QueryInvocationTargetException {
     try {
-      return new AttributeDescriptor(
-          context.getCache().getQueryService().getMethodInvocationAuthorizer(), attribute)
-              .read(target);
+      return attributeDescriptor.read(target);
     } catch (NameNotFoundException nfe) {
       if (DefaultQueryService.QUERY_HETEROGENEOUS_OBJECTS
           || DefaultQueryService.TEST_QUERY_HETEROGENEOUS_OBJECTS) {
@@ -85,18 +106,6 @@ public class PathUtils {
     }
   }
 
-  /*
-   * This was added as part of CQ performance changes. The change is done to re-use the
-   * AttributeDescriptor object instead of creating it each time.
-   */
-  /*
-   * public static Object evaluateAttribute(Object target, String attribute, AttributeDescriptor
-   * attributeDescriptor) throws NameNotFoundException, QueryInvocationTargetException { if(target
-   * instanceof Struct){ Struct struct = (Struct)target; try{ return struct.get(attribute);
-   * }catch(Exception e){ throw new NameNotFoundException(attribute); } } return
-   * attributeDescriptor.read(target); }
-   */
-
   /**
    * @param pathArray the path starting with an attribute on the initial type.
    * @return array of types starting with the initialType and ending with the type of the last
@@ -132,11 +132,15 @@ public class QueryMonitor implements Runnable {
    *
    * The max query execution time is set using the system property
    * gemfire.Cache.MAX_QUERY_EXECUTION_TIME
+   *
+   * Since it is called for every row the query processes, the row is also counted as scanned by the
+   * query.
    */
   public static void isQueryExecutionCanceled() {
     if (queryCancelled.get() != null && queryCancelled.get().get()) {
       throw new QueryExecutionCanceledException();
     }
+    QueryResourceUsage.rowScanned();
   }
 
   /**
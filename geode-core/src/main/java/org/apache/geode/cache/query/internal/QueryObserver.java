@@ -15,6 +15,7 @@
 package org.apache.geode.cache.query.internal;
 
 import java.util.Collection;
+import java.util.List;
 import java.util.Set;
 
 import org.apache.geode.cache.query.Index;
@@ -282,4 +283,25 @@ public interface QueryObserver {
    */
   void orderByColumnsEqual();
 
+  /**
+   * Callback issued after the number of results of a condition evaluated with an index is
+   * estimated, to order the conditions of a junction or to choose the best index.
+   *
+   * @param index the index the condition is evaluated with
+   * @param key the key the indexed expression is compared to
+   * @param sizeEstimate the estimated number of results
+   */
+  void afterIndexSizeEstimate(Index index, Object key, int sizeEstimate);
+
+  /**
+   * Callback issued after the cost based planner ordered the equi-join conditions of a
+   * CompositeGroupJunction.
+   *
+   * @param joinIndexes the indexes of the left and right operands of each condition, in evaluation
+   *        order, or null for a condition that is not evaluated with two indexes
+   * @param sizeEstimates the estimated number of results of each condition, or
+   *        CostBasedPlanner.UNKNOWN_SIZE
+   */
+  void afterJoinOrdering(List<Index[]> joinIndexes, List<Long> sizeEstimates);
+
 }
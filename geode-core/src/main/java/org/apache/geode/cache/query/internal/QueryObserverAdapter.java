@@ -15,6 +15,7 @@
 package org.apache.geode.cache.query.internal;
 
 import java.util.Collection;
+import java.util.List;
 import java.util.Set;
 
 import org.apache.geode.cache.query.Index;
@@ -278,4 +279,10 @@ public class QueryObserverAdapter implements QueryObserver {
   public void orderByColumnsEqual() {
 
   }
+
+  @Override
+  public void afterIndexSizeEstimate(Index index, Object key, int sizeEstimate) {}
+
+  @Override
+  public void afterJoinOrdering(List<Index[]> joinIndexes, List<Long> sizeEstimates) {}
 }
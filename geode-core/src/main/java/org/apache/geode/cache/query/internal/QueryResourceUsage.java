@@ -0,0 +1,489 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.cache.query.internal;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.geode.cache.query.QueryExecutionLowMemoryException;
+import org.apache.geode.cache.util.ObjectSizer;
+import org.apache.geode.internal.cache.CachePerfStats;
+
+/**
+ * Accounts the resources used by an execution of a query: the rows it scans, the CPU time of the
+ * threads executing it and an estimate of the memory taken by the rows it holds in its results and
+ * in the intermediate results of its index lookups. The execution of a query on a partitioned
+ * region is accounted as a whole on each member: the threads querying the local buckets join the
+ * execution started by the thread that sent the query to the other members, which also accounts
+ * the rows received from them and the results it merges.
+ *
+ * Each result row is estimated at the size of the collection entry and of the struct holding it.
+ * The rows of projected values are also estimated at the size of their values, which is measured
+ * with the default {@link ObjectSizer} on one row in {@link #SAMPLE_INTERVAL}. The rows handed out
+ * to a PartialResultsHandler are released from the execution, since they are sent out.
+ *
+ * The execution is canceled once its estimated memory exceeds the memory limit of the query, or
+ * once the estimated memory of all the running executions exceeds
+ * {@link DefaultQuery#MAX_TOTAL_QUERY_MEMORY}. Each thread adds its rows to the execution every
+ * few kilobytes, so the limits are checked at that granularity. CQ queries are accounted but never
+ * canceled, as they are not monitored by the {@link QueryMonitor} either.
+ *
+ * @since Geode 1.8
+ */
+public class QueryResourceUsage {
+
+  /** Estimated size in bytes of the entry of a row in a result collection */
+  static final int ROW_BYTES = 32;
+
+  /** Estimated size in bytes of a struct, not counting its fields */
+  static final int STRUCT_BYTES = 16;
+
+  /** Estimated size in bytes of the reference to a field of a struct */
+  static final int FIELD_BYTES = 8;
+
+  /**
+   * One projected row in this many has its values sized. The other rows are estimated at the
+   * average size of the sampled ones.
+   */
+  static final int SAMPLE_INTERVAL = 64;
+
+  /**
+   * The estimated memory a thread accounts before adding it to the execution, so that the threads
+   * of an execution do not update it for every row.
+   */
+  private static final long THREAD_MEMORY_INCREMENT = 4 * 1024;
+
+  /** The rows a thread scans before adding them to the execution */
+  private static final int THREAD_ROWS_INCREMENT = 1024;
+
+  /**
+   * The change of the estimated memory of an execution after which it is added to the total of all
+   * the executions, so that the total is not updated for every thread increment.
+   */
+  private static final long REPORTED_MEMORY_INCREMENT = 64 * 1024;
+
+  private static final ThreadLocal<Participant> current = new ThreadLocal<>();
+
+  private static final Set<QueryResourceUsage> running = ConcurrentHashMap.newKeySet();
+
+  private static final AtomicLong totalMemory = new AtomicLong();
+
+  private static final ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+
+  private final DefaultQuery query;
+
+  private final CachePerfStats stats;
+
+  /** the thread that started the execution */
+  private final Thread thread;
+
+  private final long startTime;
+
+  private final long startCpuTime;
+
+  // guarded by this, and read without synchronization by listRunning
+  private int participants;
+
+  private long rowsScanned;
+
+  private long cpuTime;
+
+  private long rows;
+
+  private long memory;
+
+  private long reportedMemory;
+
+  private long sampledBytes;
+
+  private long samples;
+
+  /** the average size of the values of the sampled projected rows */
+  private volatile long valueBytes;
+
+  private QueryResourceUsage(DefaultQuery query, CachePerfStats stats) {
+    this.query = query;
+    this.stats = stats;
+    this.thread = Thread.currentThread();
+    this.startTime = System.currentTimeMillis();
+    this.startCpuTime = getCurrentThreadCpuTime();
+  }
+
+  /**
+   * A thread taking part in an execution, with the rows and memory it accounted since it last
+   * added them to the execution.
+   */
+  private static class Participant {
+
+    private final QueryResourceUsage usage;
+
+    private final Participant previous;
+
+    private final long startCpuTime;
+
+    private long rowsScanned;
+
+    private long rows;
+
+    private long memory;
+
+    private long projectedRows;
+
+    private Participant(QueryResourceUsage usage, Participant previous) {
+      this.usage = usage;
+      this.previous = previous;
+      // the CPU time of a thread joining an execution again is accounted by its outer participant
+      this.startCpuTime =
+          previous != null && previous.usage == usage ? -1 : getCurrentThreadCpuTime();
+    }
+  }
+
+  /**
+   * Starts accounting an execution of the query on the current thread, until {@link #stop()} is
+   * called. If the thread already takes part in an execution of the same query, as the thread
+   * querying the local buckets of a partitioned region in-line does, it goes on accounting that
+   * execution instead.
+   */
+  public static QueryResourceUsage start(DefaultQuery query, CachePerfStats stats) {
+    QueryResourceUsage usage = getCurrent();
+    if (usage == null || usage.query != query) {
+      usage = new QueryResourceUsage(query, stats);
+    }
+    usage.join();
+    return usage;
+  }
+
+  /**
+   * Accounts the current thread to this execution, until {@link #stop()} is called. It is called by
+   * the threads querying the local buckets of a partitioned region.
+   */
+  public void join() {
+    synchronized (this) {
+      if (this.participants++ == 0) {
+        running.add(this);
+      }
+    }
+    current.set(new Participant(this, current.get()));
+  }
+
+  /**
+   * Stops accounting the execution on the current thread. Once no thread takes part in the
+   * execution anymore, its rows and CPU time are recorded in the statistics and its memory is
+   * released from the total of the running executions.
+   */
+  public void stop() {
+    Participant participant = current.get();
+    if (participant == null || participant.usage != this) {
+      return;
+    }
+    if (participant.previous == null) {
+      current.remove();
+    } else {
+      current.set(participant.previous);
+    }
+    long endCpuTime = getCurrentThreadCpuTime();
+    long cpuTime = participant.startCpuTime >= 0 && endCpuTime >= participant.startCpuTime
+        ? endCpuTime - participant.startCpuTime : 0;
+    // the execution is not canceled by throwing on stop, the query is marked canceled instead
+    add(participant, false);
+    synchronized (this) {
+      this.cpuTime += cpuTime;
+      if (--this.participants > 0) {
+        return;
+      }
+      running.remove(this);
+      totalMemory.addAndGet(-this.reportedMemory);
+      this.stats.incQueryMemory(-this.reportedMemory);
+      this.reportedMemory = 0;
+    }
+    this.stats.incQueryRowsScanned(this.rowsScanned);
+    this.stats.incQueryCpuTime(this.cpuTime);
+  }
+
+  /**
+   * Returns the execution accounted on the current thread, or null if there is none.
+   */
+  public static QueryResourceUsage getCurrent() {
+    Participant participant = current.get();
+    return participant == null ? null : participant.usage;
+  }
+
+  /**
+   * Counts a row scanned by the execution on the current thread, if any.
+   */
+  public static void rowScanned() {
+    Participant participant = current.get();
+    if (participant != null && ++participant.rowsScanned >= THREAD_ROWS_INCREMENT) {
+      participant.usage.add(participant, true);
+    }
+  }
+
+  /**
+   * Accounts a row of values of the region added to the results of the execution on the current
+   * thread, if any.
+   *
+   * @param fieldCount the number of fields of the row if it is a struct, or 1 if it is not
+   * @throws QueryExecutionCanceledException if the execution exceeds a memory limit
+   */
+  public static void rowAdded(int fieldCount) {
+    Participant participant = current.get();
+    if (participant != null) {
+      participant.usage.addRow(participant, getRowBytes(fieldCount), true);
+    }
+  }
+
+  /**
+   * Accounts a row of projected values added to the results of the execution on the current
+   * thread, if any.
+   *
+   * @param values the values of the struct, or the single value, of the row
+   * @throws QueryExecutionCanceledException if the execution exceeds a memory limit
+   */
+  public static void projectedRowAdded(Object[] values) {
+    Participant participant = current.get();
+    if (participant != null) {
+      QueryResourceUsage usage = participant.usage;
+      if (participant.projectedRows++ % SAMPLE_INTERVAL == 0) {
+        usage.sampled(getValueBytes(values));
+      }
+      usage.addRow(participant, getRowBytes(values.length) + usage.valueBytes, true);
+    }
+  }
+
+  /**
+   * Accounts a row of a single projected value added to the results of the execution on the
+   * current thread, if any.
+   *
+   * @throws QueryExecutionCanceledException if the execution exceeds a memory limit
+   */
+  public static void projectedRowAdded(Object value) {
+    Participant participant = current.get();
+    if (participant != null) {
+      QueryResourceUsage usage = participant.usage;
+      if (participant.projectedRows++ % SAMPLE_INTERVAL == 0) {
+        usage.sampled(ObjectSizer.DEFAULT.sizeof(value));
+      }
+      usage.addRow(participant, ROW_BYTES + usage.valueBytes, true);
+    }
+  }
+
+  /**
+   * Releases the rows of the execution on the current thread, if any, that were handed out to a
+   * PartialResultsHandler. They are released at the average estimated size of the rows of the
+   * execution.
+   */
+  public static void rowsHandedOut(int rowCount) {
+    Participant participant = current.get();
+    if (participant == null || rowCount <= 0) {
+      return;
+    }
+    QueryResourceUsage usage = participant.usage;
+    long rows;
+    long memory;
+    synchronized (usage) {
+      rows = usage.rows + participant.rows;
+      memory = usage.memory + participant.memory;
+    }
+    if (rows > 0) {
+      participant.rows -= rowCount;
+      participant.memory -= memory * Math.min(rowCount, rows) / rows;
+    }
+  }
+
+  /**
+   * Accounts the rows received from another member by the thread that sent the query to it. The
+   * rows are deserialized copies, so they are all estimated at the size of their values, on a
+   * sample of them. As the rows are received by another thread, the execution is not canceled by
+   * throwing an exception, but the query is marked canceled.
+   *
+   * @return false if the query is canceled for exceeding a memory limit
+   */
+  public boolean rowsReceived(List<?> received) {
+    int rowCount = received.size();
+    if (rowCount == 0) {
+      return true;
+    }
+    long bytes = 0;
+    int sampleCount = 0;
+    for (int i = 0; i < rowCount; i += SAMPLE_INTERVAL) {
+      Object row = received.get(i);
+      bytes += row instanceof Object[] ? getRowBytes(((Object[]) row).length)
+          + getValueBytes((Object[]) row) : ROW_BYTES + ObjectSizer.DEFAULT.sizeof(row);
+      sampleCount++;
+    }
+    synchronized (this) {
+      this.rows += rowCount;
+      this.memory += bytes * rowCount / sampleCount;
+    }
+    return checkMemory(false);
+  }
+
+  /**
+   * Accounts a row of the results of the members copied into the merged results by the thread that
+   * sent them the query. The execution is not canceled by throwing an exception, but the query is
+   * marked canceled, for the merge to stop at its next check.
+   */
+  public void mergedRowAdded(int fieldCount) {
+    Participant participant = current.get();
+    if (participant != null && participant.usage == this) {
+      addRow(participant, getRowBytes(fieldCount), false);
+    }
+  }
+
+  private static long getRowBytes(int fieldCount) {
+    return fieldCount > 1 ? ROW_BYTES + STRUCT_BYTES + fieldCount * FIELD_BYTES : ROW_BYTES;
+  }
+
+  private static long getValueBytes(Object[] values) {
+    long bytes = 0;
+    for (Object value : values) {
+      bytes += ObjectSizer.DEFAULT.sizeof(value);
+    }
+    return bytes;
+  }
+
+  private synchronized void sampled(long bytes) {
+    this.sampledBytes += bytes;
+    this.samples++;
+    this.valueBytes = this.sampledBytes / this.samples;
+  }
+
+  private void addRow(Participant participant, long bytes, boolean throwOnCancel) {
+    participant.rows++;
+    participant.memory += bytes;
+    if (participant.memory >= THREAD_MEMORY_INCREMENT) {
+      add(participant, throwOnCancel);
+    }
+  }
+
+  /**
+   * Adds the rows and memory accounted by the thread to the execution and checks its limits.
+   */
+  private void add(Participant participant, boolean throwOnCancel) {
+    synchronized (this) {
+      this.rowsScanned += participant.rowsScanned;
+      this.rows += participant.rows;
+      this.memory += participant.memory;
+    }
+    participant.rowsScanned = 0;
+    participant.rows = 0;
+    participant.memory = 0;
+    checkMemory(throwOnCancel);
+  }
+
+  private boolean checkMemory(boolean throwOnCancel) {
+    long memory;
+    long delta = 0;
+    synchronized (this) {
+      memory = this.memory;
+      if (Math.abs(memory - this.reportedMemory) >= REPORTED_MEMORY_INCREMENT) {
+        delta = memory - this.reportedMemory;
+        this.reportedMemory = memory;
+      }
+    }
+    long total = delta == 0 ? totalMemory.get() : totalMemory.addAndGet(delta);
+    if (delta != 0) {
+      this.stats.incQueryMemory(delta);
+    }
+    if (this.query.isCqQuery() || this.query.isCanceled()) {
+      return !this.query.isCanceled();
+    }
+    long limit = this.query.getMemoryLimit();
+    if (limit > 0 && memory > limit) {
+      return cancel(String.format(
+          "Query execution canceled after exceeding max query memory of %s bytes, estimated memory used: %s bytes.",
+          limit, memory), throwOnCancel);
+    }
+    long totalLimit = DefaultQuery.MAX_TOTAL_QUERY_MEMORY;
+    if (delta > 0 && totalLimit > 0 && total > totalLimit) {
+      return cancel(String.format(
+          "Query execution canceled after the running queries exceeded max total query memory of %s bytes, estimated memory used: %s bytes.",
+          totalLimit, total), throwOnCancel);
+    }
+    return true;
+  }
+
+  private boolean cancel(String reason, boolean throwOnCancel) {
+    this.stats.incQueriesCanceledForMemory();
+    this.query.setCanceled(new QueryExecutionLowMemoryException(reason));
+    if (throwOnCancel) {
+      throw new QueryExecutionCanceledException(reason);
+    }
+    return false;
+  }
+
+  public synchronized long getRowsScanned() {
+    return this.rowsScanned;
+  }
+
+  /**
+   * Returns the estimated memory in bytes of the rows held by the execution, as last added by each
+   * of its threads.
+   */
+  public synchronized long getMemory() {
+    return this.memory;
+  }
+
+  /**
+   * Returns the estimated memory in bytes of all the running executions, as last reported by each
+   * of them.
+   */
+  public static long getTotalMemory() {
+    return totalMemory.get();
+  }
+
+  /**
+   * Describes each running execution with its query, elapsed time, CPU time, rows scanned and
+   * estimated memory.
+   */
+  public static String[] listRunning() {
+    return running.stream().map(QueryResourceUsage::toString).toArray(String[]::new);
+  }
+
+  private long getCpuTime() {
+    long cpuTime = this.cpuTime;
+    if (this.participants > 0 && this.startCpuTime >= 0) {
+      // the thread that started the execution takes part in it until it completes
+      long threadCpuTime = threadBean.getThreadCpuTime(this.thread.getId());
+      if (threadCpuTime >= this.startCpuTime) {
+        cpuTime += threadCpuTime - this.startCpuTime;
+      }
+    }
+    return cpuTime;
+  }
+
+  private static long getCurrentThreadCpuTime() {
+    try {
+      return threadBean.isCurrentThreadCpuTimeSupported() ? threadBean.getCurrentThreadCpuTime()
+          : -1;
+    } catch (UnsupportedOperationException ignore) {
+      return -1;
+    }
+  }
+
+  @Override
+  public String toString() {
+    return new StringBuilder().append("QueryResourceUsage[query:")
+        .append(this.query.getQueryString()).append(", thread:").append(this.thread.getName())
+        .append(", threads:").append(this.participants).append(", elapsedTime:")
+        .append(System.currentTimeMillis() - this.startTime).append("ms, cpuTime:")
+        .append(getCpuTime()).append("ns, rowsScanned:").append(this.rowsScanned)
+        .append(", memory:").append(this.memory).append(']').toString();
+  }
+}
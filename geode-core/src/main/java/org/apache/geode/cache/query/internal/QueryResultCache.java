@@ -0,0 +1,239 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.cache.query.internal;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.geode.cache.Region;
+import org.apache.geode.cache.query.SelectResults;
+import org.apache.geode.cache.query.types.CollectionType;
+import org.apache.geode.distributed.internal.DistributionConfig;
+import org.apache.geode.internal.cache.CachePerfStats;
+import org.apache.geode.internal.cache.InternalCache;
+import org.apache.geode.internal.cache.LocalRegion;
+import org.apache.geode.internal.cache.PartitionedRegion;
+import org.apache.geode.internal.cache.TXManagerImpl;
+
+/**
+ * Caches the results of local queries by query string and bind parameters. Each entry remembers the
+ * modification counts of the regions the query read, taken before the query was executed, so an
+ * entry is served only while none of those regions has changed. The least recently used entry is
+ * evicted once the cache holds {@link #MAX_ENTRIES} results.
+ *
+ * Queries on partitioned regions are not cached since their data is held by other members as well.
+ *
+ * @since Geode 1.8
+ */
+public class QueryResultCache {
+
+  /**
+   * The maximum number of query results kept by the cache. The cache is disabled when it is not
+   * greater than zero, which is the default.
+   */
+  public static int MAX_ENTRIES =
+      Integer.getInteger(DistributionConfig.GEMFIRE_PREFIX + "Query.RESULT_CACHE_SIZE", 0);
+
+  private final CachePerfStats stats;
+
+  private final Map<Key, Entry> entries;
+
+  public QueryResultCache(int maxEntries, CachePerfStats stats) {
+    this.stats = stats;
+    this.entries = new LinkedHashMap<Key, Entry>(16, 0.75f, true) {
+      private static final long serialVersionUID = 1L;
+
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+        if (size() > maxEntries) {
+          QueryResultCache.this.stats.incQueryResultCacheEntries(-1);
+          return true;
+        }
+        return false;
+      }
+    };
+  }
+
+  /**
+   * Returns the regions read by a query if its results may be cached, or null if they may not. The
+   * results may be cached only outside of transactions, when all the regions are initialized local
+   * regions with synchronous index maintenance and when all the parameters are immutable values.
+   */
+  public static LocalRegion[] getCacheableRegions(InternalCache cache, Set<String> regionPaths,
+      Object[] parameters) {
+    if (TXManagerImpl.getCurrentTXState() != null) {
+      return null;
+    }
+    for (Object parameter : parameters) {
+      if (!isImmutable(parameter)) {
+        return null;
+      }
+    }
+    LocalRegion[] regions = new LocalRegion[regionPaths.size()];
+    int i = 0;
+    for (String regionPath : regionPaths) {
+      Region region = cache.getRegion(regionPath);
+      if (!(region instanceof LocalRegion) || region instanceof PartitionedRegion) {
+        return null;
+      }
+      LocalRegion localRegion = (LocalRegion) region;
+      if (!localRegion.isInitialized()
+          || !localRegion.getAttributes().getIndexMaintenanceSynchronous()) {
+        return null;
+      }
+      regions[i++] = localRegion;
+    }
+    return regions;
+  }
+
+  private static boolean isImmutable(Object parameter) {
+    return parameter == null || parameter instanceof String || parameter instanceof Number
+        || parameter instanceof Boolean || parameter instanceof Character
+        || parameter instanceof Enum;
+  }
+
+  /**
+   * Returns the modification counts of the given regions, to be read before the query is executed
+   * and passed to {@link #put} with its results.
+   */
+  public static long[] getModificationCounts(LocalRegion[] regions) {
+    long[] counts = new long[regions.length];
+    for (int i = 0; i < regions.length; i++) {
+      counts[i] = regions[i].getModificationCount();
+    }
+    return counts;
+  }
+
+  /**
+   * Returns an unmodifiable view of the cached results of the query, or null if there are none or
+   * if any of the regions has changed since they were computed.
+   */
+  public synchronized SelectResults get(String queryString, Object[] parameters,
+      LocalRegion[] regions) {
+    Key key = new Key(queryString, parameters);
+    Entry entry = this.entries.get(key);
+    if (entry != null && !entry.isValid(regions)) {
+      this.entries.remove(key);
+      this.stats.incQueryResultCacheEntries(-1);
+      entry = null;
+    }
+    if (entry == null) {
+      this.stats.incQueryResultCacheMisses();
+      return null;
+    }
+    this.stats.incQueryResultCacheHits();
+    ResultsCollectionWrapper view = new ResultsCollectionWrapper(
+        entry.results.getCollectionType().getElementType(), entry.unmodifiableResults);
+    view.setModifiable(false);
+    return view;
+  }
+
+  /**
+   * Caches the results of the query, unless one of the regions has changed since the given
+   * modification counts were read.
+   */
+  public synchronized void put(String queryString, Object[] parameters, LocalRegion[] regions,
+      long[] modificationCounts, SelectResults results) {
+    Entry entry = new Entry(regions, modificationCounts, results);
+    if (!entry.isValid(regions)) {
+      return;
+    }
+    if (this.entries.put(new Key(queryString, parameters), entry) == null) {
+      this.stats.incQueryResultCacheEntries(1);
+    }
+  }
+
+  public synchronized void clear() {
+    this.stats.incQueryResultCacheEntries(-this.entries.size());
+    this.entries.clear();
+  }
+
+  public synchronized int size() {
+    return this.entries.size();
+  }
+
+  private static class Key {
+    private final String queryString;
+
+    private final List<Object> parameters;
+
+    Key(String queryString, Object[] parameters) {
+      this.queryString = queryString;
+      this.parameters = Arrays.asList(parameters.clone());
+    }
+
+    @Override
+    public boolean equals(Object other) {
+      if (!(other instanceof Key)) {
+        return false;
+      }
+      Key key = (Key) other;
+      return this.queryString.equals(key.queryString) && this.parameters.equals(key.parameters);
+    }
+
+    @Override
+    public int hashCode() {
+      return 31 * this.queryString.hashCode() + this.parameters.hashCode();
+    }
+  }
+
+  private static class Entry {
+    private final LocalRegion[] regions;
+
+    private final long[] modificationCounts;
+
+    private final SelectResults results;
+
+    /**
+     * A read only view of the results that keeps their ordering and duplicates.
+     */
+    private final Collection unmodifiableResults;
+
+    Entry(LocalRegion[] regions, long[] modificationCounts, SelectResults results) {
+      this.regions = regions;
+      this.modificationCounts = modificationCounts;
+      this.results = results;
+      CollectionType collectionType = results.getCollectionType();
+      if (collectionType.isOrdered()) {
+        this.unmodifiableResults = Collections.unmodifiableList(results.asList());
+      } else if (collectionType.allowsDuplicates()) {
+        this.unmodifiableResults = Collections.unmodifiableCollection(results);
+      } else {
+        this.unmodifiableResults = Collections.unmodifiableSet(results.asSet());
+      }
+    }
+
+    /**
+     * Returns true if the query still reads the same regions and none of them has changed.
+     */
+    boolean isValid(LocalRegion[] currentRegions) {
+      if (currentRegions.length != this.regions.length) {
+        return false;
+      }
+      for (int i = 0; i < this.regions.length; i++) {
+        if (currentRegions[i] != this.regions[i] || this.regions[i].isDestroyed()
+            || this.regions[i].getModificationCount() != this.modificationCounts[i]) {
+          return false;
+        }
+      }
+      return true;
+    }
+  }
+}
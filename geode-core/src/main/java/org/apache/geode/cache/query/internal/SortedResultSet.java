@@ -47,6 +47,9 @@ public class SortedResultSet extends TreeSet
 
   private ObjectType elementType;
 
+  /** The maximum number of elements kept, or -1 if the number of elements is not bounded */
+  private transient int maxSize = -1;
+
   public SortedResultSet() {}
 
   SortedResultSet(Collection c) {
@@ -78,6 +81,26 @@ public class SortedResultSet extends TreeSet
     return super.equals(other);
   }
 
+  /**
+   * Keeps at most the given number of elements: once the set is full, adding an element removes
+   * the last element in the sort order. Used for ORDER BY queries with a LIMIT.
+   */
+  void setMaxSize(int maxSize) {
+    this.maxSize = maxSize;
+  }
+
+  @Override
+  public boolean add(Object element) {
+    boolean added = super.add(element);
+    if (added && this.maxSize >= 0 && size() > this.maxSize) {
+      Object last = pollLast();
+      if (comparator() instanceof OrderByComparator) {
+        ((OrderByComparator) comparator()).removeEvaluatedSortCriteria(last);
+      }
+    }
+    return added;
+  }
+
   public void setElementType(ObjectType elementType) {
     if (elementType instanceof StructType)
       throw new IllegalArgumentException(
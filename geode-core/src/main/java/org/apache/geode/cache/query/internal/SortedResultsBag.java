@@ -41,6 +41,9 @@ public class SortedResultsBag<E> extends Bag implements Ordered {
   private final boolean orderedDataAddition;
   private final boolean emitNullAtStart;
 
+  /** The maximum number of elements kept, or -1 if the number of elements is not bounded */
+  private int maxSize = -1;
+
   /**
    * Constructor for unordered input
    *
@@ -140,6 +143,52 @@ public class SortedResultsBag<E> extends Bag implements Ordered {
     return false;
   }
 
+  /**
+   * Keeps at most the given number of elements: once the bag is full, adding an element removes
+   * the last element in the sort order. Used for ORDER BY queries with a LIMIT, which then only
+   * keep the first rows in memory instead of sorting all of them.
+   */
+  void setMaxSize(int maxSize) {
+    this.maxSize = maxSize;
+  }
+
+  @Override
+  public boolean add(Object element) {
+    boolean added = super.add(element);
+    removeLastIfFull();
+    return added;
+  }
+
+  @Override
+  public int addAndGetOccurence(Object element) {
+    int occurrence = super.addAndGetOccurence(element);
+    removeLastIfFull();
+    return occurrence;
+  }
+
+  private void removeLastIfFull() {
+    if (this.maxSize < 0 || this.size <= this.maxSize || this.orderedDataAddition) {
+      return;
+    }
+    if (this.numNulls > 0 && (!this.emitNullAtStart || this.sortedMap.isEmpty())) {
+      this.numNulls--;
+      this.size--;
+      return;
+    }
+    E last = ((TreeMap<E, Integer>) this.sortedMap).lastKey();
+    int count = this.sortedMap.get(last);
+    if (count == 1) {
+      this.sortedMap.remove(last);
+      Comparator comparator = comparator();
+      if (comparator instanceof OrderByComparator) {
+        ((OrderByComparator) comparator).removeEvaluatedSortCriteria(last);
+      }
+    } else {
+      this.sortedMap.put(last, count - 1);
+    }
+    this.size--;
+  }
+
   @Override
   protected int mapGet(Object element) {
     Integer count = this.sortedMap.get(element);
@@ -53,6 +53,9 @@ public class SortedStructSet extends TreeSet
    */
   private boolean modifiable = true;
 
+  /** The maximum number of elements kept, or -1 if the number of elements is not bounded */
+  private transient int maxSize = -1;
+
   /** Creates a new instance of StructSet */
   public SortedStructSet() {};
 
@@ -111,7 +114,22 @@ public class SortedStructSet extends TreeSet
    * For internal use. Just add the Object[] values for a struct with same type
    */
   public boolean addFieldValues(Object[] fieldValues) {
-    return super.add(fieldValues);
+    boolean added = super.add(fieldValues);
+    if (added && this.maxSize >= 0 && size() > this.maxSize) {
+      Object last = pollLast();
+      if (comparator() instanceof OrderByComparator) {
+        ((OrderByComparator) comparator()).removeEvaluatedSortCriteria(last);
+      }
+    }
+    return added;
+  }
+
+  /**
+   * Keeps at most the given number of structs: once the set is full, adding a struct removes the
+   * last struct in the sort order. Used for ORDER BY queries with a LIMIT.
+   */
+  void setMaxSize(int maxSize) {
+    this.maxSize = maxSize;
   }
 
   /**
@@ -35,9 +35,17 @@ public class AvgPRQueryNode extends Sum {
     super.accumulate(array[1]);
   }
 
+  protected int getCount() {
+    return this.count;
+  }
+
+  protected Number getSum() {
+    return (Number) super.terminate();
+  }
+
   @Override
   public Object terminate() {
-    double sum = ((Number) super.terminate()).doubleValue();
+    double sum = getSum().doubleValue();
     double result = sum / count;
     return downCast(result);
   }
@@ -0,0 +1,69 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.cache.query.internal.aggregate;
+
+import java.io.IOException;
+
+import org.apache.geode.InternalGemFireException;
+import org.apache.geode.cache.query.QueryService;
+import org.apache.geode.internal.hll.HyperLogLogPlus;
+
+/**
+ * Estimates the number of distinct values on the bucket nodes when the count of distinct values
+ * may be approximated. Only the bytes of the estimator are sent to the PR query node, instead of
+ * the set of distinct values, so the size of the partial result does not depend on the number of
+ * values.
+ *
+ * The estimators of the buckets of a data member are merged by the same aggregator.
+ */
+public class CountDistinctBucketNode extends AbstractAggregator {
+
+  // about 0.8% standard error, while small sets are counted in the sparse representation
+  private static final int PRECISION = 14;
+
+  private static final int SPARSE_PRECISION = 25;
+
+  private final HyperLogLogPlus distinct = new HyperLogLogPlus(PRECISION, SPARSE_PRECISION);
+
+  /**
+   * The input data is a value, or the bytes of the estimator of a bucket.
+   */
+  @Override
+  public void accumulate(Object value) {
+    if (value instanceof byte[]) {
+      CountDistinctPRQueryNode.merge(this.distinct, (byte[]) value);
+    } else if (value != null && value != QueryService.UNDEFINED) {
+      this.distinct.offer(value);
+    }
+  }
+
+  @Override
+  public void init() {
+
+  }
+
+  /**
+   * Returns the bytes of the estimator, which the PR query node rebuilds it from.
+   */
+  @Override
+  public Object terminate() {
+    try {
+      return this.distinct.getBytes();
+    } catch (IOException e) {
+      throw new InternalGemFireException("Unable to serialize the estimator of distinct values",
+          e);
+    }
+  }
+}
@@ -14,8 +14,13 @@
  */
 package org.apache.geode.cache.query.internal.aggregate;
 
+import java.io.IOException;
 import java.util.Set;
 
+import org.apache.geode.InternalGemFireException;
+import org.apache.geode.internal.hll.CardinalityMergeException;
+import org.apache.geode.internal.hll.HyperLogLogPlus;
+
 /**
  * Computes the count of the distinct rows on the PR query node.
  *
@@ -23,18 +28,52 @@ import java.util.Set;
  */
 public class CountDistinctPRQueryNode extends DistinctAggregator {
 
+  /** Merges the estimators received when the count of distinct values may be approximated */
+  private HyperLogLogPlus estimator;
+
   /**
-   * The input data is the Set containing distinct values from each of the bucket nodes.
+   * The input data is the Set containing distinct values from each of the bucket nodes, or the
+   * bytes of the estimator of the distinct values computed by {@link CountDistinctBucketNode}.
    */
   @Override
   public void accumulate(Object value) {
-    this.distinct.addAll((Set) value);
-
+    if (value instanceof byte[]) {
+      if (this.estimator == null) {
+        this.estimator = toEstimator((byte[]) value);
+      } else {
+        merge(this.estimator, (byte[]) value);
+      }
+    } else {
+      this.distinct.addAll((Set) value);
+    }
   }
 
   @Override
   public Object terminate() {
-    return Integer.valueOf(this.distinct.size());
+    if (this.estimator == null) {
+      return Integer.valueOf(this.distinct.size());
+    }
+    // members that do not approximate sent their distinct values
+    for (Object value : this.distinct) {
+      this.estimator.offer(value);
+    }
+    return Integer.valueOf((int) this.estimator.cardinality());
+  }
+
+  static void merge(HyperLogLogPlus estimator, byte[] other) {
+    try {
+      estimator.addAll(toEstimator(other));
+    } catch (CardinalityMergeException e) {
+      throw new InternalGemFireException("Unable to merge the estimators of distinct values", e);
+    }
+  }
+
+  private static HyperLogLogPlus toEstimator(byte[] bytes) {
+    try {
+      return HyperLogLogPlus.Builder.build(bytes);
+    } catch (IOException e) {
+      throw new InternalGemFireException("Unable to read the estimator of distinct values", e);
+    }
   }
 
 }
@@ -53,6 +53,7 @@ import org.apache.geode.cache.query.internal.ExecutionContext;
 import org.apache.geode.cache.query.internal.IndexInfo;
 import org.apache.geode.cache.query.internal.QRegion;
 import org.apache.geode.cache.query.internal.QueryMonitor;
+import org.apache.geode.cache.query.internal.QueryResourceUsage;
 import org.apache.geode.cache.query.internal.QueryUtils;
 import org.apache.geode.cache.query.internal.RuntimeIterator;
 import org.apache.geode.cache.query.internal.StructFields;
@@ -646,6 +647,7 @@ public abstract class AbstractIndex implements IndexProtocol {
       iterValue = deserializePdxForLocalDistinctQuery(context, iterValue);
       this.addToResultsWithUnionOrIntersection(result, intermediateResults, isIntersection,
           iterValue);
+      QueryResourceUsage.rowAdded(1);
 
     } else {
       boolean isStruct = result instanceof SelectResults
@@ -665,11 +667,13 @@ public abstract class AbstractIndex implements IndexProtocol {
         }
         this.addToStructsWithUnionOrIntersection(result, intermediateResults, isIntersection,
             values);
+        QueryResourceUsage.projectedRowAdded(values);
       } else {
         Object[] temp = (Object[]) projAttrib.get(0);
         Object val = deserializePdxForLocalDistinctQuery(context,
             ((CompiledValue) temp[1]).evaluate(context));
         this.addToResultsWithUnionOrIntersection(result, intermediateResults, isIntersection, val);
+        QueryResourceUsage.projectedRowAdded(val);
       }
     }
   }
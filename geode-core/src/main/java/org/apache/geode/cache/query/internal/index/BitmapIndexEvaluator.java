@@ -0,0 +1,236 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.cache.query.internal.index;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import org.apache.geode.cache.EntryDestroyedException;
+import org.apache.geode.cache.query.FunctionDomainException;
+import org.apache.geode.cache.query.NameResolutionException;
+import org.apache.geode.cache.query.QueryInvocationTargetException;
+import org.apache.geode.cache.query.QueryService;
+import org.apache.geode.cache.query.TypeMismatchException;
+import org.apache.geode.cache.query.internal.CompiledValue;
+import org.apache.geode.cache.query.internal.ExecutionContext;
+import org.apache.geode.cache.query.internal.QueryMonitor;
+import org.apache.geode.cache.query.internal.QueryObserver;
+import org.apache.geode.cache.query.internal.QueryObserverHolder;
+import org.apache.geode.cache.query.internal.RuntimeIterator;
+import org.apache.geode.cache.query.internal.parse.OQLLexerTokenTypes;
+import org.apache.geode.cache.query.types.ObjectType;
+import org.apache.geode.internal.cache.BucketRegion;
+import org.apache.geode.internal.cache.PartitionedRegion;
+import org.apache.geode.internal.cache.RegionEntry;
+
+/**
+ * Evaluates the equality and not equality conditions of an AND or an OR junction on compact range
+ * indexes of the same region together. The entries matching each condition are combined as
+ * {@link EntryMatches}, on the {@link EntryBitmap}s of the keys with many entries, so that the
+ * entries are looked up and added to the results once, instead of building the results of every
+ * condition and then intersecting or uniting them.
+ *
+ * @since Geode 1.8
+ */
+public class BitmapIndexEvaluator {
+
+  private final boolean isAnd;
+
+  private final List<CompiledValue> conditions = new ArrayList<>();
+
+  private final List<CompactRangeIndex> indexes = new ArrayList<>();
+
+  private final List<Object> keys = new ArrayList<>();
+
+  private final List<Integer> operators = new ArrayList<>();
+
+  public BitmapIndexEvaluator(boolean isAnd) {
+    this.isAnd = isAnd;
+  }
+
+  /**
+   * Adds a condition of the junction that is evaluated on the index with the key and the operator,
+   * if the index can combine it with the conditions added so far.
+   *
+   * @return true if the condition was added
+   */
+  public boolean addCondition(CompiledValue condition, IndexProtocol index, Object key,
+      int operator) {
+    if (!(index instanceof CompactRangeIndex)
+        || !(((CompactRangeIndex) index).getIndexStorage() instanceof MemoryIndexStore)) {
+      return false;
+    }
+    if (operator != OQLLexerTokenTypes.TOK_EQ && operator != OQLLexerTokenTypes.TOK_NE
+        && operator != OQLLexerTokenTypes.TOK_NE_ALT) {
+      return false;
+    }
+    if (!this.indexes.isEmpty() && this.indexes.get(0).getRegion() != index.getRegion()) {
+      return false;
+    }
+    this.conditions.add(condition);
+    this.indexes.add((CompactRangeIndex) index);
+    this.keys.add(key);
+    this.operators.add(operator == OQLLexerTokenTypes.TOK_EQ ? operator
+        : OQLLexerTokenTypes.TOK_NE);
+    return true;
+  }
+
+  public List<CompiledValue> getConditions() {
+    return this.conditions;
+  }
+
+  public ObjectType getResultType() {
+    return this.indexes.get(0).getResultSetType();
+  }
+
+  /**
+   * Adds the values of the entries that match the conditions to the results. The entries that are
+   * being updated are checked against the conditions again.
+   */
+  public void evaluate(Collection results, RuntimeIterator iterator, ExecutionContext context)
+      throws TypeMismatchException, FunctionDomainException, NameResolutionException,
+      QueryInvocationTargetException {
+    long[] starts = new long[this.indexes.size()];
+    for (int i = 0; i < this.indexes.size(); i++) {
+      starts[i] = this.indexes.get(i).updateIndexUseStats();
+    }
+    try {
+      CompactRangeIndex index = this.indexes.get(0);
+      if (context.getBucketList() != null && index.getRegion() instanceof BucketRegion) {
+        PartitionedRegion pr = ((BucketRegion) index.getRegion()).getPartitionedRegion();
+        for (Object bucketId : context.getBucketList()) {
+          List<CompactRangeIndex> bucketIndexes = new ArrayList<>(this.indexes.size());
+          for (CompactRangeIndex conditionIndex : this.indexes) {
+            bucketIndexes.add((CompactRangeIndex) PartitionedIndex.getBucketIndex(pr,
+                conditionIndex.getName(), (Integer) bucketId));
+          }
+          addResults(bucketIndexes, results, iterator, context);
+        }
+      } else {
+        addResults(this.indexes, results, iterator, context);
+      }
+    } finally {
+      // every index is reported as used for all the results
+      QueryObserver observer = QueryObserverHolder.getInstance();
+      for (int i = 0; i < this.indexes.size(); i++) {
+        this.indexes.get(i).updateIndexUseEndStats(starts[i]);
+        observer.beforeIndexLookup(this.indexes.get(i), this.operators.get(i), this.keys.get(i));
+        observer.afterIndexLookup(results);
+      }
+    }
+  }
+
+  private void addResults(List<CompactRangeIndex> indexes, Collection results,
+      RuntimeIterator iterator, ExecutionContext context)
+      throws TypeMismatchException, FunctionDomainException, NameResolutionException,
+      QueryInvocationTargetException {
+    long startTime = context.getCache().cacheTimeMillis();
+    EntryMatches matches = null;
+    MemoryIndexStore store = null;
+    for (int i : evaluationOrder()) {
+      CompactRangeIndex index = indexes.get(i);
+      if (index == null) {
+        // the index is not created on this bucket yet, so no entry matches its condition
+        if (this.isAnd) {
+          return;
+        }
+        continue;
+      }
+      boolean isEqual = this.operators.get(i) == OQLLexerTokenTypes.TOK_EQ;
+      EntryMatches keyMatches = index.getEntryMatches(this.keys.get(i));
+      if (this.isAnd && matches != null) {
+        // a not equal condition removes the entries of its key from the matches so far, instead of
+        // looking up all the entries of its index
+        if (isEqual) {
+          matches.retainAll(keyMatches);
+        } else {
+          matches.removeAll(keyMatches);
+        }
+      } else {
+        EntryMatches conditionMatches = keyMatches;
+        if (!isEqual) {
+          // like a lookup of a not equal condition, they include the entries whose index key is
+          // null or undefined
+          conditionMatches = index.getAllEntryMatches();
+          conditionMatches.removeAll(keyMatches);
+        }
+        if (matches == null) {
+          matches = conditionMatches;
+        } else {
+          matches.addAll(conditionMatches);
+        }
+      }
+      store = (MemoryIndexStore) index.getIndexStorage();
+    }
+    if (matches == null) {
+      return;
+    }
+    for (RegionEntry entry : matches) {
+      QueryMonitor.isQueryExecutionCanceled();
+      if (entry.isDestroyedOrRemoved()) {
+        continue;
+      }
+      try {
+        Object value = store.getTargetObject(entry);
+        if (value == null) {
+          continue;
+        }
+        // the entry may have changed, or its ordinal given to another entry, since the indexes
+        // were read
+        if (entry.isUpdateInProgress()
+            || IndexManager.needsRecalculation(startTime, entry.getLastModified())) {
+          iterator.setCurrent(value);
+          if (!matches(context)) {
+            continue;
+          }
+        }
+        results.add(value);
+      } catch (EntryDestroyedException ignore) {
+        // the entry was destroyed since the indexes were read
+      }
+    }
+  }
+
+  /**
+   * Returns the positions of the conditions in the order they are evaluated. The equality
+   * conditions of an AND junction come first, so that its not equality conditions only remove
+   * entries from the entries matching them.
+   */
+  private List<Integer> evaluationOrder() {
+    List<Integer> order = new ArrayList<>(this.operators.size());
+    for (int i = 0; i < this.operators.size(); i++) {
+      if (this.isAnd && this.operators.get(i) == OQLLexerTokenTypes.TOK_EQ) {
+        order.add(0, i);
+      } else {
+        order.add(i);
+      }
+    }
+    return order;
+  }
+
+  private boolean matches(ExecutionContext context) throws TypeMismatchException,
+      FunctionDomainException, NameResolutionException, QueryInvocationTargetException {
+    for (int i = 0; i < this.conditions.size(); i++) {
+      Object result = this.conditions.get(i).evaluate(context);
+      boolean matches = Boolean.TRUE.equals(result) || result == QueryService.UNDEFINED
+          && this.operators.get(i) == OQLLexerTokenTypes.TOK_NE;
+      if (matches != this.isAnd) {
+        return matches;
+      }
+    }
+    return this.isAnd;
+  }
+}
@@ -22,6 +22,8 @@ import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.apache.logging.log4j.Logger;
 
@@ -43,6 +45,7 @@ import org.apache.geode.cache.query.internal.CompiledLiteral;
 import org.apache.geode.cache.query.internal.CompiledPath;
 import org.apache.geode.cache.query.internal.CompiledSortCriterion;
 import org.apache.geode.cache.query.internal.CompiledValue;
+import org.apache.geode.cache.query.internal.CostBasedPlanner;
 import org.apache.geode.cache.query.internal.CqEntry;
 import org.apache.geode.cache.query.internal.ExecutionContext;
 import org.apache.geode.cache.query.internal.IndexInfo;
@@ -56,7 +59,6 @@ import org.apache.geode.cache.query.internal.StructImpl;
 import org.apache.geode.cache.query.internal.Support;
 import org.apache.geode.cache.query.internal.index.IndexManager.TestHook;
 import org.apache.geode.cache.query.internal.index.IndexStore.IndexStoreEntry;
-import org.apache.geode.cache.query.internal.index.MemoryIndexStore.MemoryIndexStoreEntry;
 import org.apache.geode.cache.query.internal.parse.OQLLexerTokenTypes;
 import org.apache.geode.cache.query.internal.types.StructTypeImpl;
 import org.apache.geode.cache.query.internal.types.TypeUtils;
@@ -68,7 +70,9 @@ import org.apache.geode.internal.cache.RegionEntry;
 import org.apache.geode.internal.cache.RegionEntryContext;
 import org.apache.geode.internal.cache.entries.VMThinRegionEntryHeap;
 import org.apache.geode.internal.cache.persistence.query.CloseableIterator;
+import org.apache.geode.internal.cache.persistence.query.OffHeapIndexMap;
 import org.apache.geode.internal.logging.LogService;
+import org.apache.geode.internal.logging.LoggingExecutors;
 import org.apache.geode.pdx.internal.PdxString;
 
 /**
@@ -94,6 +98,15 @@ public class CompactRangeIndex extends AbstractIndex {
 
   static boolean TEST_ALWAYS_UPDATE_IN_PROGRESS = false;
 
+  /** rebuilds the key statistics of the indexes, one index at a time */
+  private static final ExecutorService KEY_STATISTICS_BUILDER =
+      LoggingExecutors.newSingleThreadExecutor("Index Key Statistics Builder ", true);
+
+  private volatile IndexKeyStatistics keyStatistics;
+
+  /** true while a rebuild of the key statistics is submitted or running */
+  private final AtomicBoolean keyStatisticsRebuilding = new AtomicBoolean();
+
   public CompactRangeIndex(InternalCache cache, String indexName, Region region, String fromClause,
       String indexedExpression, String projectionAttributes, String origFromClause,
       String origIndexExpr, String[] definitions, IndexStatistics stats) {
@@ -102,6 +115,8 @@ public class CompactRangeIndex extends AbstractIndex {
     if (IndexManager.IS_TEST_LDM) {
       indexStore = new MapIndexStore(
           ((LocalRegion) region).getIndexMap(indexName, indexedExpression, origFromClause), region);
+    } else if (IndexManager.OFF_HEAP_INDEX_STORE) {
+      indexStore = new MapIndexStore(new OffHeapIndexMap(), region);
     } else {
       indexStore =
           new MemoryIndexStore(region, internalIndexStats, (InternalCache) region.getCache());
@@ -112,6 +127,86 @@ public class CompactRangeIndex extends AbstractIndex {
     return indexStore;
   }
 
+  /**
+   * Returns the entries whose index key is equal to the key, or null if the entries of this index
+   * are not kept in the memory of the heap.
+   */
+  EntryMatches getEntryMatches(Object key) throws TypeMismatchException {
+    if (!(this.indexStore instanceof MemoryIndexStore)) {
+      return null;
+    }
+    key = TypeUtils.indexKeyFor(key);
+    if (key == null) {
+      key = IndexManager.NULL;
+    }
+    key = getPdxStringForIndexedPdxKeys(key);
+    return ((MemoryIndexStore) this.indexStore).getEntryMatches(key);
+  }
+
+  /**
+   * Returns all the entries of this index, or null if the entries of this index are not kept in the
+   * memory of the heap. Like a lookup of a not equal condition, they include the entries whose
+   * index key is null or undefined.
+   */
+  EntryMatches getAllEntryMatches() {
+    if (!(this.indexStore instanceof MemoryIndexStore)) {
+      return null;
+    }
+    return ((MemoryIndexStore) this.indexStore).getAllEntryMatches();
+  }
+
+  /**
+   * Returns the statistics of the keys of this index, or null if they have not been built yet.
+   * They are built when the index is initialized while the cost based planner is enabled. They are
+   * rebuilt in the background when more entries than a tenth of the entries they counted were
+   * updated since they were built, and the stale statistics are returned meanwhile.
+   */
+  public IndexKeyStatistics getKeyStatistics() {
+    IndexKeyStatistics statistics = this.keyStatistics;
+    if ((statistics == null || isStale(statistics))
+        && this.keyStatisticsRebuilding.compareAndSet(false, true)) {
+      KEY_STATISTICS_BUILDER.execute(() -> {
+        try {
+          this.keyStatistics = buildKeyStatistics();
+        } catch (RuntimeException e) {
+          // the index is being modified or destroyed, the next query retries
+          if (logger.isDebugEnabled()) {
+            logger.debug("Could not build the key statistics of index {}", getName(), e);
+          }
+        } finally {
+          this.keyStatisticsRebuilding.set(false);
+        }
+      });
+    }
+    return statistics;
+  }
+
+  private IndexKeyStatistics buildKeyStatistics() {
+    long updates = this.internalIndexStats.getNumUpdates();
+    CloseableIterator<IndexStoreEntry> entries = this.indexStore.iterator(null);
+    try {
+      return IndexKeyStatistics.build(entries, this.region.size(), updates);
+    } finally {
+      entries.close();
+    }
+  }
+
+  private boolean isStale(IndexKeyStatistics statistics) {
+    long updates = this.internalIndexStats.getNumUpdates() - statistics.getUpdatesAtBuild();
+    return updates > statistics.getEntryCount() / 10;
+  }
+
+  /**
+   * Estimates the number of entries of a range condition, once the key statistics are built. They
+   * are never reset once built.
+   */
+  private int estimateRangeSize(Object key, int operator) throws TypeMismatchException {
+    key = TypeUtils.indexKeyFor(key);
+    key = getPdxStringForIndexedPdxKeys(key);
+    long size = getKeyStatistics().estimateRangeSize(key, operator, indexStore.size(key));
+    return (int) Math.min(size, Integer.MAX_VALUE);
+  }
+
   /**
    * Get the index type
    *
@@ -133,6 +228,10 @@ public class CompactRangeIndex extends AbstractIndex {
     this.internalIndexStats.incNumUpdates(((IMQEvaluator) this.evaluator).getTotalEntriesUpdated());
     long endTime = System.nanoTime();
     this.internalIndexStats.incUpdateTime(endTime - startTime);
+    if (CostBasedPlanner.ENABLED) {
+      // built along with the index, so that queries do not wait for them
+      this.keyStatistics = buildKeyStatistics();
+    }
   }
 
   void addMapping(RegionEntry entry) throws IMQException {
@@ -199,11 +298,11 @@ public class CompactRangeIndex extends AbstractIndex {
     Iterator inner = null;
     try {
       // We will iterate over each of the index Map to obtain the keys
-      outer = ((MemoryIndexStore) indexStore).getKeysIterator();
+      outer = indexStore.getKeysIterator();
 
       if (indx instanceof CompactRangeIndex) {
         IndexStore indexStore = ((CompactRangeIndex) indx).getIndexStorage();
-        inner = ((MemoryIndexStore) indexStore).getKeysIterator();
+        inner = indexStore.getKeysIterator();
 
       } else {
         inner = ((RangeIndex) indx).getValueToEntriesMap().entrySet().iterator();
@@ -292,7 +391,7 @@ public class CompactRangeIndex extends AbstractIndex {
     CompactRangeIndex index = (CompactRangeIndex) indexInfo._getIndex();
     RuntimeIterator runtimeItr = index.getRuntimeIteratorForThisIndex(context, indexInfo);
     if (runtimeItr != null) {
-      runtimeItr.setCurrent(((MemoryIndexStoreEntry) entry).getDeserializedValue());
+      runtimeItr.setCurrent(entry.getDeserializedValue());
     }
     return evaluateEntry(indexInfo, context, keyVal);
   }
@@ -322,7 +421,9 @@ public class CompactRangeIndex extends AbstractIndex {
           break;
         case OQLLexerTokenTypes.TOK_LE:
         case OQLLexerTokenTypes.TOK_LT:
-          if (matchLevel <= 0 && (key instanceof Number)) {
+          if (matchLevel <= 0 && CostBasedPlanner.ENABLED && getKeyStatistics() != null) {
+            size = estimateRangeSize(key, operator);
+          } else if (matchLevel <= 0 && (key instanceof Number)) {
 
             int totalSize = indexStore.size();
             if (CompactRangeIndex.testHook != null) {
@@ -386,7 +487,9 @@ public class CompactRangeIndex extends AbstractIndex {
 
         case OQLLexerTokenTypes.TOK_GE:
         case OQLLexerTokenTypes.TOK_GT:
-          if (matchLevel <= 0 && (key instanceof Number)) {
+          if (matchLevel <= 0 && CostBasedPlanner.ENABLED && getKeyStatistics() != null) {
+            size = estimateRangeSize(key, operator);
+          } else if (matchLevel <= 0 && (key instanceof Number)) {
             int totalSize = indexStore.size();
             if (CompactRangeIndex.testHook != null) {
               CompactRangeIndex.testHook.hook(2);
@@ -0,0 +1,409 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.cache.query.internal.index;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+/**
+ * A compressed set of entry ordinals, laid out like a roaring bitmap: the ordinals are split by
+ * their upper 16 bits into chunks, and each chunk keeps its lower 16 bits either in a sorted array,
+ * while it holds at most {@link #ARRAY_MAX_SIZE} of them, or in a bitmap of 65536 bits otherwise.
+ * Sparse and dense chunks both take at most 8KB, and intersections, unions and differences work a
+ * chunk at a time.
+ *
+ * A bitmap is not thread safe. The operations that combine bitmaps return new bitmaps and leave
+ * their operands unchanged.
+ *
+ * @since Geode 1.8
+ */
+public class EntryBitmap {
+
+  static final int ARRAY_MAX_SIZE = 4096;
+
+  private static final int BITMAP_WORDS = 1 << 10;
+
+  /** the upper 16 bits of the ordinals of each chunk, in ascending order */
+  private char[] keys;
+
+  /** the chunk of each key, either a char[] or a long[] */
+  private Object[] chunks;
+
+  /** the number of ordinals in each chunk */
+  private int[] sizes;
+
+  private int chunkCount;
+
+  public EntryBitmap() {
+    this(4);
+  }
+
+  private EntryBitmap(int capacity) {
+    this.keys = new char[capacity];
+    this.chunks = new Object[capacity];
+    this.sizes = new int[capacity];
+  }
+
+  public boolean add(int ordinal) {
+    char key = highBits(ordinal);
+    char low = (char) ordinal;
+    int index = Arrays.binarySearch(this.keys, 0, this.chunkCount, key);
+    if (index < 0) {
+      index = -index - 1;
+      insertChunk(index, key, new char[4], 0);
+    }
+    Object chunk = this.chunks[index];
+    int size = this.sizes[index];
+    if (chunk instanceof long[]) {
+      long[] words = (long[]) chunk;
+      long bit = 1L << low;
+      if ((words[low >>> 6] & bit) != 0) {
+        return false;
+      }
+      words[low >>> 6] |= bit;
+    } else {
+      char[] values = (char[]) chunk;
+      int position = Arrays.binarySearch(values, 0, size, low);
+      if (position >= 0) {
+        return false;
+      }
+      position = -position - 1;
+      if (size == ARRAY_MAX_SIZE) {
+        long[] words = toWords(values, size);
+        words[low >>> 6] |= 1L << low;
+        this.chunks[index] = words;
+      } else {
+        if (size == values.length) {
+          values = Arrays.copyOf(values, Math.min(ARRAY_MAX_SIZE, size * 2));
+          this.chunks[index] = values;
+        }
+        System.arraycopy(values, position, values, position + 1, size - position);
+        values[position] = low;
+      }
+    }
+    this.sizes[index] = size + 1;
+    return true;
+  }
+
+  public boolean remove(int ordinal) {
+    int index = Arrays.binarySearch(this.keys, 0, this.chunkCount, highBits(ordinal));
+    if (index < 0) {
+      return false;
+    }
+    char low = (char) ordinal;
+    Object chunk = this.chunks[index];
+    int size = this.sizes[index];
+    if (chunk instanceof long[]) {
+      long[] words = (long[]) chunk;
+      long bit = 1L << low;
+      if ((words[low >>> 6] & bit) == 0) {
+        return false;
+      }
+      words[low >>> 6] &= ~bit;
+      if (size - 1 <= ARRAY_MAX_SIZE) {
+        this.chunks[index] = toValues(words, size - 1);
+      }
+    } else {
+      char[] values = (char[]) chunk;
+      int position = Arrays.binarySearch(values, 0, size, low);
+      if (position < 0) {
+        return false;
+      }
+      System.arraycopy(values, position + 1, values, position, size - position - 1);
+    }
+    if (size == 1) {
+      removeChunk(index);
+    } else {
+      this.sizes[index] = size - 1;
+    }
+    return true;
+  }
+
+  public boolean contains(int ordinal) {
+    int index = Arrays.binarySearch(this.keys, 0, this.chunkCount, highBits(ordinal));
+    if (index < 0) {
+      return false;
+    }
+    char low = (char) ordinal;
+    Object chunk = this.chunks[index];
+    if (chunk instanceof long[]) {
+      return (((long[]) chunk)[low >>> 6] & (1L << low)) != 0;
+    }
+    return Arrays.binarySearch((char[]) chunk, 0, this.sizes[index], low) >= 0;
+  }
+
+  public int getCardinality() {
+    int cardinality = 0;
+    for (int i = 0; i < this.chunkCount; i++) {
+      cardinality += this.sizes[i];
+    }
+    return cardinality;
+  }
+
+  public boolean isEmpty() {
+    return this.chunkCount == 0;
+  }
+
+  public EntryBitmap copy() {
+    EntryBitmap copy = new EntryBitmap(Math.max(4, this.chunkCount));
+    for (int i = 0; i < this.chunkCount; i++) {
+      Object chunk = this.chunks[i];
+      copy.appendChunk(this.keys[i],
+          chunk instanceof long[] ? ((long[]) chunk).clone()
+              : Arrays.copyOf((char[]) chunk, this.sizes[i]),
+          this.sizes[i]);
+    }
+    return copy;
+  }
+
+  /**
+   * Returns the ordinals that are in both this bitmap and the other one.
+   */
+  public EntryBitmap and(EntryBitmap other) {
+    EntryBitmap result = new EntryBitmap(Math.max(4, Math.min(this.chunkCount, other.chunkCount)));
+    int i = 0;
+    int j = 0;
+    while (i < this.chunkCount && j < other.chunkCount) {
+      if (this.keys[i] < other.keys[j]) {
+        i++;
+      } else if (this.keys[i] > other.keys[j]) {
+        j++;
+      } else {
+        result.appendCombined(this.keys[i], this.chunks[i], this.sizes[i], other.chunks[j],
+            other.sizes[j], Operation.AND);
+        i++;
+        j++;
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Returns the ordinals that are in this bitmap or in the other one.
+   */
+  public EntryBitmap or(EntryBitmap other) {
+    EntryBitmap result = new EntryBitmap(Math.max(4, this.chunkCount + other.chunkCount));
+    int i = 0;
+    int j = 0;
+    while (i < this.chunkCount || j < other.chunkCount) {
+      if (j == other.chunkCount || i < this.chunkCount && this.keys[i] < other.keys[j]) {
+        result.appendCopy(this.keys[i], this.chunks[i], this.sizes[i]);
+        i++;
+      } else if (i == this.chunkCount || this.keys[i] > other.keys[j]) {
+        result.appendCopy(other.keys[j], other.chunks[j], other.sizes[j]);
+        j++;
+      } else {
+        result.appendCombined(this.keys[i], this.chunks[i], this.sizes[i], other.chunks[j],
+            other.sizes[j], Operation.OR);
+        i++;
+        j++;
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Returns the ordinals that are in this bitmap but not in the other one.
+   */
+  public EntryBitmap andNot(EntryBitmap other) {
+    EntryBitmap result = new EntryBitmap(Math.max(4, this.chunkCount));
+    int j = 0;
+    for (int i = 0; i < this.chunkCount; i++) {
+      while (j < other.chunkCount && other.keys[j] < this.keys[i]) {
+        j++;
+      }
+      if (j < other.chunkCount && other.keys[j] == this.keys[i]) {
+        result.appendCombined(this.keys[i], this.chunks[i], this.sizes[i], other.chunks[j],
+            other.sizes[j], Operation.AND_NOT);
+      } else {
+        result.appendCopy(this.keys[i], this.chunks[i], this.sizes[i]);
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Returns an iterator over the ordinals of this bitmap in ascending order. The bitmap must not be
+   * changed while it is iterated.
+   */
+  public PrimitiveIterator.OfInt iterator() {
+    return new OrdinalIterator();
+  }
+
+  /**
+   * Returns the number of bytes used by the chunks of this bitmap.
+   */
+  long getSizeInBytes() {
+    long bytes = 0;
+    for (int i = 0; i < this.chunkCount; i++) {
+      Object chunk = this.chunks[i];
+      bytes +=
+          chunk instanceof long[] ? ((long[]) chunk).length * 8L : ((char[]) chunk).length * 2L;
+    }
+    return bytes;
+  }
+
+  private enum Operation {
+    AND, OR, AND_NOT
+  }
+
+  private void appendCopy(char key, Object chunk, int size) {
+    appendChunk(key,
+        chunk instanceof long[] ? ((long[]) chunk).clone() : Arrays.copyOf((char[]) chunk, size),
+        size);
+  }
+
+  private void appendCombined(char key, Object left, int leftSize, Object right, int rightSize,
+      Operation operation) {
+    long[] words = toWords(left, leftSize);
+    long[] rightWords = toWords(right, rightSize);
+    int size = 0;
+    for (int i = 0; i < BITMAP_WORDS; i++) {
+      switch (operation) {
+        case AND:
+          words[i] &= rightWords[i];
+          break;
+        case OR:
+          words[i] |= rightWords[i];
+          break;
+        default:
+          words[i] &= ~rightWords[i];
+      }
+      size += Long.bitCount(words[i]);
+    }
+    if (size > ARRAY_MAX_SIZE) {
+      appendChunk(key, words, size);
+    } else if (size > 0) {
+      appendChunk(key, toValues(words, size), size);
+    }
+  }
+
+  private void appendChunk(char key, Object chunk, int size) {
+    insertChunk(this.chunkCount, key, chunk, size);
+  }
+
+  private void insertChunk(int index, char key, Object chunk, int size) {
+    if (this.chunkCount == this.keys.length) {
+      int capacity = this.keys.length * 2;
+      this.keys = Arrays.copyOf(this.keys, capacity);
+      this.chunks = Arrays.copyOf(this.chunks, capacity);
+      this.sizes = Arrays.copyOf(this.sizes, capacity);
+    }
+    int moved = this.chunkCount - index;
+    System.arraycopy(this.keys, index, this.keys, index + 1, moved);
+    System.arraycopy(this.chunks, index, this.chunks, index + 1, moved);
+    System.arraycopy(this.sizes, index, this.sizes, index + 1, moved);
+    this.keys[index] = key;
+    this.chunks[index] = chunk;
+    this.sizes[index] = size;
+    this.chunkCount++;
+  }
+
+  private void removeChunk(int index) {
+    int moved = this.chunkCount - index - 1;
+    System.arraycopy(this.keys, index + 1, this.keys, index, moved);
+    System.arraycopy(this.chunks, index + 1, this.chunks, index, moved);
+    System.arraycopy(this.sizes, index + 1, this.sizes, index, moved);
+    this.chunkCount--;
+    this.chunks[this.chunkCount] = null;
+  }
+
+  private static char highBits(int ordinal) {
+    return (char) (ordinal >>> 16);
+  }
+
+  private static long[] toWords(Object chunk, int size) {
+    if (chunk instanceof long[]) {
+      return ((long[]) chunk).clone();
+    }
+    return toWords((char[]) chunk, size);
+  }
+
+  private static long[] toWords(char[] values, int size) {
+    long[] words = new long[BITMAP_WORDS];
+    for (int i = 0; i < size; i++) {
+      words[values[i] >>> 6] |= 1L << values[i];
+    }
+    return words;
+  }
+
+  private static char[] toValues(long[] words, int size) {
+    char[] values = new char[Math.max(4, size)];
+    int position = 0;
+    for (int i = 0; i < BITMAP_WORDS; i++) {
+      long word = words[i];
+      while (word != 0) {
+        values[position++] = (char) ((i << 6) + Long.numberOfTrailingZeros(word));
+        word &= word - 1;
+      }
+    }
+    return values;
+  }
+
+  private class OrdinalIterator implements PrimitiveIterator.OfInt {
+    private int chunkIndex;
+
+    /** the position in an array chunk, or the index of the word in a bitmap chunk */
+    private int position;
+
+    /** the bits of the current word of a bitmap chunk that were not returned yet */
+    private long word;
+
+    private boolean wordLoaded;
+
+    @Override
+    public boolean hasNext() {
+      while (this.chunkIndex < chunkCount) {
+        Object chunk = chunks[this.chunkIndex];
+        if (chunk instanceof long[]) {
+          long[] words = (long[]) chunk;
+          while (this.position < BITMAP_WORDS) {
+            if (!this.wordLoaded) {
+              this.word = words[this.position];
+              this.wordLoaded = true;
+            }
+            if (this.word != 0) {
+              return true;
+            }
+            this.position++;
+            this.wordLoaded = false;
+          }
+        } else if (this.position < sizes[this.chunkIndex]) {
+          return true;
+        }
+        this.chunkIndex++;
+        this.position = 0;
+        this.wordLoaded = false;
+      }
+      return false;
+    }
+
+    @Override
+    public int nextInt() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      int high = keys[this.chunkIndex] << 16;
+      Object chunk = chunks[this.chunkIndex];
+      if (chunk instanceof long[]) {
+        int low = (this.position << 6) + Long.numberOfTrailingZeros(this.word);
+        this.word &= this.word - 1;
+        return high | low;
+      }
+      return high | ((char[]) chunk)[this.position++];
+    }
+  }
+}
@@ -0,0 +1,132 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.cache.query.internal.index;
+
+import java.util.AbstractCollection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+import org.apache.geode.internal.cache.RegionEntry;
+
+/**
+ * The entries of an index key kept as an {@link EntryBitmap} of their ordinals. It replaces the
+ * {@link IndexConcurrentHashSet} of the keys with many entries when
+ * {@link IndexManager#BITMAP_INDEX_STORE} is set, which takes a bit per entry of the region for the
+ * fields with few distinct values.
+ *
+ * All the methods synchronize on the set. Iterators go over a copy of the bitmap and skip the
+ * entries that were removed from the set since.
+ *
+ * @since Geode 1.8
+ */
+class EntryBitmapSet extends AbstractCollection<RegionEntry> {
+
+  private final EntryOrdinals ordinals;
+
+  // guarded by this
+  private EntryBitmap bitmap = new EntryBitmap();
+
+  EntryBitmapSet(EntryOrdinals ordinals) {
+    this.ordinals = ordinals;
+  }
+
+  @Override
+  public synchronized boolean add(RegionEntry entry) {
+    return this.bitmap.add(this.ordinals.getOrdinal(entry));
+  }
+
+  @Override
+  public synchronized boolean remove(Object entry) {
+    if (!(entry instanceof RegionEntry)) {
+      return false;
+    }
+    int ordinal = this.ordinals.getExistingOrdinal((RegionEntry) entry);
+    return ordinal >= 0 && this.bitmap.remove(ordinal);
+  }
+
+  @Override
+  public synchronized boolean contains(Object entry) {
+    if (!(entry instanceof RegionEntry)) {
+      return false;
+    }
+    int ordinal = this.ordinals.getExistingOrdinal((RegionEntry) entry);
+    return ordinal >= 0 && this.bitmap.contains(ordinal);
+  }
+
+  private synchronized boolean containsOrdinal(int ordinal) {
+    return this.bitmap.contains(ordinal);
+  }
+
+  @Override
+  public synchronized int size() {
+    return this.bitmap.getCardinality();
+  }
+
+  @Override
+  public synchronized boolean isEmpty() {
+    return this.bitmap.isEmpty();
+  }
+
+  @Override
+  public synchronized void clear() {
+    this.bitmap = new EntryBitmap();
+  }
+
+  /**
+   * Returns a copy of the ordinals of the entries of this set.
+   */
+  synchronized EntryBitmap getBitmap() {
+    return this.bitmap.copy();
+  }
+
+  @Override
+  public Iterator<RegionEntry> iterator() {
+    return new EntryIterator(getBitmap().iterator());
+  }
+
+  private class EntryIterator implements Iterator<RegionEntry> {
+    private final PrimitiveIterator.OfInt ordinalIterator;
+
+    private RegionEntry next;
+
+    EntryIterator(PrimitiveIterator.OfInt ordinalIterator) {
+      this.ordinalIterator = ordinalIterator;
+    }
+
+    @Override
+    public boolean hasNext() {
+      while (this.next == null && this.ordinalIterator.hasNext()) {
+        int ordinal = this.ordinalIterator.nextInt();
+        RegionEntry entry = ordinals.getEntry(ordinal);
+        // the ordinal may have been released and given to an entry of another key
+        if (entry != null && containsOrdinal(ordinal)) {
+          this.next = entry;
+        }
+      }
+      return this.next != null;
+    }
+
+    @Override
+    public RegionEntry next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      RegionEntry entry = this.next;
+      this.next = null;
+      return entry;
+    }
+  }
+}
@@ -0,0 +1,162 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.cache.query.internal.index;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.Set;
+
+import org.apache.geode.internal.cache.RegionEntry;
+
+/**
+ * The entries matching conditions evaluated by the {@link BitmapIndexEvaluator}. The entries that
+ * have an ordinal, which are the entries kept in the bitmap of a key of an index of the region, are
+ * held in an {@link EntryBitmap}, and the other entries are held themselves. Evaluating conditions
+ * does not give ordinals to entries, so only the entries of the keys with many entries take one.
+ *
+ * @since Geode 1.8
+ */
+class EntryMatches implements Iterable<RegionEntry> {
+
+  private final EntryOrdinals ordinals;
+
+  private EntryBitmap bitmap = new EntryBitmap();
+
+  /** the entries that had no ordinal when they were added */
+  private Set<RegionEntry> others = new HashSet<>();
+
+  EntryMatches(EntryOrdinals ordinals) {
+    this.ordinals = ordinals;
+  }
+
+  /**
+   * Adds the entries of an index key, which are a RegionEntry or a collection of them.
+   */
+  void addEntries(Object regionEntries) {
+    if (regionEntries instanceof EntryBitmapSet) {
+      this.bitmap = this.bitmap.or(((EntryBitmapSet) regionEntries).getBitmap());
+    } else if (regionEntries instanceof RegionEntry) {
+      add((RegionEntry) regionEntries);
+    } else if (regionEntries instanceof Collection) {
+      for (Object entry : (Collection) regionEntries) {
+        add((RegionEntry) entry);
+      }
+    }
+  }
+
+  private void add(RegionEntry entry) {
+    int ordinal = this.ordinals.getExistingOrdinal(entry);
+    if (ordinal >= 0) {
+      this.bitmap.add(ordinal);
+    } else {
+      this.others.add(entry);
+    }
+  }
+
+  boolean contains(RegionEntry entry) {
+    return isInBitmap(entry) || this.others.contains(entry);
+  }
+
+  private boolean isInBitmap(RegionEntry entry) {
+    int ordinal = this.ordinals.getExistingOrdinal(entry);
+    return ordinal >= 0 && this.bitmap.contains(ordinal);
+  }
+
+  /**
+   * Keeps the entries that also match the other conditions.
+   */
+  void retainAll(EntryMatches other) {
+    // an entry may have been given an ordinal since it was added to one of them
+    Set<RegionEntry> retained = new HashSet<>();
+    for (RegionEntry entry : this.others) {
+      if (other.contains(entry)) {
+        retained.add(entry);
+      }
+    }
+    for (RegionEntry entry : other.others) {
+      if (contains(entry)) {
+        retained.add(entry);
+      }
+    }
+    this.bitmap = this.bitmap.and(other.bitmap);
+    this.others = retained;
+  }
+
+  /**
+   * Adds the entries that match the other conditions.
+   */
+  void addAll(EntryMatches other) {
+    this.bitmap = this.bitmap.or(other.bitmap);
+    this.others.addAll(other.others);
+  }
+
+  /**
+   * Removes the entries that match the other conditions.
+   */
+  void removeAll(EntryMatches other) {
+    this.others.removeIf(other::contains);
+    EntryBitmap removed = other.bitmap.copy();
+    for (RegionEntry entry : other.others) {
+      int ordinal = this.ordinals.getExistingOrdinal(entry);
+      if (ordinal >= 0) {
+        removed.add(ordinal);
+      }
+    }
+    this.bitmap = this.bitmap.andNot(removed);
+  }
+
+  /**
+   * Returns the entries, each once. The entries numbered by the ordinals of the bitmap are looked
+   * up when iterating, so an ordinal released since it was added is skipped or gives another entry.
+   */
+  @Override
+  public Iterator<RegionEntry> iterator() {
+    return new Iterator<RegionEntry>() {
+      private final PrimitiveIterator.OfInt ordinalIterator = bitmap.iterator();
+
+      private final Iterator<RegionEntry> othersIterator = others.iterator();
+
+      private RegionEntry next;
+
+      @Override
+      public boolean hasNext() {
+        while (this.next == null && this.ordinalIterator.hasNext()) {
+          this.next = ordinals.getEntry(this.ordinalIterator.nextInt());
+        }
+        while (this.next == null && this.othersIterator.hasNext()) {
+          RegionEntry entry = this.othersIterator.next();
+          // returned with the bitmap if it was given an ordinal since
+          if (!isInBitmap(entry)) {
+            this.next = entry;
+          }
+        }
+        return this.next != null;
+      }
+
+      @Override
+      public RegionEntry next() {
+        if (!hasNext()) {
+          throw new NoSuchElementException();
+        }
+        RegionEntry entry = this.next;
+        this.next = null;
+        return entry;
+      }
+    };
+  }
+}
@@ -0,0 +1,128 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.cache.query.internal.index;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import org.apache.geode.internal.cache.LocalRegion;
+import org.apache.geode.internal.cache.RegionEntry;
+
+/**
+ * Numbers the entries of a region for the {@link EntryBitmap}s of its indexes. All the indexes of a
+ * region share the same ordinals, so that their bitmaps can be combined. The ordinal of an entry is
+ * released when the entry is destroyed and is then given to another entry.
+ *
+ * @since Geode 1.8
+ */
+public class EntryOrdinals {
+
+  private static final int CHUNK_BITS = 16;
+
+  private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+
+  private final ConcurrentMap<RegionEntry, Integer> ordinals = new ConcurrentHashMap<>();
+
+  private volatile AtomicReferenceArray<RegionEntry>[] entries = new AtomicReferenceArray[0];
+
+  // guarded by this
+  private int nextOrdinal;
+
+  // guarded by this
+  private int[] releasedOrdinals = new int[16];
+
+  // guarded by this
+  private int releasedCount;
+
+  /**
+   * Returns the ordinal of the entry, numbering it first if it has none.
+   */
+  public int getOrdinal(RegionEntry entry) {
+    Integer ordinal = this.ordinals.get(entry);
+    if (ordinal != null) {
+      return ordinal;
+    }
+    synchronized (this) {
+      ordinal = this.ordinals.get(entry);
+      if (ordinal != null) {
+        return ordinal;
+      }
+      int newOrdinal =
+          this.releasedCount > 0 ? this.releasedOrdinals[--this.releasedCount] : this.nextOrdinal++;
+      int chunk = newOrdinal >>> CHUNK_BITS;
+      if (chunk >= this.entries.length) {
+        AtomicReferenceArray<RegionEntry>[] grown = Arrays.copyOf(this.entries, chunk + 1);
+        grown[chunk] = new AtomicReferenceArray<>(CHUNK_SIZE);
+        this.entries = grown;
+      }
+      this.entries[chunk].set(newOrdinal & (CHUNK_SIZE - 1), entry);
+      this.ordinals.put(entry, newOrdinal);
+      return newOrdinal;
+    }
+  }
+
+  /**
+   * Returns the ordinal of the entry, or -1 if it has none.
+   */
+  public int getExistingOrdinal(RegionEntry entry) {
+    Integer ordinal = this.ordinals.get(entry);
+    return ordinal == null ? -1 : ordinal;
+  }
+
+  /**
+   * Returns the entry numbered by the ordinal, or null if the ordinal is not in use.
+   */
+  public RegionEntry getEntry(int ordinal) {
+    AtomicReferenceArray<RegionEntry>[] entries = this.entries;
+    int chunk = ordinal >>> CHUNK_BITS;
+    if (chunk >= entries.length) {
+      return null;
+    }
+    return entries[chunk].get(ordinal & (CHUNK_SIZE - 1));
+  }
+
+  /**
+   * Releases the ordinal of an entry that was removed from all the indexes of the region.
+   */
+  public synchronized void release(RegionEntry entry) {
+    Integer ordinal = this.ordinals.remove(entry);
+    if (ordinal == null) {
+      return;
+    }
+    this.entries[ordinal >>> CHUNK_BITS].set(ordinal & (CHUNK_SIZE - 1), null);
+    if (this.releasedCount == this.releasedOrdinals.length) {
+      this.releasedOrdinals = Arrays.copyOf(this.releasedOrdinals, this.releasedCount * 2);
+    }
+    this.releasedOrdinals[this.releasedCount++] = ordinal;
+  }
+
+  /**
+   * Releases the ordinals of the entries that are no longer in the region, which happens when the
+   * region is cleared, once the indexes have been recreated.
+   */
+  public void releaseRemovedEntries(LocalRegion region) {
+    for (RegionEntry entry : this.ordinals.keySet()) {
+      if (region.getRegionEntry(entry.getKey()) != entry) {
+        release(entry);
+      }
+    }
+  }
+
+  public int size() {
+    return this.ordinals.size();
+  }
+}
@@ -0,0 +1,195 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.cache.query.internal.index;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+
+import org.apache.geode.cache.query.QueryService;
+import org.apache.geode.cache.query.internal.index.IndexStore.IndexStoreEntry;
+import org.apache.geode.cache.query.internal.parse.OQLLexerTokenTypes;
+import org.apache.geode.cache.query.internal.types.TypeUtils;
+import org.apache.geode.distributed.internal.DistributionConfig;
+import org.apache.geode.internal.hll.HyperLogLogPlus;
+
+/**
+ * Snapshot of the distribution of the keys of an index, used to estimate the number of entries a
+ * condition matches. It is built by one pass over the entries of the index in key order: the
+ * distinct keys are counted by a {@link HyperLogLogPlus}, so that the memory used does not depend
+ * on the number of keys, and an equi-depth histogram keeps the key found every {@link #step}
+ * entries.
+ *
+ * The null and undefined keys are not counted, since they never match a range condition.
+ *
+ * @since Geode 1.8
+ */
+public class IndexKeyStatistics {
+
+  /**
+   * The number of buckets of the histogram, which bounds the error of a range estimate to about
+   * the number of entries divided by this number.
+   */
+  static final int HISTOGRAM_BUCKETS =
+      Math.max(1, Integer.getInteger(DistributionConfig.GEMFIRE_PREFIX + "index.HISTOGRAM_BUCKETS",
+          64));
+
+  // about 1.6% standard error for 2.5KB of registers
+  private static final int HLL_PRECISION = 12;
+
+  // exact counts while few keys are offered
+  private static final int HLL_SPARSE_PRECISION = 20;
+
+  private final long entryCount;
+
+  private final long distinctKeyCount;
+
+  /** bounds[i] is the key of the entry at rank i * step */
+  private final Object[] bounds;
+
+  private final long step;
+
+  /** The largest key, or null if there is no entry */
+  private final Object lastKey;
+
+  /** The number of updates of the index when this snapshot was built */
+  private final long updatesAtBuild;
+
+  private IndexKeyStatistics(long entryCount, long distinctKeyCount, Object[] bounds, long step,
+      Object lastKey, long updatesAtBuild) {
+    this.entryCount = entryCount;
+    this.distinctKeyCount = distinctKeyCount;
+    this.bounds = bounds;
+    this.step = step;
+    this.lastKey = lastKey;
+    this.updatesAtBuild = updatesAtBuild;
+  }
+
+  /**
+   * @param entries the entries of the index in ascending key order
+   * @param expectedEntryCount the number of entries expected, used to size the buckets
+   * @param updates the number of updates of the index so far
+   */
+  static IndexKeyStatistics build(Iterator<IndexStoreEntry> entries, long expectedEntryCount,
+      long updates) {
+    long step = Math.max(1, expectedEntryCount / HISTOGRAM_BUCKETS);
+    HyperLogLogPlus distinctKeys = new HyperLogLogPlus(HLL_PRECISION, HLL_SPARSE_PRECISION);
+    List<Object> bounds = new ArrayList<>(HISTOGRAM_BUCKETS + 1);
+    long count = 0;
+    Object lastKey = null;
+    while (entries.hasNext()) {
+      Object key = entries.next().getDeserializedKey();
+      if (key == IndexManager.NULL || key == QueryService.UNDEFINED) {
+        continue;
+      }
+      if (count % step == 0) {
+        bounds.add(key);
+      }
+      // consecutive entries mostly share their key
+      if (key != lastKey) {
+        distinctKeys.offer(key);
+        lastKey = key;
+      }
+      count++;
+    }
+    return new IndexKeyStatistics(count, Math.min(count, distinctKeys.cardinality()),
+        bounds.toArray(), step, lastKey, updates);
+  }
+
+  public long getEntryCount() {
+    return this.entryCount;
+  }
+
+  public long getDistinctKeyCount() {
+    return this.distinctKeyCount;
+  }
+
+  long getUpdatesAtBuild() {
+    return this.updatesAtBuild;
+  }
+
+  /**
+   * Returns the average number of entries per key, which estimates the number of entries an
+   * equality condition on a key that is not known yet matches.
+   */
+  public long getAverageEntriesPerKey() {
+    if (this.distinctKeyCount == 0) {
+      return 0;
+    }
+    return Math.max(1, this.entryCount / this.distinctKeyCount);
+  }
+
+  /**
+   * Estimates the number of entries a range condition matches.
+   *
+   * @param key the key compared to, in the form stored by the index
+   * @param operator one of TOK_LT, TOK_LE, TOK_GT and TOK_GE
+   * @param keyEntryCount the current number of entries with the key, which may be more than the
+   *        entries counted by these statistics if they are stale
+   * @throws ClassCastException if the key can not be compared to the keys of the index
+   */
+  public long estimateRangeSize(Object key, int operator, long keyEntryCount) {
+    long lessThan =
+        Math.max(0, Math.min(estimateEntriesLessThan(key), this.entryCount - keyEntryCount));
+    switch (operator) {
+      case OQLLexerTokenTypes.TOK_LT:
+        return lessThan;
+      case OQLLexerTokenTypes.TOK_LE:
+        return lessThan + keyEntryCount;
+      case OQLLexerTokenTypes.TOK_GT:
+        return Math.max(0, this.entryCount - lessThan - keyEntryCount);
+      case OQLLexerTokenTypes.TOK_GE:
+        return this.entryCount - lessThan;
+      default:
+        return this.entryCount;
+    }
+  }
+
+  private long estimateEntriesLessThan(Object key) {
+    if (this.bounds.length == 0) {
+      return 0;
+    }
+    Comparator comparator = TypeUtils.getExtendedNumericComparator();
+    // number of bounds less than the key
+    int low = 0;
+    int high = this.bounds.length;
+    while (low < high) {
+      int mid = (low + high) >>> 1;
+      if (comparator.compare(this.bounds[mid], key) < 0) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+    if (low == 0) {
+      return 0;
+    }
+    if (low == this.bounds.length && comparator.compare(this.lastKey, key) < 0) {
+      return this.entryCount;
+    }
+    // the entries less than the key are between the rank of the last bound less than the key and
+    // the rank of the next bound, or the last entry
+    long lastRankBelow = (low - 1) * this.step;
+    long nextRank = low < this.bounds.length ? low * this.step : this.entryCount;
+    return lastRankBelow + (nextRank - lastRankBelow + 1) / 2;
+  }
+
+  @Override
+  public String toString() {
+    return "IndexKeyStatistics[entries=" + this.entryCount + ", distinctKeys="
+        + this.distinctKeyCount + ", buckets=" + this.bounds.length + "]";
+  }
+}
@@ -19,19 +19,23 @@ import static org.apache.geode.internal.lang.SystemUtils.getLineSeparator;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
 import java.util.concurrent.FutureTask;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.logging.log4j.Logger;
@@ -83,6 +87,8 @@ public class IndexManager {
   // Asif : This action is to rerun Index creation after
   // clear is called on the region
   public static final int RECREATE_INDEX = 4;
+  // Marks the tasks the index updater thread has to apply before a query waits for them
+  private static final int FLUSH = 5;
   private final InternalCache cache;
   protected final Region region;
 
@@ -103,10 +109,28 @@ public class IndexManager {
   private ConcurrentMap canonicalizedIteratorNameMap = new ConcurrentHashMap();
   private IndexUpdaterThread updater;
 
+  private volatile EntryOrdinals entryOrdinals;
+
   // Threshold for Queue.
   private final int INDEX_MAINTENANCE_BUFFER =
       Integer.getInteger(DistributionConfig.GEMFIRE_PREFIX + "AsynchIndexMaintenanceThreshold", -1);
 
+  /**
+   * The maximum time in milliseconds an update of the indexes of a region with asynchronous index
+   * maintenance should wait to be applied. The threads that update the region wait for the index
+   * updater thread while the oldest pending update is older, but for at most as long, so the lag is
+   * only bounded as long as the index updater thread keeps up. Zero means that the lag is not
+   * bounded.
+   */
+  static final long ASYNC_MAINTENANCE_MAX_LAG =
+      Long.getLong(DistributionConfig.GEMFIRE_PREFIX + "index.AsyncMaintenanceMaxLag", 0);
+
+  /**
+   * The maximum number of updates the index updater thread applies at once.
+   */
+  static final int ASYNC_MAINTENANCE_BATCH_SIZE = Math.max(1, Integer
+      .getInteger(DistributionConfig.GEMFIRE_PREFIX + "index.AsyncMaintenanceBatchSize", 100));
+
   public static boolean JOIN_OPTIMIZATION =
       !Boolean.getBoolean(DistributionConfig.GEMFIRE_PREFIX + "index.DisableJoinOptimization");
 
@@ -135,6 +159,22 @@ public class IndexManager {
   public static final boolean RANGEINDEX_ONLY = Boolean.valueOf(
       System.getProperty(DistributionConfig.GEMFIRE_PREFIX + "index.RANGEINDEX_ONLY", "false"));
 
+  /**
+   * System property to keep the entries of the compact range indexes in sorted blocks allocated
+   * outside of the java heap instead of in a map of the heap.
+   */
+  public static boolean OFF_HEAP_INDEX_STORE = Boolean.valueOf(System.getProperty(
+      DistributionConfig.GEMFIRE_PREFIX + "index.OFF_HEAP_INDEX_STORE", "false"));
+
+  /**
+   * System property to keep the entries of the index keys that have many entries in bitmaps of
+   * entry ordinals instead of in concurrent hash sets. The bitmaps take a bit per entry of the
+   * region, which makes the indexes on fields with few distinct values much smaller, and the
+   * equality conditions of a junction on such indexes are combined on the bitmaps.
+   */
+  public static boolean BITMAP_INDEX_STORE = Boolean.valueOf(System.getProperty(
+      DistributionConfig.GEMFIRE_PREFIX + "index.BITMAP_INDEX_STORE", "false"));
+
   /** For test purpose only */
   public static boolean TEST_RANGEINDEX_ONLY = false;
   public static final String INDEX_ELEMARRAY_THRESHOLD_PROP = "index_elemarray_threshold";
@@ -233,6 +273,19 @@ public class IndexManager {
     return region;
   }
 
+  /**
+   * Waits until the index updates made before this call are applied, if the indexes of the region
+   * are maintained asynchronously.
+   *
+   * @return false if they were not applied within the timeout
+   */
+  public boolean waitForPendingUpdates(long timeoutMillis) throws InterruptedException {
+    if (this.updater == null) {
+      return true;
+    }
+    return this.updater.waitForPendingTasks(timeoutMillis);
+  }
+
   /**
    * Used by tests to access the updater thread to determine its progress
    */
@@ -857,6 +910,20 @@ public class IndexManager {
   }
 
 
+  /**
+   * Returns the ordinals of the entries of the region that are kept in the bitmaps of its indexes.
+   */
+  EntryOrdinals getEntryOrdinals() {
+    if (this.entryOrdinals == null) {
+      synchronized (this) {
+        if (this.entryOrdinals == null) {
+          this.entryOrdinals = new EntryOrdinals();
+        }
+      }
+    }
+    return this.entryOrdinals;
+  }
+
   /**
    * Asif : This function is invoked during clear operation on Region. It causes re execution of
    * Index Initialization query on the region & before doing this it makes theexisting data maps
@@ -887,6 +954,15 @@ public class IndexManager {
    * populates all the indexes in the region
    */
   public void populateIndexes(Collection<Index> indexSet) throws MultiIndexCreationException {
+    populateIndexes(indexSet, false);
+  }
+
+  /**
+   * populates all the indexes in the region, after loading the mappings saved when the region was
+   * closed if recoverSavedIndexes is true. Only the entries that were not loaded are evaluated.
+   */
+  public void populateIndexes(Collection<Index> indexSet, boolean recoverSavedIndexes)
+      throws MultiIndexCreationException {
     waitBeforeUpdate();
     if (region.getCache().getLogger().infoEnabled()) {
       region.getCache().getLogger().info("Populating indexes for region " + region.getName());
@@ -896,19 +972,29 @@ public class IndexManager {
     boolean oldReadSerialized = this.cache.getPdxReadSerializedOverride();
     this.cache.setPdxReadSerializedOverride(true);
     try {
+      Map<Index, Set<RegionEntry>> loadedEntries = recoverSavedIndexes
+          ? new IndexSnapshot((LocalRegion) this.region).load(indexSet) : Collections.emptyMap();
       Iterator entryIter = ((LocalRegion) region).getBestIterator(true);
       while (entryIter.hasNext()) {
         RegionEntry entry = (RegionEntry) entryIter.next();
         if (entry == null || entry.isInvalidOrRemoved()) {
           continue;
         }
-        // Fault in the value once before index update so that every index
-        // update does not have
-        // to read the value from disk every time.
-        entry.getValue((LocalRegion) this.region);
+        boolean faultedIn = false;
         Iterator<Index> indexSetIterator = indexSet.iterator();
         while (indexSetIterator.hasNext()) {
           AbstractIndex index = (AbstractIndex) indexSetIterator.next();
+          Set<RegionEntry> loaded = loadedEntries.get(index);
+          if (loaded != null && loaded.contains(entry)) {
+            continue;
+          }
+          if (!faultedIn) {
+            // Fault in the value once before index update so that every index
+            // update does not have
+            // to read the value from disk every time.
+            entry.getValue((LocalRegion) this.region);
+            faultedIn = true;
+          }
           if (!index.isPopulated() && index.getType() != IndexType.PRIMARY_KEY) {
             if (logger.isDebugEnabled()) {
               logger.debug("Adding to index :{}{} value :{}", index.getName(),
@@ -940,6 +1026,31 @@ public class IndexManager {
     }
   }
 
+  /**
+   * Returns true if the mappings of indexes of this region were saved when the region was closed.
+   */
+  public boolean hasSavedIndexes() {
+    return new IndexSnapshot((LocalRegion) this.region).exists();
+  }
+
+  /**
+   * Saves the mappings of the compact range indexes of this region if it is persistent, so that
+   * they are loaded by {@link #populateIndexes(Collection, boolean)} when the region is recovered.
+   * Called when the region is closed.
+   */
+  public void saveIndexes() {
+    IndexSnapshot snapshot = new IndexSnapshot((LocalRegion) this.region);
+    if (!snapshot.isEnabled() || !isIndexMaintenanceTypeSynchronous()) {
+      return;
+    }
+    waitBeforeUpdate();
+    try {
+      snapshot.save(this.indexes.values());
+    } finally {
+      notifyAfterUpdate();
+    }
+  }
+
   /**
    * Sets the {@link AbstractIndex#isPopulated} after populating all the indexes in this region
    */
@@ -989,7 +1100,6 @@ public class IndexManager {
    * @param opCode one of IndexProtocol.OTHER_OP, BEFORE_UPDATE_OP, AFTER_UPDATE_OP.
    */
   private void processAction(RegionEntry entry, int action, int opCode) throws QueryException {
-    final long startPA = getCachePerfStats().startIndexUpdate();
     Boolean initialPdxReadSerialized = this.cache.getPdxReadSerializedOverride();
     this.cache.setPdxReadSerializedOverride(true);
     TXStateProxy tx = null;
@@ -997,6 +1107,23 @@ public class IndexManager {
       tx = ((TXManagerImpl) this.cache.getCacheTransactionManager()).pauseTransaction();
     }
 
+    try {
+      basicProcessAction(entry, action, opCode);
+    } finally {
+      this.cache.setPdxReadSerializedOverride(initialPdxReadSerialized);
+      ((TXManagerImpl) this.cache.getCacheTransactionManager()).unpauseTransaction(tx);
+    }
+  }
+
+  /**
+   * Applies an action to the indexes. The caller must set the pdx read serialized override and
+   * pause the transaction of the thread.
+   *
+   * @param opCode one of IndexProtocol.OTHER_OP, BEFORE_UPDATE_OP, AFTER_UPDATE_OP.
+   */
+  private void basicProcessAction(RegionEntry entry, int action, int opCode)
+      throws QueryException {
+    final long startPA = getCachePerfStats().startIndexUpdate();
     try {
       // Asif: Allow the thread to update iff there is no current index
       // creator thread in progress. There will not be any issue if
@@ -1128,6 +1255,9 @@ public class IndexManager {
               ((AbstractIndex) index).updateIndexUpdateStats(start);
             }
           }
+          if (this.entryOrdinals != null && opCode != IndexProtocol.BEFORE_UPDATE_OP) {
+            this.entryOrdinals.release(entry);
+          }
           break;
         }
         default: {
@@ -1136,9 +1266,6 @@ public class IndexManager {
         }
       }
     } finally {
-      this.cache.setPdxReadSerializedOverride(initialPdxReadSerialized);
-      ((TXManagerImpl) this.cache.getCacheTransactionManager()).unpauseTransaction(tx);
-
       getCachePerfStats().endIndexUpdate(startPA);
     }
   }
@@ -1229,6 +1356,9 @@ public class IndexManager {
 
         }
       }
+      if (this.entryOrdinals != null) {
+        this.entryOrdinals.releaseRemovedEntries((LocalRegion) this.region);
+      }
     } catch (Exception e) {
       throw new IndexInvalidException(e);
     } finally {
@@ -1396,6 +1526,9 @@ public class IndexManager {
 
     private volatile BlockingQueue pendingTasks;
 
+    /** Notified each time a batch of tasks is applied. */
+    private final Object progressLock = new Object();
+
     /**
      * Creates instance of IndexUpdaterThread
      */
@@ -1412,11 +1545,92 @@ public class IndexManager {
     }
 
     public void addTask(int action, RegionEntry entry, int opCode) {
-      Object[] task = new Object[3];
+      Object[] task = new Object[4];
       task[0] = action;
       task[1] = entry;
       task[2] = opCode;
+      task[3] = System.nanoTime();
+      pendingTasks.add(task);
+      if (ASYNC_MAINTENANCE_MAX_LAG > 0 && action != RECREATE_INDEX) {
+        waitForLag();
+      }
+    }
+
+    /**
+     * Waits while the oldest pending task was added more than {@link #ASYNC_MAINTENANCE_MAX_LAG}
+     * milliseconds ago. Waits at most as long, since the calling thread may hold locks that the
+     * recreation of the indexes waits for.
+     */
+    private void waitForLag() {
+      long maxLag = TimeUnit.MILLISECONDS.toNanos(ASYNC_MAINTENANCE_MAX_LAG);
+      long deadline = System.nanoTime() + maxLag;
+      synchronized (this.progressLock) {
+        boolean interrupted = false;
+        try {
+          while (this.running && isLagging(maxLag)) {
+            long remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+            if (remaining <= 0) {
+              break;
+            }
+            try {
+              this.progressLock.wait(remaining);
+            } catch (InterruptedException ignored) {
+              interrupted = true;
+              break;
+            }
+          }
+        } finally {
+          if (interrupted) {
+            Thread.currentThread().interrupt();
+          }
+        }
+      }
+    }
+
+    private boolean isLagging(long maxLag) {
+      Object[] oldestTask = (Object[]) pendingTasks.peek();
+      return oldestTask != null && System.nanoTime() - (Long) oldestTask[3] > maxLag;
+    }
+
+    /**
+     * Waits until the tasks added before this call are applied.
+     *
+     * @return false if they were not applied within the timeout
+     */
+    boolean waitForPendingTasks(long timeoutMillis) throws InterruptedException {
+      if (!this.running) {
+        return this.pendingTasks.isEmpty();
+      }
+      CountDownLatch flushed = new CountDownLatch(1);
+      Object[] task = new Object[4];
+      task[0] = FLUSH;
+      task[1] = flushed;
+      task[2] = IndexProtocol.OTHER_OP;
+      task[3] = System.nanoTime();
       pendingTasks.add(task);
+      if (!this.running) {
+        // the thread may have stopped without seeing the task
+        releasePendingFlushes();
+      }
+      return flushed.await(timeoutMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Releases the threads waiting for the tasks still queued to be applied. Called once this
+     * thread has stopped, since they will never be.
+     */
+    private void releasePendingFlushes() {
+      List<Object[]> tasks = new ArrayList<>();
+      pendingTasks.drainTo(tasks);
+      releaseFlushes(tasks);
+    }
+
+    private void releaseFlushes(List<Object[]> tasks) {
+      for (Object[] task : tasks) {
+        if ((Integer) task[0] == FLUSH) {
+          ((CountDownLatch) task[1]).countDown();
+        }
+      }
     }
 
     /**
@@ -1441,6 +1655,7 @@ public class IndexManager {
       // async writers main loop
       // logger.debug("DiskRegion writer started (writer=" + this + ")");
       org.apache.geode.CancelCriterion stopper = ((LocalRegion) region).getCancelCriterion();
+      List<Object[]> batch = new ArrayList<>();
       try {
         while (!this.shutdownRequested) {
           // Termination checks
@@ -1449,22 +1664,56 @@ public class IndexManager {
             break;
           }
           try {
-            Object[] task = (Object[]) pendingTasks.take();
+            batch.add((Object[]) pendingTasks.take());
             if (this.shutdownRequested) {
               break;
             }
-            updateIndexes(task);
+            // apply the tasks queued meanwhile at once
+            pendingTasks.drainTo(batch, ASYNC_MAINTENANCE_BATCH_SIZE - 1);
+            updateIndexes(batch);
+            batch.clear();
           } catch (InterruptedException ignore) {
             return; // give up (exit the thread)
+          } finally {
+            synchronized (this.progressLock) {
+              this.progressLock.notifyAll();
+            }
           }
         }
       } finally {
         this.running = false;
+        // the tasks taken but not applied, and the ones still queued, will never be applied
+        releaseFlushes(batch);
+        releasePendingFlushes();
+        synchronized (this.progressLock) {
+          this.progressLock.notifyAll();
+        }
+      }
+    }
+
+    private void updateIndexes(List<Object[]> batch) {
+      Boolean initialPdxReadSerialized = cache.getPdxReadSerializedOverride();
+      cache.setPdxReadSerializedOverride(true);
+      TXStateProxy tx = null;
+      if (!cache.isClient()) {
+        tx = ((TXManagerImpl) cache.getCacheTransactionManager()).pauseTransaction();
+      }
+      try {
+        for (Object[] task : batch) {
+          updateIndexes(task);
+        }
+      } finally {
+        cache.setPdxReadSerializedOverride(initialPdxReadSerialized);
+        ((TXManagerImpl) cache.getCacheTransactionManager()).unpauseTransaction(tx);
       }
     }
 
     private void updateIndexes(Object[] task) {
       int action = (Integer) task[0];
+      if (action == FLUSH) {
+        ((CountDownLatch) task[1]).countDown();
+        return;
+      }
       RegionEntry entry = (RegionEntry) task[1];
       int opCode = (Integer) task[2];
       // System.out.println("entry = "+entry.getKey());
@@ -1476,7 +1725,7 @@ public class IndexManager {
             if (entry != null) {
               entry.setUpdateInProgress(true);
             }
-            processAction(entry, action, opCode);
+            basicProcessAction(entry, action, opCode);
           }
         } catch (Exception e) {
           e.printStackTrace();
@@ -0,0 +1,265 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.cache.query.internal.index;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+import org.apache.logging.log4j.Logger;
+
+import org.apache.geode.DataSerializer;
+import org.apache.geode.cache.query.Index;
+import org.apache.geode.cache.query.QueryService;
+import org.apache.geode.cache.query.internal.index.IndexStore.IndexStoreEntry;
+import org.apache.geode.distributed.internal.DistributionConfig;
+import org.apache.geode.internal.cache.DiskId;
+import org.apache.geode.internal.cache.DiskRegion;
+import org.apache.geode.internal.cache.LocalRegion;
+import org.apache.geode.internal.cache.RegionEntry;
+import org.apache.geode.internal.cache.entries.DiskEntry;
+import org.apache.geode.internal.cache.persistence.query.CloseableIterator;
+import org.apache.geode.internal.logging.LogService;
+import org.apache.geode.pdx.internal.PdxString;
+
+/**
+ * Saves the mappings of the compact range indexes of a persistent region in a file of its disk
+ * store when the region is closed, and loads them back when the region is recovered, so that the
+ * indexed expression does not have to be evaluated on every recovered entry.
+ *
+ * Each mapping is saved with the location in the oplogs of the value of its entry. A value is never
+ * written twice at the same location, so the mapping of an entry recovered at the same location is
+ * still valid. The entries that were modified, compacted or created since, and the entries of the
+ * indexes that were not saved, are evaluated as usual once the saved mappings are loaded. The file
+ * is deleted once read, so that it is only used by the recovery that follows a clean close.
+ *
+ * @since Geode 1.8
+ */
+class IndexSnapshot {
+  private static final Logger logger = LogService.getLogger();
+
+  /**
+   * System property to save the compact range indexes of persistent regions when they are closed.
+   */
+  static final String PERSIST_INDEXES_PROPERTY =
+      DistributionConfig.GEMFIRE_PREFIX + "index.PERSIST_INDEXES";
+
+  private static final int VERSION = 1;
+
+  private static final byte END_OF_INDEX = 0;
+  private static final byte OBJECT_KEY = 1;
+  private static final byte PDX_STRING_KEY = 2;
+
+  private final LocalRegion region;
+
+  private final File file;
+
+  IndexSnapshot(LocalRegion region) {
+    this.region = region;
+    DiskRegion diskRegion = region.getDiskRegion();
+    // the indexes of local regions are created before the entries are recovered
+    if (Boolean.getBoolean(PERSIST_INDEXES_PROPERTY) && diskRegion != null
+        && diskRegion.isBackup() && !region.getScope().isLocal()) {
+      this.file = new File(region.getDiskStore().getDiskDirs()[0],
+          "INDEX" + region.getFullPath().replace('/', '_') + ".idx");
+    } else {
+      this.file = null;
+    }
+  }
+
+  /**
+   * Returns true if the indexes of the region are saved when it is closed.
+   */
+  boolean isEnabled() {
+    return this.file != null;
+  }
+
+  /**
+   * Returns true if indexes were saved for the region.
+   */
+  boolean exists() {
+    return this.file != null && this.file.exists();
+  }
+
+  /**
+   * Saves the mappings of the given indexes. Must be called while no entry of the region is
+   * modified.
+   */
+  void save(Collection indexes) {
+    // the location of the values written asynchronously is only known once written
+    this.region.getDiskRegion().forceFlush();
+    File tmpFile = new File(this.file.getPath() + ".tmp");
+    boolean saved = false;
+    try (DataOutputStream out =
+        new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmpFile)))) {
+      out.writeInt(VERSION);
+      // identifies the incarnation of the region, which changes when the region is destroyed
+      DataSerializer.writeObject(this.region.getDiskRegion().getMyPersistentID(), out);
+      for (Object index : indexes) {
+        if (isSaved(index)) {
+          CompactRangeIndex compactRangeIndex = (CompactRangeIndex) index;
+          out.writeBoolean(true);
+          out.writeUTF(compactRangeIndex.getName());
+          out.writeUTF(compactRangeIndex.getFromClause());
+          out.writeUTF(compactRangeIndex.getIndexedExpression());
+          IndexStore indexStore = compactRangeIndex.getIndexStorage();
+          // null and undefined keys are only returned when looked up
+          saveMappings(indexStore.iterator(null), out);
+          saveMappings(indexStore.get(IndexManager.NULL), out);
+          saveMappings(indexStore.get(QueryService.UNDEFINED), out);
+          out.writeByte(END_OF_INDEX);
+        }
+      }
+      out.writeBoolean(false);
+      saved = true;
+    } catch (IOException | RuntimeException e) {
+      logger.info("Failed to save the indexes of region {}: {}", this.region.getFullPath(),
+          e.toString());
+    }
+    if (saved) {
+      this.file.delete();
+      saved = tmpFile.renameTo(this.file);
+    }
+    if (!saved) {
+      tmpFile.delete();
+    }
+  }
+
+  private boolean isSaved(Object index) {
+    if (index.getClass() != CompactRangeIndex.class) {
+      return false;
+    }
+    CompactRangeIndex compactRangeIndex = (CompactRangeIndex) index;
+    return compactRangeIndex.isValid() && compactRangeIndex.isPopulated();
+  }
+
+  private void saveMappings(CloseableIterator<IndexStoreEntry> iterator, DataOutputStream out)
+      throws IOException {
+    try {
+      while (iterator.hasNext()) {
+        IndexStoreEntry mapping = iterator.next();
+        Object regionKey = mapping.getDeserializedRegionKey();
+        RegionEntry entry = this.region.getRegionEntry(regionKey);
+        if (!(entry instanceof DiskEntry)) {
+          continue;
+        }
+        DiskId diskId = ((DiskEntry) entry).getDiskId();
+        if (diskId == null || diskId.getOplogId() <= 0 || diskId.getOffsetInOplog() < 0) {
+          continue;
+        }
+        Object indexKey = mapping.getDeserializedKey();
+        if (indexKey instanceof PdxString) {
+          out.writeByte(PDX_STRING_KEY);
+          DataSerializer.writeString(indexKey.toString(), out);
+        } else {
+          out.writeByte(OBJECT_KEY);
+          DataSerializer.writeObject(indexKey, out);
+        }
+        DataSerializer.writeObject(regionKey, out);
+        out.writeLong(diskId.getOplogId());
+        out.writeLong(diskId.getOffsetInOplog());
+      }
+    } finally {
+      iterator.close();
+    }
+  }
+
+  /**
+   * Loads the saved mappings into the given indexes that are not populated yet, and deletes the
+   * file.
+   *
+   * @return the entries that were added to each index
+   */
+  Map<Index, Set<RegionEntry>> load(Collection<Index> indexes) {
+    if (!exists()) {
+      return Collections.emptyMap();
+    }
+    Map<Index, Set<RegionEntry>> loadedEntries = new HashMap<>();
+    try (DataInputStream in =
+        new DataInputStream(new BufferedInputStream(new FileInputStream(this.file)))) {
+      if (in.readInt() != VERSION || !Objects.equals(DataSerializer.readObject(in),
+          this.region.getDiskRegion().getMyPersistentID())) {
+        return loadedEntries;
+      }
+      while (in.readBoolean()) {
+        String name = in.readUTF();
+        String fromClause = in.readUTF();
+        String indexedExpression = in.readUTF();
+        CompactRangeIndex index = null;
+        for (Index candidate : indexes) {
+          if (candidate.getClass() == CompactRangeIndex.class
+              && candidate.getName().equals(name)
+              && candidate.getFromClause().equals(fromClause)
+              && candidate.getIndexedExpression().equals(indexedExpression)
+              && !((CompactRangeIndex) candidate).isPopulated()) {
+            index = (CompactRangeIndex) candidate;
+          }
+        }
+        Set<RegionEntry> entries = Collections.newSetFromMap(new IdentityHashMap<>());
+        if (index != null) {
+          loadedEntries.put(index, entries);
+        }
+        loadMappings(index, entries, in);
+      }
+    } catch (IOException | ClassNotFoundException | IMQException | RuntimeException e) {
+      // the mappings loaded so far are kept, the other entries are evaluated
+      logger.info("Failed to load the saved indexes of region {}: {}", this.region.getFullPath(),
+          e.toString());
+    } finally {
+      this.file.delete();
+    }
+    return loadedEntries;
+  }
+
+  private void loadMappings(CompactRangeIndex index, Set<RegionEntry> entries, DataInputStream in)
+      throws IOException, ClassNotFoundException, IMQException {
+    byte keyType;
+    while ((keyType = in.readByte()) != END_OF_INDEX) {
+      Object indexKey;
+      if (keyType == PDX_STRING_KEY) {
+        indexKey = new PdxString(DataSerializer.readString(in));
+      } else {
+        indexKey = DataSerializer.readObject(in);
+      }
+      Object regionKey = DataSerializer.readObject(in);
+      long oplogId = in.readLong();
+      long offset = in.readLong();
+      if (index == null) {
+        continue;
+      }
+      RegionEntry entry = this.region.getRegionEntry(regionKey);
+      if (entry instanceof DiskEntry && !entry.isInvalidOrRemoved() && !entries.contains(entry)) {
+        DiskId diskId = ((DiskEntry) entry).getDiskId();
+        if (diskId != null && diskId.getOplogId() == oplogId
+            && diskId.getOffsetInOplog() == offset) {
+          index.getIndexStorage().addMapping(indexKey, entry);
+          entries.add(entry);
+        }
+      }
+    }
+  }
+}
@@ -15,6 +15,7 @@
 package org.apache.geode.cache.query.internal.index;
 
 import java.util.Collection;
+import java.util.Iterator;
 
 import org.apache.geode.internal.cache.RegionEntry;
 import org.apache.geode.internal.cache.persistence.query.CloseableIterator;
@@ -86,6 +87,12 @@ public interface IndexStore {
   CloseableIterator<IndexStoreEntry> descendingIterator(Object start, boolean startInclusive,
       Object end, boolean endInclusive, Collection keysToRemove);
 
+  /**
+   * Return an IndexStoreEntry for each distinct index key other than null and undefined, in
+   * ascending order.
+   */
+  Iterator<IndexStoreEntry> getKeysIterator();
+
   /**
    * Return the number of IndexStoreEntries that map to a given Index key.
    */
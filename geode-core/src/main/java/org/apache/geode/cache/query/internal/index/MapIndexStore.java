@@ -15,20 +15,30 @@
 package org.apache.geode.cache.query.internal.index;
 
 import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
 import java.util.Iterator;
+import java.util.NoSuchElementException;
 
+import org.apache.geode.cache.EntryDestroyedException;
 import org.apache.geode.cache.Region;
+import org.apache.geode.cache.query.QueryService;
 import org.apache.geode.cache.query.TypeMismatchException;
+import org.apache.geode.cache.query.internal.NullToken;
 import org.apache.geode.cache.query.internal.parse.OQLLexerTokenTypes;
 import org.apache.geode.cache.query.internal.types.TypeUtils;
 import org.apache.geode.internal.cache.CachedDeserializable;
+import org.apache.geode.internal.cache.InternalCache;
 import org.apache.geode.internal.cache.LocalRegion;
 import org.apache.geode.internal.cache.RegionEntry;
+import org.apache.geode.internal.cache.Token;
 import org.apache.geode.internal.cache.persistence.query.CloseableIterator;
 import org.apache.geode.internal.cache.persistence.query.IndexMap;
+import org.apache.geode.pdx.internal.PdxString;
 
 /**
- * Implementation of IndexStorage that is backed by an IndexMap
+ * Implementation of IndexStorage that is backed by an IndexMap. The map holds the region keys of
+ * the entries, which are looked up in the region when the index is read.
  *
  */
 public class MapIndexStore implements IndexStore {
@@ -37,24 +47,39 @@ public class MapIndexStore implements IndexStore {
   Region region;
   private boolean indexOnValues = false;
   private boolean indexOnRegionKeys = false;
-  private static boolean needToCallHasNext = true;
+  private final Comparator keyComparator = TypeUtils.getExtendedNumericComparator();
 
   public MapIndexStore(IndexMap indexMap, Region region) {
     this.indexMap = indexMap;
     this.region = region;
   }
 
-  // @todo replace with null when backing structure supports null values
-  public void addMapping(Object indexKey, RegionEntry re) {
-    indexMap.put(indexKey, re.getKey(), "STUB");
+  public void addMapping(Object indexKey, RegionEntry re) throws IMQException {
+    indexMap.put(toIndexKey(indexKey), re.getKey(), null);
   }
 
-  public void updateMapping(Object indexKey, Object oldKey, RegionEntry re, Object oldValue) {
-    addMapping(indexKey, re);
+  public void updateMapping(Object indexKey, Object oldKey, RegionEntry re, Object oldValue)
+      throws IMQException {
+    Object newKey = toIndexKey(indexKey);
+    if (oldKey != null) {
+      Object oldIndexKey = toIndexKey(oldKey);
+      if (!oldIndexKey.equals(newKey)) {
+        indexMap.remove(oldIndexKey, re.getKey());
+      }
+    }
+    indexMap.put(newKey, re.getKey(), null);
   }
 
-  public void removeMapping(Object indexKey, RegionEntry re) {
-    indexMap.remove(indexKey, re.getKey());
+  public void removeMapping(Object indexKey, RegionEntry re) throws IMQException {
+    indexMap.remove(toIndexKey(indexKey), re.getKey());
+  }
+
+  private Object toIndexKey(Object indexKey) throws IMQException {
+    try {
+      return TypeUtils.indexKeyFor(indexKey);
+    } catch (TypeMismatchException e) {
+      throw new IMQException("Could not add object of type " + indexKey.getClass().getName(), e);
+    }
   }
 
   public String printAll() {
@@ -62,10 +87,9 @@ public class MapIndexStore implements IndexStore {
   }
 
   public CloseableIterator<IndexStoreEntry> get(Object key) {
-    return new MapIndexStoreIterator(indexMap.get(key), indexOnValues, indexOnRegionKeys);
+    return new MapIndexStoreIterator(indexMap.get(key), key, null, null, false, false);
   }
 
-
   public CloseableIterator<IndexStoreEntry> iterator(Object start, boolean startInclusive,
       Object end, boolean endInclusive) {
     return iterator(start, startInclusive, end, endInclusive, null);
@@ -73,27 +97,25 @@ public class MapIndexStore implements IndexStore {
 
   public CloseableIterator<IndexStoreEntry> iterator(Object start, boolean startInclusive,
       Object end, boolean endInclusive, Collection keysToRemove) {
-    // REMOVE THESE CHECKS ONCE nulls are supported
-    // These checks will help us get past a certain number of tests but not all of them
-    // order by and what not will still probably fail
     if (start == null) {
-      return this.descendingIterator(end, endInclusive, keysToRemove);
+      // from the head of the map to end
+      return new MapIndexStoreIterator(indexMap.iterator(), null, keysToRemove, end, endInclusive,
+          false);
     } else if (end == null) {
       return this.iterator(start, startInclusive, keysToRemove);
     }
     return new MapIndexStoreIterator(indexMap.iterator(start, startInclusive, end, endInclusive),
-        keysToRemove, indexOnValues, indexOnRegionKeys);
+        null, keysToRemove, null, false, false);
   }
 
-
   public CloseableIterator<IndexStoreEntry> iterator(Object start, boolean startInclusive) {
     return iterator(start, startInclusive, null);
   }
 
   public CloseableIterator<IndexStoreEntry> iterator(Object start, boolean startInclusive,
       Collection keysToRemove) {
-    return new MapIndexStoreIterator(indexMap.iterator(start, startInclusive), keysToRemove,
-        indexOnValues, indexOnRegionKeys);
+    return new MapIndexStoreIterator(indexMap.iterator(start, startInclusive), null, keysToRemove,
+        null, false, false);
   }
 
   public CloseableIterator<IndexStoreEntry> iterator() {
@@ -101,8 +123,7 @@ public class MapIndexStore implements IndexStore {
   }
 
   public CloseableIterator<IndexStoreEntry> iterator(Collection keysToRemove) {
-    return new MapIndexStoreIterator(indexMap.iterator(), keysToRemove, indexOnValues,
-        indexOnRegionKeys);
+    return new MapIndexStoreIterator(indexMap.iterator(), null, keysToRemove, null, false, false);
   }
 
   public CloseableIterator<IndexStoreEntry> descendingIterator(Object end, boolean endInclusive) {
@@ -111,8 +132,8 @@ public class MapIndexStore implements IndexStore {
 
   public CloseableIterator<IndexStoreEntry> descendingIterator(Object end, boolean endInclusive,
       Collection keysToRemove) {
-    return new MapIndexStoreIterator(indexMap.descendingIterator(end, endInclusive), keysToRemove,
-        indexOnValues, indexOnRegionKeys);
+    return new MapIndexStoreIterator(indexMap.descendingIterator(end, endInclusive), null,
+        keysToRemove, null, false, true);
   }
 
   public CloseableIterator<IndexStoreEntry> descendingIterator() {
@@ -120,24 +141,38 @@ public class MapIndexStore implements IndexStore {
   }
 
   public CloseableIterator<IndexStoreEntry> descendingIterator(Collection keysToRemove) {
-    return new MapIndexStoreIterator(indexMap.descendingIterator(), keysToRemove, indexOnValues,
-        indexOnRegionKeys);
+    return new MapIndexStoreIterator(indexMap.descendingIterator(), null, keysToRemove, null,
+        false, true);
   }
 
   public CloseableIterator<IndexStoreEntry> descendingIterator(Object start, boolean startInclusive,
       Object end, boolean endInclusive, Collection keysToRemove) {
-    // @todo change to descending once it is supported
-    return new MapIndexStoreIterator(indexMap.iterator(start, startInclusive, end, endInclusive),
-        keysToRemove, indexOnValues, indexOnRegionKeys);
+    if (start == null) {
+      return descendingIterator(end, endInclusive, keysToRemove);
+    } else if (end == null) {
+      // from the tail of the map to start
+      return new MapIndexStoreIterator(indexMap.descendingIterator(), null, keysToRemove, start,
+          startInclusive, true);
+    }
+    // the map iterates in descending order when the start is greater than the end
+    return new MapIndexStoreIterator(indexMap.iterator(end, endInclusive, start, startInclusive),
+        null, keysToRemove, null, false, true);
+  }
+
+  /**
+   * Return an entry for each index key of the map other than null and undefined, in ascending
+   * order. Only the index key of the entries is available.
+   */
+  public Iterator<IndexStoreEntry> getKeysIterator() {
+    return new MapIndexStoreKeyIterator(indexMap.iterator());
   }
 
   public int size() {
-    return 1;// (int)this.indexMap.size();
+    return (int) Math.min(Integer.MAX_VALUE, this.indexMap.size());
   }
 
   public int size(Object key) {
-    // return Long.valueOf(indexMap.size(key, key)).intValue();
-    return 1;
+    return (int) Math.min(Integer.MAX_VALUE, indexMap.size(key, key));
   }
 
   @Override
@@ -170,8 +205,15 @@ public class MapIndexStore implements IndexStore {
   public Object getTargetObject(RegionEntry entry) {
     if (indexOnValues) {
       Object o = entry.getValue((LocalRegion) region);
-      if (o instanceof CachedDeserializable) {
-        return ((CachedDeserializable) o).getDeserializedValue(region, entry);
+      try {
+        if (o == Token.INVALID) {
+          return null;
+        }
+        if (o instanceof CachedDeserializable) {
+          return ((CachedDeserializable) o).getDeserializedValue(region, entry);
+        }
+      } catch (EntryDestroyedException ignore) {
+        return null;
       }
       return o;
     } else if (indexOnRegionKeys) {
@@ -194,64 +236,100 @@ public class MapIndexStore implements IndexStore {
     return ((LocalRegion) region).new NonTXEntry(entry);
   }
 
+  private static boolean isNullOrUndefined(Object key) {
+    return key instanceof NullToken || key == QueryService.UNDEFINED
+        || QueryService.UNDEFINED.equals(key);
+  }
+
   /**
    * Wraps a CloseableIterator<IndexMap.IndexEntry> and returns a IndexStorageEntry when iterating
-   * over
+   * over. Like the iterators of the in memory index store, entries with a null or undefined index
+   * key are skipped unless they were looked up, as well as the keys to remove.
    */
   private class MapIndexStoreIterator implements CloseableIterator<IndexStoreEntry> {
     final CloseableIterator<IndexMap.IndexEntry> iterator;
-    final MapIndexStoreEntry nextEntry = new MapIndexStoreEntry();
+    final Object indexKey;
     final Collection keysToRemove;
-    final boolean indexOnRegionKeys;
-    final boolean indexOnValues;
+    /** the index key where the iteration stops, if the map iterator does not stop before it */
+    final Object stopKey;
+    final boolean stopInclusive;
+    final boolean descending;
+    final long iteratorStartTime;
+    MapIndexStoreEntry nextEntry;
+    boolean done;
 
     private MapIndexStoreIterator(CloseableIterator<IndexMap.IndexEntry> iterator,
-        Collection keysToRemove, boolean indexOnValues, boolean indexOnRegionKeys) {
+        Object indexKey, Collection keysToRemove, Object stopKey, boolean stopInclusive,
+        boolean descending) {
       this.iterator = iterator;
-      this.keysToRemove = keysToRemove;
-      this.indexOnRegionKeys = indexOnRegionKeys;
-      this.indexOnValues = indexOnValues;
+      this.indexKey = indexKey;
+      this.keysToRemove = keysToRemove == null ? null : new HashSet(keysToRemove);
+      // the keys of the map of a PdxString index are read back as Strings
+      this.stopKey = stopKey instanceof PdxString ? stopKey.toString() : stopKey;
+      this.stopInclusive = stopInclusive;
+      this.descending = descending;
+      this.iteratorStartTime = ((InternalCache) region.getCache()).cacheTimeMillis();
     }
 
-    private MapIndexStoreIterator(CloseableIterator<IndexMap.IndexEntry> iterator,
-        boolean indexOnValues, boolean indexOnRegionKeys) {
-      this(iterator, null, indexOnValues, indexOnRegionKeys);
+    public boolean hasNext() {
+      while (nextEntry == null && !done) {
+        if (!iterator.hasNext()) {
+          done = true;
+          break;
+        }
+        MapIndexStoreEntry entry = new MapIndexStoreEntry(iterator.next(), iteratorStartTime);
+        Object key = entry.getDeserializedKey();
+        if (stopKey != null && isAfterStopKey(key)) {
+          done = true;
+          break;
+        }
+        if (indexKey == null && (isNullOrUndefined(key)
+            || keysToRemove != null && removeFromKeysToRemove(key))) {
+          continue;
+        }
+        nextEntry = entry;
+      }
+      return nextEntry != null;
     }
 
-    public boolean hasNext() {
-      if (iterator.hasNext()) {
-        IndexMap.IndexEntry indexEntry = iterator.next();
-        nextEntry.setIndexEntry(indexEntry);
-        needToCallHasNext = false;
-        if (keysToRemove != null) {
-          Iterator keysToRemoveIterator = keysToRemove.iterator();
-          while (keysToRemoveIterator.hasNext()) {
-            try {
-              if (TypeUtils.compare(nextEntry.getDeserializedValue(), keysToRemoveIterator.next(),
-                  OQLLexerTokenTypes.TOK_EQ).equals(Boolean.TRUE)) {
-                return hasNext();
-              }
-            } catch (TypeMismatchException e) {
-              // they are not equals, so we just continue iterating
-            }
+    private boolean isAfterStopKey(Object key) {
+      if (isNullOrUndefined(key)) {
+        // sorted before all of the other keys
+        return descending;
+      }
+      if (key instanceof PdxString) {
+        key = key.toString();
+      }
+      int result = keyComparator.compare(key, stopKey);
+      if (descending) {
+        result = -result;
+      }
+      return result > 0 || (result == 0 && !stopInclusive);
+    }
+
+    private boolean removeFromKeysToRemove(Object key) {
+      Iterator keysToRemoveIterator = keysToRemove.iterator();
+      while (keysToRemoveIterator.hasNext()) {
+        try {
+          if (TypeUtils.compare(key, keysToRemoveIterator.next(), OQLLexerTokenTypes.TOK_EQ)
+              .equals(Boolean.TRUE)) {
+            keysToRemoveIterator.remove();
+            return true;
           }
+        } catch (TypeMismatchException e) {
+          // they are not equals, so we just continue iterating
         }
-        return true;
       }
       return false;
     }
 
-    /**
-     * do not retain a reference to the returned object.
-     */
     public IndexStoreEntry next() {
-      if (needToCallHasNext) {
-        hasNext();
+      if (!hasNext()) {
+        throw new NoSuchElementException();
       }
-      // we set this again so that we know that has next needs to be called before the next call
-      // hasNext will unset it. This forces us to call hasNext automatically if the user does not
-      needToCallHasNext = true;
-      return nextEntry;
+      IndexStoreEntry entry = nextEntry;
+      nextEntry = null;
+      return entry;
     }
 
     public void remove() {
@@ -259,11 +337,44 @@ public class MapIndexStore implements IndexStore {
     }
 
     public void close() {
+      done = true;
+      nextEntry = null;
       iterator.close();
-      nextEntry.setIndexEntry(null);
     }
   }
 
+  /**
+   * Returns an entry for each distinct index key of the map other than null and undefined.
+   */
+  private class MapIndexStoreKeyIterator implements Iterator<IndexStoreEntry> {
+    final CloseableIterator<IndexMap.IndexEntry> iterator;
+    Object lastKey;
+    MapIndexStoreKey nextKey;
+
+    private MapIndexStoreKeyIterator(CloseableIterator<IndexMap.IndexEntry> iterator) {
+      this.iterator = iterator;
+    }
+
+    public boolean hasNext() {
+      while (nextKey == null && iterator.hasNext()) {
+        Object key = iterator.next().getKey().getDeserializedForReading();
+        if (!isNullOrUndefined(key) && (lastKey == null || !lastKey.equals(key))) {
+          nextKey = new MapIndexStoreKey(key);
+        }
+        lastKey = key;
+      }
+      return nextKey != null;
+    }
+
+    public IndexStoreEntry next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      IndexStoreEntry key = nextKey;
+      nextKey = null;
+      return key;
+    }
+  }
 
   /**
    * A helper class that wraps and deserializes IndexEntry values for indexes
@@ -271,58 +382,87 @@ public class MapIndexStore implements IndexStore {
    */
   private class MapIndexStoreEntry implements IndexStoreEntry {
 
-    IndexMap.IndexEntry entry;
+    final IndexMap.IndexEntry entry;
+    final long iteratorStartTime;
+    Object deserializedKey;
+    Object deserializedRegionKey;
+    RegionEntry regionEntry;
 
-    /**
-     * sets the IndexEntry
-     */
-    void setIndexEntry(IndexMap.IndexEntry entry) {
+    private MapIndexStoreEntry(IndexMap.IndexEntry entry, long iteratorStartTime) {
       this.entry = entry;
+      this.iteratorStartTime = iteratorStartTime;
     }
 
     public Object getDeserializedKey() {
-      return entry.getKey().getDeserializedForReading();
+      if (deserializedKey == null) {
+        deserializedKey = entry.getKey().getDeserializedForReading();
+      }
+      return deserializedKey;
     }
 
     // Since we are not storing the actual value in the index, we need to
-    // retreive the value from the region
+    // retrieve the entry from the region. Returns null if the entry no longer exists.
     public Object getDeserializedValue() {
-      if (indexOnValues) {
-        return region.get(entry.getRegionKey().getDeserializedForReading());
-      } else if (indexOnRegionKeys) {
-        return getDeserializedRegionKey();
-      } else {
-        return new EntrySet(getDeserializedRegionKey(),
-            region.get(entry.getRegionKey().getDeserializedForReading()));
+      RegionEntry re = getRegionEntry();
+      if (re == null) {
+        return null;
       }
+      return getTargetObject(re);
     }
 
     public Object getDeserializedRegionKey() {
-      return entry.getRegionKey().getDeserializedForReading();
+      if (deserializedRegionKey == null) {
+        deserializedRegionKey = entry.getRegionKey().getDeserializedForReading();
+      }
+      return deserializedRegionKey;
     }
 
+    private RegionEntry getRegionEntry() {
+      if (regionEntry == null) {
+        RegionEntry re = ((LocalRegion) region).getRegionEntry(getDeserializedRegionKey());
+        if (re == null || re.isDestroyedOrRemoved()) {
+          return null;
+        }
+        regionEntry = re;
+      }
+      return regionEntry;
+    }
+
+    /**
+     * The mapping may be older than the entry, so like for the in memory index store the entries
+     * modified since the iteration started are evaluated again.
+     */
     public boolean isUpdateInProgress() {
-      return false;
+      RegionEntry re = getRegionEntry();
+      return re != null && (re.isUpdateInProgress()
+          || IndexManager.needsRecalculation(iteratorStartTime, re.getLastModified()));
     }
   }
 
-  // wrapper class for when the index is being queried with a map query
-  private static class EntrySet {
-    public Object key;
-    public Object value;
+  /**
+   * An entry of {@link MapIndexStoreKeyIterator}, which only has an index key.
+   */
+  private static class MapIndexStoreKey implements IndexStoreEntry {
+    private final Object indexKey;
 
-    private EntrySet(Object key, Object value) {
-      this.key = key;
-      this.value = value;
+    private MapIndexStoreKey(Object indexKey) {
+      this.indexKey = indexKey;
     }
 
-    public Object getKey() {
-      return key;
+    public Object getDeserializedKey() {
+      return indexKey;
     }
 
-    public Object getValue() {
-      return value;
+    public Object getDeserializedValue() {
+      throw new UnsupportedOperationException();
     }
-  }
 
+    public Object getDeserializedRegionKey() {
+      throw new UnsupportedOperationException();
+    }
+
+    public boolean isUpdateInProgress() {
+      throw new UnsupportedOperationException();
+    }
+  }
 }
@@ -82,6 +82,8 @@ public class MemoryIndexStore implements IndexStore {
   // new collection
   private final Object TRANSITIONING_TOKEN = new IndexElemArray(1);
 
+  private volatile EntryOrdinals entryOrdinals;
+
   MemoryIndexStore(Region region, InternalIndexStatistics internalIndexStats, InternalCache cache) {
     this.region = region;
     RegionAttributes ra = region.getAttributes();
@@ -162,12 +164,13 @@ public class MemoryIndexStore implements IndexStore {
           if (DefaultQuery.testHook != null) {
             DefaultQuery.testHook.doTestHook("COMPLETE_TRANSITION_FROM_REGION_ENTRY_TO_ELEMARRAY");
           }
-        } else if (regionEntries instanceof IndexConcurrentHashSet) {
+        } else if (regionEntries instanceof IndexConcurrentHashSet
+            || regionEntries instanceof EntryBitmapSet) {
           // This synchronized is for avoiding conflcts with remove of
           // ConcurrentHashSet when set size becomes zero during
           // basicRemoveMapping();
           synchronized (regionEntries) {
-            ((IndexConcurrentHashSet) regionEntries).add(re);
+            ((Collection) regionEntries).add(re);
           }
           if (regionEntries != this.valueToEntriesMap.get(indexKey)) {
             retry = true;
@@ -176,8 +179,7 @@ public class MemoryIndexStore implements IndexStore {
           IndexElemArray elemArray = (IndexElemArray) regionEntries;
           synchronized (elemArray) {
             if (elemArray.size() >= IndexManager.INDEX_ELEMARRAY_THRESHOLD) {
-              IndexConcurrentHashSet set =
-                  new IndexConcurrentHashSet(IndexManager.INDEX_ELEMARRAY_THRESHOLD + 20, 0.75f, 1);
+              Collection set = createEntriesSet();
               // Replace first so that we are sure that the set is placed in
               // index then we should add old elements in the new set.
 
@@ -242,6 +244,48 @@ public class MemoryIndexStore implements IndexStore {
     internalIndexStats.incNumValues(1);
   }
 
+  /**
+   * Creates the collection that replaces the {@link IndexElemArray} of a key once it holds
+   * {@link IndexManager#INDEX_ELEMARRAY_THRESHOLD} entries.
+   */
+  private Collection createEntriesSet() {
+    if (IndexManager.BITMAP_INDEX_STORE) {
+      return new EntryBitmapSet(getEntryOrdinals());
+    }
+    return new IndexConcurrentHashSet(IndexManager.INDEX_ELEMARRAY_THRESHOLD + 20, 0.75f, 1);
+  }
+
+  private EntryOrdinals getEntryOrdinals() {
+    if (this.entryOrdinals == null) {
+      this.entryOrdinals = ((LocalRegion) this.region).getIndexManager().getEntryOrdinals();
+    }
+    return this.entryOrdinals;
+  }
+
+  /**
+   * Returns the entries of the index key.
+   */
+  EntryMatches getEntryMatches(Object indexKey) {
+    EntryMatches matches = new EntryMatches(getEntryOrdinals());
+    try {
+      matches.addEntries(this.valueToEntriesMap.get(indexKey));
+    } catch (ClassCastException ignore) {
+      // the key cannot be compared with the keys of this index, so no entry has it
+    }
+    return matches;
+  }
+
+  /**
+   * Returns all the entries of the index, whatever their index key.
+   */
+  EntryMatches getAllEntryMatches() {
+    EntryMatches matches = new EntryMatches(getEntryOrdinals());
+    for (Object regionEntries : this.valueToEntriesMap.values()) {
+      matches.addEntries(regionEntries);
+    }
+    return matches;
+  }
+
   /**
    * Find the old key by traversing the forward map in case of in-place update modification If not
    * found it means the value object was modified with same value. So oldKey is same as newKey.
@@ -126,7 +126,16 @@ public class LoadMonitor implements ConnectionListener {
     metrics.decQueueCount();
   }
 
+  public void requestStarted() {
+    metrics.requestStarted();
+  }
+
+  public void requestEnded(long nanos) {
+    metrics.requestEnded(nanos);
+  }
+
   protected ServerLoad getLoad() {
+    metrics.sampleRequestTime();
     ServerLoad load = this.probe.getLoad(metrics);
     if (load == null) {
       load = new ServerLoad();
@@ -0,0 +1,104 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.cache.server.internal;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.geode.DataSerializable;
+import org.apache.geode.cache.server.ServerLoad;
+import org.apache.geode.cache.server.ServerLoadProbeAdapter;
+import org.apache.geode.cache.server.ServerMetrics;
+import org.apache.geode.distributed.internal.DistributionConfig;
+import org.apache.geode.internal.cache.xmlcache.Declarable2;
+
+/**
+ * A load probe which returns load as a function of the number of connections to the cache server
+ * and of how fast the server processes requests.
+ *
+ * The connection load is computed like the one of {@link ConnectionCountProbe}, counting the
+ * requests being processed as extra connections, and then multiplied by a latency factor. The
+ * factor is 1 plus the average time the server took to process a request during the last load
+ * poll interval divided by {@link #REFERENCE_REQUEST_TIME} milliseconds. A server that is slow, for
+ * instance because it is garbage collecting, therefore reports a higher load and the locators send
+ * new client connections to the other servers.
+ *
+ * The queue load is reported simply as the number of queues hosted by this cache server.
+ *
+ * @since Geode 1.8
+ */
+public class RequestLatencyProbe extends ServerLoadProbeAdapter
+    implements Declarable2, DataSerializable {
+
+  private static final long serialVersionUID = 2867236117440207493L;
+
+  /**
+   * The request time, in milliseconds, that doubles the load of a server.
+   */
+  static final long REFERENCE_REQUEST_TIME = Long.getLong(
+      DistributionConfig.GEMFIRE_PREFIX + "RequestLatencyProbe.REFERENCE_REQUEST_TIME", 10);
+
+  /**
+   * Get a load object representing the connections and request latency of this cache server
+   */
+  public ServerLoad getLoad(ServerMetrics metrics) {
+    int requestsInProgress = 0;
+    long averageRequestTime = 0;
+    if (metrics instanceof ServerMetricsImpl) {
+      ServerMetricsImpl serverMetrics = (ServerMetricsImpl) metrics;
+      requestsInProgress = serverMetrics.getRequestsInProgress();
+      averageRequestTime = serverMetrics.getAverageRequestTime();
+    }
+    float latencyFactor = 1 + averageRequestTime
+        / (float) TimeUnit.MILLISECONDS.toNanos(Math.max(1, REFERENCE_REQUEST_TIME));
+    float loadPerConnection = latencyFactor / metrics.getMaxConnections();
+    float load = (metrics.getConnectionCount() + requestsInProgress) * loadPerConnection;
+    int queueLoad = metrics.getSubscriptionConnectionCount();
+
+    return new ServerLoad(load, loadPerConnection, queueLoad, 1);
+  }
+
+  public Properties getConfig() {
+    return new Properties();
+  }
+
+  public void init(Properties props) {}
+
+  @Override
+  public boolean equals(Object other) {
+    return (other != null && this.getClass().equals(other.getClass()));
+  }
+
+  @Override
+  public int hashCode() {
+    return super.hashCode();
+  }
+
+  @Override
+  public String toString() {
+    return "RequestLatencyProbe";
+  }
+
+  public void fromData(DataInput in) throws IOException, ClassNotFoundException {
+    // do nothing, we have no state
+  }
+
+  public void toData(DataOutput out) throws IOException {
+    // do nothing, we have no state
+  }
+}
@@ -15,6 +15,7 @@
 package org.apache.geode.cache.server.internal;
 
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.geode.cache.server.ServerMetrics;
 
@@ -28,7 +29,13 @@ public class ServerMetricsImpl implements ServerMetrics {
   private final AtomicInteger clientCount = new AtomicInteger();
   private final AtomicInteger connectionCount = new AtomicInteger();
   private final AtomicInteger queueCount = new AtomicInteger();
+  private final AtomicInteger requestsInProgress = new AtomicInteger();
+  private final AtomicLong requestCount = new AtomicLong();
+  private final AtomicLong requestTime = new AtomicLong();
   private final int maxConnections;
+  private long lastRequestCount;
+  private long lastRequestTime;
+  private volatile long averageRequestTime;
 
   public ServerMetricsImpl(int maxConnections) {
     this.maxConnections = maxConnections;
@@ -74,4 +81,43 @@ public class ServerMetricsImpl implements ServerMetrics {
     queueCount.decrementAndGet();
   }
 
+  /**
+   * Get the number of client requests being processed by this cache server.
+   */
+  public int getRequestsInProgress() {
+    return requestsInProgress.get();
+  }
+
+  /**
+   * Get the average time, in nanoseconds, this cache server took to process a client request
+   * between the last two calls to {@link #sampleRequestTime()}.
+   */
+  public long getAverageRequestTime() {
+    return averageRequestTime;
+  }
+
+  public void requestStarted() {
+    requestsInProgress.incrementAndGet();
+  }
+
+  public void requestEnded(long nanos) {
+    requestsInProgress.decrementAndGet();
+    requestTime.addAndGet(nanos);
+    requestCount.incrementAndGet();
+  }
+
+  /**
+   * Computes the average request time of the requests processed since the previous call. The
+   * average is kept if no request was processed since.
+   */
+  public synchronized void sampleRequestTime() {
+    long count = requestCount.get();
+    long time = requestTime.get();
+    if (count > lastRequestCount) {
+      averageRequestTime = (time - lastRequestTime) / (count - lastRequestCount);
+    }
+    lastRequestCount = count;
+    lastRequestTime = time;
+  }
+
 }
@@ -0,0 +1,264 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.internal;
+
+import java.lang.ref.PhantomReference;
+import java.lang.ref.ReferenceQueue;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.logging.log4j.Logger;
+
+import org.apache.geode.distributed.internal.DistributionConfig;
+import org.apache.geode.internal.logging.LogService;
+
+/**
+ * Keeps the heap ByteBuffers released by pooled {@link HeapDataOutputStream}s so that the next
+ * streams can reuse them instead of allocating new ones. Buffers are pooled in a few size classes
+ * and spread over a fixed number of stripes, each guarded by its own lock, so that threads rarely
+ * contend for the same one. The pool never keeps more than HeapBufferPool.MAX_BYTES bytes of
+ * buffers in total, whatever the number of threads. Requests larger than the largest size class
+ * are not pooled.
+ *
+ * If the system property HeapBufferPool.DETECT_LEAKS is set, the creation site of each pooled
+ * stream is recorded and a warning is logged when a stream is garbage collected without having
+ * been released.
+ *
+ * @since Geode 1.8
+ */
+public class HeapBufferPool {
+  private static final Logger logger = LogService.getLogger();
+
+  /**
+   * Whether pooled streams really use pooled buffers. Set the system property
+   * HeapBufferPool.DISABLED to allocate the buffers of every stream.
+   */
+  public static boolean ENABLED =
+      !Boolean.getBoolean(DistributionConfig.GEMFIRE_PREFIX + "HeapBufferPool.DISABLED");
+
+  /**
+   * The maximum number of bytes of buffers kept by the whole pool. Each stripe keeps at most its
+   * share of it.
+   */
+  static final int MAX_BYTES = Integer
+      .getInteger(DistributionConfig.GEMFIRE_PREFIX + "HeapBufferPool.MAX_BYTES", 4 * 1024 * 1024);
+
+  /**
+   * Whether the creation site of each pooled stream is recorded to report the streams that are
+   * garbage collected without having been released. Set the system property
+   * HeapBufferPool.DETECT_LEAKS to enable it.
+   */
+  public static boolean DETECT_LEAKS =
+      Boolean.getBoolean(DistributionConfig.GEMFIRE_PREFIX + "HeapBufferPool.DETECT_LEAKS");
+
+  /**
+   * The capacities of the pooled buffers. A request is served by the smallest class that fits it.
+   */
+  static final int[] SIZE_CLASSES = {1024, 4 * 1024, 16 * 1024, 64 * 1024};
+
+  /**
+   * The number of stripes, a power of two so that a thread picks its stripe with a mask.
+   */
+  private static final int STRIPE_COUNT =
+      Math.min(64, Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 2 - 1) << 1);
+
+  private static final Stripe[] stripes = createStripes();
+
+  private static final LongAdder buffersAllocated = new LongAdder();
+
+  private static final LongAdder buffersReused = new LongAdder();
+
+  private static final LongAdder leaksDetected = new LongAdder();
+
+  private static final ReferenceQueue<HeapDataOutputStream> leakQueue = new ReferenceQueue<>();
+
+  private static final Set<LeakTracker> leakTrackers = ConcurrentHashMap.newKeySet();
+
+  private HeapBufferPool() {
+    // no instances allowed
+  }
+
+  /**
+   * Returns a cleared buffer with a capacity of at least the given size, or null if the size is
+   * larger than the largest size class.
+   */
+  static ByteBuffer acquire(int size) {
+    int sizeClass = getSizeClass(size);
+    if (sizeClass < 0) {
+      return null;
+    }
+    ByteBuffer result = getStripe().poll(sizeClass);
+    if (result != null) {
+      buffersReused.increment();
+      result.clear();
+      return result;
+    }
+    buffersAllocated.increment();
+    return ByteBuffer.allocate(SIZE_CLASSES[sizeClass]);
+  }
+
+  /**
+   * Gives a buffer returned by {@link #acquire} back to the stripe of the calling thread. The
+   * buffer is dropped if that stripe already keeps its share of {@link #MAX_BYTES}.
+   */
+  static void release(ByteBuffer buffer) {
+    int sizeClass = getSizeClass(buffer.capacity());
+    if (sizeClass >= 0 && SIZE_CLASSES[sizeClass] == buffer.capacity()) {
+      getStripe().offer(sizeClass, buffer);
+    }
+  }
+
+  private static Stripe getStripe() {
+    return stripes[(int) Thread.currentThread().getId() & (STRIPE_COUNT - 1)];
+  }
+
+  private static Stripe[] createStripes() {
+    Stripe[] result = new Stripe[STRIPE_COUNT];
+    for (int i = 0; i < result.length; i++) {
+      result[i] = new Stripe(MAX_BYTES / STRIPE_COUNT);
+    }
+    return result;
+  }
+
+  private static int getSizeClass(int size) {
+    for (int i = 0; i < SIZE_CLASSES.length; i++) {
+      if (size <= SIZE_CLASSES[i]) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Starts tracking a pooled stream if leak detection is enabled, first reporting the streams that
+   * were garbage collected without being released.
+   *
+   * @return the tracker to pass to {@link #untrack} once the stream is released, or null
+   */
+  static LeakTracker track(HeapDataOutputStream stream) {
+    if (!DETECT_LEAKS) {
+      return null;
+    }
+    reportLeaks();
+    LeakTracker tracker = new LeakTracker(stream, leakQueue);
+    leakTrackers.add(tracker);
+    return tracker;
+  }
+
+  static void untrack(LeakTracker tracker) {
+    if (tracker != null) {
+      leakTrackers.remove(tracker);
+      tracker.clear();
+    }
+  }
+
+  private static void reportLeaks() {
+    LeakTracker tracker;
+    while ((tracker = (LeakTracker) leakQueue.poll()) != null) {
+      if (leakTrackers.remove(tracker)) {
+        leaksDetected.increment();
+        logger.warn("A pooled HeapDataOutputStream was garbage collected without being released. "
+            + "It was created at:", tracker.creationSite);
+      }
+    }
+  }
+
+  /**
+   * Returns the number of buffers the pool has allocated because no pooled buffer was available.
+   */
+  public static long getBuffersAllocated() {
+    return buffersAllocated.sum();
+  }
+
+  /**
+   * Returns the number of times a pooled buffer was reused.
+   */
+  public static long getBuffersReused() {
+    return buffersReused.sum();
+  }
+
+  /**
+   * Returns the number of bytes of buffers currently kept by the pool.
+   */
+  public static long getPooledBytes() {
+    long result = 0;
+    for (Stripe stripe : stripes) {
+      result += stripe.getPooledBytes();
+    }
+    return result;
+  }
+
+  /**
+   * Returns the number of pooled streams found garbage collected without having been released.
+   * Always zero unless leak detection is enabled.
+   */
+  public static long getLeaksDetected() {
+    return leaksDetected.sum();
+  }
+
+  /**
+   * The buffers kept by one stripe of the pool.
+   */
+  private static class Stripe {
+    private final ArrayDeque<ByteBuffer>[] freeBuffers;
+
+    private final int maxBytes;
+
+    private int pooledBytes;
+
+    @SuppressWarnings("unchecked")
+    Stripe(int maxBytes) {
+      this.maxBytes = maxBytes;
+      this.freeBuffers = new ArrayDeque[SIZE_CLASSES.length];
+      for (int i = 0; i < SIZE_CLASSES.length; i++) {
+        this.freeBuffers[i] = new ArrayDeque<>();
+      }
+    }
+
+    synchronized ByteBuffer poll(int sizeClass) {
+      ByteBuffer result = this.freeBuffers[sizeClass].pollFirst();
+      if (result != null) {
+        this.pooledBytes -= result.capacity();
+      }
+      return result;
+    }
+
+    synchronized void offer(int sizeClass, ByteBuffer buffer) {
+      if (this.pooledBytes + buffer.capacity() <= this.maxBytes) {
+        this.freeBuffers[sizeClass].addFirst(buffer);
+        this.pooledBytes += buffer.capacity();
+      }
+    }
+
+    synchronized int getPooledBytes() {
+      return this.pooledBytes;
+    }
+  }
+
+  /**
+   * Remembers where a pooled stream was created until the stream is released.
+   */
+  static class LeakTracker extends PhantomReference<HeapDataOutputStream> {
+    private final Throwable creationSite;
+
+    LeakTracker(HeapDataOutputStream stream, ReferenceQueue<HeapDataOutputStream> queue) {
+      super(stream, queue);
+      this.creationSite = new Throwable("HeapDataOutputStream creation site");
+    }
+  }
+}
@@ -22,6 +22,7 @@ import java.io.UTFDataFormatException;
 import java.nio.BufferOverflowException;
 import java.nio.ByteBuffer;
 import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.LinkedList;
 
@@ -70,8 +71,21 @@ public class HeapDataOutputStream extends OutputStream
   private Version version;
   private boolean doNotCopy;
 
+  /**
+   * The buffers this stream took from the {@link HeapBufferPool}, given back by {@link #release}.
+   * Null if this stream does not use pooled buffers.
+   */
+  private ArrayList<ByteBuffer> pooledBuffers;
+  private HeapBufferPool.LeakTracker leakTracker;
+
   private static final int INITIAL_CAPACITY = 1024;
 
+  /**
+   * The buffer of a released stream, so that a stream used after being released never writes to a
+   * buffer that has been given back to the pool.
+   */
+  private static final ByteBuffer RELEASED_BUFFER = ByteBuffer.allocate(0).asReadOnlyBuffer();
+
   public HeapDataOutputStream(Version version) {
     this(INITIAL_CAPACITY, version);
   }
@@ -131,6 +145,33 @@ public class HeapDataOutputStream extends OutputStream
     this.doNotCopy = doNotCopy;
   }
 
+  /**
+   * Creates a stream whose buffers come from the {@link HeapBufferPool}.
+   * {@link #release} or {@link #close} must be called once the contents of the stream have been
+   * used; no ByteBuffer or byte[] obtained from the stream may be read after that. Returns a stream
+   * that allocates its buffers if the pool is disabled or allocSize is too large to be pooled.
+   */
+  public static HeapDataOutputStream pooled(int allocSize, Version version) {
+    return pooled(allocSize, version, false);
+  }
+
+  /**
+   * @param doNotCopy if true then byte arrays/buffers/sources will not be copied to this hdos but
+   *        instead referenced.
+   * @see #pooled(int, Version)
+   */
+  public static HeapDataOutputStream pooled(int allocSize, Version version, boolean doNotCopy) {
+    ByteBuffer initialBuffer = HeapBufferPool.ENABLED ? HeapBufferPool.acquire(allocSize) : null;
+    if (initialBuffer == null) {
+      return new HeapDataOutputStream(allocSize, version, doNotCopy);
+    }
+    HeapDataOutputStream result = new HeapDataOutputStream(initialBuffer, version, doNotCopy);
+    result.pooledBuffers = new ArrayList<ByteBuffer>(4);
+    result.pooledBuffers.add(initialBuffer);
+    result.leakTracker = HeapBufferPool.track(result);
+    return result;
+  }
+
   /**
    * Construct a HeapDataOutputStream which uses the byte array provided as its underlying
    * ByteBuffer
@@ -217,7 +258,37 @@ public class HeapDataOutputStream extends OutputStream
     if (amount < MIN_CHUNK_SIZE) {
       amount = MIN_CHUNK_SIZE;
     }
-    this.buffer = ByteBuffer.allocate(amount);
+    this.buffer = allocate(amount);
+  }
+
+  /**
+   * Returns a new buffer for the chunks of this stream, taken from the pool if this stream uses
+   * pooled buffers.
+   */
+  private ByteBuffer allocate(int capacity) {
+    if (this.pooledBuffers != null) {
+      ByteBuffer pooledBuffer = HeapBufferPool.acquire(capacity);
+      if (pooledBuffer != null) {
+        this.pooledBuffers.add(pooledBuffer);
+        return pooledBuffer;
+      }
+    }
+    return ByteBuffer.allocate(capacity);
+  }
+
+  /**
+   * Returns true if the given buffer shares its array with a buffer given back to the pool when
+   * this stream is released.
+   */
+  private boolean isPooledBuffer(ByteBuffer bb) {
+    if (this.pooledBuffers != null && bb.hasArray()) {
+      for (ByteBuffer pooledBuffer : this.pooledBuffers) {
+        if (pooledBuffer.array() == bb.array()) {
+          return true;
+        }
+      }
+    }
+    return false;
   }
 
   private void checkIfWritable() {
@@ -306,7 +377,7 @@ public class HeapDataOutputStream extends OutputStream
     this.chunks.add(bufToAdd);
     int newPos = oldBuffer.limit();
     if ((oldBuffer.capacity() - newPos) <= 0) {
-      this.buffer = ByteBuffer.allocate(MIN_CHUNK_SIZE);
+      this.buffer = allocate(MIN_CHUNK_SIZE);
     } else {
       oldBuffer.limit(oldBuffer.capacity());
       oldBuffer.position(newPos);
@@ -419,9 +490,36 @@ public class HeapDataOutputStream extends OutputStream
     }
   }
 
+  /**
+   * Closes this stream. A stream that uses pooled buffers is also {@link #release released}.
+   */
   @Override
   public void close() {
+    if (this.pooledBuffers != null) {
+      release();
+    } else {
+      reset();
+    }
+  }
+
+  /**
+   * Gives the pooled buffers of this stream back to the {@link HeapBufferPool}. The stream is empty
+   * afterwards and must not be written to again. Does nothing if this stream does not use pooled
+   * buffers.
+   */
+  public void release() {
+    ArrayList<ByteBuffer> buffers = this.pooledBuffers;
+    if (buffers == null) {
+      return;
+    }
+    this.pooledBuffers = null;
     reset();
+    this.buffer = RELEASED_BUFFER;
+    for (ByteBuffer pooledBuffer : buffers) {
+      HeapBufferPool.release(pooledBuffer);
+    }
+    HeapBufferPool.untrack(this.leakTracker);
+    this.leakTracker = null;
   }
 
   /**
@@ -440,7 +538,8 @@ public class HeapDataOutputStream extends OutputStream
    */
   public byte[] toByteArray() {
     ByteBuffer bb = toByteBuffer();
-    if (bb.hasArray() && bb.arrayOffset() == 0 && bb.limit() == bb.capacity()) {
+    if (bb.hasArray() && bb.arrayOffset() == 0 && bb.limit() == bb.capacity()
+        && !isPooledBuffer(bb)) {
       return bb.array();
     } else {
       // create a new buffer of just the right size and copy the old buffer into it
@@ -465,7 +564,7 @@ public class HeapDataOutputStream extends OutputStream
   // Asif
   public void sendTo(BytesAndBitsForCompactor wrapper, byte userBits) {
     ByteBuffer bb = toByteBuffer();
-    if (bb.hasArray() && bb.arrayOffset() == 0) {
+    if (bb.hasArray() && bb.arrayOffset() == 0 && !isPooledBuffer(bb)) {
       wrapper.setData(bb.array(), userBits, bb.limit(), true /* is Reusable */);
     } else {
       // create a new buffer of just the right size and copy the old buffer into
@@ -80,6 +80,13 @@ public class CachePerfStats {
   protected static final int queryResultsHashCollisionsId;
   protected static final int queryResultsHashCollisionProbeTimeId;
   protected static final int partitionedRegionQueryRetriesId;
+  protected static final int queryResultCacheHitsId;
+  protected static final int queryResultCacheMissesId;
+  protected static final int queryResultCacheEntriesId;
+  protected static final int queryRowsScannedId;
+  protected static final int queryCpuTimeId;
+  protected static final int queryMemoryId;
+  protected static final int queriesCanceledForMemoryId;
 
   protected static final int txSuccessLifeTimeId;
   protected static final int txFailedLifeTimeId;
@@ -145,6 +152,8 @@ public class CachePerfStats {
   protected static final int deltaFullValuesSentId;
   protected static final int deltaFullValuesRequestedId;
 
+  protected static final int getsCoalescedId;
+
   protected static final int importedEntriesCountId;
   protected static final int importTimeId;
   protected static final int exportedEntriesCountId;
@@ -242,6 +251,20 @@ public class CachePerfStats {
         "Total time spent probing the hashtable in an OQL result set due to hash code collisions, includes reads, writes, and rehashes";
     final String partitionedRegionOQLQueryRetriesDesc =
         "Total number of times an OQL Query on a Partitioned Region had to be retried";
+    final String queryResultCacheHitsDesc =
+        "Total number of times the results of a query were found in the query result cache";
+    final String queryResultCacheMissesDesc =
+        "Total number of times the results of a cacheable query were not found in the query result cache, or were invalidated by a modification of its regions";
+    final String queryResultCacheEntriesDesc =
+        "The current number of query results in the query result cache";
+    final String queryRowsScannedDesc =
+        "Total number of rows scanned by queries, including region entries, index entries and the rows of the intermediate results they combine";
+    final String queryCpuTimeDesc =
+        "Total CPU time spent by the threads executing queries, if the JVM measures thread CPU time";
+    final String queryMemoryDesc =
+        "The current estimated memory of the results of the running queries";
+    final String queriesCanceledForMemoryDesc =
+        "Total number of queries canceled because their results exceeded the memory limit of a query or of all the running queries";
     final String txSuccessLifeTimeDesc =
         "The total amount of time, in nanoseconds, spent in a transaction before a successful commit. The time measured starts at transaction begin and ends when commit is called.";
     final String txFailedLifeTimeDesc =
@@ -310,6 +333,8 @@ public class CachePerfStats {
         "The total number of times a full value was sent to a remote cache.";
     final String deltaFullValuesRequestedDesc =
         "The total number of times a full value was requested by this cache.";
+    final String getsCoalescedDesc =
+        "The total number of gets that missed and used the result of a search or load of the same key already in progress instead of doing their own.";
     final String importedEntriesCountDesc =
         "The total number of entries imported from a snapshot file.";
     final String importTimeDesc = "The total time spent importing entries from a snapshot file.";
@@ -416,6 +441,15 @@ public class CachePerfStats {
                 queryResultsHashCollisionProbeTimeDesc, "nanoseconds"),
             f.createLongCounter("partitionedRegionQueryRetries",
                 partitionedRegionOQLQueryRetriesDesc, "retries"),
+            f.createLongCounter("queryResultCacheHits", queryResultCacheHitsDesc, "operations"),
+            f.createLongCounter("queryResultCacheMisses", queryResultCacheMissesDesc,
+                "operations"),
+            f.createIntGauge("queryResultCacheEntries", queryResultCacheEntriesDesc, "entries"),
+            f.createLongCounter("queryRowsScanned", queryRowsScannedDesc, "rows"),
+            f.createLongCounter("queryCpuTime", queryCpuTimeDesc, "nanoseconds", false),
+            f.createLongGauge("queryMemory", queryMemoryDesc, "bytes"),
+            f.createLongCounter("queriesCanceledForMemory", queriesCanceledForMemoryDesc,
+                "operations"),
 
             f.createIntCounter("txCommits", txCommitsDesc, "commits"),
             f.createIntCounter("txCommitChanges", txCommitChangesDesc, "changes"),
@@ -481,6 +515,7 @@ public class CachePerfStats {
             f.createIntCounter("deltaFullValuesSent", deltaFullValuesSentDesc, "operations"),
             f.createIntCounter("deltaFullValuesRequested", deltaFullValuesRequestedDesc,
                 "operations"),
+            f.createLongCounter("getsCoalesced", getsCoalescedDesc, "operations"),
 
             f.createLongCounter("importedEntries", importedEntriesCountDesc, "entries"),
             f.createLongCounter("importTime", importTimeDesc, "nanoseconds"),
@@ -557,6 +592,13 @@ public class CachePerfStats {
     queryResultsHashCollisionsId = type.nameToId("queryResultsHashCollisions");
     queryResultsHashCollisionProbeTimeId = type.nameToId("queryResultsHashCollisionProbeTime");
     partitionedRegionQueryRetriesId = type.nameToId("partitionedRegionQueryRetries");
+    queryResultCacheHitsId = type.nameToId("queryResultCacheHits");
+    queryResultCacheMissesId = type.nameToId("queryResultCacheMisses");
+    queryResultCacheEntriesId = type.nameToId("queryResultCacheEntries");
+    queryRowsScannedId = type.nameToId("queryRowsScanned");
+    queryCpuTimeId = type.nameToId("queryCpuTime");
+    queryMemoryId = type.nameToId("queryMemory");
+    queriesCanceledForMemoryId = type.nameToId("queriesCanceledForMemory");
 
     txSuccessLifeTimeId = type.nameToId("txSuccessLifeTime");
     txFailedLifeTimeId = type.nameToId("txFailedLifeTime");
@@ -614,6 +656,8 @@ public class CachePerfStats {
     deltaFullValuesSentId = type.nameToId("deltaFullValuesSent");
     deltaFullValuesRequestedId = type.nameToId("deltaFullValuesRequested");
 
+    getsCoalescedId = type.nameToId("getsCoalesced");
+
     importedEntriesCountId = type.nameToId("importedEntries");
     importTimeId = type.nameToId("importTime");
     exportedEntriesCountId = type.nameToId("exportedEntries");
@@ -875,6 +919,10 @@ public class CachePerfStats {
     return stats.getInt(deltaFullValuesRequestedId);
   }
 
+  public long getGetsCoalesced() {
+    return stats.getLong(getsCoalescedId);
+  }
+
   public long getTotalCompressionTime() {
     return stats.getLong(compressionCompressTimeId);
   }
@@ -1180,6 +1228,62 @@ public class CachePerfStats {
     stats.incInt(queryResultsHashCollisionsId, 1);
   }
 
+  public void incQueryResultCacheHits() {
+    stats.incLong(queryResultCacheHitsId, 1);
+  }
+
+  public long getQueryResultCacheHits() {
+    return stats.getLong(queryResultCacheHitsId);
+  }
+
+  public void incQueryResultCacheMisses() {
+    stats.incLong(queryResultCacheMissesId, 1);
+  }
+
+  public long getQueryResultCacheMisses() {
+    return stats.getLong(queryResultCacheMissesId);
+  }
+
+  public void incQueryResultCacheEntries(int delta) {
+    stats.incInt(queryResultCacheEntriesId, delta);
+  }
+
+  public int getQueryResultCacheEntries() {
+    return stats.getInt(queryResultCacheEntriesId);
+  }
+
+  public void incQueryRowsScanned(long rows) {
+    stats.incLong(queryRowsScannedId, rows);
+  }
+
+  public long getQueryRowsScanned() {
+    return stats.getLong(queryRowsScannedId);
+  }
+
+  public void incQueryCpuTime(long cpuTime) {
+    stats.incLong(queryCpuTimeId, cpuTime);
+  }
+
+  public long getQueryCpuTime() {
+    return stats.getLong(queryCpuTimeId);
+  }
+
+  public void incQueryMemory(long delta) {
+    stats.incLong(queryMemoryId, delta);
+  }
+
+  public long getQueryMemory() {
+    return stats.getLong(queryMemoryId);
+  }
+
+  public void incQueriesCanceledForMemory() {
+    stats.incLong(queriesCanceledForMemoryId, 1);
+  }
+
+  public long getQueriesCanceledForMemory() {
+    return stats.getLong(queriesCanceledForMemoryId);
+  }
+
   public int getTxCommits() {
     return stats.getInt(txCommitsId);
   }
@@ -1283,6 +1387,10 @@ public class CachePerfStats {
     stats.incInt(deltaFullValuesRequestedId, 1);
   }
 
+  public void incGetsCoalesced() {
+    stats.incLong(getsCoalescedId, 1);
+  }
+
   /**
    * Closes these stats so that they can not longer be used. The stats are closed when the cache is
    * closed.
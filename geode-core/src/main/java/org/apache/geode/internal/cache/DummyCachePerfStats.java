@@ -316,6 +316,62 @@ public class DummyCachePerfStats extends CachePerfStats {
   @Override
   public void endQueryExecution(long executionTime) {}
 
+  @Override
+  public void incQueryResultCacheHits() {}
+
+  @Override
+  public long getQueryResultCacheHits() {
+    return 0;
+  }
+
+  @Override
+  public void incQueryResultCacheMisses() {}
+
+  @Override
+  public long getQueryResultCacheMisses() {
+    return 0;
+  }
+
+  @Override
+  public void incQueryResultCacheEntries(int delta) {}
+
+  @Override
+  public int getQueryResultCacheEntries() {
+    return 0;
+  }
+
+  @Override
+  public void incQueryRowsScanned(long rows) {}
+
+  @Override
+  public long getQueryRowsScanned() {
+    return 0;
+  }
+
+  @Override
+  public void incQueryCpuTime(long cpuTime) {}
+
+  @Override
+  public long getQueryCpuTime() {
+    return 0;
+  }
+
+  @Override
+  public void incQueryMemory(long delta) {}
+
+  @Override
+  public long getQueryMemory() {
+    return 0;
+  }
+
+  @Override
+  public void incQueriesCanceledForMemory() {}
+
+  @Override
+  public long getQueriesCanceledForMemory() {
+    return 0;
+  }
+
   @Override
   public int getTxCommits() {
     return 0;
@@ -426,6 +482,9 @@ public class DummyCachePerfStats extends CachePerfStats {
   @Override
   public void incRetries() {}
 
+  @Override
+  public void incGetsCoalesced() {}
+
   @Override
   public Statistics getStats() {
     return null;
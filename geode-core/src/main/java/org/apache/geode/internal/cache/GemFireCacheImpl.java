@@ -134,6 +134,7 @@ import org.apache.geode.cache.query.QueryService;
 import org.apache.geode.cache.query.internal.DefaultQueryService;
 import org.apache.geode.cache.query.internal.InternalQueryService;
 import org.apache.geode.cache.query.internal.QueryMonitor;
+import org.apache.geode.cache.query.internal.QueryResultCache;
 import org.apache.geode.cache.query.internal.cq.CqService;
 import org.apache.geode.cache.query.internal.cq.CqServiceProvider;
 import org.apache.geode.cache.server.CacheServer;
@@ -528,6 +529,10 @@ public class GemFireCacheImpl implements InternalCache, InternalClientCache, Has
 
   private final Object queryMonitorLock = new Object();
 
+  private volatile QueryResultCache queryResultCache;
+
+  private final Object queryResultCacheLock = new Object();
+
   private final PersistentMemberManager persistentMemberManager;
 
   private ClientMetadataService clientMetadataService = null;
@@ -4469,6 +4474,26 @@ public class GemFireCacheImpl implements InternalCache, InternalClientCache, Has
     return this.queryMonitor;
   }
 
+  /**
+   * Returns the cache of local query results, or null if it is disabled because the system property
+   * Query.RESULT_CACHE_SIZE is not set.
+   */
+  @Override
+  public QueryResultCache getQueryResultCache() {
+    if (QueryResultCache.MAX_ENTRIES <= 0) {
+      return null;
+    }
+    if (this.queryResultCache == null) {
+      synchronized (this.queryResultCacheLock) {
+        if (this.queryResultCache == null) {
+          this.queryResultCache =
+              new QueryResultCache(QueryResultCache.MAX_ENTRIES, this.cachePerfStats);
+        }
+      }
+    }
+    return this.queryResultCache;
+  }
+
   /**
    * Simple class to allow waiters for register interest. Has at most one thread that ever calls
    * wait.
@@ -44,6 +44,7 @@ import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.Semaphore;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.regex.Pattern;
@@ -456,6 +457,12 @@ public class LocalRegion extends AbstractRegion implements LoaderHelperFactory,
    */
   private final CachePerfStats cachePerfStats;
 
+  /**
+   * Counts the changes applied to this region's entries. Incremented after the entry and its
+   * indexes have been updated so that cached query results can detect that they are stale.
+   */
+  private final LongAdder modificationCount = new LongAdder();
+
   private final boolean hasOwnStats;
 
   private final ImageState imageState;
@@ -1452,7 +1459,9 @@ public class LocalRegion extends AbstractRegion implements LoaderHelperFactory,
   }
 
   /**
-   * optimized to only allow one thread to do a search/load, other threads wait on a future
+   * optimized to only allow one thread to do a search/load, other threads wait on a future. If the
+   * search/load finds no value the waiting threads return null as well instead of each doing their
+   * own; they only search/load again if it failed.
    *
    * @param isCreate true if call found no entry; false if updating an existing entry
    * @param localValue the value retrieved from the region for this object.
@@ -1476,7 +1485,12 @@ public class LocalRegion extends AbstractRegion implements LoaderHelperFactory,
       try {
         Object[] valueAndVersion = (Object[]) otherFuture.get();
         if (valueAndVersion != null) {
+          getCachePerfStats().incGetsCoalesced();
           result = valueAndVersion[0];
+          if (result == null) {
+            // the search/load did not find a value
+            return null;
+          }
           if (clientEvent != null) {
             clientEvent.setVersionTag((VersionTag) valueAndVersion[1]);
           }
@@ -1513,6 +1527,7 @@ public class LocalRegion extends AbstractRegion implements LoaderHelperFactory,
     }
     // didn't find a future, do one more probe for the entry to catch a race
     // condition where the future was just removed by another thread
+    boolean searchCompleted = false;
     try {
       boolean partitioned = this.getDataPolicy().withPartitioning();
       if (!partitioned) {
@@ -1542,11 +1557,15 @@ public class LocalRegion extends AbstractRegion implements LoaderHelperFactory,
           result = localValue;
         }
       }
+      searchCompleted = true;
       // findObjectInSystem does not call conditionalCopy
     } finally {
       if (result != null) {
         VersionTag tag = clientEvent == null ? null : clientEvent.getVersionTag();
         thisFuture.set(new Object[] {result, tag});
+      } else if (searchCompleted && localValue != Token.TOMBSTONE) {
+        // share the miss; a tombstone is not shared since waiters may want it returned
+        thisFuture.set(new Object[] {null, null});
       } else {
         thisFuture.set(null);
       }
@@ -2412,6 +2431,8 @@ public class LocalRegion extends AbstractRegion implements LoaderHelperFactory,
     }
     DiskRegion dr = this.getDiskRegion();
     boolean isOverflowToDisk = false;
+    // the saved indexes are loaded once all of them are created
+    boolean recoverSavedIndexes = recoverFromDisk && this.indexManager.hasSavedIndexes();
     if (dr != null) {
       isOverflowToDisk = dr.isOverflowEnabled();
       if (recoverFromDisk && !isOverflowToDisk) {
@@ -2445,7 +2466,8 @@ public class LocalRegion extends AbstractRegion implements LoaderHelperFactory,
             // load entries during initialization only for non overflow regions
             indexes.add(this.indexManager.createIndex(icd.getIndexName(), icd.getIndexType(),
                 icd.getIndexExpression(), icd.getIndexFromClause(), icd.getIndexImportString(),
-                externalContext, icd.getPartitionedIndex(), !isOverflowToDisk));
+                externalContext, icd.getPartitionedIndex(),
+                !isOverflowToDisk && !recoverSavedIndexes));
             prIndexes.add(icd.getPartitionedIndex());
           } else {
             if (logger.isDebugEnabled()) {
@@ -2458,7 +2480,8 @@ public class LocalRegion extends AbstractRegion implements LoaderHelperFactory,
             // load entries during initialization only for non overflow regions
             indexes.add(
                 qs.createIndex(icd.getIndexName(), icd.getIndexType(), icd.getIndexExpression(),
-                    fromClause, icd.getIndexImportString(), !isOverflowToDisk));
+                    fromClause, icd.getIndexImportString(),
+                    !isOverflowToDisk && !recoverSavedIndexes));
           }
 
         } catch (Exception ex) {
@@ -2472,7 +2495,10 @@ public class LocalRegion extends AbstractRegion implements LoaderHelperFactory,
       LocalRegion.setThreadInitLevelRequirement(initLevel);
     }
     // Load data into OQL indexes in case of disk recovery and disk overflow
-    if (isOverflowToDisk) {
+    if (recoverSavedIndexes) {
+      populateOQLIndexes(indexes, true);
+      this.indexManager.setPopulateFlagForIndexes(prIndexes);
+    } else if (isOverflowToDisk) {
       if (recoverFromDisk) {
         populateOQLIndexes(indexes);
       } else {
@@ -2492,9 +2518,17 @@ public class LocalRegion extends AbstractRegion implements LoaderHelperFactory,
    * Populate the indexes with region entries
    */
   private void populateOQLIndexes(Set<Index> indexes) {
+    populateOQLIndexes(indexes, false);
+  }
+
+  /**
+   * Populate the indexes with region entries, after loading the saved indexes if
+   * recoverSavedIndexes is true
+   */
+  private void populateOQLIndexes(Set<Index> indexes, boolean recoverSavedIndexes) {
     logger.info("Loading data into the indexes");
     try {
-      this.indexManager.populateIndexes(indexes);
+      this.indexManager.populateIndexes(indexes, recoverSavedIndexes);
     } catch (MultiIndexCreationException ex) {
       logger.info("Failed to update index on region {}: {}", this.getFullPath(), ex.getMessage());
     }
@@ -2659,6 +2693,10 @@ public class LocalRegion extends AbstractRegion implements LoaderHelperFactory,
 
       try {
         if (this.indexManager != null) {
+          Operation operation = regionEvent.getOperation();
+          if (operation == Operation.REGION_CLOSE || operation == Operation.CACHE_CLOSE) {
+            this.indexManager.saveIndexes();
+          }
           try {
             if (this instanceof BucketRegion) {
               this.indexManager.removeBucketIndexes(getPartitionedRegion());
@@ -4419,6 +4457,10 @@ public class LocalRegion extends AbstractRegion implements LoaderHelperFactory,
    */
   public void clearKeysOfInterest(Object key, int interestType,
       InterestResultPolicy interestResultPolicy) {
+    if (hasServerProxy()) {
+      // events for the near cached keys may have been missed as well
+      getServerProxy().invalidateNearCache();
+    }
     switch (interestType) {
       case InterestType.FILTER_CLASS:
         clearViaFilterClass((String) key);
@@ -4976,6 +5018,7 @@ public class LocalRegion extends AbstractRegion implements LoaderHelperFactory,
   void basicInvalidatePart2(RegionEntry regionEntry, EntryEventImpl event,
       boolean conflictWithClear, boolean invokeCallbacks) {
     updateStatsForInvalidate();
+    incModificationCount();
 
     if (invokeCallbacks) {
       try {
@@ -5048,6 +5091,7 @@ public class LocalRegion extends AbstractRegion implements LoaderHelperFactory,
     if (didInvalidate) {
       updateStatsForInvalidate();
       // Bug 40842: clearing index of the old value performed in AbstractRegionMap
+      incModificationCount();
     }
     if (didDestroy) {
       if (this.entryUserAttributes != null) {
@@ -5146,6 +5190,7 @@ public class LocalRegion extends AbstractRegion implements LoaderHelperFactory,
         }
       }
     }
+    incModificationCount();
     if (didDestroy) {
       if (this.entryUserAttributes != null) {
         this.entryUserAttributes.remove(key);
@@ -5806,6 +5851,7 @@ public class LocalRegion extends AbstractRegion implements LoaderHelperFactory,
         }
       }
     }
+    incModificationCount();
 
     if (invokeCallbacks) {
       boolean doCallback = false;
@@ -6792,6 +6838,7 @@ public class LocalRegion extends AbstractRegion implements LoaderHelperFactory,
     if (!inTokenMode || duringRI) {
       updateStatsForDestroy();
     }
+    incModificationCount();
     if (this.entryUserAttributes != null) {
       this.entryUserAttributes.remove(event.getKey());
     }
@@ -6804,6 +6851,18 @@ public class LocalRegion extends AbstractRegion implements LoaderHelperFactory,
     getCachePerfStats().incDestroys();
   }
 
+  /**
+   * Returns the number of changes applied to the entries of this region. The count only grows, so
+   * two equal reads mean that no entry was created, updated, invalidated or destroyed in between.
+   */
+  public long getModificationCount() {
+    return this.modificationCount.sum();
+  }
+
+  void incModificationCount() {
+    this.modificationCount.increment();
+  }
+
   void txClearRegion() {
     TXStateInterface tx = getJTAEnlistedTX();
     if (tx != null) {
@@ -6908,6 +6967,7 @@ public class LocalRegion extends AbstractRegion implements LoaderHelperFactory,
     } else if (!alreadyDestroyedOrRemoved) {
       updateStatsForDestroy();
     }
+    incModificationCount();
     if (this.entryUserAttributes != null) {
       this.entryUserAttributes.remove(key);
     }
@@ -9140,6 +9200,7 @@ public class LocalRegion extends AbstractRegion implements LoaderHelperFactory,
         }
       }
     }
+    incModificationCount();
 
     if (ISSUE_CALLBACKS_TO_CACHE_OBSERVER) {
       CacheObserverHolder.getInstance().afterRegionClear(regionEvent);
@@ -11012,6 +11073,12 @@ public class LocalRegion extends AbstractRegion implements LoaderHelperFactory,
       this.cachePerfStats.incQueuedEvents(inc);
     }
 
+    @Override
+    public void incGetsCoalesced() {
+      this.stats.incLong(getsCoalescedId, 1);
+      this.cachePerfStats.incGetsCoalesced();
+    }
+
     /**
      * @return the timestamp that marks the start of the operation
      */
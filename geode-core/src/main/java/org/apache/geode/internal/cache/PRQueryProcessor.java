@@ -28,9 +28,14 @@ import java.util.List;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 import java.util.concurrent.Future;
+import java.util.concurrent.RecursiveAction;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.apache.logging.log4j.Logger;
 
@@ -40,7 +45,9 @@ import org.apache.geode.cache.RegionDestroyedException;
 import org.apache.geode.cache.query.QueryException;
 import org.apache.geode.cache.query.QueryInvocationTargetException;
 import org.apache.geode.cache.query.SelectResults;
+import org.apache.geode.cache.query.internal.CompiledGroupBySelect;
 import org.apache.geode.cache.query.internal.CompiledSelect;
+import org.apache.geode.cache.query.internal.CompiledValue;
 import org.apache.geode.cache.query.internal.DefaultQuery;
 import org.apache.geode.cache.query.internal.ExecutionContext;
 import org.apache.geode.cache.query.internal.IndexTrackingQueryObserver;
@@ -49,6 +56,7 @@ import org.apache.geode.cache.query.internal.QueryExecutionContext;
 import org.apache.geode.cache.query.internal.QueryMonitor;
 import org.apache.geode.cache.query.internal.QueryObserver;
 import org.apache.geode.cache.query.internal.QueryObserverHolder;
+import org.apache.geode.cache.query.internal.QueryResourceUsage;
 import org.apache.geode.cache.query.types.ObjectType;
 import org.apache.geode.distributed.internal.DistributionConfig;
 import org.apache.geode.internal.Assert;
@@ -66,6 +74,9 @@ import org.apache.geode.internal.logging.LoggingExecutors;
  *
  * The QueryTasks add results directly to a results queue. The BucketQueryResult is used not only to
  * indicate completion, and holds an exception if there one occurred while processing a query.
+ *
+ * When {@link #FORK_JOIN_PARALLELISM} is set the buckets are instead split recursively among the
+ * threads of a fork-join pool, see {@link BucketRangeQueryTask}.
  */
 public class PRQueryProcessor {
   private static final Logger logger = LogService.getLogger();
@@ -78,11 +89,29 @@ public class PRQueryProcessor {
   /* For Test purpose */
   public static int TEST_NUM_THREADS = 0;
 
+  /**
+   * The number of threads of the fork-join pool executing queries over the local buckets. Values
+   * lower than 2 disable the fork-join execution.
+   */
+  public static final int FORK_JOIN_PARALLELISM =
+      getInteger(DistributionConfig.GEMFIRE_PREFIX + "PRQueryProcessor.forkJoinParallelism", 0);
+
+  /* For Test purpose */
+  public static int TEST_FORK_JOIN_PARALLELISM = 0;
+
+  /**
+   * The number of leaf tasks per fork-join thread the buckets are split into. More tasks than
+   * threads keep all threads busy when some buckets take longer to query than others.
+   */
+  static final int FORK_JOIN_TASKS_PER_THREAD = 4;
+
   private PartitionedRegionDataStore _prds;
   private PartitionedRegion pr;
   private final DefaultQuery query;
   private final Object[] parameters;
   private final List<Integer> _bucketsToQuery;
+  /** the execution the threads querying the buckets are accounted to, if any */
+  private final QueryResourceUsage resourceUsage = QueryResourceUsage.getCurrent();
   private volatile int numBucketsProcessed = 0;
   private volatile ObjectType resultType = null;
 
@@ -131,7 +160,9 @@ public class PRQueryProcessor {
     // ((IndexTrackingQueryObserver)observer).setIndexInfo(resultCollector.getIndexInfoMap());
     // }
 
-    if (NUM_THREADS > 1 || TEST_NUM_THREADS > 1) {
+    if (getForkJoinParallelism() > 1 && this._bucketsToQuery.size() > 1) {
+      executeWithForkJoin(resultCollector);
+    } else if (NUM_THREADS > 1 || TEST_NUM_THREADS > 1) {
       executeWithThreadPool(resultCollector);
     } else {
       executeSequentially(resultCollector, this._bucketsToQuery);
@@ -206,6 +237,60 @@ public class PRQueryProcessor {
 
   }
 
+  static int getForkJoinParallelism() {
+    return TEST_FORK_JOIN_PARALLELISM > 1 ? TEST_FORK_JOIN_PARALLELISM : FORK_JOIN_PARALLELISM;
+  }
+
+  private void executeWithForkJoin(Collection<Collection> resultCollector)
+      throws QueryException, InterruptedException, ForceReattemptException {
+    if (Thread.interrupted()) {
+      throw new InterruptedException();
+    }
+
+    CompiledSelect cs = this.query.getSimpleSelect();
+    boolean ordered = cs != null && (cs.isOrderBy() || cs.isGroupBy());
+    int parallelism = getForkJoinParallelism();
+    int leafSize =
+        Math.max(1, this._bucketsToQuery.size() / (parallelism * FORK_JOIN_TASKS_PER_THREAD));
+    BucketRangeQueryTask task = new BucketRangeQueryTask(resultCollector, ordered, leafSize,
+        this.pr.getCache().getPdxReadSerializedOverride());
+
+    ForkJoinTask<Void> future = PRQueryExecutor.getForkJoinPool().submit(task);
+    try {
+      future.get(BUCKET_QUERY_TIMEOUT, TimeUnit.SECONDS);
+    } catch (TimeoutException e) {
+      future.cancel(true);
+      throw new InternalGemFireException(
+          String.format("Timed out while executing query, time exceeded  %s",
+              BUCKET_QUERY_TIMEOUT),
+          e);
+    } catch (InterruptedException e) {
+      future.cancel(true);
+      throw e;
+    } catch (ExecutionException ee) {
+      throw new InternalGemFireException(
+          "Got unexpected exception while executing query on partitioned region bucket",
+          ee.getCause());
+    }
+
+    Exception failure = task.failure.get();
+    if (failure instanceof ForceReattemptException) {
+      throw (ForceReattemptException) failure;
+    } else if (failure instanceof QueryException) {
+      throw (QueryException) failure;
+    } else if (failure instanceof CacheRuntimeException) {
+      throw (CacheRuntimeException) failure;
+    }
+
+    if (ordered) {
+      ExecutionContext context = new QueryExecutionContext(this.parameters, this.pr.getCache());
+      int limit = this.query.getLimit(this.parameters);
+      Collection mergedResults = coalesceOrderedResults(resultCollector, context, cs, limit);
+      resultCollector.clear();
+      resultCollector.add(mergedResults);
+    }
+  }
+
   /**
    * @throws ForceReattemptException if bucket was moved so caller should try query again
    */
@@ -336,7 +421,7 @@ public class PRQueryProcessor {
   }
 
   private Collection coalesceOrderedResults(Collection<Collection> results,
-      ExecutionContext context, CompiledSelect cs, int limit) {
+      ExecutionContext context, CompiledSelect cs, int limit) throws QueryException {
     List<Collection> sortedResults = new ArrayList<Collection>(results.size());
     // TODO :Asif : Deal with UNDEFINED
     for (Object o : results) {
@@ -345,12 +430,32 @@ public class PRQueryProcessor {
       }
     }
 
-    return new NWayMergeResults(sortedResults, cs.isDistinct(), limit, cs.getOrderByAttrs(),
-        context, cs.getElementTypeForOrderByQueries());
+    NWayMergeResults mergedResults = new NWayMergeResults(sortedResults, cs.isDistinct(), limit,
+        cs.getOrderByAttrs(), context, cs.getElementTypeForOrderByQueries());
+    if (cs.getType() == CompiledValue.GROUP_BY_SELECT && sortedResults.size() > 1) {
+      return mergePartialAggregates((CompiledGroupBySelect) cs, mergedResults);
+    }
+    return mergedResults;
+  }
 
+  /**
+   * Merges the partial aggregates computed on each bucket, which are sorted on the group by fields,
+   * so that a single partial aggregate per group is sent to the PR query node.
+   */
+  private SelectResults mergePartialAggregates(CompiledGroupBySelect cgs,
+      SelectResults bucketResults) throws QueryException {
+    ExecutionContext context =
+        new QueryExecutionContext(this.parameters, this.pr.getCache(), this.query);
+    context.setBucketList(this._bucketsToQuery);
+    context.setIsMemberNode(true);
+    return cgs.applyAggregateAndGroupBy(bucketResults, context);
   }
 
-  private void executeQueryOnBuckets(Collection<Collection> resultCollector,
+  /**
+   * @return the results of the query on the buckets of the context, which were added to the
+   *         resultCollector
+   */
+  private Collection executeQueryOnBuckets(Collection<Collection> resultCollector,
       ExecutionContext context)
       throws ForceReattemptException, QueryInvocationTargetException, QueryException {
     // Check if QueryMonitor is enabled, if so add query to be monitored.
@@ -360,6 +465,9 @@ public class PRQueryProcessor {
       queryMonitor = GemFireCacheImpl.getInstance().getQueryMonitor();
     }
 
+    if (this.resourceUsage != null) {
+      this.resourceUsage.join();
+    }
     try {
       if (queryMonitor != null) {
         // Add current thread to be monitored by QueryMonitor.
@@ -375,6 +483,7 @@ public class PRQueryProcessor {
         resultCollector.add((Collection) results);
       }
       isIndexUsedForLocalQuery = ((QueryExecutionContext) context).isIndexUsed();
+      return (Collection) results;
 
     } catch (BucketMovedException bme) {
       if (logger.isDebugEnabled()) {
@@ -396,6 +505,9 @@ public class PRQueryProcessor {
       if (queryMonitor != null) {
         queryMonitor.stopMonitoringQueryThread(Thread.currentThread(), query);
       }
+      if (this.resourceUsage != null) {
+        this.resourceUsage.stop();
+      }
     }
   }
 
@@ -412,6 +524,107 @@ public class PRQueryProcessor {
     return isIndexUsedForLocalQuery;
   }
 
+  /**
+   * Executes the query over a range of the buckets to query. Ranges larger than the leaf size are
+   * split in two halves executed in parallel. A leaf executes the query over all its buckets at
+   * once, or over each bucket separately for ordered queries so that each result is sorted and can
+   * be merged with the others. Each leaf adds its results to the result collector as soon as it
+   * completes.
+   *
+   * Without ORDER BY, the leaves that start after the already collected results reach the LIMIT of
+   * the query are skipped. Failures are kept in {@link #failure} rather than thrown, and the
+   * leaves that start after a failure are skipped too.
+   */
+  @SuppressWarnings("synthetic-access")
+  private class BucketRangeQueryTask extends RecursiveAction {
+    private static final long serialVersionUID = 1L;
+
+    private final Collection<Collection> resultCollector;
+    private final boolean ordered;
+    private final int leafSize;
+    private final Boolean pdxReadSerializedOverride;
+    private final int limit;
+    private final AtomicInteger resultCount;
+    private final AtomicReference<Exception> failure;
+    private final int from;
+    private final int to;
+
+    BucketRangeQueryTask(Collection<Collection> resultCollector, boolean ordered, int leafSize,
+        Boolean pdxReadSerializedOverride) {
+      this.resultCollector = resultCollector;
+      this.ordered = ordered;
+      this.leafSize = leafSize;
+      this.pdxReadSerializedOverride = pdxReadSerializedOverride;
+      this.limit = ordered ? -1 : query.getLimit(parameters);
+      this.resultCount = new AtomicInteger();
+      this.failure = new AtomicReference<>();
+      this.from = 0;
+      this.to = _bucketsToQuery.size();
+    }
+
+    private BucketRangeQueryTask(BucketRangeQueryTask parent, int from, int to) {
+      this.resultCollector = parent.resultCollector;
+      this.ordered = parent.ordered;
+      this.leafSize = parent.leafSize;
+      this.pdxReadSerializedOverride = parent.pdxReadSerializedOverride;
+      this.limit = parent.limit;
+      this.resultCount = parent.resultCount;
+      this.failure = parent.failure;
+      this.from = from;
+      this.to = to;
+    }
+
+    @Override
+    protected void compute() {
+      if (this.to - this.from > this.leafSize) {
+        int middle = (this.from + this.to) >>> 1;
+        invokeAll(new BucketRangeQueryTask(this, this.from, middle),
+            new BucketRangeQueryTask(this, middle, this.to));
+        return;
+      }
+      if (shouldStop()) {
+        return;
+      }
+
+      InternalCache cache = pr.getCache();
+      Boolean initialPdxReadSerialized = cache.getPdxReadSerializedOverride();
+      if (this.pdxReadSerializedOverride != null) {
+        cache.setPdxReadSerializedOverride(this.pdxReadSerializedOverride);
+      }
+      try {
+        List<Integer> buckets = new ArrayList<>(_bucketsToQuery.subList(this.from, this.to));
+        if (this.ordered) {
+          for (Integer bucketId : buckets) {
+            execute(Collections.singletonList(bucketId));
+            if (shouldStop()) {
+              return;
+            }
+          }
+        } else {
+          execute(buckets);
+        }
+      } catch (ForceReattemptException | QueryException | CacheRuntimeException e) {
+        this.failure.compareAndSet(null, e);
+      } finally {
+        if (initialPdxReadSerialized != null) {
+          cache.setPdxReadSerializedOverride(initialPdxReadSerialized);
+        }
+      }
+    }
+
+    private void execute(List<Integer> buckets) throws QueryException, ForceReattemptException {
+      ExecutionContext context = new QueryExecutionContext(parameters, pr.getCache(), query);
+      context.setBucketList(buckets);
+      Collection results = executeQueryOnBuckets(this.resultCollector, context);
+      this.resultCount.addAndGet(results.size());
+    }
+
+    private boolean shouldStop() {
+      return this.failure.get() != null
+          || (this.limit > 0 && this.resultCount.get() >= this.limit);
+    }
+  }
+
   public static void shutdown() {
     PRQueryExecutor.shutdown();
   }
@@ -430,6 +643,8 @@ public class PRQueryProcessor {
 
     private static ExecutorService execService = null;
 
+    private static ForkJoinPool forkJoinPool = null;
+
     /**
      * Closes the executor service. This is called from
      * {@link PartitionedRegion#afterRegionsClosedByCacheClose(InternalCache)}
@@ -438,11 +653,25 @@ public class PRQueryProcessor {
       if (execService != null) {
         execService.shutdown();
       }
+      if (forkJoinPool != null) {
+        forkJoinPool.shutdown();
+      }
     }
 
     static synchronized void shutdownNow() {
       if (execService != null)
         execService.shutdownNow();
+      if (forkJoinPool != null) {
+        forkJoinPool.shutdownNow();
+      }
+    }
+
+    static synchronized ForkJoinPool getForkJoinPool() {
+      if (forkJoinPool == null || forkJoinPool.isShutdown()) {
+        forkJoinPool = (ForkJoinPool) LoggingExecutors
+            .newWorkStealingPool("PRQueryProcessor ForkJoin Thread ", getForkJoinParallelism());
+      }
+      return forkJoinPool;
     }
 
     static synchronized ExecutorService getExecutorService() {
@@ -119,6 +119,7 @@ import org.apache.geode.cache.query.internal.DefaultQuery;
 import org.apache.geode.cache.query.internal.ExecutionContext;
 import org.apache.geode.cache.query.internal.QCompiler;
 import org.apache.geode.cache.query.internal.QueryExecutor;
+import org.apache.geode.cache.query.internal.QueryResourceUsage;
 import org.apache.geode.cache.query.internal.ResultsBag;
 import org.apache.geode.cache.query.internal.ResultsCollectionWrapper;
 import org.apache.geode.cache.query.internal.ResultsSet;
@@ -1862,12 +1863,20 @@ public class PartitionedRegion extends LocalRegion
   public Object executeQuery(DefaultQuery query, Object[] parameters, Set buckets)
       throws FunctionDomainException, TypeMismatchException, NameResolutionException,
       QueryInvocationTargetException {
-    for (;;) {
-      try {
-        return doExecuteQuery(query, parameters, buckets);
-      } catch (ForceReattemptException ignore) {
-        // fall through and loop
+    // the query is accounted as a whole, with its executions on the local buckets and the results
+    // received from the other members
+    QueryResourceUsage resourceUsage =
+        QueryResourceUsage.start(query, getCache().getCachePerfStats());
+    try {
+      for (;;) {
+        try {
+          return doExecuteQuery(query, parameters, buckets);
+        } catch (ForceReattemptException ignore) {
+          // fall through and loop
+        }
       }
+    } finally {
+      resourceUsage.stop();
     }
   }
 
@@ -56,6 +56,7 @@ import org.apache.geode.cache.query.internal.OrderByComparator;
 import org.apache.geode.cache.query.internal.PRQueryTraceInfo;
 import org.apache.geode.cache.query.internal.QueryExecutionContext;
 import org.apache.geode.cache.query.internal.QueryMonitor;
+import org.apache.geode.cache.query.internal.QueryResourceUsage;
 import org.apache.geode.cache.query.internal.ResultsSet;
 import org.apache.geode.cache.query.internal.SortedResultsBag;
 import org.apache.geode.cache.query.internal.SortedStructBag;
@@ -129,6 +130,8 @@ public class PartitionedRegionQueryEvaluator extends StreamingPartitionOperation
    */
   private final ConcurrentMap<InternalDistributedMember, Collection<Collection>> resultsPerMember;
   private ConcurrentLinkedQueue<PRQueryTraceInfo> prQueryTraceInfoList = null;
+  /** the execution the results received and merged are accounted to, if any */
+  private final QueryResourceUsage resourceUsage;
   private final Set<Integer> bucketsToQuery;
   private final IntOpenHashSet successfulBuckets;
   // set of members failed to execute query
@@ -156,6 +159,7 @@ public class PartitionedRegionQueryEvaluator extends StreamingPartitionOperation
     this.resultsPerMember =
         new ConcurrentHashMap<InternalDistributedMember, Collection<Collection>>();
     this.node2bucketIds = Collections.emptyMap();
+    this.resourceUsage = QueryResourceUsage.getCurrent();
     if (query != null && query.isTraced()) {
       prQueryTraceInfoList = new ConcurrentLinkedQueue();
     }
@@ -229,6 +233,13 @@ public class PartitionedRegionQueryEvaluator extends StreamingPartitionOperation
       objects = sortIncomingData(objects, orderByAttribs);
     }
 
+    if (this.resourceUsage != null && !this.resourceUsage.rowsReceived(objects)) {
+      if (logger.isDebugEnabled()) {
+        logger.debug("query exceeded its memory limit while gathering results, aborting");
+      }
+      return false;
+    }
+
     synchronized (results) {
       if (!QueryMonitor.isLowMemory() && !this.query.isCanceled()) {
         results.add(objects);
@@ -639,6 +650,7 @@ public class PartitionedRegionQueryEvaluator extends StreamingPartitionOperation
 
     ObjectType elementType = this.cumulativeResults.getCollectionType().getElementType();
     boolean isStruct = elementType != null && elementType.isStructType();
+    int fieldCount = isStruct ? ((StructType) elementType).getFieldNames().length : 1;
     final DistributedMember me = this.pr.getMyId();
 
     if (DefaultQuery.testHook != null) {
@@ -721,6 +733,10 @@ public class PartitionedRegionQueryEvaluator extends StreamingPartitionOperation
               // Asif: (Unique i.e first time occurrence) or subsequent occurrence
               // for non distinct query
               if (occurrence == 1) {
+                if (this.resourceUsage != null) {
+                  // canceled at the next check if it exceeds the memory limit
+                  this.resourceUsage.mergedRowAdded(fieldCount);
+                }
                 ++numElementsInResult;
                 // Asif:Check again to see if this addition caused limit to be
                 // reached so that current loop will not iterate one more
@@ -37,6 +37,7 @@ import org.apache.geode.cache.client.internal.LocatorDiscoveryCallback;
 import org.apache.geode.cache.client.internal.PoolImpl;
 import org.apache.geode.cache.query.QueryService;
 import org.apache.geode.cache.wan.GatewaySender;
+import org.apache.geode.distributed.internal.DistributionConfig;
 import org.apache.geode.distributed.internal.InternalDistributedSystem;
 import org.apache.geode.distributed.internal.membership.gms.membership.HostAddress;
 import org.apache.geode.internal.logging.LogService;
@@ -203,6 +204,19 @@ public class PoolFactoryImpl implements PoolFactory {
     return this;
   }
 
+  /**
+   * Sets the payload length, in bytes, from which the messages sent to the servers are compressed.
+   * 0 disables compression.
+   */
+  public PoolFactory setWireCompressionThreshold(int wireCompressionThreshold) {
+    if (wireCompressionThreshold < 0) {
+      throw new IllegalArgumentException(
+          "wireCompressionThreshold must be greater than or equal to 0");
+    }
+    this.attributes.wireCompressionThreshold = wireCompressionThreshold;
+    return this;
+  }
+
   public PoolFactory setSubscriptionRedundancy(int redundancyLevel) {
     if (redundancyLevel < -1) {
       throw new IllegalArgumentException(
@@ -323,6 +337,11 @@ public class PoolFactoryImpl implements PoolFactory {
     setMaxConnections(-1);
     setMinConnections(0);
     setThreadLocalConnections(true);
+    setWireCompressionThreshold(Integer.getInteger(
+        DistributionConfig.GEMFIRE_PREFIX + "GatewaySender." + sender.getId()
+            + ".WIRE_COMPRESSION_THRESHOLD",
+        Integer.getInteger(
+            DistributionConfig.GEMFIRE_PREFIX + "GatewaySender.WIRE_COMPRESSION_THRESHOLD", 0)));
   }
 
   /**
@@ -401,6 +420,8 @@ public class PoolFactoryImpl implements PoolFactory {
     public ArrayList/* <InetSocketAddress> */ servers = new ArrayList();
     public transient boolean startDisabled = false; // only used by junit tests
     public transient LocatorDiscoveryCallback locatorCallback = null; // only used by tests
+    public transient int wireCompressionThreshold = Integer
+        .getInteger(DistributionConfig.GEMFIRE_PREFIX + "PoolImpl.WIRE_COMPRESSION_THRESHOLD", 0);
     public GatewaySender gatewaySender = null;
     /**
      * True if the pool is used by a Gateway.
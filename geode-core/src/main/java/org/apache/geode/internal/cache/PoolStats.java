@@ -74,6 +74,14 @@ public class PoolStats {
   private static final int clientOpTimedOutId;
   private static final int clientOpFailedId;
   private static final int clientOpDurationId;
+  private static final int nearCacheHitsId;
+  private static final int nearCacheMissesId;
+  private static final int nearCacheEntriesId;
+  private static final int nearCacheEvictionsId;
+  private static final int nearCacheInvalidationsId;
+  private static final int compressedMessagesId;
+  private static final int uncompressedBytesId;
+  private static final int compressedBytesId;
 
   static {
     String statName = "PoolStats";
@@ -143,7 +151,27 @@ public class PoolStats {
             f.createLongCounter("clientOpSendTime",
                 "Total amount of time, in nanoseconds spent doing clientOp sends", "nanoseconds"),
             f.createLongCounter("clientOpTime",
-                "Total amount of time, in nanoseconds spent doing clientOps", "nanoseconds"),});
+                "Total amount of time, in nanoseconds spent doing clientOps", "nanoseconds"),
+            f.createLongCounter("nearCacheHits",
+                "Total number of gets served from the near cache of a region", "gets"),
+            f.createLongCounter("nearCacheMisses",
+                "Total number of gets on a region with a near cache that went to a server",
+                "gets"),
+            f.createIntGauge("nearCacheEntries",
+                "Current number of keys tracked by the near caches of the regions", "entries"),
+            f.createLongCounter("nearCacheEvictions",
+                "Total number of keys evicted from the near caches of the regions", "entries"),
+            f.createLongCounter("nearCacheInvalidations",
+                "Total number of cached values dropped from the near caches of the regions because of an invalidate sent by a server or a change made by this client",
+                "entries"),
+            f.createLongCounter("compressedMessages",
+                "Total number of messages sent compressed to the servers", "messages"),
+            f.createLongCounter("uncompressedBytes",
+                "Total size of the payloads of the messages sent compressed, before compression",
+                "bytes"),
+            f.createLongCounter("compressedBytes",
+                "Total size of the payloads of the messages sent compressed, after compression",
+                "bytes"),});
 
     // Initialize id fields
     _INITIAL_CONTACTS = _type.nameToId(INITIAL_CONTACTS);
@@ -179,6 +207,14 @@ public class PoolStats {
     clientOpTimedOutId = _type.nameToId("clientOpTimeouts");
     clientOpFailedId = _type.nameToId("clientOpFailures");
     clientOpDurationId = _type.nameToId("clientOpTime");
+    nearCacheHitsId = _type.nameToId("nearCacheHits");
+    nearCacheMissesId = _type.nameToId("nearCacheMisses");
+    nearCacheEntriesId = _type.nameToId("nearCacheEntries");
+    nearCacheEvictionsId = _type.nameToId("nearCacheEvictions");
+    nearCacheInvalidationsId = _type.nameToId("nearCacheInvalidations");
+    compressedMessagesId = _type.nameToId("compressedMessages");
+    uncompressedBytesId = _type.nameToId("uncompressedBytes");
+    compressedBytesId = _type.nameToId("compressedBytes");
   }
 
   ////////////////////// Instance Fields //////////////////////
@@ -368,4 +404,69 @@ public class PoolStats {
     this._stats.incInt(endClientOpId, 1);
     this._stats.incLong(clientOpDurationId, duration);
   }
+
+  public void incNearCacheHits() {
+    this._stats.incLong(nearCacheHitsId, 1);
+  }
+
+  public long getNearCacheHits() {
+    return this._stats.getLong(nearCacheHitsId);
+  }
+
+  public void incNearCacheMisses() {
+    this._stats.incLong(nearCacheMissesId, 1);
+  }
+
+  public long getNearCacheMisses() {
+    return this._stats.getLong(nearCacheMissesId);
+  }
+
+  /**
+   * Returns the fraction of the gets on regions with a near cache that were served from it, or 0
+   * if there were none.
+   */
+  public double getNearCacheHitRatio() {
+    long hits = getNearCacheHits();
+    long total = hits + getNearCacheMisses();
+    return total == 0 ? 0 : (double) hits / total;
+  }
+
+  public void incNearCacheEntries(int delta) {
+    this._stats.incInt(nearCacheEntriesId, delta);
+  }
+
+  public int getNearCacheEntries() {
+    return this._stats.getInt(nearCacheEntriesId);
+  }
+
+  public void incNearCacheEvictions() {
+    this._stats.incLong(nearCacheEvictionsId, 1);
+  }
+
+  public long getNearCacheEvictions() {
+    return this._stats.getLong(nearCacheEvictionsId);
+  }
+
+  public void incNearCacheInvalidations() {
+    this._stats.incLong(nearCacheInvalidationsId, 1);
+  }
+
+  public void incCompressedMessages(int uncompressedBytes, int compressedBytes) {
+    this._stats.incLong(compressedMessagesId, 1);
+    this._stats.incLong(uncompressedBytesId, uncompressedBytes);
+    this._stats.incLong(compressedBytesId, compressedBytes);
+  }
+
+  public long getCompressedMessages() {
+    return this._stats.getLong(compressedMessagesId);
+  }
+
+  /**
+   * Returns the size of the payloads sent compressed after compression divided by their size
+   * before compression, or 1 if no message was compressed.
+   */
+  public double getCompressionRatio() {
+    long uncompressed = this._stats.getLong(uncompressedBytesId);
+    return uncompressed == 0 ? 1 : (double) this._stats.getLong(compressedBytesId) / uncompressed;
+  }
 }
@@ -36,6 +36,7 @@ import org.apache.geode.cache.query.internal.IndexTrackingQueryObserver;
 import org.apache.geode.cache.query.internal.PRQueryTraceInfo;
 import org.apache.geode.cache.query.internal.QueryMonitor;
 import org.apache.geode.cache.query.internal.QueryObserver;
+import org.apache.geode.cache.query.internal.QueryResourceUsage;
 import org.apache.geode.cache.query.internal.types.ObjectTypeImpl;
 import org.apache.geode.cache.query.types.ObjectType;
 import org.apache.geode.distributed.internal.ClusterDistributionManager;
@@ -62,12 +63,15 @@ public class QueryMessage extends StreamingPartitionOperation.StreamingPartition
   private volatile List buckets;
   private volatile boolean isPdxSerialized;
   private volatile boolean traceOn;
+  /** the memory limit of the query, which members older than 1.8 do not send */
+  private volatile long memoryLimit = DefaultQuery.MAX_QUERY_MEMORY;
 
   private final List<Collection> resultCollector = new ArrayList<>();
   private Iterator currentResultIterator;
   private Iterator<Collection> currentSelectResultIterator;
   private boolean isTraceInfoIteration = false;
   private boolean isStructType = false;
+  private QueryResourceUsage resourceUsage;
 
   /**
    * Empty constructor to satisfy {@link DataSerializer} requirements
@@ -84,6 +88,7 @@ public class QueryMessage extends StreamingPartitionOperation.StreamingPartition
     this.parameters = parameters;
     this.cqQuery = query.isCqQuery();
     this.traceOn = query.isTraced() || DefaultQuery.QUERY_VERBOSE;
+    this.memoryLimit = query.getMemoryLimit();
   }
 
   /**
@@ -138,6 +143,22 @@ public class QueryMessage extends StreamingPartitionOperation.StreamingPartition
     }
   }
 
+  /**
+   * Stops accounting the results of the query once the last chunk of them, or the exception that
+   * ended the query, has been sent.
+   */
+  @Override
+  public void process(final ClusterDistributionManager dm) {
+    try {
+      super.process(dm);
+    } finally {
+      if (this.resourceUsage != null) {
+        this.resourceUsage.stop();
+        this.resourceUsage = null;
+      }
+    }
+  }
+
   @Override
   protected boolean operateOnPartitionedRegion(ClusterDistributionManager dm, PartitionedRegion pr,
       long startTime)
@@ -174,9 +195,15 @@ public class QueryMessage extends StreamingPartitionOperation.StreamingPartition
     pr.getCache().setPdxReadSerializedOverride(true);
     // In case of "select *" queries we can keep the results in serialized form and send
     query.setRemoteQuery(true);
+    // query nodes older than 1.8 expect the distinct values themselves for a count distinct
+    query.setCountDistinctEstimatorAccepted(
+        this.sender.getVersionObject().compareTo(Version.GEODE_180) >= 0);
     QueryObserver indexObserver = query.startTrace();
     boolean isQueryTraced = false;
     List queryTraceList = null;
+    query.setMemoryLimit(this.memoryLimit);
+    // the results are accounted until the last chunk of them has been sent, see process
+    this.resourceUsage = QueryResourceUsage.start(query, pr.getCache().getCachePerfStats());
 
     try {
       query.setIsCqQuery(this.cqQuery);
@@ -298,8 +325,18 @@ public class QueryMessage extends StreamingPartitionOperation.StreamingPartition
         this.replyMsgNum, this.replyLastMsg, this.isPdxSerialized);
   }
 
+  @Override
+  public Version[] getSerializationVersions() {
+    return new Version[] {Version.GEODE_180};
+  }
+
   @Override
   public void fromData(DataInput in) throws IOException, ClassNotFoundException {
+    fromDataPre_GEODE_1_8_0_0(in);
+    this.memoryLimit = in.readLong();
+  }
+
+  public void fromDataPre_GEODE_1_8_0_0(DataInput in) throws IOException, ClassNotFoundException {
     super.fromData(in);
     this.queryString = DataSerializer.readString(in);
     this.buckets = DataSerializer.readArrayList(in);
@@ -311,6 +348,11 @@ public class QueryMessage extends StreamingPartitionOperation.StreamingPartition
 
   @Override
   public void toData(DataOutput out) throws IOException {
+    toDataPre_GEODE_1_8_0_0(out);
+    out.writeLong(this.memoryLimit);
+  }
+
+  public void toDataPre_GEODE_1_8_0_0(DataOutput out) throws IOException {
     super.toData(out);
     DataSerializer.writeString(this.queryString, out);
     DataSerializer.writeArrayList((ArrayList) this.buckets, out);
@@ -0,0 +1,884 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.internal.cache.persistence.query;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.apache.geode.cache.query.internal.types.TypeUtils;
+import org.apache.geode.distributed.internal.DistributionConfig;
+import org.apache.geode.internal.DSCODE;
+import org.apache.geode.internal.cache.CachedDeserializable;
+import org.apache.geode.internal.cache.CachedDeserializableFactory;
+import org.apache.geode.internal.cache.EntryEventImpl;
+import org.apache.geode.pdx.internal.PdxString;
+
+/**
+ * An IndexMap that keeps its entries outside of the Java heap, in direct byte buffers.
+ *
+ * The entries are sorted by index key, then by serialized region key, and stored serialized in
+ * blocks of {@link #BLOCK_SIZE} bytes. A block starts with the offsets of its entries, in sorted
+ * order, followed by the entries themselves. The only objects on the heap are one per block, which
+ * remembers the first entry of the block. Finding an entry is a binary search over the blocks
+ * followed by a binary search over the offsets of one block. A block that has no room for a new
+ * entry is rewritten without the space of its removed entries, and split if it is still full.
+ *
+ * Index keys are compared the same way as by the in memory index store, and must not be null. Keys
+ * that are strings or integral numbers are compared to the serialized keys of the blocks in place,
+ * other keys are compared to the deserialized keys of the blocks. A PdxString key is stored and
+ * read back as a String, so PdxString keys are compared as Strings.
+ *
+ * Iterators read one block at a time, and resume after the last entry they returned. They may or
+ * may not reflect the changes made while iterating, but always return the entries in order.
+ *
+ * @since Geode 1.8
+ */
+public class OffHeapIndexMap implements IndexMap {
+
+  /**
+   * The size of a block, in bytes. A block holding a single entry larger than this is larger.
+   */
+  static final int BLOCK_SIZE =
+      Integer.getInteger(DistributionConfig.GEMFIRE_PREFIX + "OffHeapIndexMap.BLOCK_SIZE", 65536);
+
+  /**
+   * The maximum number of entries in a block.
+   */
+  static final int MAX_BLOCK_ENTRIES = Math.max(2, Integer
+      .getInteger(DistributionConfig.GEMFIRE_PREFIX + "OffHeapIndexMap.MAX_BLOCK_ENTRIES", 1024));
+
+  private static final int INT_SIZE = 4;
+
+  /** the size of the table of entry offsets at the start of a block */
+  private static final int OFFSETS_SIZE = MAX_BLOCK_ENTRIES * INT_SIZE;
+
+  /** the length written for a null value */
+  private static final int NULL_LENGTH = -1;
+
+  /** a region key sorted before all of the region keys of an index key */
+  private static final byte[] MIN_REGION_KEY = new byte[0];
+
+  /** a region key sorted after all of the region keys of an index key */
+  private static final byte[] MAX_REGION_KEY = new byte[0];
+
+  private final Comparator keyComparator = TypeUtils.getExtendedNumericComparator();
+
+  private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+  /** the blocks, sorted by their first entry. Guarded by lock. */
+  private final List<Block> blocks = new ArrayList<>();
+
+  /** the number of entries. Guarded by lock. */
+  private long size;
+
+  @Override
+  public void put(Object indexKey, Object regionKey, Object value) {
+    Object key = toObject(indexKey);
+    byte[] keyBytes = toBytes(indexKey);
+    byte[] regionKeyBytes = toBytes(regionKey);
+    byte[] valueBytes = value == null ? null : toBytes(value);
+    byte[] entry = encode(keyBytes, regionKeyBytes, valueBytes);
+
+    lock.writeLock().lock();
+    try {
+      // the new value replaces the one of an existing entry
+      basicRemove(key, regionKeyBytes);
+      if (blocks.isEmpty()) {
+        List<byte[]> entries = new ArrayList<>(1);
+        entries.add(entry);
+        blocks.add(new Block(entries));
+      } else {
+        int blockIndex = findBlock(key, regionKeyBytes);
+        Block block = blocks.get(blockIndex);
+        int entryIndex = block.lowerBound(key, regionKeyBytes, false);
+        if (!block.insert(entryIndex, entry)) {
+          List<byte[]> entries = block.getEntries();
+          entries.add(entryIndex, entry);
+          blocks.remove(blockIndex);
+          blocks.addAll(blockIndex, pack(entries));
+        }
+      }
+      size++;
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  @Override
+  public void remove(Object indexKey, Object regionKey) {
+    Object key = toObject(indexKey);
+    byte[] regionKeyBytes = toBytes(regionKey);
+    lock.writeLock().lock();
+    try {
+      basicRemove(key, regionKeyBytes);
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  private void basicRemove(Object key, byte[] regionKey) {
+    if (blocks.isEmpty()) {
+      return;
+    }
+    int blockIndex = findBlock(key, regionKey);
+    Block block = blocks.get(blockIndex);
+    int entryIndex = block.lowerBound(key, regionKey, false);
+    if (entryIndex == block.count || block.compare(entryIndex, key, regionKey) != 0) {
+      return;
+    }
+    block.delete(entryIndex);
+    if (block.count == 0) {
+      blocks.remove(blockIndex);
+    }
+    size--;
+  }
+
+  @Override
+  public CloseableIterator<IndexEntry> get(Object indexKey) {
+    Object key = toObject(indexKey);
+    return new Itr(key, MIN_REGION_KEY, key, MAX_REGION_KEY, false);
+  }
+
+  @Override
+  public CloseableIterator<CachedDeserializable> getKey(Object indexKey) {
+    return new KeyItr(get(indexKey));
+  }
+
+  @Override
+  public CloseableIterator<IndexEntry> iterator(Object start, boolean startInclusive, Object end,
+      boolean endInclusive) {
+    Object startKey = toObject(start);
+    Object endKey = toObject(end);
+    if (keyComparator.compare(startKey, endKey) > 0) {
+      return new Itr(endKey, endInclusive ? MIN_REGION_KEY : MAX_REGION_KEY, startKey,
+          startInclusive ? MAX_REGION_KEY : MIN_REGION_KEY, true);
+    }
+    return new Itr(startKey, startInclusive ? MIN_REGION_KEY : MAX_REGION_KEY, endKey,
+        endInclusive ? MAX_REGION_KEY : MIN_REGION_KEY, false);
+  }
+
+  @Override
+  public CloseableIterator<IndexEntry> iterator(Object start, boolean startInclusive) {
+    return new Itr(toObject(start), startInclusive ? MIN_REGION_KEY : MAX_REGION_KEY, null, null,
+        false);
+  }
+
+  @Override
+  public CloseableIterator<IndexEntry> iterator() {
+    return new Itr(null, null, null, null, false);
+  }
+
+  @Override
+  public CloseableIterator<IndexEntry> descendingIterator(Object end, boolean endInclusive) {
+    return new Itr(null, null, toObject(end), endInclusive ? MAX_REGION_KEY : MIN_REGION_KEY,
+        true);
+  }
+
+  @Override
+  public CloseableIterator<IndexEntry> descendingIterator() {
+    return new Itr(null, null, null, null, true);
+  }
+
+  @Override
+  public CloseableIterator<CachedDeserializable> keyIterator(Object start, boolean startInclusive,
+      Object end, boolean endInclusive) {
+    return new KeyItr(iterator(start, startInclusive, end, endInclusive));
+  }
+
+  @Override
+  public CloseableIterator<CachedDeserializable> keyIterator(Object start,
+      boolean startInclusive) {
+    return new KeyItr(iterator(start, startInclusive));
+  }
+
+  @Override
+  public CloseableIterator<CachedDeserializable> keyIterator() {
+    return new KeyItr(iterator());
+  }
+
+  @Override
+  public CloseableIterator<CachedDeserializable> descendingKeyIterator(Object end,
+      boolean endInclusive) {
+    return new KeyItr(descendingIterator(end, endInclusive));
+  }
+
+  @Override
+  public CloseableIterator<CachedDeserializable> descendingKeyIterator() {
+    return new KeyItr(descendingIterator());
+  }
+
+  @Override
+  public long size(Object start, Object end) {
+    Object startKey = toObject(start);
+    Object endKey = toObject(end);
+    lock.readLock().lock();
+    try {
+      return count(lowerBound(startKey, MIN_REGION_KEY, false),
+          lowerBound(endKey, MAX_REGION_KEY, false));
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  @Override
+  public long sizeToEnd(Object start) {
+    Object startKey = toObject(start);
+    lock.readLock().lock();
+    try {
+      return count(lowerBound(startKey, MIN_REGION_KEY, false), new Position(blocks.size(), 0));
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  @Override
+  public long sizeFromStart(Object end) {
+    Object endKey = toObject(end);
+    lock.readLock().lock();
+    try {
+      return count(new Position(0, 0), lowerBound(endKey, MAX_REGION_KEY, false));
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  @Override
+  public long size() {
+    lock.readLock().lock();
+    try {
+      return size;
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Removes all of the entries. The memory of the blocks is released once they are garbage
+   * collected.
+   */
+  @Override
+  public void destroy() {
+    lock.writeLock().lock();
+    try {
+      blocks.clear();
+      size = 0;
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Returns the number of blocks, for tests.
+   */
+  int getBlockCount() {
+    lock.readLock().lock();
+    try {
+      return blocks.size();
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  private int compare(Object key1, byte[] regionKey1, Object key2, byte[] regionKey2) {
+    int result = keyComparator.compare(key1, key2);
+    if (result != 0) {
+      return result;
+    }
+    return compareRegionKeys(regionKey1, regionKey2);
+  }
+
+  private static int compareRegionKeys(byte[] regionKey1, byte[] regionKey2) {
+    if (regionKey1 == regionKey2) {
+      return 0;
+    }
+    if (regionKey1 == MIN_REGION_KEY || regionKey2 == MAX_REGION_KEY) {
+      return -1;
+    }
+    if (regionKey1 == MAX_REGION_KEY || regionKey2 == MIN_REGION_KEY) {
+      return 1;
+    }
+    int length = Math.min(regionKey1.length, regionKey2.length);
+    for (int i = 0; i < length; i++) {
+      if (regionKey1[i] != regionKey2[i]) {
+        return regionKey1[i] < regionKey2[i] ? -1 : 1;
+      }
+    }
+    return Integer.compare(regionKey1.length, regionKey2.length);
+  }
+
+  /**
+   * Returns the index of the block that may hold the given entry: the last block whose first entry
+   * is not greater than it, or the first block.
+   */
+  private int findBlock(Object key, byte[] regionKey) {
+    int low = 0;
+    int high = blocks.size() - 1;
+    int result = 0;
+    while (low <= high) {
+      int mid = (low + high) >>> 1;
+      Block block = blocks.get(mid);
+      if (compare(block.firstKey, block.firstRegionKey, key, regionKey) <= 0) {
+        result = mid;
+        low = mid + 1;
+      } else {
+        high = mid - 1;
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Returns the position of the first entry greater than, or equal to if not strict, the given
+   * one. The block of the position is the number of blocks if there is no such entry.
+   */
+  private Position lowerBound(Object key, byte[] regionKey, boolean strict) {
+    if (blocks.isEmpty()) {
+      return new Position(0, 0);
+    }
+    int blockIndex = findBlock(key, regionKey);
+    Block block = blocks.get(blockIndex);
+    int entryIndex = block.lowerBound(key, regionKey, strict);
+    if (entryIndex == block.count) {
+      return new Position(blockIndex + 1, 0);
+    }
+    return new Position(blockIndex, entryIndex);
+  }
+
+  /**
+   * Returns the number of entries from the first position, included, to the second one, excluded.
+   */
+  private long count(Position from, Position to) {
+    if (from.block > to.block || (from.block == to.block && from.entry >= to.entry)) {
+      return 0;
+    }
+    if (from.block == to.block) {
+      return to.entry - from.entry;
+    }
+    long result = blocks.get(from.block).count - from.entry;
+    for (int i = from.block + 1; i < to.block; i++) {
+      result += blocks.get(i).count;
+    }
+    return result + to.entry;
+  }
+
+  /**
+   * Splits the given sorted entries into blocks. The entries are stored in a single block if they
+   * fit in it, otherwise in blocks about half full which have room for new entries.
+   */
+  private List<Block> pack(List<byte[]> entries) {
+    List<Block> packed = new ArrayList<>();
+    int totalSize = 0;
+    for (byte[] entry : entries) {
+      totalSize += entry.length;
+    }
+    if (entries.size() <= MAX_BLOCK_ENTRIES && OFFSETS_SIZE + totalSize <= BLOCK_SIZE) {
+      packed.add(new Block(entries));
+      return packed;
+    }
+    int maxEntries = MAX_BLOCK_ENTRIES / 2;
+    int maxSize = (BLOCK_SIZE - OFFSETS_SIZE) / 2;
+    List<byte[]> current = new ArrayList<>();
+    int currentSize = 0;
+    for (byte[] entry : entries) {
+      if (!current.isEmpty()
+          && (current.size() == maxEntries || currentSize + entry.length > maxSize)) {
+        packed.add(new Block(current));
+        current = new ArrayList<>();
+        currentSize = 0;
+      }
+      current.add(entry);
+      currentSize += entry.length;
+    }
+    packed.add(new Block(current));
+    return packed;
+  }
+
+  private static Object toObject(Object object) {
+    if (object instanceof CachedDeserializable) {
+      object = ((CachedDeserializable) object).getDeserializedForReading();
+    }
+    if (object instanceof PdxString) {
+      // serialized, and therefore stored, as a String
+      return object.toString();
+    }
+    return object;
+  }
+
+  private static byte[] toBytes(Object object) {
+    if (object instanceof CachedDeserializable) {
+      return ((CachedDeserializable) object).getSerializedValue();
+    }
+    return EntryEventImpl.serialize(object);
+  }
+
+  /**
+   * Encodes an entry as the length and bytes of the index key, of the region key and of the value.
+   */
+  private static byte[] encode(byte[] key, byte[] regionKey, byte[] value) {
+    int valueLength = value == null ? 0 : value.length;
+    ByteBuffer entry = ByteBuffer
+        .allocate(3 * INT_SIZE + key.length + regionKey.length + valueLength);
+    entry.putInt(key.length);
+    entry.put(key);
+    entry.putInt(regionKey.length);
+    entry.put(regionKey);
+    if (value == null) {
+      entry.putInt(NULL_LENGTH);
+    } else {
+      entry.putInt(value.length);
+      entry.put(value);
+    }
+    return entry.array();
+  }
+
+  /**
+   * A block of sorted entries, stored in a direct byte buffer. Only modified while holding the
+   * write lock of the map.
+   */
+  private class Block {
+    private final ByteBuffer buffer;
+
+    /** the number of entries, whose offsets are at the start of the buffer */
+    private int count;
+
+    /** the offset where the next entry is written */
+    private int end;
+
+    /** the first entry, deserialized, to find blocks without reading their buffer */
+    private Object firstKey;
+    private byte[] firstRegionKey;
+
+    private Block(List<byte[]> entries) {
+      int entriesSize = 0;
+      for (byte[] entry : entries) {
+        entriesSize += entry.length;
+      }
+      this.buffer = ByteBuffer.allocateDirect(Math.max(BLOCK_SIZE, OFFSETS_SIZE + entriesSize));
+      this.end = OFFSETS_SIZE;
+      for (byte[] entry : entries) {
+        buffer.putInt(count * INT_SIZE, end);
+        write(end, entry);
+        end += entry.length;
+        count++;
+      }
+      updateFirstEntry();
+    }
+
+    /**
+     * Inserts an entry at the given index, returning false if the block has no room for it.
+     */
+    private boolean insert(int index, byte[] entry) {
+      if (count == MAX_BLOCK_ENTRIES || end + entry.length > buffer.capacity()) {
+        return false;
+      }
+      for (int i = count; i > index; i--) {
+        buffer.putInt(i * INT_SIZE, buffer.getInt((i - 1) * INT_SIZE));
+      }
+      buffer.putInt(index * INT_SIZE, end);
+      write(end, entry);
+      end += entry.length;
+      count++;
+      if (index == 0) {
+        updateFirstEntry();
+      }
+      return true;
+    }
+
+    /**
+     * Removes the entry at the given index. Its space is reclaimed when the block is rewritten.
+     */
+    private void delete(int index) {
+      for (int i = index; i < count - 1; i++) {
+        buffer.putInt(i * INT_SIZE, buffer.getInt((i + 1) * INT_SIZE));
+      }
+      count--;
+      if (index == 0) {
+        updateFirstEntry();
+      }
+    }
+
+    private void updateFirstEntry() {
+      if (count > 0) {
+        firstKey = getKey(0);
+        firstRegionKey = getRegionKey(0);
+      } else {
+        firstKey = null;
+        firstRegionKey = null;
+      }
+    }
+
+    /**
+     * Returns the index of the first entry greater than, or equal to if not strict, the given one,
+     * or the number of entries if there is no such entry.
+     */
+    private int lowerBound(Object key, byte[] regionKey, boolean strict) {
+      int low = 0;
+      int high = count;
+      while (low < high) {
+        int mid = (low + high) >>> 1;
+        int result = compare(mid, key, regionKey);
+        if (result < 0 || (strict && result == 0)) {
+          low = mid + 1;
+        } else {
+          high = mid;
+        }
+      }
+      return low;
+    }
+
+    private int compare(int index, Object key, byte[] regionKey) {
+      int result = compareKey(getOffset(index), key);
+      if (result != 0) {
+        return result;
+      }
+      return compareRegionKeys(getRegionKey(index), regionKey);
+    }
+
+    /**
+     * Compares the index key of the entry at the given offset to the given one. Strings, integers
+     * and longs are compared to the serialized key without deserializing it.
+     */
+    private int compareKey(int entryOffset, Object key) {
+      int offset = entryOffset + INT_SIZE;
+      byte header = buffer.get(offset);
+      if (key instanceof String) {
+        if (header == DSCODE.STRING_BYTES.toByte()) {
+          return compareStringBytes(offset + 1, (String) key);
+        } else if (header == DSCODE.STRING.toByte()) {
+          return compareUTF(offset + 1, (String) key);
+        }
+      } else if (key instanceof Integer && header == DSCODE.INTEGER.toByte()) {
+        return Integer.compare(buffer.getInt(offset + 1), (Integer) key);
+      } else if (key instanceof Long && header == DSCODE.LONG.toByte()) {
+        return Long.compare(buffer.getLong(offset + 1), (Long) key);
+      }
+      return keyComparator.compare(EntryEventImpl.deserialize(read(entryOffset)), key);
+    }
+
+    /**
+     * Compares a string serialized as its length and one byte per char, as for ascii strings, to
+     * the given one the same way as String.compareTo.
+     */
+    private int compareStringBytes(int offset, String key) {
+      int length = buffer.getShort(offset) & 0xFFFF;
+      offset += 2;
+      int n = Math.min(length, key.length());
+      for (int i = 0; i < n; i++) {
+        char c = (char) (buffer.get(offset + i) & 0xFF);
+        if (c != key.charAt(i)) {
+          return c - key.charAt(i);
+        }
+      }
+      return length - key.length();
+    }
+
+    /**
+     * Compares a string serialized in modified UTF-8, as by DataOutput.writeUTF, to the given one
+     * the same way as String.compareTo, decoding one char at a time.
+     */
+    private int compareUTF(int offset, String key) {
+      int end = offset + 2 + (buffer.getShort(offset) & 0xFFFF);
+      offset += 2;
+      int i = 0;
+      while (offset < end && i < key.length()) {
+        int b = buffer.get(offset++) & 0xFF;
+        char c;
+        if (b < 0x80) {
+          c = (char) b;
+        } else if ((b & 0xE0) == 0xC0) {
+          c = (char) (((b & 0x1F) << 6) | (buffer.get(offset++) & 0x3F));
+        } else {
+          c = (char) (((b & 0x0F) << 12) | ((buffer.get(offset++) & 0x3F) << 6)
+              | (buffer.get(offset++) & 0x3F));
+        }
+        if (c != key.charAt(i)) {
+          return c - key.charAt(i);
+        }
+        i++;
+      }
+      if (offset < end) {
+        return 1;
+      }
+      return i < key.length() ? -1 : 0;
+    }
+
+    private int getOffset(int index) {
+      return buffer.getInt(index * INT_SIZE);
+    }
+
+    private Object getKey(int index) {
+      return EntryEventImpl.deserialize(read(getOffset(index)));
+    }
+
+    private byte[] getRegionKey(int index) {
+      int offset = getOffset(index);
+      return read(offset + INT_SIZE + buffer.getInt(offset));
+    }
+
+    private int getLength(int index) {
+      int offset = getOffset(index);
+      int keyLength = buffer.getInt(offset);
+      int regionKeyLength = buffer.getInt(offset + INT_SIZE + keyLength);
+      int valueLength = buffer.getInt(offset + 2 * INT_SIZE + keyLength + regionKeyLength);
+      return 3 * INT_SIZE + keyLength + regionKeyLength + Math.max(0, valueLength);
+    }
+
+    /**
+     * Returns the entries of this block, in order.
+     */
+    private List<byte[]> getEntries() {
+      List<byte[]> entries = new ArrayList<>(count + 1);
+      for (int i = 0; i < count; i++) {
+        byte[] entry = new byte[getLength(i)];
+        ByteBuffer source = buffer.duplicate();
+        source.position(getOffset(i));
+        source.get(entry);
+        entries.add(entry);
+      }
+      return entries;
+    }
+
+    private IndexEntryImpl getEntry(int index) {
+      int offset = getOffset(index);
+      byte[] key = read(offset);
+      offset += INT_SIZE + key.length;
+      byte[] regionKey = read(offset);
+      offset += INT_SIZE + regionKey.length;
+      byte[] value = read(offset);
+      return new IndexEntryImpl(EntryEventImpl.deserialize(key), key.length, regionKey, value);
+    }
+
+    /**
+     * Reads the bytes at the given offset, preceded by their length.
+     */
+    private byte[] read(int offset) {
+      int length = buffer.getInt(offset);
+      if (length == NULL_LENGTH) {
+        return null;
+      }
+      byte[] bytes = new byte[length];
+      ByteBuffer source = buffer.duplicate();
+      source.position(offset + INT_SIZE);
+      source.get(bytes);
+      return bytes;
+    }
+
+    private void write(int offset, byte[] bytes) {
+      ByteBuffer target = buffer.duplicate();
+      target.position(offset);
+      target.put(bytes);
+    }
+  }
+
+  private static class Position {
+    private final int block;
+    private final int entry;
+
+    private Position(int block, int entry) {
+      this.block = block;
+      this.entry = entry;
+    }
+  }
+
+  private static class IndexEntryImpl implements IndexEntry {
+    private final Object deserializedKey;
+    private final byte[] regionKeyBytes;
+    private final CachedDeserializable key;
+    private final CachedDeserializable regionKey;
+    private final CachedDeserializable value;
+
+    private IndexEntryImpl(Object key, int keySize, byte[] regionKey, byte[] value) {
+      this.deserializedKey = key;
+      this.regionKeyBytes = regionKey;
+      this.key = CachedDeserializableFactory.create(key, keySize, null);
+      this.regionKey = CachedDeserializableFactory.create(regionKey, null);
+      this.value = value == null ? null : CachedDeserializableFactory.create(value, null);
+    }
+
+    @Override
+    public CachedDeserializable getKey() {
+      return key;
+    }
+
+    @Override
+    public CachedDeserializable getRegionKey() {
+      return regionKey;
+    }
+
+    @Override
+    public CachedDeserializable getValue() {
+      return value;
+    }
+  }
+
+  /**
+   * Iterates over the entries between two bounds, reading one block at a time while holding the
+   * read lock. The bounds are excluded, and use {@link #MIN_REGION_KEY} or {@link #MAX_REGION_KEY}
+   * to include or exclude their index key. A null bound key is unbounded.
+   */
+  private class Itr implements CloseableIterator<IndexEntry> {
+    private final Object lowKey;
+    private final byte[] lowRegionKey;
+    private final Object highKey;
+    private final byte[] highRegionKey;
+    private final boolean descending;
+
+    private final Deque<IndexEntryImpl> entries = new ArrayDeque<>();
+
+    /** the last entry read from the blocks */
+    private IndexEntryImpl last;
+
+    private boolean done;
+
+    private Itr(Object lowKey, byte[] lowRegionKey, Object highKey, byte[] highRegionKey,
+        boolean descending) {
+      this.lowKey = lowKey;
+      this.lowRegionKey = lowRegionKey;
+      this.highKey = highKey;
+      this.highRegionKey = highRegionKey;
+      this.descending = descending;
+    }
+
+    @Override
+    public boolean hasNext() {
+      if (entries.isEmpty() && !done) {
+        lock.readLock().lock();
+        try {
+          if (descending) {
+            readBackward();
+          } else {
+            readForward();
+          }
+        } finally {
+          lock.readLock().unlock();
+        }
+      }
+      return !entries.isEmpty();
+    }
+
+    private void readForward() {
+      Position position;
+      if (last != null) {
+        position = lowerBound(last.deserializedKey, last.regionKeyBytes, true);
+      } else if (lowKey != null) {
+        position = lowerBound(lowKey, lowRegionKey, false);
+      } else {
+        position = new Position(0, 0);
+      }
+      if (position.block >= blocks.size()) {
+        done = true;
+        return;
+      }
+      Block block = blocks.get(position.block);
+      for (int i = position.entry; i < block.count; i++) {
+        IndexEntryImpl entry = block.getEntry(i);
+        if (highKey != null
+            && compare(entry.deserializedKey, entry.regionKeyBytes, highKey, highRegionKey) > 0) {
+          done = true;
+          break;
+        }
+        entries.add(entry);
+        last = entry;
+      }
+    }
+
+    private void readBackward() {
+      Position position;
+      if (last != null) {
+        position = lowerBound(last.deserializedKey, last.regionKeyBytes, false);
+      } else if (highKey != null) {
+        position = lowerBound(highKey, highRegionKey, false);
+      } else {
+        position = new Position(blocks.size(), 0);
+      }
+      // read from the entry before the position
+      int blockIndex = position.block;
+      int entryIndex = position.entry - 1;
+      if (entryIndex < 0) {
+        blockIndex--;
+        if (blockIndex < 0) {
+          done = true;
+          return;
+        }
+        entryIndex = blocks.get(blockIndex).count - 1;
+      }
+      Block block = blocks.get(blockIndex);
+      for (int i = entryIndex; i >= 0; i--) {
+        IndexEntryImpl entry = block.getEntry(i);
+        if (lowKey != null
+            && compare(entry.deserializedKey, entry.regionKeyBytes, lowKey, lowRegionKey) < 0) {
+          done = true;
+          break;
+        }
+        entries.add(entry);
+        last = entry;
+      }
+    }
+
+    @Override
+    public IndexEntry next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      return entries.poll();
+    }
+
+    @Override
+    public void remove() {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void close() {
+      done = true;
+      entries.clear();
+    }
+  }
+
+  private static class KeyItr implements CloseableIterator<CachedDeserializable> {
+    private final CloseableIterator<IndexEntry> iterator;
+
+    private KeyItr(CloseableIterator<IndexEntry> iterator) {
+      this.iterator = iterator;
+    }
+
+    @Override
+    public boolean hasNext() {
+      return iterator.hasNext();
+    }
+
+    @Override
+    public CachedDeserializable next() {
+      return iterator.next().getRegionKey();
+    }
+
+    @Override
+    public void remove() {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void close() {
+      iterator.close();
+    }
+  }
+}
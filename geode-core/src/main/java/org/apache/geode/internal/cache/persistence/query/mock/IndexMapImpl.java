@@ -68,6 +68,14 @@ public class IndexMapImpl implements IndexMap {
   @Override
   public CloseableIterator<IndexEntry> iterator(Object start, boolean startInclusive, Object end,
       boolean endInclusive) {
+    if (new ExtendedNumericComparator().compare(start, end) > 0) {
+      byte[] startBytes = startInclusive ? ByteComparator.MAX_BYTES : ByteComparator.MIN_BYTES;
+      byte[] endBytes = endInclusive ? ByteComparator.MIN_BYTES : ByteComparator.MAX_BYTES;
+      return new Itr(map
+          .subMap(new Pair(end, endBytes), endInclusive, new Pair(start, startBytes),
+              startInclusive)
+          .descendingMap().entrySet().iterator());
+    }
     byte[] startBytes = startInclusive ? ByteComparator.MIN_BYTES : ByteComparator.MAX_BYTES;
     byte[] endBytes = endInclusive ? ByteComparator.MAX_BYTES : ByteComparator.MIN_BYTES;
     return new Itr(map
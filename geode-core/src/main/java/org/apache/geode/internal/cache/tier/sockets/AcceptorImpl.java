@@ -433,10 +433,8 @@ public class AcceptorImpl implements Acceptor, Runnable, CommBufferPool {
       final long tilt = System.currentTimeMillis() + 120 * 1000;
 
       if (isSelector()) {
-        if (this.socketCreator.useSSL()) {
-          throw new IllegalArgumentException(
-              "Selector thread pooling can not be used with client/server SSL. The selector can be disabled by setting max-threads=0.");
-        }
+        // with SSL the accepted sockets are layered under SSL sockets by
+        // handleNewClientConnection so that their channels can still be selected
         ServerSocketChannel channel = ServerSocketChannel.open();
         this.serverSock = channel.socket();
         this.serverSock.setReuseAddress(true);
@@ -1312,7 +1310,12 @@ public class AcceptorImpl implements Acceptor, Runnable, CommBufferPool {
   private ByteBuffer takeCommBuffer() {
     ByteBuffer result = (ByteBuffer) this.commBufferQueue.poll();
     if (result == null) {
-      result = ByteBuffer.allocateDirect(this.socketBufferSize);
+      if (this.socketCreator.useSSL()) {
+        // messages are read and written through the SSL socket's streams, which need an array
+        result = ByteBuffer.allocate(this.socketBufferSize);
+      } else {
+        result = ByteBuffer.allocateDirect(this.socketBufferSize);
+      }
     }
     return result;
   }
@@ -1342,15 +1345,23 @@ public class AcceptorImpl implements Acceptor, Runnable, CommBufferPool {
     return notifyBySubscription;
   }
 
-  protected void handleNewClientConnection(final Socket socket,
+  protected void handleNewClientConnection(final Socket acceptedSocket,
       final ServerConnectionFactory serverConnectionFactory) throws IOException {
+    final Socket socket;
+    if (isSelector() && this.socketCreator.useSSL()) {
+      // the SSL socket reads and writes through the accepted socket, whose channel is the one
+      // registered with the selector
+      socket = this.socketCreator.layerServerSSLSocket(acceptedSocket);
+    } else {
+      socket = acceptedSocket;
+    }
     // Read the first byte. If this socket is being used for 'client to server'
     // communication, create a ServerConnection. If this socket is being used
     // for 'server to client' communication, send it to the CacheClientNotifier
     // for processing.
     final CommunicationMode communicationMode;
     try {
-      if (isSelector()) {
+      if (isSelector() && socket == acceptedSocket) {
         communicationMode = getCommunicationModeForSelector(socket);
       } else {
         communicationMode = getCommunicationModeForNonSelector(socket);
@@ -1409,6 +1420,9 @@ public class AcceptorImpl implements Acceptor, Runnable, CommBufferPool {
       incClientServerCnxCount();
     }
     if (isSelector()) {
+      if (socket != acceptedSocket) {
+        serverConn.setSelectableChannel(acceptedSocket.getChannel());
+      }
       serverConn.registerWithSelector();
     } else {
       try {
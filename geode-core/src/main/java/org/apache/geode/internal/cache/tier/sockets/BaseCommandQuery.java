@@ -15,6 +15,8 @@
 package org.apache.geode.internal.cache.tier.sockets;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.List;
@@ -29,6 +31,7 @@ import org.apache.geode.cache.query.SelectResults;
 import org.apache.geode.cache.query.Struct;
 import org.apache.geode.cache.query.internal.CqEntry;
 import org.apache.geode.cache.query.internal.DefaultQuery;
+import org.apache.geode.cache.query.internal.PartialResultsHandler;
 import org.apache.geode.cache.query.internal.cq.ServerCQ;
 import org.apache.geode.cache.query.internal.types.CollectionTypeImpl;
 import org.apache.geode.cache.query.internal.types.StructTypeImpl;
@@ -97,13 +100,15 @@ public abstract class BaseCommandQuery extends BaseCommand {
       // For now we assume the results are a SelectResults
       // which is the only possibility now, but this may change
       // in the future if we support arbitrary queries
-      Object result = null;
-
-      if (params != null) {
-        result = query.execute(params);
-      } else {
-        result = query.execute();
+      // Send the results while the query is evaluated when nothing has to see all of them first
+      PartialResultsSender partialResultsSender = null;
+      if (sendResults && cqQuery == null && servConn.getPostAuthzRequest() == null
+          && ((DefaultQuery) query).isRemoteQuery()) {
+        partialResultsSender =
+            new PartialResultsSender(msg, query, queryString, servConn, securityService);
       }
+      Object result = ((DefaultQuery) query).execute(params != null ? params : new Object[0],
+          partialResultsSender, MAXIMUM_CHUNK_SIZE);
 
       // Asif : Before conditioning the results check if any
       // of the regions involved in the query have been destroyed
@@ -160,7 +165,13 @@ public abstract class BaseCommandQuery extends BaseCommand {
 
         // Get the collection type (which includes the element type)
         // (used to generate the appropriate instance on the client)
-        collectionType = getCollectionType(selectResults);
+        boolean partialResultsSent =
+            partialResultsSender != null && partialResultsSender.collectionType != null;
+        if (partialResultsSent) {
+          collectionType = partialResultsSender.collectionType;
+        } else {
+          collectionType = getCollectionType(selectResults);
+        }
         isStructs = collectionType.getElementType().isStructType();
 
         // Check if the Query is from CQ execution.
@@ -187,7 +198,7 @@ public abstract class BaseCommandQuery extends BaseCommand {
         start = DistributionStats.getStatTime();
         stats.incProcessQueryTime(start - oldStart);
 
-        if (sendResults) {
+        if (sendResults && !partialResultsSent) {
           queryResponseMsg.setMessageType(MessageType.RESPONSE);
           queryResponseMsg.setTransactionId(msg.getTransactionId());
           queryResponseMsg.sendHeader();
@@ -208,12 +219,12 @@ public abstract class BaseCommandQuery extends BaseCommand {
           // from 7.0, if the object is in the form of serialized byte array,
           // send it as a part of ObjectPartList
           if (hasSerializedObjects) {
-            sendResultsAsObjectPartList(numberOfChunks, servConn, selectResults.asList(), isStructs,
-                collectionType, queryString, cqQuery, sendCqResultsWithKey, sendResults,
-                securityService);
+            sendResultsAsObjectPartList(numberOfChunks, servConn, selectResults.iterator(),
+                isStructs, collectionType, queryString, cqQuery, sendCqResultsWithKey, sendResults,
+                false, securityService);
           } else {
             sendResultsAsObjectArray(selectResults, numberOfChunks, servConn, isStructs,
-                collectionType, queryString, cqQuery, sendCqResultsWithKey, sendResults);
+                collectionType, queryString, cqQuery, sendCqResultsWithKey, sendResults, false);
           }
         }
 
@@ -248,6 +259,10 @@ public abstract class BaseCommandQuery extends BaseCommand {
               new Object[] {e.getLocalizedMessage(), queryString}));
       writeQueryResponseException(msg, qie, servConn);
       return false;
+    } catch (UncheckedIOException e) {
+      // failed to send results while the query was evaluated
+      writeQueryResponseException(msg, e.getCause(), servConn);
+      return false;
     } catch (DistributedSystemDisconnectedException se) {
       if (msg != null && logger.isDebugEnabled()) {
         logger.debug(
@@ -346,37 +361,34 @@ public abstract class BaseCommandQuery extends BaseCommand {
     }
   }
 
+  /**
+   * Sends the results in chunks. If moreResults is true none of the chunks is the last one of the
+   * response.
+   */
   private void sendResultsAsObjectArray(SelectResults selectResults, int numberOfChunks,
       ServerConnection servConn, boolean isStructs, CollectionType collectionType,
-      String queryString, ServerCQ cqQuery, boolean sendCqResultsWithKey, boolean sendResults)
-      throws IOException {
+      String queryString, ServerCQ cqQuery, boolean sendCqResultsWithKey, boolean sendResults,
+      boolean moreResults) throws IOException {
+    // iterate rather than copy the results so that only one chunk is held in addition to them
+    Iterator resultIterator = selectResults.iterator();
     int resultIndex = 0;
-    // For CQ only as we dont want CQEntries which have null values.
-    int cqResultIndex = 0;
-    Object[] objs = selectResults.toArray();
     for (int j = 0; j < numberOfChunks; j++) {
-      boolean incompleteArray = false;
       if (logger.isTraceEnabled()) {
         logger.trace("{}: Creating chunk: {}", servConn.getName(), j);
       }
       Object[] results = new Object[MAXIMUM_CHUNK_SIZE];
-      for (int i = 0; i < MAXIMUM_CHUNK_SIZE; i++) {
-        if ((resultIndex) == objs.length) {
-          incompleteArray = true;
-          break;
-        }
+      int chunkSize = 0;
+      while (chunkSize < MAXIMUM_CHUNK_SIZE && resultIterator.hasNext()) {
+        Object result = resultIterator.next();
         if (logger.isTraceEnabled()) {
           logger.trace("{}: Adding entry [{}] to query results: {}", servConn.getName(),
-              resultIndex, objs[resultIndex]);
+              resultIndex, result);
         }
+        resultIndex++;
         if (cqQuery != null) {
-          CqEntry e = (CqEntry) objs[resultIndex];
+          CqEntry e = (CqEntry) result;
           // The value may have become null because of entry invalidation.
           if (e.getValue() == null) {
-            resultIndex++;
-            // i will get incremented anyway so we need to decrement it back so
-            // that results[i] is not null.
-            i--;
             continue;
           }
           // Add the key into CQ results cache.
@@ -390,40 +402,30 @@ public abstract class BaseCommandQuery extends BaseCommand {
 
           // Add to the Results object array.
           if (sendCqResultsWithKey) {
-            results[i] = e.getKeyValuePair();
+            results[chunkSize] = e.getKeyValuePair();
           } else {
-            results[i] = e.getValue();
+            results[chunkSize] = e.getValue();
           }
         } else {
           // instance check added to fix bug 40516.
-          if (isStructs && (objs[resultIndex] instanceof Struct)) {
-            results[i] = ((Struct) objs[resultIndex]).getFieldValues();
+          if (isStructs && (result instanceof Struct)) {
+            results[chunkSize] = ((Struct) result).getFieldValues();
           } else {
-            results[i] = objs[resultIndex];
+            results[chunkSize] = result;
           }
         }
-        resultIndex++;
-        cqResultIndex++;
+        chunkSize++;
       }
       // Shrink array if necessary. This will occur if the number
       // of entries in the chunk does not divide evenly into the
       // number of entries in the result set.
-      if (incompleteArray) {
-        Object[] newResults;
-        if (cqQuery != null) {
-          newResults = new Object[cqResultIndex % MAXIMUM_CHUNK_SIZE];
-        } else {
-          newResults = new Object[resultIndex % MAXIMUM_CHUNK_SIZE];
-        }
-        for (int i = 0; i < newResults.length; i++) {
-          newResults[i] = results[i];
-        }
-        results = newResults;
+      if (chunkSize < MAXIMUM_CHUNK_SIZE) {
+        results = Arrays.copyOf(results, chunkSize);
       }
+      boolean lastChunk = !moreResults && !resultIterator.hasNext();
 
       if (sendResults) {
-        writeQueryResponseChunk(results, collectionType, (resultIndex == objs.length),
-            servConn);
+        writeQueryResponseChunk(results, collectionType, lastChunk, servConn);
 
         if (logger.isDebugEnabled()) {
           logger.debug("{}: Sent chunk ({} of {}) of query response for query: {}",
@@ -432,16 +434,20 @@ public abstract class BaseCommandQuery extends BaseCommand {
       }
       // If we have reached the last element of SelectResults then we should
       // break out of loop here only.
-      if (resultIndex == objs.length) {
+      if (!resultIterator.hasNext()) {
         break;
       }
     }
   }
 
-  private void sendResultsAsObjectPartList(int numberOfChunks, ServerConnection servConn, List objs,
-      boolean isStructs, CollectionType collectionType, String queryString, ServerCQ cqQuery,
-      boolean sendCqResultsWithKey, boolean sendResults, final SecurityService securityService)
-      throws IOException {
+  /**
+   * Sends the serialized results in chunks. If moreResults is true none of the chunks is the last
+   * one of the response.
+   */
+  private void sendResultsAsObjectPartList(int numberOfChunks, ServerConnection servConn,
+      Iterator resultIterator, boolean isStructs, CollectionType collectionType,
+      String queryString, ServerCQ cqQuery, boolean sendCqResultsWithKey, boolean sendResults,
+      boolean moreResults, final SecurityService securityService) throws IOException {
     int resultIndex = 0;
     Object result = null;
     for (int j = 0; j < numberOfChunks; j++) {
@@ -450,15 +456,16 @@ public abstract class BaseCommandQuery extends BaseCommand {
       }
       ObjectPartList serializedObjs = new ObjectPartList(MAXIMUM_CHUNK_SIZE, false);
       for (int i = 0; i < MAXIMUM_CHUNK_SIZE; i++) {
-        if ((resultIndex) == objs.size()) {
+        if (!resultIterator.hasNext()) {
           break;
         }
+        Object next = resultIterator.next();
         if (logger.isTraceEnabled()) {
           logger.trace("{}: Adding entry [{}] to query results: {}", servConn.getName(),
-              resultIndex, objs.get(resultIndex));
+              resultIndex, next);
         }
         if (cqQuery != null) {
-          CqEntry e = (CqEntry) objs.get(resultIndex);
+          CqEntry e = (CqEntry) next;
           // The value may have become null because of entry invalidation.
           if (e.getValue() == null) {
             resultIndex++;
@@ -481,7 +488,7 @@ public abstract class BaseCommandQuery extends BaseCommand {
             result = e.getValue();
           }
         } else {
-          result = objs.get(resultIndex);
+          result = next;
         }
         if (sendResults) {
           addToObjectPartList(serializedObjs, result, collectionType, false, servConn, isStructs,
@@ -491,8 +498,8 @@ public abstract class BaseCommandQuery extends BaseCommand {
       }
 
       if (sendResults) {
-        writeQueryResponseChunk(serializedObjs, collectionType, ((j + 1) == numberOfChunks),
-            servConn);
+        writeQueryResponseChunk(serializedObjs, collectionType,
+            !moreResults && (j + 1) == numberOfChunks, servConn);
 
         if (logger.isDebugEnabled()) {
           logger.debug("{}: Sent chunk ({} of {}) of query response for query: {}",
@@ -546,4 +553,54 @@ public abstract class BaseCommandQuery extends BaseCommand {
         null);
   }
 
+  /**
+   * Sends the results of a query to the client while the query is evaluated, so that the server
+   * holds only one chunk of them. The response header is sent with the first chunk; the results
+   * left when the query completes are sent as usual and end the response.
+   */
+  private class PartialResultsSender implements PartialResultsHandler {
+
+    private final Message msg;
+    private final Query query;
+    private final String queryString;
+    private final ServerConnection servConn;
+    private final SecurityService securityService;
+
+    /** The type of the results, set once the first chunk was sent. */
+    private CollectionType collectionType;
+
+    PartialResultsSender(Message msg, Query query, String queryString, ServerConnection servConn,
+        SecurityService securityService) {
+      this.msg = msg;
+      this.query = query;
+      this.queryString = queryString;
+      this.servConn = servConn;
+      this.securityService = securityService;
+    }
+
+    @Override
+    public void partialResults(SelectResults results) {
+      try {
+        if (this.collectionType == null) {
+          ChunkedMessage queryResponseMsg = this.servConn.getQueryResponseMessage();
+          queryResponseMsg.setMessageType(MessageType.RESPONSE);
+          queryResponseMsg.setTransactionId(this.msg.getTransactionId());
+          queryResponseMsg.sendHeader();
+          this.collectionType = getCollectionType(results);
+        }
+        boolean isStructs = this.collectionType.getElementType().isStructType();
+        int numberOfChunks = (int) Math.ceil(results.size() * 1.0 / MAXIMUM_CHUNK_SIZE);
+        if (((DefaultQuery) this.query).isKeepSerialized()) {
+          sendResultsAsObjectPartList(numberOfChunks, this.servConn, results.iterator(),
+              isStructs, this.collectionType, this.queryString, null, false, true, true,
+              this.securityService);
+        } else {
+          sendResultsAsObjectArray(results, numberOfChunks, this.servConn, isStructs,
+              this.collectionType, this.queryString, null, false, true, true);
+        }
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+  }
 }
@@ -683,6 +683,7 @@ public class CacheClientUpdater extends LoggingThread implements ClientUpdater,
         isValueObject = true;
       }
 
+      invalidateNearCache(region, key);
       if (region == null) {
         if (isDebugEnabled && !quitting()) {
           logger.debug("{}: Region named {} does not exist", this, regionName);
@@ -762,6 +763,16 @@ public class CacheClientUpdater extends LoggingThread implements ClientUpdater,
     }
   }
 
+  /**
+   * Drops the key from the near cache of the region, if it has one, before the event is applied so
+   * that a value can not stay cached if the event fails to apply.
+   */
+  private static void invalidateNearCache(LocalRegion region, Object key) {
+    if (region != null && region.hasServerProxy()) {
+      region.getServerProxy().invalidateNearCacheEntry(key);
+    }
+  }
+
   private Part requestFullValue(EventID eventId, String reason) throws Exception {
     if (isUsedByTest) {
       fullValueRequested = true;
@@ -830,6 +841,7 @@ public class CacheClientUpdater extends LoggingThread implements ClientUpdater,
       }
 
       LocalRegion region = (LocalRegion) this.cacheHelper.getRegion(regionName);
+      invalidateNearCache(region, key);
       if (region == null) {
         if (isDebugEnabled && !quitting()) {
           logger.debug("Region named {} does not exist", regionName);
@@ -935,6 +947,7 @@ public class CacheClientUpdater extends LoggingThread implements ClientUpdater,
       }
 
       LocalRegion region = (LocalRegion) this.cacheHelper.getRegion(regionName);
+      invalidateNearCache(region, key);
       if (region == null) {
         if (isDebugEnabled && !quitting()) {
           logger.debug("Region named {} does not exist", regionName);
@@ -1107,6 +1120,7 @@ public class CacheClientUpdater extends LoggingThread implements ClientUpdater,
       // Verify that the region in question should respond to this
       // message
       if (region.hasServerProxy()) {
+        region.getServerProxy().invalidateNearCache();
         // Locally clear the region
         region.basicBridgeClientClear(callbackArgument,
             this.qManager.getState().getProcessedMarker() || !this.isDurableClient);
@@ -1165,6 +1179,8 @@ public class CacheClientUpdater extends LoggingThread implements ClientUpdater,
         if (isDebugEnabled && !quitting()) {
           logger.debug("Region named {} does not exist", regionName);
         }
+      } else if (region.hasServerProxy()) {
+        region.getServerProxy().invalidateNearCache();
       }
 
     } catch (Exception e) {
@@ -121,6 +121,14 @@ public class ChunkedMessage extends Message {
     return CHUNK_MSG_HEADER_LENGTH;
   }
 
+  /**
+   * Chunks are never compressed since the chunk header does not carry the message flags.
+   */
+  @Override
+  public void setCompressionThreshold(int compressionThreshold) {
+    // nothing
+  }
+
   /**
    * Sets whether this is the last chunk.
    *
@@ -49,4 +49,16 @@ public interface ConnectionListener {
    * Indicates that a queue was removed from this Acceptor.
    */
   void queueRemoved();
+
+  /**
+   * Indicates that this acceptor started to process a client request.
+   */
+  void requestStarted();
+
+  /**
+   * Indicates that this acceptor finished processing a client request.
+   *
+   * @param nanos the time it took to process the request, in nanoseconds
+   */
+  void requestEnded(long nanos);
 }
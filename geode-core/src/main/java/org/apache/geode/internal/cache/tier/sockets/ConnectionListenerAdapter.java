@@ -31,4 +31,8 @@ public class ConnectionListenerAdapter implements ConnectionListener {
   public void queueAdded(ClientProxyMembershipID id) {}
 
   public void queueRemoved() {}
+
+  public void requestStarted() {}
+
+  public void requestEnded(long nanos) {}
 }
@@ -27,8 +27,11 @@ import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
 
 import org.apache.logging.log4j.Logger;
+import org.iq80.snappy.CorruptionException;
+import org.iq80.snappy.Snappy;
 
 import org.apache.geode.SerializationException;
+import org.apache.geode.cache.client.internal.ConnectionStats;
 import org.apache.geode.distributed.internal.DistributionConfig;
 import org.apache.geode.internal.Assert;
 import org.apache.geode.internal.HeapDataOutputStream;
@@ -94,13 +97,15 @@ public class Message {
 
   private static final ThreadLocal<ByteBuffer> tlCommBuffer = new ThreadLocal<>();
 
-  // These two statics are fields shoved into the flags byte for transmission.
-  // The MESSAGE_IS_RETRY bit is stripped out during deserialization but the other
-  // is left in place
+  // These statics are fields shoved into the flags byte for transmission.
+  // The MESSAGE_IS_RETRY and MESSAGE_IS_COMPRESSED bits are stripped out during
+  // deserialization but the other is left in place
   private static final byte MESSAGE_HAS_SECURE_PART = (byte) 0x02;
   private static final byte MESSAGE_IS_RETRY = (byte) 0x04;
+  private static final byte MESSAGE_IS_COMPRESSED = (byte) 0x08;
 
   private static final byte MESSAGE_IS_RETRY_MASK = (byte) 0xFB;
+  private static final byte MESSAGE_IS_COMPRESSED_MASK = (byte) 0xF7;
 
   private static final int DEFAULT_CHUNK_SIZE = 1024;
 
@@ -157,6 +162,11 @@ public class Message {
   private boolean readHeader = false;
   private int chunkSize = DEFAULT_CHUNK_SIZE;
 
+  /**
+   * the payload length from which this message is sent compressed, 0 if it is never compressed
+   */
+  private int compressionThreshold = 0;
+
   Part securePart = null;
   private boolean isMetaRegion = false;
 
@@ -194,6 +204,14 @@ public class Message {
     this.messageType = msgType;
   }
 
+  /**
+   * Sets the payload length, in bytes, from which this message is compressed when it is sent. The
+   * receiver must be able to read compressed messages. A threshold of 0 disables compression.
+   */
+  public void setCompressionThreshold(int compressionThreshold) {
+    this.compressionThreshold = compressionThreshold;
+  }
+
   public void setVersion(Version clientVersion) {
     this.version = clientVersion;
   }
@@ -368,11 +386,13 @@ public class Message {
     }
 
     // Create the HDOS with a flag telling it that it can keep any byte[] or ByteBuffers/ByteSources
-    // passed to it. Do NOT close the HeapDataOutputStream!
-    HeapDataOutputStream hdos = new HeapDataOutputStream(this.chunkSize, v, true);
+    // passed to it. Do NOT close the HeapDataOutputStream! The part releases any pooled buffers
+    // when it is cleared.
+    HeapDataOutputStream hdos = newPartStream(v, true);
     try {
       BlobHelper.serializeTo(o, hdos);
     } catch (IOException ex) {
+      hdos.release();
       throw new SerializationException("failed serializing object", ex);
     }
     this.messageModified = true;
@@ -391,11 +411,13 @@ public class Message {
       v = null;
     }
 
-    // do NOT close the HeapDataOutputStream
-    HeapDataOutputStream hdos = new HeapDataOutputStream(this.chunkSize, v);
+    // do NOT close the HeapDataOutputStream; the part releases any pooled buffers when it is
+    // cleared
+    HeapDataOutputStream hdos = newPartStream(v, false);
     try {
       BlobHelper.serializeTo(o, hdos);
     } catch (IOException ex) {
+      hdos.release();
       throw new SerializationException("failed serializing object", ex);
     }
     this.messageModified = true;
@@ -404,6 +426,19 @@ public class Message {
     this.currentPart++;
   }
 
+  /**
+   * Returns the stream to serialize a part into. Only the messages of a server connection use
+   * pooled buffers since their parts are always cleared once they have been sent. Client request
+   * messages keep their parts after being sent so that the operation can be retried on another
+   * server.
+   */
+  private HeapDataOutputStream newPartStream(Version v, boolean doNotCopy) {
+    if (this.serverConnection != null) {
+      return HeapDataOutputStream.pooled(this.chunkSize, v, doNotCopy);
+    }
+    return new HeapDataOutputStream(this.chunkSize, v, doNotCopy);
+  }
+
   public void addIntPart(int v) {
     this.messageModified = true;
     Part part = this.partsList[this.currentPart];
@@ -505,6 +540,11 @@ public class Message {
   }
 
   protected void packHeaderInfoForSending(int msgLen, boolean isSecurityHeader) {
+    packHeaderInfoForSending(msgLen, isSecurityHeader, false);
+  }
+
+  private void packHeaderInfoForSending(int msgLen, boolean isSecurityHeader,
+      boolean isCompressed) {
     // setting second bit of flags byte for client this is not require but this makes all changes
     // easily at client side right now just see this bit and process security header
     byte flagsByte = this.flags;
@@ -514,6 +554,9 @@ public class Message {
     if (this.isRetry) {
       flagsByte |= MESSAGE_IS_RETRY;
     }
+    if (isCompressed) {
+      flagsByte |= MESSAGE_IS_COMPRESSED;
+    }
     getCommBuffer().putInt(this.messageType).putInt(msgLen).putInt(this.numberOfParts)
         .putInt(this.transactionId).put(flagsByte);
   }
@@ -590,6 +633,11 @@ public class Message {
               + ") exceeds gemfire.client.max-message-size setting (" + this.maxMessageSize + ")");
         }
 
+        if (this.compressionThreshold > 0 && msgLen >= this.compressionThreshold
+            && sendCompressed(msgLen, partsToTransmit, securityPart)) {
+          return;
+        }
+
         commBuffer.clear();
         packHeaderInfoForSending(msgLen, securityPart != null);
         for (int i = 0; i < partsToTransmit; i++) {
@@ -631,6 +679,50 @@ public class Message {
     }
   }
 
+  /**
+   * Sends the parts of this message compressed as a single Snappy block. The header is sent as is
+   * except that its length is the compressed length and the MESSAGE_IS_COMPRESSED flag is set.
+   *
+   * @return false, without sending anything, if the payload does not get smaller when compressed
+   */
+  private boolean sendCompressed(int msgLen, int partsToTransmit, Part securityPart)
+      throws IOException {
+    final ByteBuffer commBuffer = getCommBuffer();
+    ByteBuffer payload = ByteBuffer.allocate(msgLen);
+    for (int i = 0; i < partsToTransmit; i++) {
+      Part part = i == this.numberOfParts ? securityPart : this.partsList[i];
+      payload.putInt(part.getLength());
+      payload.put(part.getTypeCode());
+      part.writeTo(payload);
+    }
+    byte[] compressed = new byte[Snappy.maxCompressedLength(msgLen)];
+    int compressedLen = Snappy.compress(payload.array(), 0, msgLen, compressed, 0);
+    if (compressedLen >= msgLen) {
+      return false;
+    }
+
+    commBuffer.clear();
+    packHeaderInfoForSending(compressedLen, securityPart != null, true);
+    int off = 0;
+    while (off < compressedLen) {
+      if (commBuffer.remaining() == 0) {
+        flushBuffer();
+      }
+      int bytesThisTime = Math.min(commBuffer.remaining(), compressedLen - off);
+      commBuffer.put(compressed, off, bytesThisTime);
+      off += bytesThisTime;
+    }
+    flushBuffer();
+    this.messageModified = false;
+    if (this.socketChannel == null) {
+      this.outputStream.flush();
+    }
+    if (this.messageStats instanceof ConnectionStats) {
+      ((ConnectionStats) this.messageStats).incCompressedMessages(msgLen, compressedLen);
+    }
+    return true;
+  }
+
   void flushBuffer() throws IOException {
     final ByteBuffer cb = getCommBuffer();
     if (this.socketChannel != null) {
@@ -757,11 +849,17 @@ public class Message {
     }
 
     this.isRetry = (bits & MESSAGE_IS_RETRY) != 0;
+    boolean isCompressed = (bits & MESSAGE_IS_COMPRESSED) != 0;
     bits &= MESSAGE_IS_RETRY_MASK;
+    bits &= MESSAGE_IS_COMPRESSED_MASK;
     this.flags = bits;
     this.messageType = type;
 
-    readPayloadFields(numParts, len);
+    if (isCompressed) {
+      readCompressedPayloadFields(numParts, len);
+    } else {
+      readPayloadFields(numParts, len);
+    }
 
     // Set the header and payload fields only after receiving all the
     // socket data, providing better message consistency in the face
@@ -932,6 +1030,77 @@ public class Message {
     }
   }
 
+  /**
+   * Reads a payload sent by {@link #sendCompressed} and initializes the parts from it.
+   */
+  private void readCompressedPayloadFields(final int numParts, final int len) throws IOException {
+    if (len <= 0 || numParts <= 0) {
+      throw new IOException(
+          String.format("Part length ( %s ) and number of parts ( %s ) inconsistent",
+              new Object[] {len, numParts}));
+    }
+    setNumberOfParts(numParts);
+
+    final ByteBuffer cb = getCommBuffer();
+    byte[] compressed = new byte[len];
+    int off = 0;
+    while (off < len) {
+      int res;
+      if (this.socketChannel != null) {
+        cb.clear();
+        cb.limit(Math.min(cb.capacity(), len - off));
+        res = this.socketChannel.read(cb);
+        if (res > 0) {
+          cb.flip();
+          cb.get(compressed, off, res);
+        }
+      } else {
+        res = this.inputStream.read(compressed, off, len - off);
+      }
+      if (res == -1) {
+        throw new EOFException("The connection has been reset while reading a part");
+      }
+      off += res;
+      if (this.messageStats != null) {
+        this.messageStats.incReceivedBytes(res);
+      }
+    }
+    cb.clear();
+
+    ByteBuffer payload;
+    try {
+      int uncompressedLen = Snappy.getUncompressedLength(compressed, 0);
+      int maxLen = this.maxIncomingMessageLength > 0 ? this.maxIncomingMessageLength
+          : DEFAULT_MAX_MESSAGE_SIZE;
+      if (uncompressedLen < 0 || uncompressedLen > maxLen) {
+        throw new IOException(String.format("Message size  %s  exceeded max limit of  %s",
+            new Object[] {uncompressedLen, maxLen}));
+      }
+      payload = ByteBuffer.wrap(Snappy.uncompress(compressed, 0, len));
+    } catch (CorruptionException e) {
+      throw new IOException("Invalid compressed message payload", e);
+    }
+
+    int readSecurePart = checkAndSetSecurityPart();
+    for (int i = 0; i < numParts + readSecurePart; i++) {
+      Part part = i < numParts ? this.partsList[i] : this.securePart;
+      if (payload.remaining() < PART_HEADER_SIZE) {
+        throw new IOException("Compressed message payload is truncated");
+      }
+      int partLen = payload.getInt();
+      byte partType = payload.get();
+      byte[] partBytes = null;
+      if (partLen > 0) {
+        if (partLen > payload.remaining()) {
+          throw new IOException("Compressed message payload is truncated");
+        }
+        partBytes = new byte[partLen];
+        payload.get(partBytes);
+      }
+      part.init(partBytes, partType);
+    }
+  }
+
   protected int checkAndSetSecurityPart() {
     if ((this.flags | MESSAGE_HAS_SECURE_PART) == this.flags) {
       this.securePart = new Part();
@@ -27,6 +27,7 @@ import org.apache.geode.internal.HeapDataOutputStream;
 import org.apache.geode.internal.Version;
 import org.apache.geode.internal.offheap.AddressableMemoryManager;
 import org.apache.geode.internal.offheap.StoredObject;
+import org.apache.geode.internal.offheap.annotations.Unretained;
 
 /**
  * Represents one unit of information (essentially a <code>byte</code> array) in the wire protocol.
@@ -52,8 +53,8 @@ public class Part {
   private static final byte[] EMPTY_BYTE_ARRAY = new byte[0];
 
   /**
-   * The payload of this part. Could be null, a byte[] or a HeapDataOutputStream on the send side.
-   * Could be null, or a byte[] on the receiver side.
+   * The payload of this part. Could be null, a byte[], a HeapDataOutputStream or a retained
+   * off-heap StoredObject on the send side. Could be null, or a byte[] on the receiver side.
    */
   private Object part;
 
@@ -73,6 +74,9 @@ public class Part {
     if (this.part != null) {
       if (this.part instanceof HeapDataOutputStream) {
         ((HeapDataOutputStream) this.part).close();
+      } else if (this.part instanceof StoredObject) {
+        // release the reference taken in setPartState now that the message has been sent
+        ((StoredObject) this.part).release();
       }
       this.part = null;
     }
@@ -125,7 +129,12 @@ public class Part {
     }
   }
 
-  public void setPartState(StoredObject so, boolean isObject) {
+  /**
+   * Sets the payload of this part to an off-heap value without copying it to the heap. A reference
+   * counted StoredObject is retained by this part and released by {@link #clear()}, so the caller
+   * may release its own reference as soon as this method returns.
+   */
+  public void setPartState(@Unretained StoredObject so, boolean isObject) {
     if (isObject) {
       this.typeCode = OBJECT_CODE;
     } else if (so.getDataSize() == 0) {
@@ -135,7 +144,7 @@ public class Part {
     } else {
       this.typeCode = BYTE_CODE;
     }
-    if (so.hasRefCount()) {
+    if (so.hasRefCount() && so.retain()) {
       this.part = so;
     } else {
       this.part = so.getValueAsHeapByteArray();
@@ -307,9 +316,10 @@ public class Part {
             if (buf.remaining() == 0) {
               HeapDataOutputStream.flushStream(out, buf);
             }
-            buf.put(AddressableMemoryManager.readByte(addr));
-            addr++;
-            bytesToSend--;
+            int bytesThisTime = Math.min(bytesToSend, buf.remaining());
+            AddressableMemoryManager.readBytes(addr, buf, bytesThisTime);
+            addr += bytesThisTime;
+            bytesToSend -= bytesThisTime;
           }
         }
       } else {
@@ -336,11 +346,7 @@ public class Part {
         } else {
           int bytesToSend = c.getDataSize();
           long addr = c.getAddressForReadingData(0, bytesToSend);
-          while (bytesToSend > 0) {
-            buf.put(AddressableMemoryManager.readByte(addr));
-            addr++;
-            bytesToSend--;
-          }
+          AddressableMemoryManager.readBytes(addr, buf, bytesToSend);
         }
       } else {
         HeapDataOutputStream hdos = (HeapDataOutputStream) this.part;
@@ -396,11 +402,8 @@ public class Part {
               bytesThisTime = BUF_MAX;
             }
             len -= bytesThisTime;
-            while (bytesThisTime > 0) {
-              buf.put(AddressableMemoryManager.readByte(addr));
-              addr++;
-              bytesThisTime--;
-            }
+            AddressableMemoryManager.readBytes(addr, buf, bytesThisTime);
+            addr += bytesThisTime;
             buf.flip();
             while (buf.remaining() > 0) {
               sc.write(buf);
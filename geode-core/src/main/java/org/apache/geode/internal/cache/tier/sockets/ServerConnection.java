@@ -37,6 +37,8 @@ import java.util.Random;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.LinkedBlockingQueue;
 
+import javax.net.ssl.SSLSocket;
+
 import org.apache.commons.lang.mutable.MutableInt;
 import org.apache.logging.log4j.Logger;
 import org.apache.shiro.subject.Subject;
@@ -154,6 +156,11 @@ public abstract class ServerConnection implements Runnable {
   }
 
   Socket theSocket;
+  /**
+   * The channel registered with the acceptor's selector when it differs from the socket's own, for
+   * an SSL socket layered over a plain socket
+   */
+  private SelectableChannel selectableChannel;
   private ByteBuffer commBuffer;
   protected final CachedRegionHelper crHelper;
   protected String name;
@@ -841,7 +848,18 @@ public abstract class ServerConnection implements Runnable {
           }
         }
 
-        command.execute(message, this, this.securityService);
+        if (message.getMessageType() == MessageType.PING) {
+          command.execute(message, this, this.securityService);
+        } else {
+          ConnectionListener listener = this.acceptor.getConnectionListener();
+          long start = System.nanoTime();
+          listener.requestStarted();
+          try {
+            command.execute(message, this, this.securityService);
+          } finally {
+            listener.requestEnded(System.nanoTime() - start);
+          }
+        }
       }
     } finally {
       // Keep track of the fact that a message is no longer being
@@ -1182,6 +1200,10 @@ public abstract class ServerConnection implements Runnable {
         if (!isTerminated()) {
           getAcceptor().setTLCommBuffer();
           doOneMessage();
+          // the selector does not see a message already read and decrypted by an SSL socket
+          while (this.processMessages && !(this.crHelper.isShutdown()) && hasBufferedInput()) {
+            doOneMessage();
+          }
           if (this.processMessages && !(this.crHelper.isShutdown())) {
             registerWithSelector(); // finished message so reregister
             finishedMessage = true;
@@ -1241,9 +1263,29 @@ public abstract class ServerConnection implements Runnable {
   }
 
   SelectableChannel getSelectableChannel() {
+    if (this.selectableChannel != null) {
+      return this.selectableChannel;
+    }
     return this.theSocket.getChannel();
   }
 
+  /**
+   * Sets the channel to register with the selector when the socket is layered over another socket
+   * that has one.
+   */
+  void setSelectableChannel(SelectableChannel channel) {
+    this.selectableChannel = channel;
+  }
+
+  /**
+   * Returns true if the socket has already read input that has not been consumed yet. Only an SSL
+   * socket does, since it reads and decrypts whole records.
+   */
+  private boolean hasBufferedInput() throws IOException {
+    return this.theSocket instanceof SSLSocket && !this.theSocket.isClosed()
+        && this.theSocket.getInputStream().available() > 0;
+  }
+
   void registerWithSelector2(Selector s) throws IOException {
     getSelectableChannel().register(s, SelectionKey.OP_READ, this);
   }
@@ -1252,7 +1294,7 @@ public abstract class ServerConnection implements Runnable {
    * Switch this connection to blocking mode so we can use oldIO to read and write messages.
    */
   void makeBlocking() throws IOException {
-    SelectableChannel c = this.theSocket.getChannel();
+    SelectableChannel c = getSelectableChannel();
     c.configureBlocking(true);
   }
 
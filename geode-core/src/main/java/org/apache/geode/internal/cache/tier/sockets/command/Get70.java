@@ -429,8 +429,14 @@ public class Get70 extends BaseCommand {
     if (versionTag != null) {
       responseMsg.addObjPart(versionTag);
     }
-    servConn.getCache().getCancelCriterion().checkCancelInProgress(null);
-    responseMsg.send(servConn);
+    try {
+      servConn.getCache().getCancelCriterion().checkCancelInProgress(null);
+      responseMsg.send(servConn);
+    } finally {
+      // the value part may hold a retained off-heap reference that must be released even if the
+      // response could not be sent
+      responseMsg.clearParts();
+    }
     origMsg.clearParts();
   }
 
@@ -479,8 +485,14 @@ public class Get70 extends BaseCommand {
     }
 
     responseMsg.addBytesPart(new byte[] {pr.getMetadataVersion(), nwHop});
-    servConn.getCache().getCancelCriterion().checkCancelInProgress(null);
-    responseMsg.send(servConn);
+    try {
+      servConn.getCache().getCancelCriterion().checkCancelInProgress(null);
+      responseMsg.send(servConn);
+    } finally {
+      // the value part may hold a retained off-heap reference that must be released even if the
+      // response could not be sent
+      responseMsg.clearParts();
+    }
     origMsg.clearParts();
   }
 
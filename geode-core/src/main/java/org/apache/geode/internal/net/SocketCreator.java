@@ -961,6 +961,38 @@ public class SocketCreator {
     }
   }
 
+  /**
+   * Returns a server mode SSL socket that reads and writes through the given socket, which was
+   * accepted from a plain server socket. Unlike the sockets accepted from an SSL server socket, the
+   * given socket's channel can still be registered with a selector while no message is being read.
+   * The handshake is done by {@link #handshakeIfSocketIsSSL}.
+   */
+  public SSLSocket layerServerSSLSocket(Socket socket) throws IOException {
+    if (this.sslContext == null) {
+      throw new GemFireConfigException(
+          "SSL not configured correctly, Please look at previous error");
+    }
+    SSLSocket sslSocket = (SSLSocket) this.sslContext.getSocketFactory().createSocket(socket,
+        socket.getInetAddress().getHostAddress(), socket.getPort(), true);
+    sslSocket.setUseClientMode(false);
+    if (this.sslConfig.isRequireAuth()) {
+      sslSocket.setNeedClientAuth(true);
+    }
+    sslSocket.setEnableSessionCreation(true);
+
+    // restrict protocols
+    String[] protocols = this.sslConfig.getProtocolsAsStringArray();
+    if (!"any".equalsIgnoreCase(protocols[0])) {
+      sslSocket.setEnabledProtocols(protocols);
+    }
+    // restrict ciphers
+    String[] ciphers = this.sslConfig.getCiphersAsStringArray();
+    if (!"any".equalsIgnoreCase(ciphers[0])) {
+      sslSocket.setEnabledCipherSuites(ciphers);
+    }
+    return sslSocket;
+  }
+
   /**
    * Use this method to perform the SSL handshake on a newly accepted socket. Non-SSL
    * sockets are ignored by this method.
@@ -17,6 +17,7 @@ package org.apache.geode.internal.offheap;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.nio.BufferOverflowException;
 import java.nio.ByteBuffer;
 
 import org.apache.geode.internal.SharedLibrary;
@@ -147,6 +148,37 @@ public class AddressableMemoryManager {
     unsafe.copyMemory(null, addr, bytes, ARRAY_BYTE_BASE_OFFSET + bytesOffset, size);
   }
 
+  /**
+   * Copies size bytes starting at addr into dst at its current position and advances the position
+   * of dst by size. The copy is done in bulk if dst is backed by an array or is a direct buffer
+   * whose address can be obtained so that no intermediate heap byte[] is needed.
+   */
+  public static void readBytes(long addr, ByteBuffer dst, int size) {
+    if (size < 0) {
+      throw new AssertionError("Size=" + size + ", but size must be >= 0");
+    }
+    if (size > dst.remaining()) {
+      throw new BufferOverflowException();
+    }
+    if (size == 0) {
+      return;
+    }
+    final int pos = dst.position();
+    if (dst.hasArray()) {
+      readBytes(addr, dst.array(), dst.arrayOffset() + pos, size);
+    } else {
+      long dstAddr = getDirectByteBufferAddress(dst);
+      if (dstAddr != 0L) {
+        copyMemory(addr, dstAddr + pos, size);
+      } else {
+        for (int i = 0; i < size; i++) {
+          dst.put(pos + i, readByte(addr + i));
+        }
+      }
+    }
+    dst.position(pos + size);
+  }
+
   public static void copyMemory(long srcAddr, long dstAddr, long size) {
     unsafe.copyMemory(srcAddr, dstAddr, size);
   }
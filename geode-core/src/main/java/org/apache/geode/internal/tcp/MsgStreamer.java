@@ -294,7 +294,7 @@ public class MsgStreamer extends OutputStream
   public void realFlush(boolean lastFlushForMessage) {
     if (isOverflowMode()) {
       if (this.overflowBuf == null) {
-        this.overflowBuf = new HeapDataOutputStream(
+        this.overflowBuf = HeapDataOutputStream.pooled(
             this.buffer.capacity() - Connection.MSG_HEADER_BYTES, Version.CURRENT);
       }
       return;
@@ -908,7 +908,7 @@ public class MsgStreamer extends OutputStream
       if (remainingSpace < 5) {
         // we don't even have room to write the length field so just create
         // the overflowBuf
-        this.overflowBuf = new HeapDataOutputStream(
+        this.overflowBuf = HeapDataOutputStream.pooled(
             this.buffer.capacity() - Connection.MSG_HEADER_BYTES, Version.CURRENT);
         this.overflowBuf.writeAsSerializedByteArray(v);
         return;
@@ -943,12 +943,17 @@ public class MsgStreamer extends OutputStream
       finished = true;
       if (overBuf != null && !isOverflowMode()) {
         overBuf.sendTo((ByteBufferWriter) this);
+        overBuf.release();
       }
     } finally {
       if (!finished) {
         // reset buffer and act as if we did nothing
         this.buffer.position(lengthPos);
+        HeapDataOutputStream overBuf = this.overflowBuf;
         disableOverflowMode();
+        if (overBuf != null && this.overflowBuf == null) {
+          overBuf.release();
+        }
       }
     }
   }
@@ -49,11 +49,15 @@ public class BlobHelper {
    */
   public static byte[] serializeToBlob(Object obj, Version version) throws IOException {
     final long start = startSerialization();
-    HeapDataOutputStream hdos = new HeapDataOutputStream(version);
-    DataSerializer.writeObject(obj, hdos);
-    byte[] result = hdos.toByteArray();
-    endSerialization(start, result.length);
-    return result;
+    HeapDataOutputStream hdos = HeapDataOutputStream.pooled(1024, version);
+    try {
+      DataSerializer.writeObject(obj, hdos);
+      byte[] result = hdos.toByteArray();
+      endSerialization(start, result.length);
+      return result;
+    } finally {
+      hdos.release();
+    }
   }
 
   /**
@@ -562,6 +562,35 @@ public interface MemberMXBean {
    */
   long getNetSearchAverageLatency();
 
+  /**
+   * Returns the total number of rows scanned by the queries executed on this member.
+   */
+  long getQueryRowsScanned();
+
+  /**
+   * Returns the total CPU time, in nanoseconds, spent by the threads executing queries on this
+   * member.
+   */
+  long getQueryCpuTime();
+
+  /**
+   * Returns the current estimated memory, in bytes, of the results of the queries running on this
+   * member.
+   */
+  long getQueryMemory();
+
+  /**
+   * Returns the total number of queries canceled on this member because their results exceeded a
+   * memory limit.
+   */
+  long getQueriesCanceledForMemory();
+
+  /**
+   * Returns the queries running on this member, each with its elapsed time, CPU time, rows scanned
+   * and estimated memory.
+   */
+  String[] listRunningQueries();
+
   /**
    * Returns the current number of disk tasks (op-log compaction, asynchronous recovery, etc.) that
    * are waiting for a thread to run.
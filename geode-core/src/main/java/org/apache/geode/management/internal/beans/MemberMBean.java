@@ -505,6 +505,31 @@ public class MemberMBean extends NotificationBroadcasterSupport implements Membe
     return bridge.getNetSearchAverageLatency();
   }
 
+  @Override
+  public long getQueryRowsScanned() {
+    return bridge.getQueryRowsScanned();
+  }
+
+  @Override
+  public long getQueryCpuTime() {
+    return bridge.getQueryCpuTime();
+  }
+
+  @Override
+  public long getQueryMemory() {
+    return bridge.getQueryMemory();
+  }
+
+  @Override
+  public long getQueriesCanceledForMemory() {
+    return bridge.getQueriesCanceledForMemory();
+  }
+
+  @Override
+  public String[] listRunningQueries() {
+    return bridge.listRunningQueries();
+  }
+
   @Override
   public int getTotalDiskTasksWaiting() {
     return bridge.getTotalDiskTasksWaiting();
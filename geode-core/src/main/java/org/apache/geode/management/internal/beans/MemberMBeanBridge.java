@@ -46,6 +46,7 @@ import org.apache.geode.StatisticsType;
 import org.apache.geode.cache.DiskStore;
 import org.apache.geode.cache.Region;
 import org.apache.geode.cache.execute.FunctionService;
+import org.apache.geode.cache.query.internal.QueryResourceUsage;
 import org.apache.geode.cache.wan.GatewayReceiver;
 import org.apache.geode.cache.wan.GatewaySender;
 import org.apache.geode.distributed.Locator;
@@ -1404,6 +1405,26 @@ public class MemberMBeanBridge {
     return netSearchAverageLatency.getAverageLatency();
   }
 
+  public long getQueryRowsScanned() {
+    return getMemberLevelStatistic(StatsKey.QUERY_ROWS_SCANNED).longValue();
+  }
+
+  public long getQueryCpuTime() {
+    return getMemberLevelStatistic(StatsKey.QUERY_CPU_TIME).longValue();
+  }
+
+  public long getQueryMemory() {
+    return getMemberLevelStatistic(StatsKey.QUERY_MEMORY).longValue();
+  }
+
+  public long getQueriesCanceledForMemory() {
+    return getMemberLevelStatistic(StatsKey.QUERIES_CANCELED_FOR_MEMORY).longValue();
+  }
+
+  public String[] listRunningQueries() {
+    return QueryResourceUsage.listRunning();
+  }
+
   public long getTotalLockWaitTime() {
     return getMemberLevelStatistic(StatsKey.LOCK_WAIT_TIME).intValue();
   }
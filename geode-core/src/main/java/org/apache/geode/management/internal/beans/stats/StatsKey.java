@@ -78,6 +78,14 @@ public class StatsKey {
 
   public static final String NET_SEARCH_TIME = "netsearchTime";
 
+  public static final String QUERY_ROWS_SCANNED = "queryRowsScanned";
+
+  public static final String QUERY_CPU_TIME = "queryCpuTime";
+
+  public static final String QUERY_MEMORY = "queryMemory";
+
+  public static final String QUERIES_CANCELED_FOR_MEMORY = "queriesCanceledForMemory";
+
   public static final String TRANSACTION_COMMITS = "txCommits";
 
   public static final String TRANSACTION_COMMIT_TIME = "txCommitTime";
@@ -0,0 +1,245 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.pdx.internal;
+
+import java.util.Date;
+import java.util.List;
+
+import org.apache.geode.pdx.FieldType;
+import org.apache.geode.pdx.internal.AutoSerializableManager.PdxFieldWrapper;
+import org.apache.geode.pdx.internal.unsafe.UnsafeWrapper;
+
+/**
+ * Serializes the fields of an auto serialized class in the order of its PdxType, once the type is
+ * known. The field types and offsets are resolved when the class is first serialized so that each
+ * field is written or read with a single switch and a direct Unsafe access, instead of going
+ * through the {@link PdxFieldWrapper} of each field and the reflection or Unsafe wrapper behind it.
+ *
+ * It is only used for classes none of whose fields has its value transformed by the
+ * ReflectionBasedAutoSerializer. The field wrappers are used otherwise, and to serialize an
+ * instance of the class before its PdxType is known.
+ *
+ * @since Geode 1.8
+ */
+class AutoClassSerializer {
+
+  private final UnsafeWrapper unsafe;
+
+  private final String[] names;
+
+  private final FieldType[] types;
+
+  private final long[] offsets;
+
+  private AutoClassSerializer(UnsafeWrapper unsafe, List<PdxFieldWrapper> fields) {
+    this.unsafe = unsafe;
+    int count = fields.size();
+    this.names = new String[count];
+    this.types = new FieldType[count];
+    this.offsets = new long[count];
+    for (int i = 0; i < count; i++) {
+      PdxFieldWrapper field = fields.get(i);
+      this.names[i] = field.getName();
+      this.types[i] = field.getFieldType();
+      this.offsets[i] = unsafe.objectFieldOffset(field.getField());
+    }
+  }
+
+  /**
+   * Returns a serializer for the given fields, or null if Unsafe is not available or the value of
+   * one of the fields is transformed.
+   */
+  static AutoClassSerializer create(UnsafeWrapper unsafe, List<PdxFieldWrapper> fields) {
+    if (unsafe == null) {
+      return null;
+    }
+    for (PdxFieldWrapper field : fields) {
+      if (field.transform()) {
+        return null;
+      }
+    }
+    return new AutoClassSerializer(unsafe, fields);
+  }
+
+  /**
+   * Writes the fields of the object in the order of the PdxType the writer writes.
+   */
+  void writeFields(PdxWriterImpl writer, Object obj, boolean checkPortability) {
+    int i = 0;
+    try {
+      for (; i < this.types.length; i++) {
+        long offset = this.offsets[i];
+        switch (this.types[i]) {
+          case BOOLEAN:
+            writer.writeBoolean(this.unsafe.getBoolean(obj, offset));
+            break;
+          case BYTE:
+            writer.writeByte(this.unsafe.getByte(obj, offset));
+            break;
+          case CHAR:
+            writer.writeChar(this.unsafe.getChar(obj, offset));
+            break;
+          case SHORT:
+            writer.writeShort(this.unsafe.getShort(obj, offset));
+            break;
+          case INT:
+            writer.writeInt(this.unsafe.getInt(obj, offset));
+            break;
+          case LONG:
+            writer.writeLong(this.unsafe.getLong(obj, offset));
+            break;
+          case FLOAT:
+            writer.writeFloat(this.unsafe.getFloat(obj, offset));
+            break;
+          case DOUBLE:
+            writer.writeDouble(this.unsafe.getDouble(obj, offset));
+            break;
+          case DATE:
+            writer.writeDate((Date) this.unsafe.getObject(obj, offset));
+            break;
+          case STRING:
+            writer.writeString((String) this.unsafe.getObject(obj, offset));
+            break;
+          case OBJECT:
+            writer.writeObject(this.unsafe.getObject(obj, offset), checkPortability);
+            break;
+          case BOOLEAN_ARRAY:
+            writer.writeBooleanArray((boolean[]) this.unsafe.getObject(obj, offset));
+            break;
+          case CHAR_ARRAY:
+            writer.writeCharArray((char[]) this.unsafe.getObject(obj, offset));
+            break;
+          case BYTE_ARRAY:
+            writer.writeByteArray((byte[]) this.unsafe.getObject(obj, offset));
+            break;
+          case SHORT_ARRAY:
+            writer.writeShortArray((short[]) this.unsafe.getObject(obj, offset));
+            break;
+          case INT_ARRAY:
+            writer.writeIntArray((int[]) this.unsafe.getObject(obj, offset));
+            break;
+          case LONG_ARRAY:
+            writer.writeLongArray((long[]) this.unsafe.getObject(obj, offset));
+            break;
+          case FLOAT_ARRAY:
+            writer.writeFloatArray((float[]) this.unsafe.getObject(obj, offset));
+            break;
+          case DOUBLE_ARRAY:
+            writer.writeDoubleArray((double[]) this.unsafe.getObject(obj, offset));
+            break;
+          case STRING_ARRAY:
+            writer.writeStringArray((String[]) this.unsafe.getObject(obj, offset));
+            break;
+          case OBJECT_ARRAY:
+            writer.writeObjectArray((Object[]) this.unsafe.getObject(obj, offset),
+                checkPortability);
+            break;
+          case ARRAY_OF_BYTE_ARRAYS:
+            writer.writeArrayOfByteArrays((byte[][]) this.unsafe.getObject(obj, offset));
+            break;
+          default:
+            throw new IllegalStateException("unhandled field type " + this.types[i]);
+        }
+      }
+    } catch (Exception ex) {
+      AutoSerializableManager.handleException(ex, true, this.names[i], obj);
+    }
+  }
+
+  /**
+   * Reads the fields of the object from a reader positioned on the first field of a PdxType that
+   * matches the class.
+   */
+  void readFields(PdxReaderImpl reader, Object obj) {
+    int i = 0;
+    try {
+      for (; i < this.types.length; i++) {
+        long offset = this.offsets[i];
+        switch (this.types[i]) {
+          case BOOLEAN:
+            this.unsafe.putBoolean(obj, offset, reader.readBoolean());
+            break;
+          case BYTE:
+            this.unsafe.putByte(obj, offset, reader.readByte());
+            break;
+          case CHAR:
+            this.unsafe.putChar(obj, offset, reader.readChar());
+            break;
+          case SHORT:
+            this.unsafe.putShort(obj, offset, reader.readShort());
+            break;
+          case INT:
+            this.unsafe.putInt(obj, offset, reader.readInt());
+            break;
+          case LONG:
+            this.unsafe.putLong(obj, offset, reader.readLong());
+            break;
+          case FLOAT:
+            this.unsafe.putFloat(obj, offset, reader.readFloat());
+            break;
+          case DOUBLE:
+            this.unsafe.putDouble(obj, offset, reader.readDouble());
+            break;
+          case DATE:
+            this.unsafe.putObject(obj, offset, reader.readDate());
+            break;
+          case STRING:
+            this.unsafe.putObject(obj, offset, reader.readString());
+            break;
+          case OBJECT:
+            this.unsafe.putObject(obj, offset, reader.readObject());
+            break;
+          case BOOLEAN_ARRAY:
+            this.unsafe.putObject(obj, offset, reader.readBooleanArray());
+            break;
+          case CHAR_ARRAY:
+            this.unsafe.putObject(obj, offset, reader.readCharArray());
+            break;
+          case BYTE_ARRAY:
+            this.unsafe.putObject(obj, offset, reader.readByteArray());
+            break;
+          case SHORT_ARRAY:
+            this.unsafe.putObject(obj, offset, reader.readShortArray());
+            break;
+          case INT_ARRAY:
+            this.unsafe.putObject(obj, offset, reader.readIntArray());
+            break;
+          case LONG_ARRAY:
+            this.unsafe.putObject(obj, offset, reader.readLongArray());
+            break;
+          case FLOAT_ARRAY:
+            this.unsafe.putObject(obj, offset, reader.readFloatArray());
+            break;
+          case DOUBLE_ARRAY:
+            this.unsafe.putObject(obj, offset, reader.readDoubleArray());
+            break;
+          case STRING_ARRAY:
+            this.unsafe.putObject(obj, offset, reader.readStringArray());
+            break;
+          case OBJECT_ARRAY:
+            this.unsafe.putObject(obj, offset, reader.readObjectArray());
+            break;
+          case ARRAY_OF_BYTE_ARRAYS:
+            this.unsafe.putObject(obj, offset, reader.readArrayOfByteArrays());
+            break;
+          default:
+            throw new IllegalStateException("unhandled field type " + this.types[i]);
+        }
+      }
+    } catch (Exception ex) {
+      AutoSerializableManager.handleException(ex, false, this.names[i], obj);
+    }
+  }
+}
@@ -679,6 +679,7 @@ public class AutoSerializableManager {
     private final boolean transformValue;
     private final AutoSerializableManager owner;
     private final boolean isIdentityField;
+    private FieldType fieldType;
 
     protected PdxFieldWrapper(AutoSerializableManager owner, Field f, String name,
         boolean transformValue, boolean isIdentityField) {
@@ -697,6 +698,14 @@ public class AutoSerializableManager {
 
     public static PdxFieldWrapper create(AutoSerializableManager owner, Field f, FieldType ft,
         String name, boolean transformValue, boolean isIdentityField) {
+      PdxFieldWrapper result =
+          newFieldWrapper(owner, f, ft, name, transformValue, isIdentityField);
+      result.fieldType = ft;
+      return result;
+    }
+
+    private static PdxFieldWrapper newFieldWrapper(AutoSerializableManager owner, Field f,
+        FieldType ft, String name, boolean transformValue, boolean isIdentityField) {
       switch (ft) {
         case INT:
           return new IntField(owner, f, name, transformValue, isIdentityField);
@@ -759,6 +768,13 @@ public class AutoSerializableManager {
       return this.fieldName;
     }
 
+    /**
+     * Returns the type the field is serialized as.
+     */
+    public FieldType getFieldType() {
+      return this.fieldType;
+    }
+
     public boolean transform() {
       return this.transformValue;
     }
@@ -1990,7 +2006,7 @@ public class AutoSerializableManager {
     return false;
   }
 
-  private static void handleException(Exception ex, boolean serialization, String fieldName,
+  static void handleException(Exception ex, boolean serialization, String fieldName,
       Object obj) {
     if (ex instanceof CancelException) {
       // fix for bug 43936
@@ -2021,6 +2037,11 @@ public class AutoSerializableManager {
         optimizeFieldWrites = true;
       }
     }
+    AutoClassSerializer classSerializer = autoClassInfo.getClassSerializer();
+    if (optimizeFieldWrites && classSerializer != null) {
+      classSerializer.writeFields(w, obj, getCheckPortability());
+      return;
+    }
     for (PdxFieldWrapper f : autoClassInfo.getFields()) {
       // System.out.println("DEBUG writing field=" + f.getField().getName() + " offset=" +
       // ((PdxWriterImpl)writer).position());
@@ -2051,6 +2072,14 @@ public class AutoSerializableManager {
   private static final boolean USE_CONSTRUCTOR =
       !Boolean.getBoolean(DistributionConfig.GEMFIRE_PREFIX + "autopdx.ignoreConstructor");
 
+  /**
+   * Whether the fields of the classes that allow it are serialized by an
+   * {@link AutoClassSerializer} rather than by their field wrappers. Set the system property
+   * AutoSerializer.NO_CLASS_SERIALIZERS to always use the field wrappers.
+   */
+  public static boolean USE_CLASS_SERIALIZERS = !Boolean
+      .getBoolean(DistributionConfig.GEMFIRE_PREFIX + "AutoSerializer.NO_CLASS_SERIALIZERS");
+
   /**
    * Using the given PdxReader, recreate the given object.
    *
@@ -2173,9 +2202,16 @@ public class AutoSerializableManager {
      */
     private PdxType serializedType = null;
 
+    /**
+     * Serializes the fields once their PdxType is known, or null if the field wrappers must be used
+     */
+    private final AutoClassSerializer classSerializer;
+
     public AutoClassInfo(Class<?> clazz, List<PdxFieldWrapper> fields) {
       this.clazzRef = new WeakReference<Class<?>>(clazz);
       this.fields = fields;
+      this.classSerializer =
+          USE_CLASS_SERIALIZERS ? AutoClassSerializer.create(unsafe, fields) : null;
     }
 
     public String toFormattedString() {
@@ -2224,6 +2260,10 @@ public class AutoSerializableManager {
       return this.fields;
     }
 
+    AutoClassSerializer getClassSerializer() {
+      return this.classSerializer;
+    }
+
     public boolean matchesPdxType(PdxType t) {
       Integer pdxTypeId = Integer.valueOf(t.getTypeId());
       if (this.matchingPdxIds.contains(pdxTypeId)) {
@@ -615,6 +615,11 @@ public class PdxInstanceImpl extends PdxReaderImpl implements InternalPdxInstanc
     return super.readField(fieldName);
   }
 
+  @Override
+  public synchronized Object readField(PdxField ft) {
+    return super.readField(ft);
+  }
+
   @Override
   protected synchronized Object basicGetObject() {
     DMStats stats = InternalDataSerializer.getDMStats(null);
@@ -656,6 +661,18 @@ public class PdxInstanceImpl extends PdxReaderImpl implements InternalPdxInstanc
     return getUnmodifiableReader(fieldName).readRawField(fieldName);
   }
 
+  /**
+   * Like {@link #getRawField(String)} for a field of the type of this instance.
+   */
+  public Object getRawField(PdxField field) {
+    PdxReaderImpl reader = getUnmodifiableReader(field.getFieldName());
+    if (reader.getPdxType() != getPdxType()) {
+      // modified instance serialized with a new type
+      return reader.readRawField(field.getFieldName());
+    }
+    return reader.readRawField(field);
+  }
+
   public Object getDefaultValueIfFieldExistsInAnyPdxVersions(String fieldName, String className)
       throws FieldNotFoundInPdxVersion {
     PdxType pdxType =
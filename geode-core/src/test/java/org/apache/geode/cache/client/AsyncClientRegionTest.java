@@ -0,0 +1,145 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.cache.client;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.mockito.ArgumentCaptor;
+
+import org.apache.geode.cache.DataPolicy;
+import org.apache.geode.cache.Operation;
+import org.apache.geode.cache.Region;
+import org.apache.geode.cache.RegionAttributes;
+import org.apache.geode.cache.client.internal.ServerRegionProxy;
+import org.apache.geode.distributed.internal.InternalDistributedSystem;
+import org.apache.geode.distributed.internal.membership.InternalDistributedMember;
+import org.apache.geode.internal.cache.EntryEventImpl;
+import org.apache.geode.internal.cache.InternalCache;
+import org.apache.geode.internal.cache.LocalRegion;
+import org.apache.geode.internal.cache.Token;
+import org.apache.geode.test.junit.categories.ClientServerTest;
+
+@Category({ClientServerTest.class})
+public class AsyncClientRegionTest {
+
+  private LocalRegion region;
+  private RegionAttributes attributes;
+  private ServerRegionProxy serverProxy;
+
+  @Before
+  public void setUp() {
+    region = mock(LocalRegion.class);
+    attributes = mock(RegionAttributes.class);
+    serverProxy = mock(ServerRegionProxy.class);
+    when(region.getFullPath()).thenReturn("/region");
+    when(region.getAttributes()).thenReturn(attributes);
+    when(region.getServerProxy()).thenReturn(serverProxy);
+    when(attributes.getDataPolicy()).thenReturn(DataPolicy.EMPTY);
+
+    InternalCache cache = mock(InternalCache.class);
+    InternalDistributedSystem system = mock(InternalDistributedSystem.class);
+    when(region.getCache()).thenReturn(cache);
+    when(cache.getDistributedSystem()).thenReturn(system);
+    when(system.getDistributedMember()).thenReturn(mock(InternalDistributedMember.class));
+  }
+
+  @Test
+  public void ofRejectsRegionWithoutPool() {
+    when(region.getServerProxy()).thenReturn(null);
+
+    assertThatThrownBy(() -> AsyncClientRegion.of(region))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+
+  @Test
+  public void ofRejectsRegionStoringData() {
+    when(attributes.getDataPolicy()).thenReturn(DataPolicy.NORMAL);
+
+    assertThatThrownBy(() -> AsyncClientRegion.of(region))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+
+  @Test
+  public void getCompletesWithValueFromServer() {
+    when(serverProxy.getAsync(eq("key"), isNull(), isNull()))
+        .thenReturn(CompletableFuture.completedFuture("value"));
+    AsyncClientRegion<String, String> asyncRegion = AsyncClientRegion.of(stringRegion());
+
+    assertThat(asyncRegion.get("key").join()).isEqualTo("value");
+  }
+
+  @Test
+  public void getCompletesWithNullForInvalidEntry() {
+    when(serverProxy.getAsync(any(), any(), any()))
+        .thenReturn(CompletableFuture.completedFuture(Token.INVALID));
+    AsyncClientRegion<String, String> asyncRegion = AsyncClientRegion.of(stringRegion());
+
+    assertThat(asyncRegion.get("key").join()).isNull();
+  }
+
+  @Test
+  public void getCompletesExceptionallyWhenServerFails() {
+    ServerOperationException failure = new ServerOperationException("failed");
+    CompletableFuture<Object> result = new CompletableFuture<>();
+    result.completeExceptionally(failure);
+    when(serverProxy.getAsync(any(), any(), any())).thenReturn(result);
+    AsyncClientRegion<String, String> asyncRegion = AsyncClientRegion.of(stringRegion());
+
+    assertThatThrownBy(() -> asyncRegion.get("key").join()).hasCause(failure);
+  }
+
+  @Test
+  public void putSendsEventWithEventId() {
+    when(serverProxy.putAsync(any(), any(), any(), any(), eq(false), any(), any()))
+        .thenReturn(CompletableFuture.completedFuture(null));
+    AsyncClientRegion<String, String> asyncRegion = AsyncClientRegion.of(stringRegion());
+
+    asyncRegion.put("key", "value").join();
+
+    ArgumentCaptor<EntryEventImpl> event = ArgumentCaptor.forClass(EntryEventImpl.class);
+    verify(serverProxy).putAsync(eq("key"), eq("value"), event.capture(), eq(Operation.UPDATE),
+        eq(false), isNull(), isNull());
+    assertThat(event.getValue().getEventId()).isNotNull();
+  }
+
+  @Test
+  public void putCompletesExceptionallyWhenServerFails() {
+    ServerOperationException failure = new ServerOperationException("failed");
+    CompletableFuture<Object> result = new CompletableFuture<>();
+    result.completeExceptionally(failure);
+    when(serverProxy.putAsync(any(), any(), any(), any(), eq(false), any(), any()))
+        .thenReturn(result);
+    AsyncClientRegion<String, String> asyncRegion = AsyncClientRegion.of(stringRegion());
+
+    assertThatThrownBy(() -> asyncRegion.put("key", "value").join()).hasCause(failure);
+  }
+
+  @SuppressWarnings("unchecked")
+  private Region<String, String> stringRegion() {
+    return region;
+  }
+}
@@ -0,0 +1,125 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.cache.client.internal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.mockito.invocation.InvocationOnMock;
+
+import org.apache.geode.cache.client.ServerConnectivityException;
+import org.apache.geode.cache.client.ServerOperationException;
+import org.apache.geode.cache.client.internal.GetAllOp.GetAllOpImpl;
+import org.apache.geode.distributed.internal.ServerLocation;
+import org.apache.geode.internal.cache.InternalCache;
+import org.apache.geode.internal.cache.LocalRegion;
+import org.apache.geode.internal.cache.tier.sockets.VersionedObjectList;
+import org.apache.geode.test.junit.categories.ClientServerTest;
+
+@Category({ClientServerTest.class})
+public class GetAllStreamTest {
+
+  private PoolImpl pool;
+  private LocalRegion region;
+  private ClientMetadataService cms;
+
+  @Before
+  public void setUp() {
+    pool = mock(PoolImpl.class);
+    when(pool.getMaxConnections()).thenReturn(-1);
+    region = mock(LocalRegion.class);
+    when(region.getFullPath()).thenReturn("/region");
+    InternalCache cache = mock(InternalCache.class);
+    cms = mock(ClientMetadataService.class);
+    when(region.getCache()).thenReturn(cache);
+    when(cache.getClientMetadataService()).thenReturn(cms);
+  }
+
+  @Test
+  public void keysAreRequestedInBatches() {
+    when(pool.execute(any(Op.class))).thenAnswer(GetAllStreamTest::valuesOf);
+    List<String> keys = Arrays.asList("a", "b", "c", "d", "e");
+
+    GetAllStream stream = new GetAllStream(pool, region, keys, null, null, true, 2, 1);
+
+    assertThat(readAll(stream)).containsOnlyKeys("a", "b", "c", "d", "e").containsEntry("e",
+        "value-e");
+    verify(pool, times(3)).execute(any(Op.class));
+  }
+
+  @Test
+  public void failedBatchIsRetriedOnAnyServer() {
+    ServerLocation server = new ServerLocation("localhost", 1234);
+    when(pool.executeOn(eq(server), any(Op.class), anyBoolean(), anyBoolean()))
+        .thenThrow(new ServerConnectivityException("server is gone"));
+    when(pool.execute(any(Op.class))).thenAnswer(GetAllStreamTest::valuesOf);
+    Map<ServerLocation, HashSet> serverToKeys = new HashMap<>();
+    serverToKeys.put(server, new LinkedHashSet<>(Arrays.asList("a", "b")));
+
+    GetAllStream stream =
+        new GetAllStream(pool, region, Arrays.asList("a", "b"), null, serverToKeys, true, 10, 2);
+
+    assertThat(readAll(stream)).containsOnlyKeys("a", "b").containsEntry("a", "value-a");
+    verify(cms).removeBucketServerLocation(server);
+    verify(pool, times(1)).execute(any(Op.class));
+  }
+
+  @Test
+  public void serverOperationExceptionIsNotRetried() {
+    when(pool.execute(any(Op.class))).thenThrow(new ServerOperationException("failed"));
+
+    GetAllStream stream = new GetAllStream(pool, region, Collections.singletonList("a"), null,
+        null, true, 10, 2);
+
+    assertThatThrownBy(stream::hasNext).isInstanceOf(ServerOperationException.class);
+    assertThat(stream.hasNext()).isFalse();
+  }
+
+  private static Object valuesOf(InvocationOnMock invocation) {
+    List keys = ((GetAllOpImpl) invocation.getArgument(0)).getKeyList();
+    VersionedObjectList result = new VersionedObjectList(keys.size(), true, false);
+    for (Object key : keys) {
+      result.addObject(key, "value-" + key, null);
+    }
+    return result;
+  }
+
+  private static Map<Object, Object> readAll(GetAllStream stream) {
+    Map<Object, Object> result = new HashMap<>();
+    while (stream.hasNext()) {
+      VersionedObjectList.Entry entry = stream.next();
+      result.put(entry.getKey(), entry.getValue());
+    }
+    return result;
+  }
+}
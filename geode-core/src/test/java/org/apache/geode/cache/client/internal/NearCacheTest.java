@@ -0,0 +1,158 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.cache.client.internal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyByte;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Collections;
+import java.util.concurrent.ScheduledExecutorService;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import org.apache.geode.cache.client.ServerConnectivityException;
+import org.apache.geode.internal.cache.PoolStats;
+import org.apache.geode.test.junit.categories.ClientServerTest;
+
+@Category({ClientServerTest.class})
+public class NearCacheTest {
+
+  private ServerRegionProxy proxy;
+  private PoolStats stats;
+  private NearCache nearCache;
+
+  @Before
+  public void setUp() {
+    proxy = mock(ServerRegionProxy.class);
+    stats = mock(PoolStats.class);
+    nearCache = new NearCache(proxy, (byte) 0, stats, mock(ScheduledExecutorService.class), 2, 0);
+  }
+
+  @Test
+  public void valueIsNotCachedBeforeInterestIsRegistered() {
+    assertThat(nearCache.get("key")).isNull();
+    nearCache.put("key", "value", nearCache.getToken());
+
+    assertThat(nearCache.get("key")).isNull();
+    verify(stats, never()).incNearCacheHits();
+  }
+
+  @Test
+  public void valueIsServedAfterInterestIsRegistered() {
+    readAndRegister("key");
+    nearCache.put("key", "value", nearCache.getToken());
+
+    assertThat(nearCache.get("key")).isEqualTo("value");
+    verify(proxy).registerNearCacheInterest(Collections.singletonList("key"), (byte) 0);
+    verify(stats).incNearCacheHits();
+  }
+
+  @Test
+  public void invalidateDropsValue() {
+    readAndRegister("key");
+    nearCache.put("key", "value", nearCache.getToken());
+
+    nearCache.invalidate("key");
+
+    assertThat(nearCache.get("key")).isNull();
+    verify(stats).incNearCacheInvalidations();
+  }
+
+  @Test
+  public void valueReadDuringInvalidateIsNotCached() {
+    readAndRegister("key");
+    long token = nearCache.getToken();
+    nearCache.invalidate("key");
+    nearCache.put("key", "stale", token);
+
+    assertThat(nearCache.get("key")).isNull();
+  }
+
+  @Test
+  public void evictedKeyIsUnregistered() {
+    readAndRegister("key1");
+    readAndRegister("key2");
+    readAndRegister("key3");
+
+    assertThat(nearCache.size()).isEqualTo(2);
+    verify(stats).incNearCacheEvictions();
+    verify(proxy).unregisterNearCacheInterest(Collections.singletonList("key1"));
+  }
+
+  @Test
+  public void evictedKeyRegisteredByApplicationIsNotUnregistered() {
+    readAndRegister("key1");
+    nearCache.applicationRegistered(Collections.singletonList("key1"));
+    readAndRegister("key2");
+    readAndRegister("key3");
+
+    assertThat(nearCache.size()).isEqualTo(2);
+    verify(proxy, never()).unregisterNearCacheInterest(anyList());
+  }
+
+  @Test
+  public void keyRegisteredByApplicationIsCachedWithoutRegistering() {
+    nearCache.applicationRegistered(Collections.singletonList("key"));
+    readAndRegister("key");
+    nearCache.put("key", "value", nearCache.getToken());
+
+    assertThat(nearCache.get("key")).isEqualTo("value");
+    verify(proxy, never()).registerNearCacheInterest(anyList(), anyByte());
+  }
+
+  @Test
+  public void keyUnregisteredByApplicationIsDropped() {
+    readAndRegister("key");
+    nearCache.put("key", "value", nearCache.getToken());
+
+    nearCache.applicationUnregistered(Collections.singletonList("key"));
+
+    assertThat(nearCache.size()).isEqualTo(0);
+    assertThat(nearCache.get("key")).isNull();
+  }
+
+  @Test
+  public void failedRegistrationForgetsKey() {
+    when(proxy.registerNearCacheInterest(anyList(), anyByte()))
+        .thenThrow(new ServerConnectivityException("no servers"));
+
+    readAndRegister("key");
+
+    assertThat(nearCache.size()).isEqualTo(0);
+  }
+
+  @Test
+  public void closedCacheServesNothing() {
+    readAndRegister("key");
+    nearCache.put("key", "value", nearCache.getToken());
+
+    nearCache.close();
+
+    assertThat(nearCache.get("key")).isNull();
+    assertThat(nearCache.size()).isEqualTo(0);
+  }
+
+  private void readAndRegister(Object key) {
+    nearCache.get(key);
+    nearCache.flush();
+  }
+}
@@ -14,10 +14,12 @@
  */
 package org.apache.geode.cache.client.internal;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.spy;
@@ -35,14 +37,21 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.experimental.categories.Category;
 
 import org.apache.geode.CancelCriterion;
+import org.apache.geode.CancelException;
 import org.apache.geode.LogWriter;
+import org.apache.geode.cache.CacheClosedException;
 import org.apache.geode.cache.client.NoAvailableServersException;
 import org.apache.geode.cache.client.ServerConnectivityException;
 import org.apache.geode.cache.client.ServerOperationException;
@@ -539,6 +548,99 @@ public class OpExecutorImplJUnitTest {
   }
 
 
+  @Test
+  public void executeAsyncCompletesFutureOnAsyncThread() throws Exception {
+    OpExecutorImpl exec = new OpExecutorImpl(manager, queueManager, endpointManager, riTracker, 3,
+        10, false, cancelCriterion, null);
+    CountDownLatch opLatch = new CountDownLatch(1);
+    try {
+      CompletableFuture<Object> future = exec.executeAsync(new Op() {
+        @Override
+        public Object attempt(Connection cnx) throws Exception {
+          opLatch.await();
+          return Thread.currentThread().getName();
+        }
+
+        @Override
+        public boolean useThreadLocalConnection() {
+          return true;
+        }
+      });
+      assertThat(future).isNotDone();
+
+      opLatch.countDown();
+
+      assertThat((String) future.get(30, TimeUnit.SECONDS)).startsWith("PoolAsyncOp-");
+      assertEquals(1, borrows);
+      assertEquals(1, returns);
+    } finally {
+      opLatch.countDown();
+      exec.close();
+    }
+  }
+
+  @Test
+  public void executeAsyncCompletesFutureExceptionallyWhenOpFails() {
+    OpExecutorImpl exec = new OpExecutorImpl(manager, queueManager, endpointManager, riTracker, 3,
+        10, false, cancelCriterion, null);
+    ServerOperationException failure = new ServerOperationException("failed on server");
+    try {
+      CompletableFuture<Object> future = exec.executeAsync(new Op() {
+        @Override
+        public Object attempt(Connection cnx) throws Exception {
+          throw failure;
+        }
+
+        @Override
+        public boolean useThreadLocalConnection() {
+          return true;
+        }
+      });
+
+      assertThatThrownBy(() -> future.get(30, TimeUnit.SECONDS))
+          .isInstanceOf(ExecutionException.class).hasCause(failure);
+    } finally {
+      exec.close();
+    }
+  }
+
+  @Test
+  public void executeAsyncAfterCloseCompletesFutureExceptionally() {
+    OpExecutorImpl exec = new OpExecutorImpl(manager, queueManager, endpointManager, riTracker, 3,
+        10, false, cancelCriterion, null);
+    exec.close();
+
+    CompletableFuture<Object> future = exec.executeAsync(new Op() {
+      @Override
+      public Object attempt(Connection cnx) throws Exception {
+        return "hello";
+      }
+
+      @Override
+      public boolean useThreadLocalConnection() {
+        return true;
+      }
+    });
+
+    assertThat(future).isCompletedExceptionally();
+    assertThatThrownBy(future::join).hasCauseInstanceOf(RejectedExecutionException.class);
+    assertEquals(0, borrows);
+  }
+
+  @Test
+  public void executeAsyncAfterCloseCompletesFutureWithCancelException() {
+    CancelException cancelled = new CacheClosedException("closed");
+    CancelCriterion closedCriterion = mock(CancelCriterion.class);
+    when(closedCriterion.generateCancelledException(any())).thenReturn(cancelled);
+    OpExecutorImpl exec = new OpExecutorImpl(manager, queueManager, endpointManager, riTracker, 3,
+        10, false, closedCriterion, null);
+    exec.close();
+
+    CompletableFuture<Object> future = exec.executeAsync(mock(Op.class));
+
+    assertThatThrownBy(future::join).hasCause(cancelled);
+  }
+
   private class DummyManager implements ConnectionManager {
 
     protected int numServers = Integer.MAX_VALUE;
@@ -659,6 +761,11 @@ public class OpExecutorImplJUnitTest {
       return 0;
     }
 
+    @Override
+    public int getWireCompressionThreshold() {
+      return 0;
+    }
+
     @Override
     public Endpoint getEndpoint() {
       return new Endpoint(null, null, null, null, null);
@@ -0,0 +1,147 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.cache.client.internal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import org.apache.geode.cache.client.internal.pooling.ConnectionDestroyedException;
+import org.apache.geode.internal.cache.tier.sockets.Message;
+import org.apache.geode.test.junit.categories.ClientServerTest;
+
+@Category({ClientServerTest.class})
+public class PipelinedConnectionTest {
+
+  private Connection pooledConnection;
+  private Connection connection;
+  private PipelinedConnection pipelinedConnection;
+
+  @Before
+  public void setUp() throws Exception {
+    pooledConnection = mock(Connection.class);
+    connection = mock(Connection.class);
+    when(connection.getSocket()).thenReturn(mock(Socket.class));
+    when(connection.getCommBuffer()).thenReturn(ByteBuffer.allocate(1024));
+    when(connection.getStats()).thenReturn(mock(ConnectionStats.class));
+    when(connection.getEndpoint()).thenReturn(mock(Endpoint.class));
+    pipelinedConnection = new PipelinedConnection(pooledConnection, connection);
+  }
+
+  @Test
+  public void executeSendsRequestAndProcessesResponse() throws Exception {
+    AbstractOp op = mock(AbstractOp.class);
+    Message response = mock(Message.class);
+    when(op.createResponseMessage()).thenReturn(response);
+    when(op.processResponse(response, connection)).thenReturn("value");
+
+    assertThat(pipelinedConnection.execute(op)).isEqualTo("value");
+
+    verify(op).attemptSend(connection);
+    verify(response).receive();
+    assertThat(pipelinedConnection.isBroken()).isFalse();
+  }
+
+  @Test
+  public void sendFailureBreaksPipeline() throws Exception {
+    AbstractOp op = mock(AbstractOp.class);
+    doThrow(new IOException("send failed")).when(op).attemptSend(connection);
+
+    assertThatThrownBy(() -> pipelinedConnection.execute(op)).isInstanceOf(IOException.class);
+    assertThat(pipelinedConnection.isBroken()).isTrue();
+
+    AbstractOp nextOp = mock(AbstractOp.class);
+    assertThatThrownBy(() -> pipelinedConnection.execute(nextOp))
+        .isInstanceOf(ConnectionDestroyedException.class);
+    verify(nextOp, never()).attemptSend(connection);
+  }
+
+  @Test
+  public void receiveFailureBreaksPipeline() throws Exception {
+    AbstractOp op = mock(AbstractOp.class);
+    Message response = mock(Message.class);
+    when(op.createResponseMessage()).thenReturn(response);
+    doThrow(new IOException("receive failed")).when(response).receive();
+
+    assertThatThrownBy(() -> pipelinedConnection.execute(op)).isInstanceOf(IOException.class);
+
+    assertThat(pipelinedConnection.isBroken()).isTrue();
+    verify(op, never()).processResponse(response, connection);
+  }
+
+  @Test
+  public void executeAsyncCompletesFutureWithResponse() throws Exception {
+    AbstractOp op = mock(AbstractOp.class);
+    Message response = mock(Message.class);
+    when(op.createResponseMessage()).thenReturn(response);
+    when(op.processResponse(response, connection)).thenReturn("value");
+
+    CompletableFuture<Object> future = pipelinedConnection.executeAsync(op);
+
+    assertThat(future.get(10, TimeUnit.SECONDS)).isEqualTo("value");
+    verify(op).attemptSend(connection);
+  }
+
+  @Test
+  public void executeAsyncCompletesFutureExceptionallyWhenSendFails() throws Exception {
+    AbstractOp op = mock(AbstractOp.class);
+    doThrow(new IOException("send failed")).when(op).attemptSend(connection);
+
+    CompletableFuture<Object> future = pipelinedConnection.executeAsync(op);
+
+    assertThat(future).isCompletedExceptionally();
+    assertThatThrownBy(future::join).hasCauseInstanceOf(IOException.class);
+    assertThat(pipelinedConnection.isBroken()).isTrue();
+  }
+
+  @Test
+  public void executeAsyncCompletesFutureExceptionallyWhenReceiveFails() throws Exception {
+    AbstractOp op = mock(AbstractOp.class);
+    Message response = mock(Message.class);
+    when(op.createResponseMessage()).thenReturn(response);
+    doThrow(new IOException("receive failed")).when(response).receive();
+
+    CompletableFuture<Object> future = pipelinedConnection.executeAsync(op);
+
+    assertThatThrownBy(() -> future.get(10, TimeUnit.SECONDS))
+        .hasCauseInstanceOf(IOException.class);
+    assertThat(pipelinedConnection.isBroken()).isTrue();
+  }
+
+  @Test
+  public void closeBreaksPipeline() {
+    Runnable closeAction = mock(Runnable.class);
+    pipelinedConnection.close(closeAction);
+
+    verify(closeAction).run();
+    assertThat(pipelinedConnection.isBroken()).isTrue();
+    assertThatThrownBy(() -> pipelinedConnection.execute(mock(AbstractOp.class)))
+        .isInstanceOf(ConnectionDestroyedException.class);
+  }
+}
@@ -0,0 +1,189 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.cache.client.internal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import org.apache.geode.InternalGemFireException;
+import org.apache.geode.cache.client.ServerOperationException;
+import org.apache.geode.cache.query.internal.types.CollectionTypeImpl;
+import org.apache.geode.cache.query.internal.types.ObjectTypeImpl;
+import org.apache.geode.internal.cache.tier.MessageType;
+import org.apache.geode.internal.cache.tier.sockets.ChunkedMessage;
+import org.apache.geode.internal.cache.tier.sockets.Part;
+import org.apache.geode.test.junit.categories.ClientServerTest;
+
+@Category({ClientServerTest.class})
+public class QueryResultStreamTest {
+
+  private final ExecutablePool pool = mock(ExecutablePool.class);
+
+  @Test
+  public void resultsAreReturnedChunkByChunk() {
+    when(pool.execute(any(Op.class), eq(0))).thenAnswer(invocation -> {
+      QueryOp.QueryOpImpl op = invocation.getArgument(0);
+      op.chunkReceived(null, Arrays.asList(1, 2));
+      op.chunkReceived(null, Arrays.asList(3));
+      return null;
+    });
+
+    QueryResultStream stream = new QueryResultStream(pool, "select * from /region", null, 1);
+
+    List<Object> results = new ArrayList<>();
+    stream.forEachRemaining(results::add);
+    assertThat(results).containsExactly(1, 2, 3);
+    assertThat(stream.hasNext()).isFalse();
+  }
+
+  @Test
+  public void failureIsThrownAfterTheResultsReceivedBeforeIt() {
+    when(pool.execute(any(Op.class), eq(0))).thenAnswer(invocation -> {
+      QueryOp.QueryOpImpl op = invocation.getArgument(0);
+      op.chunkReceived(null, Arrays.asList(1));
+      throw new ServerOperationException("failed");
+    });
+
+    QueryResultStream stream = new QueryResultStream(pool, "select * from /region", null, 4);
+
+    assertThat(stream.next()).isEqualTo(1);
+    assertThatThrownBy(stream::hasNext).isInstanceOf(ServerOperationException.class);
+    assertThat(stream.hasNext()).isFalse();
+  }
+
+  @Test
+  public void closeStopsReaderWaitingForBufferSpace() throws Exception {
+    CountDownLatch executed = new CountDownLatch(1);
+    AtomicInteger chunksReceived = new AtomicInteger();
+    AtomicReference<Throwable> failure = new AtomicReference<>();
+    when(pool.execute(any(Op.class), eq(0))).thenAnswer(invocation -> {
+      QueryOp.QueryOpImpl op = invocation.getArgument(0);
+      try {
+        for (int i = 0; i < 10; i++) {
+          op.chunkReceived(null, Arrays.asList(i));
+          chunksReceived.incrementAndGet();
+        }
+      } catch (Throwable t) {
+        failure.set(t);
+        throw t;
+      } finally {
+        executed.countDown();
+      }
+      return null;
+    });
+
+    QueryResultStream stream = new QueryResultStream(pool, "select * from /region", null, 1);
+    assertThat(stream.next()).isEqualTo(0);
+    stream.close();
+
+    assertThat(executed.await(30, TimeUnit.SECONDS)).isTrue();
+    assertThat(failure.get()).isInstanceOf(QueryResultStream.StreamClosedException.class);
+    assertThat(chunksReceived.get()).isLessThan(10);
+    assertThat(stream.hasNext()).isFalse();
+  }
+
+  @Test
+  public void closedStreamDestroysConnectionInsteadOfReadingRestOfResponse() throws Exception {
+    CountDownLatch executed = new CountDownLatch(1);
+    Connection connection = mock(Connection.class);
+    AtomicReference<Object> result = new AtomicReference<>();
+    ChunkedMessage response = mock(ChunkedMessage.class);
+    Part typePart = mock(Part.class);
+    Part resultPart = mock(Part.class);
+    when(response.getMessageType()).thenReturn(MessageType.RESPONSE);
+    when(response.getPart(0)).thenReturn(typePart);
+    when(response.getPart(1)).thenReturn(resultPart);
+    when(typePart.getObject()).thenReturn(
+        new CollectionTypeImpl(List.class, new ObjectTypeImpl(Object.class)));
+    when(resultPart.getObject()).thenReturn(new Object[] {1});
+    when(pool.execute(any(Op.class), eq(0))).thenAnswer(invocation -> {
+      AbstractOp op = invocation.getArgument(0);
+      try {
+        result.set(op.processResponse(response, connection));
+      } finally {
+        executed.countDown();
+      }
+      return null;
+    });
+
+    QueryResultStream stream = new QueryResultStream(pool, "select * from /region", null, 1);
+    assertThat(stream.next()).isEqualTo(1);
+    stream.close();
+
+    assertThat(executed.await(30, TimeUnit.SECONDS)).isTrue();
+    verify(connection).destroy();
+    assertThat(result.get()).isNull();
+  }
+
+  @Test
+  public void interruptedReaderStillEndsStream() {
+    when(pool.execute(any(Op.class), eq(0))).thenAnswer(invocation -> {
+      QueryOp.QueryOpImpl op = invocation.getArgument(0);
+      op.chunkReceived(null, Arrays.asList(1));
+      Thread.currentThread().interrupt();
+      return null;
+    });
+
+    QueryResultStream stream = new QueryResultStream(pool, "select * from /region", null, 1);
+
+    List<Object> results = new ArrayList<>();
+    stream.forEachRemaining(results::add);
+    assertThat(results).containsExactly(1);
+  }
+
+  @Test
+  public void interruptedConsumerClosesStream() throws Exception {
+    CountDownLatch executed = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    when(pool.execute(any(Op.class), eq(0))).thenAnswer(invocation -> {
+      try {
+        release.await();
+      } finally {
+        executed.countDown();
+      }
+      return null;
+    });
+
+    QueryResultStream stream = new QueryResultStream(pool, "select * from /region", null, 1);
+    Thread.currentThread().interrupt();
+    try {
+      assertThatThrownBy(stream::hasNext).isInstanceOf(InternalGemFireException.class);
+      assertThat(Thread.currentThread().isInterrupted()).isTrue();
+    } finally {
+      Thread.interrupted();
+    }
+
+    // closing the stream interrupted the reader
+    assertThat(executed.await(30, TimeUnit.SECONDS)).isTrue();
+    assertThat(release.getCount()).isEqualTo(1);
+    assertThat(stream.hasNext()).isFalse();
+  }
+}
@@ -0,0 +1,130 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.cache.query.internal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import org.apache.geode.cache.EntryDestroyedException;
+import org.apache.geode.cache.query.NameNotFoundException;
+import org.apache.geode.cache.query.QueryInvocationTargetException;
+import org.apache.geode.cache.query.QueryService;
+import org.apache.geode.security.NotAuthorizedException;
+import org.apache.geode.test.junit.categories.OQLQueryTest;
+
+@Category({OQLQueryTest.class})
+public class AttributeDescriptorTest {
+
+  private final MethodInvocationAuthorizer authorizer = (method, target) -> {
+  };
+
+  @Test
+  public void readsFieldsAndMethodsOfDifferentClasses() throws Exception {
+    AttributeDescriptor descriptor = new AttributeDescriptor(authorizer, "id");
+
+    assertThat(descriptor.read(new WithField(1))).isEqualTo(1);
+    assertThat(descriptor.read(new WithGetter(2))).isEqualTo(2);
+    assertThat(descriptor.read(new WithField(3))).isEqualTo(3);
+  }
+
+  @Test
+  public void readsTargetsOfAlternatingClassesWithSharedAccessors() throws Exception {
+    AttributeDescriptor descriptor = new AttributeDescriptor(authorizer, "id");
+    AttributeDescriptor other = new AttributeDescriptor(authorizer, "id");
+
+    for (int i = 0; i < 10; i++) {
+      assertThat(descriptor.read(new WithField(i))).isEqualTo(i);
+      assertThat(descriptor.read(new WithGetter(-i))).isEqualTo(-i);
+    }
+    assertThat(other.getReadMember(WithGetter.class))
+        .isSameAs(descriptor.getReadMember(WithGetter.class));
+  }
+
+  @Test
+  public void readsStaticField() throws Exception {
+    AttributeDescriptor descriptor = new AttributeDescriptor(authorizer, "NAME");
+
+    assertThat(descriptor.read(new WithField(1))).isEqualTo("field");
+  }
+
+  @Test
+  public void missingAttributeIsNotFound() {
+    AttributeDescriptor descriptor = new AttributeDescriptor(authorizer, "missing");
+
+    assertThatThrownBy(() -> descriptor.read(new WithField(1)))
+        .isInstanceOf(NameNotFoundException.class);
+  }
+
+  @Test
+  public void exceptionOfMethodIsWrapped() {
+    AttributeDescriptor descriptor = new AttributeDescriptor(authorizer, "failure");
+
+    assertThatThrownBy(() -> descriptor.read(new WithGetter(1)))
+        .isInstanceOf(QueryInvocationTargetException.class)
+        .hasCauseInstanceOf(IllegalStateException.class);
+  }
+
+  @Test
+  public void destroyedEntryIsUndefined() throws Exception {
+    AttributeDescriptor descriptor = new AttributeDescriptor(authorizer, "destroyed");
+
+    assertThat(descriptor.read(new WithGetter(1))).isSameAs(QueryService.UNDEFINED);
+  }
+
+  @Test
+  public void methodInvocationIsAuthorizedForEachTarget() {
+    AttributeDescriptor descriptor = new AttributeDescriptor((method, target) -> {
+      if (((WithGetter) target).getId() < 0) {
+        throw new NotAuthorizedException(method.getName());
+      }
+    }, "id");
+
+    assertThatThrownBy(() -> descriptor.read(new WithGetter(-1)))
+        .isInstanceOf(NotAuthorizedException.class);
+  }
+
+  public static class WithField {
+    public static final String NAME = "field";
+
+    public final int id;
+
+    WithField(int id) {
+      this.id = id;
+    }
+  }
+
+  public static class WithGetter {
+    private final int id;
+
+    WithGetter(int id) {
+      this.id = id;
+    }
+
+    public int getId() {
+      return id;
+    }
+
+    public Object getFailure() {
+      throw new IllegalStateException();
+    }
+
+    public Object getDestroyed() {
+      throw new EntryDestroyedException();
+    }
+  }
+}
@@ -16,11 +16,13 @@ package org.apache.geode.cache.query.internal;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
 
 import java.lang.reflect.Field;
 import java.util.Collections;
 import java.util.List;
 
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 
@@ -29,12 +31,15 @@ import org.apache.geode.cache.query.internal.aggregate.Avg;
 import org.apache.geode.cache.query.internal.aggregate.AvgBucketNode;
 import org.apache.geode.cache.query.internal.aggregate.AvgDistinct;
 import org.apache.geode.cache.query.internal.aggregate.AvgDistinctPRQueryNode;
+import org.apache.geode.cache.query.internal.aggregate.AvgMemberNode;
 import org.apache.geode.cache.query.internal.aggregate.AvgPRQueryNode;
 import org.apache.geode.cache.query.internal.aggregate.Count;
 import org.apache.geode.cache.query.internal.aggregate.CountDistinct;
+import org.apache.geode.cache.query.internal.aggregate.CountDistinctBucketNode;
 import org.apache.geode.cache.query.internal.aggregate.CountDistinctPRQueryNode;
 import org.apache.geode.cache.query.internal.aggregate.CountPRQueryNode;
 import org.apache.geode.cache.query.internal.aggregate.DistinctAggregator;
+import org.apache.geode.cache.query.internal.aggregate.DistinctMemberNode;
 import org.apache.geode.cache.query.internal.aggregate.MaxMin;
 import org.apache.geode.cache.query.internal.aggregate.Sum;
 import org.apache.geode.cache.query.internal.aggregate.SumDistinct;
@@ -52,6 +57,11 @@ public class CompiledAggregateFunctionJUnitTest {
     bucketList = Collections.singletonList(1);
   }
 
+  @After
+  public void tearDown() {
+    CompiledAggregateFunction.APPROXIMATE_COUNT_DISTINCT = false;
+  }
+
   @Test
   public void testCount() throws Exception {
     CompiledAggregateFunction caf1 = new CompiledAggregateFunction(null, OQLLexerTokenTypes.COUNT);
@@ -173,4 +183,46 @@ public class CompiledAggregateFunctionJUnitTest {
     MaxMin maxMin1 = (MaxMin) agg1;
     assertThat(findMax.get(maxMin1)).isEqualTo(Boolean.FALSE);
   }
+
+  @Test
+  public void testMemberNode() throws Exception {
+    QueryExecutionContext context = new QueryExecutionContext(null, cache);
+    context.setBucketList(bucketList);
+    context.setIsMemberNode(true);
+
+    assertThat(new CompiledAggregateFunction(null, OQLLexerTokenTypes.COUNT).evaluate(context))
+        .isInstanceOf(CountPRQueryNode.class);
+    assertThat(new CompiledAggregateFunction(null, OQLLexerTokenTypes.SUM).evaluate(context))
+        .isInstanceOf(Sum.class);
+    assertThat(new CompiledAggregateFunction(null, OQLLexerTokenTypes.AVG).evaluate(context))
+        .isInstanceOf(AvgMemberNode.class);
+    assertThat(new CompiledAggregateFunction(null, OQLLexerTokenTypes.MAX).evaluate(context))
+        .isInstanceOf(MaxMin.class);
+    assertThat(new CompiledAggregateFunction(null, OQLLexerTokenTypes.SUM, true).evaluate(context))
+        .isInstanceOf(DistinctMemberNode.class);
+    assertThat(new CompiledAggregateFunction(null, OQLLexerTokenTypes.AVG, true).evaluate(context))
+        .isInstanceOf(DistinctMemberNode.class);
+  }
+
+  @Test
+  public void testApproximateCountDistinctOnlyForQueryNodesAcceptingEstimators() throws Exception {
+    CompiledAggregateFunction.APPROXIMATE_COUNT_DISTINCT = true;
+    DefaultQuery query = mock(DefaultQuery.class);
+    CompiledAggregateFunction countDistinct =
+        new CompiledAggregateFunction(null, OQLLexerTokenTypes.COUNT, true);
+
+    QueryExecutionContext context = new QueryExecutionContext(null, cache, query);
+    context.setBucketList(bucketList);
+    QueryExecutionContext memberContext = new QueryExecutionContext(null, cache, query);
+    memberContext.setBucketList(bucketList);
+    memberContext.setIsMemberNode(true);
+
+    when(query.isCountDistinctEstimatorAccepted()).thenReturn(true);
+    assertThat(countDistinct.evaluate(context)).isInstanceOf(CountDistinctBucketNode.class);
+    assertThat(countDistinct.evaluate(memberContext)).isInstanceOf(CountDistinctBucketNode.class);
+
+    when(query.isCountDistinctEstimatorAccepted()).thenReturn(false);
+    assertThat(countDistinct.evaluate(context)).isInstanceOf(DistinctAggregator.class);
+    assertThat(countDistinct.evaluate(memberContext)).isInstanceOf(DistinctMemberNode.class);
+  }
 }
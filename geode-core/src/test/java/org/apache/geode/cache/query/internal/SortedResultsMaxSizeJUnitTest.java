@@ -0,0 +1,85 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.cache.query.internal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Comparator;
+
+import org.junit.Test;
+
+/**
+ * Tests the sorted results that only keep the first rows of ORDER BY queries with a LIMIT
+ */
+public class SortedResultsMaxSizeJUnitTest {
+
+  private final Comparator<Integer> naturalOrder = Comparator.naturalOrder();
+
+  @Test
+  public void bagKeepsTheFirstElementsWithTheirDuplicates() {
+    SortedResultsBag<Integer> bag = new SortedResultsBag<>(naturalOrder, true);
+    bag.setMaxSize(4);
+    for (int i : new int[] {9, 3, 7, 3, 1, 8, 2, 3}) {
+      bag.add(i);
+    }
+
+    assertThat(bag.size()).isEqualTo(4);
+    assertThat(bag).containsExactly(1, 2, 3, 3);
+  }
+
+  @Test
+  public void bagRemovesNullsFirstWhenTheyAreLast() {
+    SortedResultsBag<Integer> bag = new SortedResultsBag<>(naturalOrder, false);
+    bag.setMaxSize(2);
+    bag.add(null);
+    bag.add(5);
+    bag.add(null);
+    bag.add(4);
+
+    assertThat(bag).containsExactly(4, 5);
+  }
+
+  @Test
+  public void bagKeepsNullsWhenTheyAreFirst() {
+    SortedResultsBag<Integer> bag = new SortedResultsBag<>(naturalOrder, true);
+    bag.setMaxSize(2);
+    bag.add(5);
+    bag.add(null);
+    bag.add(4);
+
+    assertThat(bag).containsExactly(null, 4);
+  }
+
+  @Test
+  public void setKeepsTheFirstDistinctElements() {
+    SortedResultSet set = new SortedResultSet(naturalOrder);
+    set.setMaxSize(3);
+    for (int i : new int[] {9, 3, 7, 3, 1, 8, 2, 9}) {
+      set.add(i);
+    }
+
+    assertThat(set).containsExactly(1, 2, 3);
+  }
+
+  @Test
+  public void unboundedBagKeepsAllElements() {
+    SortedResultsBag<Integer> bag = new SortedResultsBag<>(naturalOrder, true);
+    for (int i = 10; i > 0; i--) {
+      bag.add(i);
+    }
+
+    assertThat(bag.size()).isEqualTo(10);
+  }
+}
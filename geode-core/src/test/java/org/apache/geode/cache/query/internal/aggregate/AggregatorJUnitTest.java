@@ -15,12 +15,16 @@
 package org.apache.geode.cache.query.internal.aggregate;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
+import java.util.Arrays;
 import java.util.HashSet;
 import java.util.Set;
 
 import org.junit.Test;
 
+import org.apache.geode.internal.util.BlobHelper;
+
 
 public class AggregatorJUnitTest {
 
@@ -199,4 +203,61 @@ public class AggregatorJUnitTest {
     assertEquals(1, ((Integer) min.terminate()).intValue());
   }
 
+  @Test
+  public void testMemberNodesMergeBucketPartials() throws Exception {
+    AvgBucketNode bucket1 = new AvgBucketNode();
+    bucket1.accumulate(new Integer(1));
+    bucket1.accumulate(new Integer(2));
+    AvgBucketNode bucket2 = new AvgBucketNode();
+    bucket2.accumulate(new Integer(6));
+
+    AvgMemberNode avgMember = new AvgMemberNode();
+    avgMember.accumulate(bucket1.terminate());
+    avgMember.accumulate(bucket2.terminate());
+    Object[] partial = (Object[]) avgMember.terminate();
+    assertEquals(3, ((Number) partial[0]).intValue());
+    assertEquals(9, ((Number) partial[1]).intValue());
+
+    AvgPRQueryNode avgPrQ = new AvgPRQueryNode();
+    avgPrQ.accumulate(partial);
+    assertEquals(3, ((Number) avgPrQ.terminate()).intValue());
+
+    DistinctMemberNode distinctMember = new DistinctMemberNode();
+    distinctMember.accumulate(new HashSet<>(Arrays.asList(1, 2, 3)));
+    distinctMember.accumulate(new HashSet<>(Arrays.asList(3, 4)));
+    assertEquals(4, ((Set) distinctMember.terminate()).size());
+  }
+
+  @Test
+  public void testApproximateCountDistinct() throws Exception {
+    CountDistinctBucketNode bucket1 = new CountDistinctBucketNode();
+    CountDistinctBucketNode bucket2 = new CountDistinctBucketNode();
+    for (int i = 0; i < 100; i++) {
+      bucket1.accumulate(i);
+      bucket2.accumulate(i + 50);
+    }
+    bucket1.accumulate(null);
+
+    CountDistinctBucketNode member = new CountDistinctBucketNode();
+    member.accumulate(bucket1.terminate());
+    member.accumulate(bucket2.terminate());
+
+    // a member that does not approximate sends its distinct values
+    Set<Integer> values = new HashSet<Integer>();
+    for (int i = 140; i < 160; i++) {
+      values.add(i);
+    }
+
+    // the partial result is sent to the query node serialized
+    Object partial = member.terminate();
+    assertTrue(partial instanceof byte[]);
+    partial = BlobHelper.deserializeBlob(BlobHelper.serializeToBlob(partial));
+
+    CountDistinctPRQueryNode cdpr = new CountDistinctPRQueryNode();
+    cdpr.accumulate(partial);
+    cdpr.accumulate(values);
+    int count = ((Number) cdpr.terminate()).intValue();
+    assertTrue("count was " + count, count >= 157 && count <= 163);
+  }
+
 }
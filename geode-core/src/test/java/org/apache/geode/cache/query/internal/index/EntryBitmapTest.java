@@ -0,0 +1,129 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.cache.query.internal.index;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PrimitiveIterator;
+
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import org.apache.geode.test.junit.categories.OQLIndexTest;
+
+@Category({OQLIndexTest.class})
+public class EntryBitmapTest {
+
+  private static EntryBitmap bitmapOf(int from, int to, int step) {
+    EntryBitmap bitmap = new EntryBitmap();
+    for (int i = from; i < to; i += step) {
+      bitmap.add(i);
+    }
+    return bitmap;
+  }
+
+  private static List<Integer> toList(EntryBitmap bitmap) {
+    List<Integer> ordinals = new ArrayList<>();
+    PrimitiveIterator.OfInt iterator = bitmap.iterator();
+    while (iterator.hasNext()) {
+      ordinals.add(iterator.nextInt());
+    }
+    return ordinals;
+  }
+
+  @Test
+  public void addsRemovesAndContainsOrdinals() {
+    EntryBitmap bitmap = new EntryBitmap();
+
+    assertThat(bitmap.isEmpty()).isTrue();
+    assertThat(bitmap.add(7)).isTrue();
+    assertThat(bitmap.add(7)).isFalse();
+    assertThat(bitmap.add(70000)).isTrue();
+
+    assertThat(bitmap.contains(7)).isTrue();
+    assertThat(bitmap.contains(70000)).isTrue();
+    assertThat(bitmap.contains(8)).isFalse();
+    assertThat(bitmap.getCardinality()).isEqualTo(2);
+
+    assertThat(bitmap.remove(7)).isTrue();
+    assertThat(bitmap.remove(7)).isFalse();
+    assertThat(bitmap.contains(7)).isFalse();
+    assertThat(bitmap.getCardinality()).isEqualTo(1);
+  }
+
+  @Test
+  public void keepsOrdinalsWhenChunkGrowsIntoWordsAndShrinksBack() {
+    EntryBitmap bitmap = bitmapOf(0, 10000, 1);
+
+    assertThat(bitmap.getCardinality()).isEqualTo(10000);
+    assertThat(toList(bitmap)).hasSize(10000).startsWith(0, 1, 2).endsWith(9998, 9999);
+
+    for (int i = 0; i < 10000; i += 2) {
+      bitmap.remove(i);
+    }
+
+    assertThat(bitmap.getCardinality()).isEqualTo(5000);
+    assertThat(bitmap.contains(1)).isTrue();
+    assertThat(bitmap.contains(2)).isFalse();
+    assertThat(toList(bitmap)).startsWith(1, 3, 5).endsWith(9997, 9999);
+  }
+
+  @Test
+  public void combinesBitmaps() {
+    EntryBitmap evens = bitmapOf(0, 200000, 2);
+    EntryBitmap threes = bitmapOf(0, 200000, 3);
+
+    EntryBitmap and = evens.and(threes);
+    EntryBitmap or = evens.or(threes);
+    EntryBitmap andNot = evens.andNot(threes);
+
+    for (int i = 0; i < 200000; i++) {
+      assertThat(and.contains(i)).isEqualTo(i % 6 == 0);
+      assertThat(or.contains(i)).isEqualTo(i % 2 == 0 || i % 3 == 0);
+      assertThat(andNot.contains(i)).isEqualTo(i % 2 == 0 && i % 3 != 0);
+    }
+    assertThat(and.getCardinality()).isEqualTo(toList(and).size());
+    assertThat(or.getCardinality()).isEqualTo(toList(or).size());
+    assertThat(andNot.getCardinality()).isEqualTo(toList(andNot).size());
+  }
+
+  @Test
+  public void combiningLeavesOperandsUnchanged() {
+    EntryBitmap first = bitmapOf(0, 100, 1);
+    EntryBitmap second = bitmapOf(50, 150, 1);
+
+    first.and(second);
+    first.or(second);
+    first.andNot(second);
+
+    assertThat(first.getCardinality()).isEqualTo(100);
+    assertThat(second.getCardinality()).isEqualTo(100);
+  }
+
+  @Test
+  public void copyIsIndependent() {
+    EntryBitmap bitmap = bitmapOf(0, 5000, 1);
+    EntryBitmap copy = bitmap.copy();
+
+    copy.remove(0);
+    copy.add(100000);
+
+    assertThat(bitmap.contains(0)).isTrue();
+    assertThat(bitmap.contains(100000)).isFalse();
+    assertThat(copy.getCardinality()).isEqualTo(5000);
+  }
+}
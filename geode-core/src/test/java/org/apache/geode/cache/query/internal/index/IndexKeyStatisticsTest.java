@@ -0,0 +1,136 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.cache.query.internal.index;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import org.apache.geode.cache.query.QueryService;
+import org.apache.geode.cache.query.internal.index.IndexStore.IndexStoreEntry;
+import org.apache.geode.cache.query.internal.parse.OQLLexerTokenTypes;
+import org.apache.geode.test.junit.categories.OQLIndexTest;
+
+@Category({OQLIndexTest.class})
+public class IndexKeyStatisticsTest {
+
+  private final List<IndexStoreEntry> entries = new ArrayList<>();
+
+  private void addEntries(Object key, int count) {
+    for (int i = 0; i < count; i++) {
+      IndexStoreEntry entry = mock(IndexStoreEntry.class);
+      when(entry.getDeserializedKey()).thenReturn(key);
+      entries.add(entry);
+    }
+  }
+
+  private IndexKeyStatistics build() {
+    return IndexKeyStatistics.build(entries.iterator(), entries.size(), 0);
+  }
+
+  @Test
+  public void countsEntriesAndDistinctKeys() {
+    for (int i = 0; i < 100; i++) {
+      addEntries(i, 3);
+    }
+
+    IndexKeyStatistics statistics = build();
+
+    assertThat(statistics.getEntryCount()).isEqualTo(300);
+    // the distinct keys are estimated
+    assertThat(statistics.getDistinctKeyCount()).isBetween(98L, 102L);
+    assertThat(statistics.getAverageEntriesPerKey()).isBetween(2L, 3L);
+  }
+
+  @Test
+  public void nullAndUndefinedKeysAreNotCounted() {
+    addEntries(IndexManager.NULL, 10);
+    addEntries(QueryService.UNDEFINED, 10);
+    addEntries(1, 5);
+
+    IndexKeyStatistics statistics = build();
+
+    assertThat(statistics.getEntryCount()).isEqualTo(5);
+    assertThat(statistics.getDistinctKeyCount()).isEqualTo(1);
+  }
+
+  @Test
+  public void rangeEstimatesFollowSkewedDistribution() {
+    // half of the entries have keys below 10, the other half spread up to 10000
+    for (int i = 0; i < 10; i++) {
+      addEntries(i, 500);
+    }
+    for (int i = 10; i < 10000; i += 2) {
+      addEntries(i, 1);
+    }
+
+    IndexKeyStatistics statistics = build();
+    long total = statistics.getEntryCount();
+    long tolerance = total / IndexKeyStatistics.HISTOGRAM_BUCKETS;
+
+    assertThat(statistics.estimateRangeSize(10, OQLLexerTokenTypes.TOK_LT, 0))
+        .isBetween(5000 - tolerance, 5000 + tolerance);
+    assertThat(statistics.estimateRangeSize(10, OQLLexerTokenTypes.TOK_GE, 1))
+        .isBetween(total - 5000 - tolerance, total - 5000 + tolerance);
+    assertThat(statistics.estimateRangeSize(9000, OQLLexerTokenTypes.TOK_GT, 1))
+        .isLessThanOrEqualTo(500 + tolerance);
+  }
+
+  @Test
+  public void rangeEstimatesAreBoundedByEntryCount() {
+    for (int i = 0; i < 1000; i++) {
+      addEntries(i, 1);
+    }
+
+    IndexKeyStatistics statistics = build();
+
+    assertThat(statistics.estimateRangeSize(-1, OQLLexerTokenTypes.TOK_LT, 0)).isEqualTo(0);
+    assertThat(statistics.estimateRangeSize(-1, OQLLexerTokenTypes.TOK_GE, 0)).isEqualTo(1000);
+    assertThat(statistics.estimateRangeSize(5000, OQLLexerTokenTypes.TOK_LE, 0)).isEqualTo(1000);
+    assertThat(statistics.estimateRangeSize(5000, OQLLexerTokenTypes.TOK_GT, 0)).isEqualTo(0);
+  }
+
+  @Test
+  public void staleStatisticsDoNotEstimateNegativeSizes() {
+    for (int i = 0; i < 100; i++) {
+      addEntries(i, 1);
+    }
+
+    IndexKeyStatistics statistics = build();
+
+    // the key has more entries now than all of the entries counted
+    for (int operator : new int[] {OQLLexerTokenTypes.TOK_LT, OQLLexerTokenTypes.TOK_LE,
+        OQLLexerTokenTypes.TOK_GT, OQLLexerTokenTypes.TOK_GE}) {
+      assertThat(statistics.estimateRangeSize(50, operator, 500)).isNotNegative();
+      assertThat(statistics.estimateRangeSize(500, operator, 500)).isNotNegative();
+    }
+    assertThat(statistics.estimateRangeSize(50, OQLLexerTokenTypes.TOK_GT, 500)).isEqualTo(0);
+  }
+
+  @Test
+  public void emptyIndexEstimatesNoEntries() {
+    IndexKeyStatistics statistics = build();
+
+    assertThat(statistics.getEntryCount()).isEqualTo(0);
+    assertThat(statistics.getAverageEntriesPerKey()).isEqualTo(0);
+    assertThat(statistics.estimateRangeSize(1, OQLLexerTokenTypes.TOK_GT, 0)).isEqualTo(0);
+  }
+}
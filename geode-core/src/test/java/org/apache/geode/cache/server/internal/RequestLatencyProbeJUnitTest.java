@@ -0,0 +1,78 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.cache.server.internal;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import org.apache.geode.cache.server.ServerLoad;
+
+public class RequestLatencyProbeJUnitTest {
+
+  @Test
+  public void idleServerLoadMatchesConnectionCount() {
+    RequestLatencyProbe probe = new RequestLatencyProbe();
+    ServerMetricsImpl metrics = new ServerMetricsImpl(800);
+    for (int i = 0; i < 100; i++) {
+      metrics.incConnectionCount();
+    }
+
+    ServerLoad load = probe.getLoad(metrics);
+    assertEquals(0.125, load.getConnectionLoad(), .0001f);
+    assertEquals(1 / 800f, load.getLoadPerConnection(), .0001f);
+  }
+
+  @Test
+  public void requestsInProgressCountAsConnections() {
+    RequestLatencyProbe probe = new RequestLatencyProbe();
+    ServerMetricsImpl metrics = new ServerMetricsImpl(800);
+    metrics.incConnectionCount();
+    metrics.requestStarted();
+
+    ServerLoad load = probe.getLoad(metrics);
+    assertEquals(2 / 800f, load.getConnectionLoad(), .0001f);
+  }
+
+  @Test
+  public void slowRequestsIncreaseLoad() {
+    RequestLatencyProbe probe = new RequestLatencyProbe();
+    ServerMetricsImpl metrics = new ServerMetricsImpl(800);
+    metrics.incConnectionCount();
+    long referenceTime = TimeUnit.MILLISECONDS.toNanos(RequestLatencyProbe.REFERENCE_REQUEST_TIME);
+    metrics.requestStarted();
+    metrics.requestEnded(referenceTime);
+    metrics.requestStarted();
+    metrics.requestEnded(3 * referenceTime);
+    metrics.sampleRequestTime();
+
+    ServerLoad load = probe.getLoad(metrics);
+    assertEquals(3 / 800f, load.getConnectionLoad(), .0001f);
+    assertEquals(3 / 800f, load.getLoadPerConnection(), .0001f);
+  }
+
+  @Test
+  public void averageIsKeptWhenNoRequestWasProcessed() {
+    ServerMetricsImpl metrics = new ServerMetricsImpl(800);
+    metrics.requestStarted();
+    metrics.requestEnded(1000);
+    metrics.sampleRequestTime();
+    metrics.sampleRequestTime();
+
+    assertEquals(1000, metrics.getAverageRequestTime());
+  }
+}
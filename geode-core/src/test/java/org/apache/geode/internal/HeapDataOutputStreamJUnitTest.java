@@ -14,7 +14,10 @@
  */
 package org.apache.geode.internal;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 import java.io.DataInputStream;
@@ -162,4 +165,83 @@ public class HeapDataOutputStreamJUnitTest {
     }
   }
 
+
+  @Test
+  public void testPooledStreamReusesReleasedBuffers() {
+    HeapDataOutputStream out = HeapDataOutputStream.pooled(1024, Version.CURRENT);
+    out.write(new byte[3000], 0, 3000);
+    assertEquals(3000, out.toByteArray().length);
+    out.release();
+
+    long allocated = HeapBufferPool.getBuffersAllocated();
+    HeapDataOutputStream out2 = HeapDataOutputStream.pooled(1024, Version.CURRENT);
+    out2.write(new byte[3000], 0, 3000);
+    out2.release();
+    assertEquals(allocated, HeapBufferPool.getBuffersAllocated());
+  }
+
+  @Test
+  public void testPooledStreamDoesNotShareItsBuffers() {
+    byte[] bytes = new byte[1024];
+    Arrays.fill(bytes, (byte) 1);
+    HeapDataOutputStream out = HeapDataOutputStream.pooled(1024, Version.CURRENT);
+    out.write(bytes, 0, bytes.length);
+    byte[] actual = out.toByteArray();
+    out.release();
+
+    HeapDataOutputStream out2 = HeapDataOutputStream.pooled(1024, Version.CURRENT);
+    out2.write(new byte[1024], 0, 1024);
+    assertArrayEquals(bytes, actual);
+    assertNotSame(actual, out2.toByteArray());
+    out2.release();
+  }
+
+  @Test
+  public void testReleasedPooledStreamIsEmpty() {
+    HeapDataOutputStream out = HeapDataOutputStream.pooled(1024, Version.CURRENT);
+    out.writeInt(1);
+    out.release();
+    assertEquals(0, out.size());
+  }
+
+  @Test
+  public void testReleasingPooledStreamTwiceGivesItsBuffersBackOnce() {
+    HeapDataOutputStream out = HeapDataOutputStream.pooled(1024, Version.CURRENT);
+    out.writeInt(1);
+    out.release();
+    out.release();
+    out.close();
+
+    HeapDataOutputStream out2 = HeapDataOutputStream.pooled(1024, Version.CURRENT);
+    HeapDataOutputStream out3 = HeapDataOutputStream.pooled(1024, Version.CURRENT);
+    out2.writeInt(2);
+    out3.writeInt(3);
+    assertArrayEquals(new byte[] {0, 0, 0, 2}, out2.toByteArray());
+    assertArrayEquals(new byte[] {0, 0, 0, 3}, out3.toByteArray());
+    out2.release();
+    out3.release();
+  }
+
+  @Test
+  public void testPoolKeepsAtMostMaxBytes() {
+    int count = 2 * HeapBufferPool.MAX_BYTES / 1024;
+    HeapDataOutputStream[] streams = new HeapDataOutputStream[count];
+    for (int i = 0; i < count; i++) {
+      streams[i] = HeapDataOutputStream.pooled(1024, Version.CURRENT);
+    }
+    for (HeapDataOutputStream stream : streams) {
+      stream.release();
+    }
+    assertTrue(HeapBufferPool.getPooledBytes() <= HeapBufferPool.MAX_BYTES);
+  }
+
+  @Test
+  public void testLargePooledStreamIsNotPooled() {
+    long allocated = HeapBufferPool.getBuffersAllocated();
+    HeapDataOutputStream out = HeapDataOutputStream.pooled(1024 * 1024, Version.CURRENT);
+    out.writeInt(1);
+    out.release();
+    assertEquals(allocated, HeapBufferPool.getBuffersAllocated());
+    assertEquals(4, out.toByteArray().length);
+  }
 }
@@ -0,0 +1,205 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.internal.cache.persistence.query;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import org.apache.geode.internal.cache.persistence.query.IndexMap.IndexEntry;
+import org.apache.geode.pdx.internal.PdxString;
+import org.apache.geode.test.junit.categories.OQLIndexTest;
+
+@Category({OQLIndexTest.class})
+public class OffHeapIndexMapJUnitTest {
+
+  private final OffHeapIndexMap map = new OffHeapIndexMap();
+
+  @After
+  public void destroy() {
+    map.destroy();
+  }
+
+  @Test
+  public void entriesAreSortedByIndexKeyThenRegionKey() {
+    map.put(2, "b", null);
+    map.put(1, "c", null);
+    map.put(2, "a", null);
+    map.put(1, "a", null);
+
+    assertThat(toList(map.iterator())).containsExactly("1:a", "1:c", "2:a", "2:b");
+    assertThat(toList(map.descendingIterator())).containsExactly("2:b", "2:a", "1:c", "1:a");
+    assertThat(map.size()).isEqualTo(4);
+  }
+
+  @Test
+  public void putReplacesTheValueOfAnEntry() {
+    map.put(1, "a", "x");
+    map.put(1, "a", "y");
+
+    IndexEntry entry = map.get(1).next();
+    assertThat(entry.getValue().getDeserializedForReading()).isEqualTo("y");
+    assertThat(map.size()).isEqualTo(1);
+  }
+
+  @Test
+  public void entriesWithoutValueHaveNullValue() {
+    map.put(1, "a", null);
+
+    assertThat(map.get(1).next().getValue()).isNull();
+  }
+
+  @Test
+  public void removeOnlyRemovesTheGivenRegionKey() {
+    map.put(1, "a", null);
+    map.put(1, "b", null);
+    map.remove(1, "a");
+    map.remove(1, "c");
+
+    assertThat(toList(map.get(1))).containsExactly("1:b");
+    assertThat(map.size()).isEqualTo(1);
+  }
+
+  @Test
+  public void numericKeysOfDifferentTypesAreCompared() {
+    map.put(2L, "a", null);
+    map.put(1.5f, "b", null);
+    map.put(1, "c", null);
+
+    assertThat(toList(map.iterator())).containsExactly("1:c", "1.5:b", "2:a");
+  }
+
+  @Test
+  public void stringKeysAreSortedLikeStrings() {
+    String[] keys = {"b", "ab", "a", "", "\u00e9t\u00e9", "\u20ac", "a\u0000", "\uffff", "B"};
+    for (String key : keys) {
+      map.put(key, key, null);
+    }
+
+    List<String> sortedKeys = new ArrayList<>(Arrays.asList(keys));
+    sortedKeys.sort(null);
+    List<String> expected = new ArrayList<>();
+    for (String key : sortedKeys) {
+      expected.add(key + ":" + key);
+    }
+    assertThat(toList(map.iterator())).containsExactlyElementsOf(expected);
+    for (String key : keys) {
+      assertThat(toList(map.get(key))).containsExactly(key + ":" + key);
+    }
+    assertThat(toList(map.iterator("a", false, "b", false))).containsExactly("a\u0000:a\u0000",
+        "ab:ab");
+  }
+
+  @Test
+  public void pdxStringKeysAreReadAsStrings() {
+    map.put(new PdxString("b"), "r1", null);
+    map.put(new PdxString("a"), "r2", null);
+    map.put(new PdxString("c"), "r3", null);
+
+    assertThat(toList(map.get(new PdxString("b")))).containsExactly("b:r1");
+    assertThat(toList(map.get("b"))).containsExactly("b:r1");
+    assertThat(toList(map.iterator(new PdxString("a"), false, "c", true))).containsExactly("b:r1",
+        "c:r3");
+    assertThat(map.size(new PdxString("a"), new PdxString("b"))).isEqualTo(2);
+
+    map.remove(new PdxString("b"), "r1");
+    assertThat(toList(map.iterator())).containsExactly("a:r2", "c:r3");
+  }
+
+  @Test
+  public void rangeIteratorsHonorInclusiveBounds() {
+    for (int i = 0; i < 10; i++) {
+      map.put(i, "r" + i, null);
+    }
+
+    assertThat(toList(map.iterator(2, true, 5, false))).containsExactly("2:r2", "3:r3", "4:r4");
+    assertThat(toList(map.iterator(2, false, 5, true))).containsExactly("3:r3", "4:r4", "5:r5");
+    assertThat(toList(map.iterator(7, false))).containsExactly("8:r8", "9:r9");
+    assertThat(toList(map.descendingIterator(2, true))).containsExactly("2:r2", "1:r1", "0:r0");
+  }
+
+  @Test
+  public void rangeIteratorWithStartAfterEndIsDescending() {
+    for (int i = 0; i < 10; i++) {
+      map.put(i, "r" + i, null);
+    }
+
+    assertThat(toList(map.iterator(5, true, 2, false))).containsExactly("5:r5", "4:r4", "3:r3");
+  }
+
+  @Test
+  public void manyEntriesAreSplitIntoBlocks() {
+    int count = OffHeapIndexMap.MAX_BLOCK_ENTRIES * 5;
+    // insert in an order that is neither ascending nor descending
+    for (int i = 0; i < count; i++) {
+      int key = (i * 7919) % count;
+      map.put(key, "r" + key, null);
+    }
+
+    assertThat(map.getBlockCount()).isGreaterThan(1);
+    assertThat(map.size()).isEqualTo(count);
+    assertThat(map.size(10, 19)).isEqualTo(10);
+    assertThat(map.sizeToEnd(count - 5)).isEqualTo(5);
+    assertThat(map.sizeFromStart(4)).isEqualTo(5);
+
+    List<Object> keys = new ArrayList<>();
+    CloseableIterator<IndexEntry> iterator = map.iterator();
+    while (iterator.hasNext()) {
+      keys.add(iterator.next().getKey().getDeserializedForReading());
+    }
+    assertThat(keys).hasSize(count);
+    for (int i = 0; i < count; i++) {
+      assertThat(keys.get(i)).isEqualTo(i);
+    }
+
+    for (int i = 0; i < count; i += 2) {
+      map.remove(i, "r" + i);
+    }
+    assertThat(map.size()).isEqualTo(count / 2);
+    assertThat(toList(map.iterator(10, true, 15, true))).containsExactly("11:r11", "13:r13",
+        "15:r15");
+    assertThat(toList(map.iterator(15, true, 10, true))).containsExactly("15:r15", "13:r13",
+        "11:r11");
+  }
+
+  @Test
+  public void destroyRemovesAllEntries() {
+    map.put(1, "a", null);
+    map.destroy();
+
+    assertThat(map.size()).isZero();
+    assertThat(map.iterator().hasNext()).isFalse();
+  }
+
+  private static List<String> toList(CloseableIterator<IndexEntry> iterator) {
+    List<String> entries = new ArrayList<>();
+    try {
+      while (iterator.hasNext()) {
+        IndexEntry entry = iterator.next();
+        entries.add(entry.getKey().getDeserializedForReading() + ":"
+            + entry.getRegionKey().getDeserializedForReading());
+      }
+    } finally {
+      iterator.close();
+    }
+    return entries;
+  }
+}
@@ -14,15 +14,20 @@
  */
 package org.apache.geode.internal.cache.tier.sockets;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.net.InetAddress;
 import java.net.InetSocketAddress;
@@ -30,12 +35,16 @@ import java.net.ServerSocket;
 import java.net.Socket;
 import java.net.SocketTimeoutException;
 import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Random;
 
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.experimental.categories.Category;
 
+import org.apache.geode.cache.client.internal.ConnectionStats;
 import org.apache.geode.internal.Version;
+import org.apache.geode.internal.cache.tier.MessageType;
 import org.apache.geode.test.junit.categories.ClientServerTest;
 
 @Category({ClientServerTest.class})
@@ -171,4 +180,57 @@ public class MessageJUnitTest {
       }
     }
   }
+
+  @Test
+  public void compressedMessageIsReadBack() throws Exception {
+    char[] chars = new char[2000];
+    Arrays.fill(chars, 'a');
+    String value = new String(chars);
+    byte[] bytes = new byte[500];
+    ConnectionStats stats = mock(ConnectionStats.class);
+
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    Message sent = new Message(2, Version.CURRENT);
+    sent.setComms(mock(Socket.class), null, out, ByteBuffer.allocate(100), stats);
+    sent.setMessageType(MessageType.PUT);
+    sent.setCompressionThreshold(1000);
+    sent.addStringPart(value);
+    sent.addBytesPart(bytes);
+    sent.send();
+
+    verify(stats).incCompressedMessages(anyInt(), anyInt());
+    assertTrue(out.size() < value.length());
+
+    Message received = receive(out.toByteArray());
+    assertEquals(MessageType.PUT, received.getMessageType());
+    assertEquals(2, received.getNumberOfParts());
+    assertEquals(value, received.getPart(0).getString());
+    assertArrayEquals(bytes, received.getPart(1).getSerializedForm());
+  }
+
+  @Test
+  public void incompressibleMessageIsSentUncompressed() throws Exception {
+    byte[] bytes = new byte[2000];
+    new Random(0).nextBytes(bytes);
+    ConnectionStats stats = mock(ConnectionStats.class);
+
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    Message sent = new Message(1, Version.CURRENT);
+    sent.setComms(mock(Socket.class), null, out, ByteBuffer.allocate(100), stats);
+    sent.setMessageType(MessageType.PUT);
+    sent.setCompressionThreshold(1000);
+    sent.addBytesPart(bytes);
+    sent.send();
+
+    verify(stats, never()).incCompressedMessages(anyInt(), anyInt());
+    assertArrayEquals(bytes, receive(out.toByteArray()).getPart(0).getSerializedForm());
+  }
+
+  private Message receive(byte[] wire) throws IOException {
+    Message received = new Message(0, Version.CURRENT);
+    received.setComms(mock(Socket.class), new ByteArrayInputStream(wire), null,
+        ByteBuffer.allocate(100), mock(MessageStats.class));
+    received.receive();
+    return received;
+  }
 }
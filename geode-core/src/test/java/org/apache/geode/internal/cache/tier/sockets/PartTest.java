@@ -14,9 +14,12 @@
  */
 package org.apache.geode.internal.cache.tier.sockets;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 import java.io.OutputStream;
 import java.nio.ByteBuffer;
@@ -24,6 +27,7 @@ import java.nio.ByteBuffer;
 import org.junit.Test;
 import org.junit.experimental.categories.Category;
 
+import org.apache.geode.internal.offheap.StoredObject;
 import org.apache.geode.test.junit.categories.ClientServerTest;
 
 @Category({ClientServerTest.class})
@@ -39,4 +43,40 @@ public class PartTest {
 
     verify(mockPart, times(1)).writeTo(mockOutputStream, mockByteBuffer);
   }
+
+  @Test
+  public void setPartStateRetainsOffHeapValueUntilCleared() {
+    StoredObject storedObject = mock(StoredObject.class);
+    when(storedObject.getDataSize()).thenReturn(10);
+    when(storedObject.hasRefCount()).thenReturn(true);
+    when(storedObject.retain()).thenReturn(true);
+    Part part = new Part();
+
+    part.setPartState(storedObject, true);
+
+    verify(storedObject, times(1)).retain();
+    verify(storedObject, never()).release();
+    verify(storedObject, never()).getValueAsHeapByteArray();
+    assertThat(part.getLength()).isEqualTo(10);
+
+    part.clear();
+
+    verify(storedObject, times(1)).release();
+    assertThat(part.getLength()).isEqualTo(0);
+  }
+
+  @Test
+  public void setPartStateCopiesValueWithoutRefCount() {
+    StoredObject storedObject = mock(StoredObject.class);
+    when(storedObject.getDataSize()).thenReturn(3);
+    when(storedObject.hasRefCount()).thenReturn(false);
+    when(storedObject.getValueAsHeapByteArray()).thenReturn(new byte[] {1, 2, 3});
+    Part part = new Part();
+
+    part.setPartState(storedObject, false);
+    part.clear();
+
+    verify(storedObject, never()).retain();
+    verify(storedObject, never()).release();
+  }
 }
@@ -269,6 +269,18 @@ public class PdxInstanceImplTest {
     assertEquals(boolean[].class, instance.getField(booleanArrayField.getFieldName()).getClass());
   }
 
+  @Test
+  public void testGetRawFieldOfType() {
+    PdxInstanceImpl pdxInstance = (PdxInstanceImpl) instance;
+    for (PdxField field : pdxType.getFields()) {
+      assertEquals(pdxInstance.getRawField(field.getFieldName()).getClass(),
+          pdxInstance.getRawField(field).getClass());
+    }
+    assertEquals(37, pdxInstance.getRawField(intField));
+    assertEquals(PdxString.class, pdxInstance.getRawField(stringField).getClass());
+    assertEquals("MOOF!", pdxInstance.getRawField(stringField).toString());
+  }
+
   @Test
   public void testHasField() {
     assertEquals(false, instance.hasField(nonExistentField.getFieldName()));